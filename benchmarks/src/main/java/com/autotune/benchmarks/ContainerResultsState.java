@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.benchmarks;
+
+import com.autotune.analyzer.recommendations.term.Terms;
+import com.autotune.common.data.result.ContainerData;
+import com.autotune.common.data.result.IntervalResults;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Containers with results over the length of a term, shared by the benchmarks of the recommendation hot paths
+ */
+@State(Scope.Benchmark)
+public class ContainerResultsState {
+    @Param({"short_term", "medium_term", "long_term"})
+    public String term;
+
+    @Param({"1", "10", "50"})
+    public int containers;
+
+    public Terms terms;
+    public Timestamp monitoringStartTime;
+    public List<ContainerData> containerDataList;
+
+    @Setup
+    public void setup() {
+        terms = SyntheticData.getTerm(term);
+        monitoringStartTime = Terms.getMonitoringStartTime(SyntheticData.END_TIME, terms.getDays());
+        int intervals = SyntheticData.getIntervals(terms);
+        containerDataList = new ArrayList<>();
+        for (int c = 0; c < containers; c++) {
+            containerDataList.add(SyntheticData.getContainerData(c, intervals));
+        }
+    }
+
+    public Map<Timestamp, IntervalResults> getResults(int container) {
+        return containerDataList.get(container).getResults();
+    }
+}
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.benchmarks;
+
+import com.autotune.common.data.result.IntervalResults;
+import com.autotune.analyzer.utils.AnalyzerConstants;
+import com.autotune.common.utils.CommonUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Percentile of the cpu usage of every container. CommonUtils.percentile sorts the list it is given, so each call
+ * gets a fresh copy of the unsorted usage, the copy is part of the measured cost as it is for the models.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PercentileBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class UsageState {
+        List<List<Double>> cpuUsage;
+
+        @Setup
+        public void setup(ContainerResultsState containerResultsState) {
+            cpuUsage = new ArrayList<>();
+            for (int c = 0; c < containerResultsState.containers; c++) {
+                List<Double> usage = new ArrayList<>();
+                for (IntervalResults intervalResults : containerResultsState.getResults(c).values()) {
+                    usage.add(intervalResults.getMetricResultsMap().get(AnalyzerConstants.MetricName.cpuUsage)
+                            .getAggregationInfoResult().getMax());
+                }
+                cpuUsage.add(usage);
+            }
+        }
+    }
+
+    @Benchmark
+    public void percentile(UsageState state, Blackhole blackhole) {
+        for (List<Double> usage : state.cpuUsage) {
+            blackhole.consume(CommonUtils.percentile(98, new ArrayList<>(usage)));
+        }
+    }
+}
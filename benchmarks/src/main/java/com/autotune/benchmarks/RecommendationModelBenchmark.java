@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.benchmarks;
+
+import com.autotune.analyzer.recommendations.RecommendationNotification;
+import com.autotune.analyzer.recommendations.model.CostBasedRecommendationModel;
+import com.autotune.analyzer.recommendations.model.PerformanceBasedRecommendationModel;
+import com.autotune.analyzer.recommendations.model.RecommendationModel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU and memory request recommendations of the cost and performance models, for every container
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecommendationModelBenchmark {
+    private final RecommendationModel costModel = new CostBasedRecommendationModel();
+    private final RecommendationModel performanceModel = new PerformanceBasedRecommendationModel();
+
+    @Benchmark
+    public void costModel(ContainerResultsState state, Blackhole blackhole) {
+        recommend(costModel, state, blackhole);
+    }
+
+    @Benchmark
+    public void performanceModel(ContainerResultsState state, Blackhole blackhole) {
+        recommend(performanceModel, state, blackhole);
+    }
+
+    private static void recommend(RecommendationModel model, ContainerResultsState state, Blackhole blackhole) {
+        for (int c = 0; c < state.containers; c++) {
+            ArrayList<RecommendationNotification> notifications = new ArrayList<>();
+            blackhole.consume(model.getCPURequestRecommendation(state.getResults(c), notifications));
+            blackhole.consume(model.getMemoryRequestRecommendation(state.getResults(c), notifications));
+            blackhole.consume(notifications);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.benchmarks;
+
+import com.autotune.analyzer.serviceObjects.Converters;
+import com.autotune.analyzer.serviceObjects.UpdateResultsAPIObject;
+import com.autotune.database.helper.DBHelpers;
+import com.autotune.database.table.KruizeResultsEntry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip of the results through the database entries, from the updateResults objects to the results table
+ * entries and back
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultsConverterBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ParsedResultsState {
+        List<UpdateResultsAPIObject> updateResultsAPIObjects;
+
+        @Setup
+        public void setup(UpdateResultsState updateResultsState) {
+            updateResultsAPIObjects = updateResultsState.parse();
+        }
+    }
+
+    @Benchmark
+    public List<KruizeResultsEntry> toResultsEntries(ParsedResultsState state) {
+        return toEntries(state.updateResultsAPIObjects);
+    }
+
+    @Benchmark
+    public List<UpdateResultsAPIObject> roundTrip(ParsedResultsState state) {
+        return DBHelpers.Converters.KruizeObjectConverters.convertResultEntryToUpdateResultsAPIObject(
+                toEntries(state.updateResultsAPIObjects));
+    }
+
+    private static List<KruizeResultsEntry> toEntries(List<UpdateResultsAPIObject> updateResultsAPIObjects) {
+        List<KruizeResultsEntry> entries = new ArrayList<>(updateResultsAPIObjects.size());
+        for (UpdateResultsAPIObject updateResultsAPIObject : updateResultsAPIObjects) {
+            entries.add(DBHelpers.Converters.KruizeObjectConverters.convertExperimentResultToExperimentResultsTable(
+                    Converters.KruizeObjectConverters.convertUpdateResultsAPIObjToExperimentResultData(updateResultsAPIObject)));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,243 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.benchmarks;
+
+import com.autotune.analyzer.kruizeObject.KruizeObject;
+import com.autotune.analyzer.recommendations.term.Terms;
+import com.autotune.analyzer.utils.AnalyzerConstants;
+import com.autotune.common.data.metrics.MetricAggregationInfoResults;
+import com.autotune.common.data.metrics.MetricResults;
+import com.autotune.common.data.result.ContainerData;
+import com.autotune.common.data.result.IntervalResults;
+import com.autotune.utils.KruizeConstants;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates reproducible usage data shaped like the results sent to updateResults, one interval per measurement
+ * duration over the length of a term.
+ */
+public final class SyntheticData {
+    public static final int MEASUREMENT_DURATION_MINS = 15;
+    public static final String PERFORMANCE_PROFILE = "resource-optimization-openshift";
+    public static final Timestamp END_TIME = Timestamp.from(Instant.parse("2024-06-30T00:00:00.000Z"));
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter
+            .ofPattern(KruizeConstants.DateFormats.STANDARD_JSON_DATE_FORMAT, Locale.ROOT).withZone(ZoneOffset.UTC);
+    private static final long SEED = 42;
+
+    private SyntheticData() {
+    }
+
+    /**
+     * Returns the default term of the given name, short_term, medium_term or long_term
+     */
+    public static Terms getTerm(String termName) {
+        Map<String, Terms> terms = new HashMap<>();
+        KruizeObject.setDefaultTerms(terms, new KruizeObject());
+        Terms term = terms.get(termName);
+        if (null == term) {
+            throw new IllegalArgumentException("Unknown term " + termName);
+        }
+        return term;
+    }
+
+    /**
+     * Returns the number of intervals covering the term
+     */
+    public static int getIntervals(Terms term) {
+        return term.getDays() * KruizeConstants.TimeConv.NO_OF_HOURS_PER_DAY * KruizeConstants.TimeConv.NO_OF_MINUTES_PER_HOUR
+                / MEASUREMENT_DURATION_MINS;
+    }
+
+    public static Timestamp getIntervalEndTime(int interval) {
+        return new Timestamp(END_TIME.getTime() - (long) interval * MEASUREMENT_DURATION_MINS * 60 * 1000);
+    }
+
+    /**
+     * Returns the results of a container, ending at END_TIME
+     *
+     * @param intervals number of intervals
+     * @param seed      varies the usage between containers
+     */
+    public static HashMap<Timestamp, IntervalResults> getContainerResults(int intervals, int seed) {
+        Random random = new Random(SEED + seed);
+        HashMap<Timestamp, IntervalResults> results = new HashMap<>();
+        for (int i = 0; i < intervals; i++) {
+            Timestamp intervalEndTime = getIntervalEndTime(i);
+            Timestamp intervalStartTime = getIntervalEndTime(i + 1);
+            IntervalResults intervalResults = new IntervalResults(intervalStartTime, intervalEndTime);
+            HashMap<AnalyzerConstants.MetricName, MetricResults> metricResultsMap = new HashMap<>();
+            double cpu = 0.2 + random.nextDouble() * 1.5;
+            double memory = 200 + random.nextDouble() * 600;
+            int pods = 1 + random.nextInt(3);
+            metricResultsMap.put(AnalyzerConstants.MetricName.cpuRequest, metricResults(AnalyzerConstants.MetricName.cpuRequest,
+                    null, null, 1.0 * pods, 1.0, "cores"));
+            metricResultsMap.put(AnalyzerConstants.MetricName.cpuLimit, metricResults(AnalyzerConstants.MetricName.cpuLimit,
+                    null, null, 2.0 * pods, 2.0, "cores"));
+            metricResultsMap.put(AnalyzerConstants.MetricName.cpuUsage, metricResults(AnalyzerConstants.MetricName.cpuUsage,
+                    cpu * 0.5, cpu, cpu * 0.8 * pods, cpu * 0.8, "cores"));
+            metricResultsMap.put(AnalyzerConstants.MetricName.cpuThrottle, metricResults(AnalyzerConstants.MetricName.cpuThrottle,
+                    0.0, cpu * 0.05, cpu * 0.02 * pods, cpu * 0.02, "cores"));
+            metricResultsMap.put(AnalyzerConstants.MetricName.memoryRequest, metricResults(AnalyzerConstants.MetricName.memoryRequest,
+                    null, null, 512.0 * pods, 512.0, "MiB"));
+            metricResultsMap.put(AnalyzerConstants.MetricName.memoryLimit, metricResults(AnalyzerConstants.MetricName.memoryLimit,
+                    null, null, 1024.0 * pods, 1024.0, "MiB"));
+            metricResultsMap.put(AnalyzerConstants.MetricName.memoryUsage, metricResults(AnalyzerConstants.MetricName.memoryUsage,
+                    memory * 0.6, memory, memory * 0.8 * pods, memory * 0.8, "MiB"));
+            metricResultsMap.put(AnalyzerConstants.MetricName.memoryRSS, metricResults(AnalyzerConstants.MetricName.memoryRSS,
+                    memory * 0.5, memory * 0.9, memory * 0.7 * pods, memory * 0.7, "MiB"));
+            intervalResults.setMetricResultsMap(metricResultsMap);
+            intervalResults.setDurationInMinutes((double) MEASUREMENT_DURATION_MINS);
+            results.put(intervalEndTime, intervalResults);
+        }
+        return results;
+    }
+
+    private static MetricResults metricResults(AnalyzerConstants.MetricName metricName, Double min, Double max, Double sum,
+                                               Double avg, String format) {
+        MetricAggregationInfoResults aggregationInfoResults = new MetricAggregationInfoResults();
+        aggregationInfoResults.setMin(min);
+        aggregationInfoResults.setMax(max);
+        aggregationInfoResults.setSum(sum);
+        aggregationInfoResults.setAvg(avg);
+        aggregationInfoResults.setFormat(format);
+        MetricResults metricResults = new MetricResults();
+        metricResults.setName(metricName.name());
+        metricResults.setFormat(format);
+        metricResults.setAggregationInfoResult(aggregationInfoResults);
+        return metricResults;
+    }
+
+    public static ContainerData getContainerData(int container, int intervals) {
+        ContainerData containerData = new ContainerData(getContainerName(container), "kruize/benchmark:1.0", null, new HashMap<>());
+        containerData.setResults(getContainerResults(intervals, container));
+        return containerData;
+    }
+
+    public static String getContainerName(int container) {
+        return "benchmark-container-" + container;
+    }
+
+    /**
+     * Returns a createExperiment payload for a deployment with the given number of containers
+     */
+    public static String getCreateExperimentPayload(String experimentName, int containers) {
+        JSONObject experiment = new JSONObject()
+                .put("version", "v2.0")
+                .put("experiment_name", experimentName)
+                .put("cluster_name", "benchmark-cluster")
+                .put("performance_profile", PERFORMANCE_PROFILE)
+                .put("mode", "monitor")
+                .put("target_cluster", "remote")
+                .put("kubernetes_objects", new JSONArray().put(getKubernetesObject(containers, -1, null)))
+                .put("trial_settings", new JSONObject().put("measurement_duration", MEASUREMENT_DURATION_MINS + "min"))
+                .put("recommendation_settings", new JSONObject().put("threshold", "0.1"));
+        return new JSONArray().put(experiment).toString();
+    }
+
+    /**
+     * Returns an updateResults payload with one entry per interval, for a deployment with the given number of containers
+     */
+    public static String getUpdateResultsPayload(String experimentName, int containers, int intervals) {
+        return getUpdateResultsPayload(experimentName, containers, 0, intervals);
+    }
+
+    /**
+     * Returns an updateResults payload with one entry per interval, skipping the newest intervals
+     *
+     * @param firstInterval number of intervals between the newest entry of the payload and END_TIME
+     */
+    public static String getUpdateResultsPayload(String experimentName, int containers, int firstInterval, int intervals) {
+        JSONArray payload = new JSONArray();
+        Random random = new Random(SEED + firstInterval);
+        for (int i = firstInterval + intervals - 1; i >= firstInterval; i--) {
+            payload.put(new JSONObject()
+                    .put("version", "v2.0")
+                    .put("experiment_name", experimentName)
+                    .put("interval_start_time", DATE_FORMATTER.format(getIntervalEndTime(i + 1).toInstant()))
+                    .put("interval_end_time", DATE_FORMATTER.format(getIntervalEndTime(i).toInstant()))
+                    .put("kubernetes_objects", new JSONArray().put(getKubernetesObject(containers, i, random))));
+        }
+        return payload.toString();
+    }
+
+    private static JSONObject getKubernetesObject(int containers, int interval, Random random) {
+        JSONArray containerArray = new JSONArray();
+        for (int c = 0; c < containers; c++) {
+            JSONObject container = new JSONObject()
+                    .put("container_image_name", "kruize/benchmark:1.0")
+                    .put("container_name", getContainerName(c));
+            if (null != random) {
+                double cpu = 0.2 + random.nextDouble() * 1.5;
+                double memory = 200 + random.nextDouble() * 600;
+                container.put("metrics", new JSONArray()
+                        .put(metricJson("cpuRequest", null, null, 1.0, 1.0, "cores"))
+                        .put(metricJson("cpuLimit", null, null, 2.0, 2.0, "cores"))
+                        .put(metricJson("cpuUsage", cpu * 0.5, cpu, cpu * 0.8, cpu * 0.8, "cores"))
+                        .put(metricJson("cpuThrottle", 0.0, cpu * 0.05, cpu * 0.02, cpu * 0.02, "cores"))
+                        .put(metricJson("memoryRequest", null, null, 512.0, 512.0, "MiB"))
+                        .put(metricJson("memoryLimit", null, null, 1024.0, 1024.0, "MiB"))
+                        .put(metricJson("memoryUsage", memory * 0.6, memory, memory * 0.8, memory * 0.8, "MiB"))
+                        .put(metricJson("memoryRSS", memory * 0.5, memory * 0.9, memory * 0.7, memory * 0.7, "MiB")));
+            }
+            containerArray.put(container);
+        }
+        return new JSONObject()
+                .put("type", "deployment")
+                .put("name", "benchmark-deployment")
+                .put("namespace", "default")
+                .put("containers", containerArray);
+    }
+
+    private static JSONObject metricJson(String name, Double min, Double max, Double sum, Double avg, String format) {
+        JSONObject aggregationInfo = new JSONObject();
+        if (null != min) {
+            aggregationInfo.put("min", min);
+        }
+        if (null != max) {
+            aggregationInfo.put("max", max);
+        }
+        aggregationInfo.put("sum", sum).put("avg", avg).put("format", format);
+        return new JSONObject().put("name", name)
+                .put("results", new JSONObject().put("aggregation_info", aggregationInfo));
+    }
+
+    /**
+     * Returns the performance profile used by the experiments of the benchmarks
+     */
+    public static String getPerformanceProfileJson() {
+        try (InputStream in = SyntheticData.class.getResourceAsStream("/resource_optimization_openshift.json")) {
+            if (null == in) {
+                throw new IllegalStateException("resource_optimization_openshift.json is missing");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
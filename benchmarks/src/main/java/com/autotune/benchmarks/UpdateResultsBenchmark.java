@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.benchmarks;
+
+import com.autotune.analyzer.serviceObjects.UpdateResultsAPIObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and validation of an updateResults payload
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UpdateResultsBenchmark {
+
+    @Benchmark
+    public List<UpdateResultsAPIObject> parse(UpdateResultsState state) {
+        return state.parse();
+    }
+
+    @Benchmark
+    public void parseAndValidate(UpdateResultsState state, Blackhole blackhole) {
+        for (UpdateResultsAPIObject updateResultsAPIObject : state.parse()) {
+            blackhole.consume(state.validator.validate(updateResultsAPIObject, UpdateResultsAPIObject.FullValidationSequence.class));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.benchmarks;
+
+import com.autotune.analyzer.adapters.DeviceDetailsAdapter;
+import com.autotune.analyzer.adapters.RecommendationItemAdapter;
+import com.autotune.analyzer.exceptions.InvalidValueException;
+import com.autotune.analyzer.kruizeObject.KruizeObject;
+import com.autotune.analyzer.performanceProfiles.PerformanceProfile;
+import com.autotune.analyzer.serviceObjects.Converters;
+import com.autotune.analyzer.serviceObjects.CreateExperimentAPIObject;
+import com.autotune.analyzer.serviceObjects.UpdateResultsAPIObject;
+import com.autotune.analyzer.services.UpdateResults;
+import com.autotune.analyzer.utils.AnalyzerConstants;
+import com.autotune.common.data.system.info.device.DeviceDetails;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.hibernate.validator.HibernateValidator;
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An experiment and an updateResults payload covering the length of a term, parsed and validated the way the
+ * updateResults API does, without a database
+ */
+@State(Scope.Benchmark)
+public class UpdateResultsState {
+    private static final String EXPERIMENT_NAME = "benchmark-experiment";
+
+    @Param({"short_term", "medium_term", "long_term"})
+    public String term;
+
+    @Param({"1", "10", "50"})
+    public int containers;
+
+    public String payload;
+    public Gson gson;
+    public Validator validator;
+    public KruizeObject kruizeObject;
+
+    @Setup
+    public void setup() throws Exception, InvalidValueException {
+        PerformanceProfile performanceProfile = Converters.KruizeObjectConverters
+                .convertInputJSONToCreatePerfProfile(SyntheticData.getPerformanceProfileJson());
+        // the validators look the profile up here before going to the database
+        UpdateResults.performanceProfilesMap.put(performanceProfile.getName(), performanceProfile);
+
+        CreateExperimentAPIObject createExperimentAPIObject = new Gson().fromJson(
+                SyntheticData.getCreateExperimentPayload(EXPERIMENT_NAME, containers), CreateExperimentAPIObject[].class)[0];
+        createExperimentAPIObject.setExperimentType(AnalyzerConstants.ExperimentType.CONTAINER);
+        kruizeObject = Converters.KruizeObjectConverters.convertCreateExperimentAPIObjToKruizeObject(createExperimentAPIObject);
+
+        payload = SyntheticData.getUpdateResultsPayload(EXPERIMENT_NAME, containers,
+                SyntheticData.getIntervals(SyntheticData.getTerm(term)));
+        gson = new GsonBuilder()
+                .registerTypeAdapter(Double.class, new UpdateResults.CustomNumberDeserializer())
+                .registerTypeAdapter(Integer.class, new UpdateResults.CustomNumberDeserializer())
+                .registerTypeAdapter(AnalyzerConstants.RecommendationItem.class, new RecommendationItemAdapter())
+                .registerTypeAdapter(DeviceDetails.class, new DeviceDetailsAdapter())
+                .create();
+        validator = Validation.byProvider(HibernateValidator.class)
+                .configure()
+                .messageInterpolator(new ParameterMessageInterpolator())
+                .failFast(true)
+                .buildValidatorFactory()
+                .getValidator();
+    }
+
+    /**
+     * Parses the payload and attaches the experiment to each entry
+     */
+    public List<UpdateResultsAPIObject> parse() {
+        List<UpdateResultsAPIObject> updateResultsAPIObjects = Arrays.asList(gson.fromJson(payload, UpdateResultsAPIObject[].class));
+        for (UpdateResultsAPIObject updateResultsAPIObject : updateResultsAPIObjects) {
+            updateResultsAPIObject.setKruizeObject(kruizeObject);
+        }
+        return updateResultsAPIObjects;
+    }
+}
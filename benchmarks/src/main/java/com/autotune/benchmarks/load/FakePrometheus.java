@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.benchmarks.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stand-in for the Prometheus HTTP API serving a fixed set of synthetic workloads.
+ * <p>
+ * Workload i is the deployment load-workload-i in the namespace load-ns-(i % namespaces), with the containers
+ * load-container-0 to load-container-(containers - 1). The metadata queries of the bulk API list these workloads,
+ * the max date queries return the end time, and the range queries return one series per matched container whose
+ * values only depend on the namespace, the container, the query and the timestamp, so every run sees the same data.
+ */
+public class FakePrometheus {
+    public static final String NAMESPACE_PREFIX = "load-ns-";
+    public static final String WORKLOAD_PREFIX = "load-workload-";
+    public static final String CONTAINER_PREFIX = "load-container-";
+    private static final String WORKLOAD_TYPE = "deployment";
+    private static final String IMAGE = "kruize/load:1.0";
+    private static final double MIB = 1024 * 1024;
+    private static final Pattern NAMESPACE_LABEL = Pattern.compile("\\bnamespace=\"([^\"]+)\"");
+    private static final Pattern CONTAINER_LABEL = Pattern.compile("\\bcontainer=\"([^\"]+)\"");
+
+    private final int workloads;
+    private final int containers;
+    private final int namespaces;
+    private final long endTimeSecs;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong instantQueries = new AtomicLong();
+    private final AtomicLong rangeQueries = new AtomicLong();
+    private final AtomicLong samples = new AtomicLong();
+
+    /**
+     * @param workloads  number of workloads
+     * @param containers number of containers of each workload
+     * @param namespaces number of namespaces the workloads are spread over
+     * @param endTime    time of the newest sample, returned by the max date queries
+     */
+    public FakePrometheus(int workloads, int containers, int namespaces, Instant endTime) throws IOException {
+        this.workloads = workloads;
+        this.containers = containers;
+        this.namespaces = Math.max(1, Math.min(namespaces, workloads));
+        this.endTimeSecs = endTime.getEpochSecond();
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        server.setExecutor(executor);
+        server.createContext("/api/v1/query", exchange -> respond(exchange, false));
+        server.createContext("/api/v1/query_range", exchange -> respond(exchange, true));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long getInstantQueries() {
+        return instantQueries.get();
+    }
+
+    public long getRangeQueries() {
+        return rangeQueries.get();
+    }
+
+    public long getSamples() {
+        return samples.get();
+    }
+
+    private void respond(HttpExchange exchange, boolean range) throws IOException {
+        JSONObject response;
+        int status = 200;
+        try {
+            Map<String, String> params = parseParams(exchange);
+            String query = params.getOrDefault("query", "");
+            if (range) {
+                rangeQueries.incrementAndGet();
+                response = success("matrix", rangeResult(query, Long.parseLong(params.get("start")),
+                        Long.parseLong(params.get("end")), Long.parseLong(params.get("step"))));
+            } else {
+                instantQueries.incrementAndGet();
+                response = success("vector", instantResult(query));
+            }
+        } catch (RuntimeException e) {
+            status = 400;
+            response = new JSONObject().put("status", "error").put("errorType", "bad_data").put("error", String.valueOf(e.getMessage()));
+        }
+        byte[] body = response.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> parseParams(HttpExchange exchange) throws IOException {
+        String encoded = exchange.getRequestURI().getRawQuery();
+        if ("POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            try (InputStream in = exchange.getRequestBody()) {
+                encoded = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+        Map<String, String> params = new HashMap<>();
+        if (null != encoded) {
+            for (String pair : encoded.split("&")) {
+                int separator = pair.indexOf('=');
+                if (separator > 0) {
+                    params.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                            URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return params;
+    }
+
+    private static JSONObject success(String resultType, JSONArray result) {
+        return new JSONObject().put("status", "success")
+                .put("data", new JSONObject().put("resultType", resultType).put("result", result));
+    }
+
+    private JSONArray instantResult(String query) {
+        JSONArray result = new JSONArray();
+        if (query.trim().equals("up")) {
+            result.put(vectorSample(new JSONObject().put("__name__", "up"), 1));
+        } else if (query.contains("kube_pod_container_info")) {
+            for (int w = 0; w < workloads; w++) {
+                for (int c = 0; c < containers; c++) {
+                    result.put(vectorSample(new JSONObject()
+                            .put("namespace", getNamespace(w))
+                            .put("workload", WORKLOAD_PREFIX + w)
+                            .put("workload_type", WORKLOAD_TYPE)
+                            .put("container", CONTAINER_PREFIX + c)
+                            .put("image", IMAGE), 1));
+                }
+            }
+        } else if (query.contains("kube_pod_owner")) {
+            for (int w = 0; w < workloads; w++) {
+                result.put(vectorSample(new JSONObject()
+                        .put("namespace", getNamespace(w))
+                        .put("workload", WORKLOAD_PREFIX + w)
+                        .put("workload_type", WORKLOAD_TYPE), 1));
+            }
+        } else if (query.contains("kube_namespace_status_phase")) {
+            for (int n = 0; n < namespaces; n++) {
+                result.put(vectorSample(new JSONObject().put("namespace", NAMESPACE_PREFIX + n), 1));
+            }
+        } else if (query.contains("timestamp(")) {
+            // max date of the container or namespace
+            result.put(vectorSample(labels(query, null), endTimeSecs));
+        }
+        return result;
+    }
+
+    private JSONObject vectorSample(JSONObject metric, double value) {
+        return new JSONObject().put("metric", metric)
+                .put("value", new JSONArray().put(endTimeSecs).put(format(value)));
+    }
+
+    private JSONArray rangeResult(String query, long start, long end, long step) {
+        JSONArray result = new JSONArray();
+        // no accelerators in the synthetic workloads
+        if (query.contains("DCGM_") || step <= 0) {
+            return result;
+        }
+        Matcher containerMatcher = CONTAINER_LABEL.matcher(query);
+        String container = containerMatcher.find() ? containerMatcher.group(1) : null;
+        JSONObject metric = labels(query, container);
+        String namespace = metric.optString("namespace", "");
+        double base = baseValue(query, namespace, container);
+        double factor = aggregationFactor(query);
+        int phase = Math.floorMod((namespace + "/" + container).hashCode(), 360);
+        JSONArray values = new JSONArray();
+        long first = Math.max(start, 0) + Math.floorMod(-start, step);
+        for (long t = first; t <= end && t <= endTimeSecs; t += step) {
+            // a daily cycle around the base value
+            double cycle = 1 + 0.25 * Math.sin(2 * Math.PI * (t % 86400) / 86400 + Math.toRadians(phase));
+            values.put(new JSONArray().put(t).put(format(base * factor * cycle)));
+        }
+        if (!values.isEmpty()) {
+            samples.addAndGet(values.length());
+            result.put(new JSONObject().put("metric", metric).put("values", values));
+        }
+        return result;
+    }
+
+    private static JSONObject labels(String query, String container) {
+        JSONObject metric = new JSONObject();
+        Matcher namespaceMatcher = NAMESPACE_LABEL.matcher(query);
+        if (namespaceMatcher.find()) {
+            metric.put("namespace", namespaceMatcher.group(1));
+        }
+        if (null != container) {
+            metric.put("container", container);
+        }
+        return metric;
+    }
+
+    /**
+     * Returns the mean value of the series, in cores or bytes, stable for a namespace and container
+     */
+    private static double baseValue(String query, String namespace, String container) {
+        double spread = Math.floorMod((namespace + "/" + container).hashCode(), 1000) / 1000.0;
+        boolean memory = query.contains("memory") || query.contains("bytes");
+        if (query.contains("kube_resourcequota")) {
+            return memory ? 8192 * MIB : 8;
+        } else if (query.contains("kube_pod_info") || query.contains("kube_pod_status_phase")) {
+            return 2;
+        } else if (query.contains("resource_requests")) {
+            return memory ? 512 * MIB : 1;
+        } else if (query.contains("resource_limits")) {
+            return memory ? 1024 * MIB : 2;
+        } else if (query.contains("throttled")) {
+            return 0.01 + 0.04 * spread;
+        } else if (memory) {
+            return (200 + 600 * spread) * MIB;
+        }
+        return 0.2 + 1.3 * spread;
+    }
+
+    private static double aggregationFactor(String query) {
+        String trimmed = query.trim().toLowerCase(Locale.ROOT);
+        if (trimmed.startsWith("min")) {
+            return 0.8;
+        } else if (trimmed.startsWith("max")) {
+            return 1.2;
+        }
+        return 1;
+    }
+
+    private static String format(double value) {
+        return Double.toString(value);
+    }
+
+    private String getNamespace(int workload) {
+        return NAMESPACE_PREFIX + (workload % namespaces);
+    }
+}
@@ -0,0 +1,576 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.benchmarks.load;
+
+import com.autotune.Autotune;
+import com.autotune.analyzer.utils.AnalyzerConstants;
+import com.autotune.benchmarks.SyntheticData;
+import com.autotune.utils.KruizeConstants;
+import com.autotune.utils.ServerContext;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.eclipse.jetty.server.Server;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URLEncoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Runs Kruize in-process against an embedded Postgres and a {@link FakePrometheus}, drives createExperiment,
+ * updateResults, updateRecommendations and bulk at fixed rates and reports the throughput and latencies of each
+ * API, the rows written to the DB and the peak heap usage.
+ * <p>
+ * Remote experiments are created with the openshift performance profile and fed synthetic results, while the bulk
+ * jobs import the workloads of the fake Prometheus and generate recommendations from its range queries. Run it from
+ * the repository root, which holds the migrations:
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.autotune.benchmarks.load.LoadHarness --duration 120 --workloads 50
+ * </pre>
+ * Kruize listens on AUTOTUNE_SERVER_PORT, 8080 by default. The heap figures cover the whole JVM, which also runs the
+ * load generator and the fake Prometheus.
+ */
+public class LoadHarness {
+    private static final String LOG_CONFIG_PROPERTY = "log4j2.configurationFile";
+    private static final String LOG_CONFIG = "log4j2-benchmarks.properties";
+    // no cluster, so the watches of the Kruize custom resources fail at once instead of timing out
+    private static final String KUBERNETES_MASTER_PROPERTY = "kubernetes.master";
+    private static final String KUBERNETES_MASTER = "https://127.0.0.1:1";
+    private static final String KUBERNETES_RETRY_PROPERTY = "kubernetes.request.retry.backoffLimit";
+    private static final String DATASOURCE_NAME = "prometheus-1";
+    private static final String EXPERIMENT_PREFIX = "load-exp-";
+    private static final Pattern JDBC_URL = Pattern.compile("jdbc:postgresql://([^:/]+)(?::(\\d+))?/([^?]+).*");
+    private static final long HEAP_SAMPLE_MILLIS = 50;
+    private static final long BULK_POLL_MILLIS = 500;
+    private static final long DRAIN_TIMEOUT_MINS = 5;
+
+    private final LoadOptions options;
+    private final int intervalsPerExperiment = SyntheticData.getIntervals(SyntheticData.getTerm(KruizeConstants.JSONKeys.LONG_TERM));
+    private final List<ExperimentState> experiments = new CopyOnWriteArrayList<>();
+    private final AtomicInteger experimentCounter = new AtomicInteger();
+    private final AtomicInteger updateCursor = new AtomicInteger();
+    private final AtomicInteger recommendCursor = new AtomicInteger();
+    private final AtomicBoolean bulkRunning = new AtomicBoolean();
+    private final AtomicLong heapPeakBytes = new AtomicLong();
+    private final Map<String, OperationStats> stats = new LinkedHashMap<>();
+    private KruizeClient client;
+
+    public LoadHarness(LoadOptions options) {
+        this.options = options;
+        for (String operation : List.of("createExperiment", "updateResults", "updateRecommendations", "bulk")) {
+            stats.put(operation, new OperationStats(operation));
+        }
+    }
+
+    public static void main(String[] args) {
+        if (null == System.getProperty(LOG_CONFIG_PROPERTY)) {
+            System.setProperty(LOG_CONFIG_PROPERTY, LOG_CONFIG);
+        }
+        if (null == System.getProperty(KUBERNETES_MASTER_PROPERTY)) {
+            System.setProperty(KUBERNETES_MASTER_PROPERTY, KUBERNETES_MASTER);
+            System.setProperty(KUBERNETES_RETRY_PROPERTY, "0");
+        }
+        LoadOptions options;
+        try {
+            options = LoadOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        int status = 0;
+        try {
+            new LoadHarness(options).run();
+        } catch (Exception e) {
+            e.printStackTrace();
+            status = 1;
+        }
+        // the services started by Kruize run on non-daemon threads
+        System.exit(status);
+    }
+
+    public void run() throws Exception {
+        EmbeddedPostgres embeddedPostgres = null;
+        FakePrometheus prometheus = null;
+        Server server = null;
+        try {
+            String dbUrl = options.dbUrl;
+            String dbUser = options.dbUser;
+            String dbPassword = options.dbPassword;
+            if (null == dbUrl) {
+                System.out.println("Starting the embedded Postgres");
+                embeddedPostgres = EmbeddedPostgres.builder().start();
+                dbUrl = "jdbc:postgresql://localhost:" + embeddedPostgres.getPort() + "/postgres";
+                dbUser = "postgres";
+                dbPassword = "postgres";
+            }
+            prometheus = new FakePrometheus(options.workloads, options.containers, options.namespaces,
+                    SyntheticData.END_TIME.toInstant());
+            prometheus.start();
+            System.out.println("Fake Prometheus serving " + options.workloads + " workloads at " + prometheus.getUrl());
+
+            prepareMigrations();
+            Path configDir = Files.createTempDirectory("kruize-load");
+            System.setProperty(KruizeConstants.CONFIG_FILE,
+                    write(configDir.resolve("kruizeconfig.json"), kruizeConfig(prometheus.getUrl())).toString());
+            System.setProperty(KruizeConstants.DBConstants.CONFIG_FILE,
+                    write(configDir.resolve("dbconfig.json"), dbConfig(dbUrl, dbUser, dbPassword)).toString());
+
+            System.out.println("Starting Kruize on port " + ServerContext.KRUIZE_SERVER_PORT);
+            server = Autotune.start();
+            if (null == server) {
+                throw new IllegalStateException("Kruize did not start, check that START_AUTOTUNE is not false");
+            }
+            client = new KruizeClient("http://localhost:" + ServerContext.KRUIZE_SERVER_PORT);
+            createProfiles();
+
+            Map<String, Long> rowsBefore = countRows(dbUrl, dbUser, dbPassword);
+            double durationSecs = drive();
+            Map<String, Long> rowsAfter = countRows(dbUrl, dbUser, dbPassword);
+            report(durationSecs, rowsBefore, rowsAfter, prometheus);
+        } finally {
+            if (null != server) {
+                server.stop();
+            }
+            if (null != prometheus) {
+                prometheus.stop();
+            }
+            if (null != embeddedPostgres) {
+                embeddedPostgres.close();
+            }
+        }
+    }
+
+    /**
+     * Kruize reads the DDLs from target/bin/migrations, where the image build copies them
+     */
+    private static void prepareMigrations() throws IOException {
+        Path target = Paths.get(AnalyzerConstants.TARGET, AnalyzerConstants.MIGRATIONS);
+        Path source = Paths.get(AnalyzerConstants.MIGRATIONS);
+        if (Files.exists(target.resolve(AnalyzerConstants.ROS_DDL_SQL))) {
+            return;
+        }
+        if (!Files.exists(source.resolve(AnalyzerConstants.ROS_DDL_SQL))) {
+            throw new IllegalStateException("Migrations not found in " + source.toAbsolutePath()
+                    + ", run the harness from the repository root");
+        }
+        Files.createDirectories(target);
+        try (Stream<Path> files = Files.list(source)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.copy(file, target.resolve(file.getFileName()));
+            }
+        }
+    }
+
+    private static Path write(Path path, JSONObject content) throws IOException {
+        return Files.writeString(path, content.toString(2));
+    }
+
+    private static JSONObject kruizeConfig(String prometheusUrl) {
+        String kruizeUrl = "http://localhost:" + ServerContext.KRUIZE_SERVER_PORT;
+        return new JSONObject()
+                .put("clustertype", "kubernetes")
+                .put("k8stype", "minikube")
+                .put("authtype", "")
+                .put("monitoringagent", "prometheus")
+                .put("monitoringservice", "prometheus-k8s")
+                .put("monitoringendpoint", prometheusUrl)
+                .put("savetodb", "true")
+                .put("dbdriver", "jdbc:postgresql://")
+                .put("plots", "true")
+                .put("local", "true")
+                .put("isROSEnabled", "true")
+                .put("logAllHttpReqAndResp", "false")
+                .put("recommendationsURL", kruizeUrl + ServerContext.GENERATE_RECOMMENDATIONS + "?experiment_name=%s")
+                .put("experimentsURL", kruizeUrl + ServerContext.CREATE_EXPERIMENT)
+                .put("experimentNameFormat", "%datasource%|%clustername%|%namespace%|%workloadname%(%workloadtype%)|%containername%")
+                .put("bulkapilimit", 10000)
+                .put("hibernate", new JSONObject()
+                        .put("dialect", "org.hibernate.dialect.PostgreSQLDialect")
+                        .put("driver", "org.postgresql.Driver")
+                        .put("c3p0minsize", 2)
+                        .put("c3p0maxsize", 10)
+                        .put("c3p0timeout", 300)
+                        .put("c3p0maxstatements", 50)
+                        .put("hbm2ddlauto", "none")
+                        .put("showsql", "false")
+                        .put("timezone", "UTC"))
+                .put("datasource", new JSONArray().put(new JSONObject()
+                        .put("name", DATASOURCE_NAME)
+                        .put("provider", "prometheus")
+                        .put("serviceName", "")
+                        .put("namespace", "")
+                        .put("url", prometheusUrl)));
+    }
+
+    private static JSONObject dbConfig(String dbUrl, String dbUser, String dbPassword) {
+        Matcher matcher = JDBC_URL.matcher(dbUrl);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Unsupported DB url " + dbUrl + ", expected jdbc:postgresql://host:port/db");
+        }
+        return new JSONObject().put("database", new JSONObject()
+                .put("adminUsername", dbUser)
+                .put("adminPassword", dbPassword)
+                .put("username", dbUser)
+                .put("password", dbPassword)
+                .put("hostname", matcher.group(1))
+                .put("port", null == matcher.group(2) ? "5432" : matcher.group(2))
+                .put("name", matcher.group(3))
+                .put("sslMode", "disable"));
+    }
+
+    private void createProfiles() throws Exception {
+        expectCreated(client.post(ServerContext.CREATE_PERF_PROFILE, SyntheticData.getPerformanceProfileJson()),
+                "performance profile");
+        expectCreated(client.post(ServerContext.CREATE_METRIC_PROFILE, readResource("/resource_optimization_local_monitoring.json")),
+                "metric profile");
+    }
+
+    private static void expectCreated(HttpResponse<String> response, String what) {
+        // 409 when the profile is left over from an earlier run on the same DB
+        if (!KruizeClient.isSuccess(response) && response.statusCode() != 409) {
+            throw new IllegalStateException("Creating the " + what + " failed with " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    private static String readResource(String name) throws IOException {
+        try (InputStream in = LoadHarness.class.getResourceAsStream(name)) {
+            if (null == in) {
+                throw new IllegalStateException(name + " is missing");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Fires the operations at their rates for the configured duration, then waits for the requests in flight
+     *
+     * @return seconds from the start of the load to the end of the last request
+     */
+    private double drive() throws InterruptedException {
+        Semaphore inFlight = new Semaphore(options.concurrency);
+        ExecutorService workers = Executors.newCachedThreadPool();
+        ScheduledExecutorService ticker = Executors.newScheduledThreadPool(2);
+        resetHeapPeak();
+        ticker.scheduleAtFixedRate(this::sampleHeap, 0, HEAP_SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+
+        System.out.println("Driving load for " + options.durationSecs + "s");
+        long start = System.nanoTime();
+        schedule(ticker, workers, inFlight, options.createRate, stats.get("createExperiment"), this::createExperiment);
+        schedule(ticker, workers, inFlight, options.updateRate, stats.get("updateResults"), this::updateResults);
+        schedule(ticker, workers, inFlight, options.recommendRate, stats.get("updateRecommendations"), this::updateRecommendations);
+        if (options.bulkRate > 0) {
+            long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / options.bulkRate);
+            ticker.scheduleAtFixedRate(() -> {
+                // a bulk job covers every workload, so jobs are not overlapped
+                if (bulkRunning.compareAndSet(false, true)) {
+                    workers.submit(() -> {
+                        try {
+                            timed(stats.get("bulk"), this::bulk);
+                        } finally {
+                            bulkRunning.set(false);
+                        }
+                    });
+                } else {
+                    stats.get("bulk").recordSkipped();
+                }
+            }, 0, periodNanos, TimeUnit.NANOSECONDS);
+        }
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(options.durationSecs));
+        ticker.shutdownNow();
+        System.out.println("Waiting for the requests in flight");
+        workers.shutdown();
+        if (!workers.awaitTermination(DRAIN_TIMEOUT_MINS, TimeUnit.MINUTES)) {
+            System.out.println("Requests still in flight after " + DRAIN_TIMEOUT_MINS + " minutes");
+            workers.shutdownNow();
+        }
+        double durationSecs = (System.nanoTime() - start) / 1e9;
+        sampleHeap();
+        return durationSecs;
+    }
+
+    private void schedule(ScheduledExecutorService ticker, ExecutorService workers, Semaphore inFlight, double rate,
+                          OperationStats operationStats, Operation operation) {
+        if (rate <= 0) {
+            return;
+        }
+        long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        ticker.scheduleAtFixedRate(() -> {
+            if (!inFlight.tryAcquire()) {
+                operationStats.recordSkipped();
+                return;
+            }
+            workers.submit(() -> {
+                try {
+                    timed(operationStats, operation);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }, 0, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static void timed(OperationStats operationStats, Operation operation) {
+        long start = System.nanoTime();
+        try {
+            Boolean success = operation.run();
+            if (null == success) {
+                operationStats.recordSkipped();
+            } else if (success) {
+                operationStats.recordSuccess(System.nanoTime() - start);
+            } else {
+                operationStats.recordError();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            operationStats.recordError();
+        } catch (Exception e) {
+            operationStats.recordError();
+        }
+    }
+
+    private Boolean createExperiment() throws Exception {
+        String experimentName = EXPERIMENT_PREFIX + experimentCounter.getAndIncrement();
+        HttpResponse<String> response = client.post(ServerContext.CREATE_EXPERIMENT,
+                SyntheticData.getCreateExperimentPayload(experimentName, options.containers));
+        if (KruizeClient.isSuccess(response)) {
+            experiments.add(new ExperimentState(experimentName));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sends the next batch of results of the experiments in turn, moving forward in time up to END_TIME
+     */
+    private Boolean updateResults() throws Exception {
+        int size = experiments.size();
+        for (int attempt = 0; attempt < size; attempt++) {
+            ExperimentState experiment = experiments.get(Math.floorMod(updateCursor.getAndIncrement(), size));
+            int batch = experiment.nextBatch.getAndIncrement();
+            int firstInterval = intervalsPerExperiment - (batch + 1) * options.resultsPerUpdate;
+            if (firstInterval < 0) {
+                continue;
+            }
+            HttpResponse<String> response = client.post(ServerContext.UPDATE_RESULTS, SyntheticData.getUpdateResultsPayload(
+                    experiment.name, options.containers, firstInterval, options.resultsPerUpdate));
+            if (!KruizeClient.isSuccess(response)) {
+                return false;
+            }
+            experiment.latestEndTime.accumulateAndGet(SyntheticData.getIntervalEndTime(firstInterval).getTime(), Math::max);
+            return true;
+        }
+        // no experiment created yet, or every experiment has all its results
+        return null;
+    }
+
+    private Boolean updateRecommendations() throws Exception {
+        int size = experiments.size();
+        for (int attempt = 0; attempt < size; attempt++) {
+            ExperimentState experiment = experiments.get(Math.floorMod(recommendCursor.getAndIncrement(), size));
+            long latestEndTime = experiment.latestEndTime.get();
+            long recommendedEndTime = experiment.recommendedEndTime.get();
+            // recommendations are stored once per end time, so each end time is only sent once
+            if (latestEndTime == recommendedEndTime || !experiment.recommendedEndTime.compareAndSet(recommendedEndTime, latestEndTime)) {
+                continue;
+            }
+            String endTime = KruizeConstants.DateFormats.dateTimeFormatterForUTC.format(Instant.ofEpochMilli(latestEndTime));
+            HttpResponse<String> response = client.post(ServerContext.UPDATE_RECOMMENDATIONS
+                    + "?" + KruizeConstants.JSONKeys.EXPERIMENT_NAME + "=" + URLEncoder.encode(experiment.name, StandardCharsets.UTF_8)
+                    + "&" + KruizeConstants.JSONKeys.INTERVAL_END_TIME + "=" + URLEncoder.encode(endTime, StandardCharsets.UTF_8), null);
+            return KruizeClient.isSuccess(response);
+        }
+        // no experiment has new results yet
+        return null;
+    }
+
+    /**
+     * Starts a bulk job for the workloads of the fake Prometheus and waits for it to finish
+     */
+    private Boolean bulk() throws Exception {
+        JSONObject include = new JSONObject().put(KruizeConstants.JSONKeys.NAMESPACE,
+                new JSONArray().put(FakePrometheus.NAMESPACE_PREFIX + ".*"));
+        HttpResponse<String> response = client.post(ServerContext.BULK_SERVICE, new JSONObject()
+                .put(KruizeConstants.JSONKeys.DATASOURCE, DATASOURCE_NAME)
+                .put("filter", new JSONObject().put("include", include).put("exclude", new JSONObject()))
+                .toString());
+        if (!KruizeClient.isSuccess(response)) {
+            return false;
+        }
+        String jobId = new JSONObject(response.body()).getString(KruizeConstants.KRUIZE_BULK_API.JOB_ID);
+        while (true) {
+            Thread.sleep(BULK_POLL_MILLIS);
+            HttpResponse<String> status = client.get(ServerContext.BULK_SERVICE + "?" + KruizeConstants.KRUIZE_BULK_API.JOB_ID
+                    + "=" + URLEncoder.encode(jobId, StandardCharsets.UTF_8));
+            if (!KruizeClient.isSuccess(status)) {
+                return false;
+            }
+            String jobStatus = new JSONObject(status.body()).optString("status");
+            if (KruizeConstants.KRUIZE_BULK_API.COMPLETED.equalsIgnoreCase(jobStatus)) {
+                return true;
+            } else if (!KruizeConstants.KRUIZE_BULK_API.IN_PROGRESS.equalsIgnoreCase(jobStatus)) {
+                return false;
+            }
+        }
+    }
+
+    private static void resetHeapPeak() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private void sampleHeap() {
+        long used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        heapPeakBytes.accumulateAndGet(used, Math::max);
+    }
+
+    /**
+     * Sum of the peaks of the heap pools, an upper bound of the heap used at any one time
+     */
+    private static long heapPoolPeakBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * Counts the rows of the Kruize tables, partitioned tables are counted once through their parent
+     */
+    private static Map<String, Long> countRows(String dbUrl, String dbUser, String dbPassword) throws SQLException {
+        Map<String, Long> rows = new LinkedHashMap<>();
+        try (Connection connection = DriverManager.getConnection(dbUrl, dbUser, dbPassword);
+             Statement statement = connection.createStatement()) {
+            List<String> tables = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery("select c.relname from pg_class c join pg_namespace n on n.oid = c.relnamespace"
+                    + " where n.nspname = current_schema() and c.relkind in ('r', 'p') and not c.relispartition"
+                    + " and c.relname like 'kruize%' order by c.relname")) {
+                while (resultSet.next()) {
+                    tables.add(resultSet.getString(1));
+                }
+            }
+            for (String table : tables) {
+                try (ResultSet resultSet = statement.executeQuery("select count(*) from " + table)) {
+                    resultSet.next();
+                    rows.put(table, resultSet.getLong(1));
+                }
+            }
+        }
+        return rows;
+    }
+
+    private void report(double durationSecs, Map<String, Long> rowsBefore, Map<String, Long> rowsAfter,
+                        FakePrometheus prometheus) throws IOException {
+        JSONObject report = new JSONObject().put("durationSecs", durationSecs);
+        StringBuilder text = new StringBuilder(System.lineSeparator());
+        text.append(String.format("%-22s %8s %7s %8s %10s %10s %10s %10s%n",
+                "operation", "count", "errors", "skipped", "ops/s", "p50 ms", "p99 ms", "max ms"));
+        JSONObject operations = new JSONObject();
+        for (OperationStats operationStats : stats.values()) {
+            text.append(String.format("%-22s %8d %7d %8d %10.2f %10.1f %10.1f %10.1f%n",
+                    operationStats.getName(), operationStats.getCount(), operationStats.getErrors(),
+                    operationStats.getSkipped(), operationStats.getThroughput(durationSecs),
+                    operationStats.getPercentileMillis(50), operationStats.getPercentileMillis(99),
+                    operationStats.getPercentileMillis(100)));
+            operations.put(operationStats.getName(), operationStats.toJson(durationSecs));
+        }
+        report.put("operations", operations);
+
+        text.append(System.lineSeparator()).append(String.format("%-32s %12s%n", "table", "rows written"));
+        JSONObject rowsWritten = new JSONObject();
+        for (Map.Entry<String, Long> entry : rowsAfter.entrySet()) {
+            long written = entry.getValue() - rowsBefore.getOrDefault(entry.getKey(), 0L);
+            text.append(String.format("%-32s %12d%n", entry.getKey(), written));
+            rowsWritten.put(entry.getKey(), written);
+        }
+        report.put("rowsWritten", rowsWritten);
+
+        long heapPeak = heapPeakBytes.get();
+        long poolPeak = heapPoolPeakBytes();
+        text.append(System.lineSeparator())
+                .append(String.format("heap peak (sampled)  %10.1f MiB%n", heapPeak / (1024.0 * 1024)))
+                .append(String.format("heap pool peaks      %10.1f MiB%n", poolPeak / (1024.0 * 1024)))
+                .append(String.format("prometheus queries   %10d instant, %d range, %d samples%n",
+                        prometheus.getInstantQueries(), prometheus.getRangeQueries(), prometheus.getSamples()));
+        report.put("heapPeakBytes", heapPeak)
+                .put("heapPoolPeakBytes", poolPeak)
+                .put("prometheus", new JSONObject()
+                        .put("instantQueries", prometheus.getInstantQueries())
+                        .put("rangeQueries", prometheus.getRangeQueries())
+                        .put("samples", prometheus.getSamples()));
+        System.out.println(text);
+        if (null != options.reportFile) {
+            Files.writeString(Paths.get(options.reportFile), report.toString(2));
+            System.out.println("Report written to " + options.reportFile);
+        }
+    }
+
+    /**
+     * An operation of the load, returning whether it succeeded or null when there was nothing to do
+     */
+    @FunctionalInterface
+    private interface Operation {
+        Boolean run() throws Exception;
+    }
+
+    private static final class ExperimentState {
+        private final String name;
+        private final AtomicInteger nextBatch = new AtomicInteger();
+        private final AtomicLong latestEndTime = new AtomicLong();
+        private final AtomicLong recommendedEndTime = new AtomicLong();
+
+        private ExperimentState(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.benchmarks.load;
+
+import java.util.Locale;
+
+/**
+ * Command line options of the load harness, given as --name value
+ */
+public class LoadOptions {
+    static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: LoadHarness [options]",
+            "  --duration <secs>           length of the load phase (default 60)",
+            "  --workloads <n>             synthetic workloads served by the fake Prometheus (default 20)",
+            "  --containers <n>            containers per workload and per experiment (default 1)",
+            "  --namespaces <n>            namespaces the workloads are spread over (default 4)",
+            "  --create-rate <ops/s>       createExperiment requests per second (default 2)",
+            "  --update-rate <ops/s>       updateResults requests per second (default 10)",
+            "  --results-per-update <n>    intervals sent by each updateResults request (default 24)",
+            "  --recommend-rate <ops/s>    updateRecommendations requests per second (default 2)",
+            "  --bulk-rate <ops/s>         bulk jobs started per second, 0 to disable (default 0.05)",
+            "  --concurrency <n>           maximum requests in flight (default 16)",
+            "  --db-url <jdbc url>         use an existing Postgres instead of the embedded one, e.g.",
+            "                              jdbc:postgresql://localhost:5432/kruizeDB",
+            "  --db-user <name>            user of the existing Postgres (default admin)",
+            "  --db-password <password>    password of the existing Postgres (default admin)",
+            "  --report <file>             also write the report as JSON to the file");
+
+    int durationSecs = 60;
+    int workloads = 20;
+    int containers = 1;
+    int namespaces = 4;
+    double createRate = 2;
+    double updateRate = 10;
+    int resultsPerUpdate = 24;
+    double recommendRate = 2;
+    double bulkRate = 0.05;
+    int concurrency = 16;
+    String dbUrl;
+    String dbUser = "admin";
+    String dbPassword = "admin";
+    String reportFile;
+
+    static LoadOptions parse(String[] args) {
+        LoadOptions options = new LoadOptions();
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (name.equals("-h") || name.equals("--help")) {
+                throw new IllegalArgumentException(USAGE);
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value of " + name + System.lineSeparator() + USAGE);
+            }
+            String value = args[++i];
+            switch (name.toLowerCase(Locale.ROOT)) {
+                case "--duration" -> options.durationSecs = positive(name, Integer.parseInt(value));
+                case "--workloads" -> options.workloads = positive(name, Integer.parseInt(value));
+                case "--containers" -> options.containers = positive(name, Integer.parseInt(value));
+                case "--namespaces" -> options.namespaces = positive(name, Integer.parseInt(value));
+                case "--create-rate" -> options.createRate = Double.parseDouble(value);
+                case "--update-rate" -> options.updateRate = Double.parseDouble(value);
+                case "--results-per-update" -> options.resultsPerUpdate = positive(name, Integer.parseInt(value));
+                case "--recommend-rate" -> options.recommendRate = Double.parseDouble(value);
+                case "--bulk-rate" -> options.bulkRate = Double.parseDouble(value);
+                case "--concurrency" -> options.concurrency = positive(name, Integer.parseInt(value));
+                case "--db-url" -> options.dbUrl = value;
+                case "--db-user" -> options.dbUser = value;
+                case "--db-password" -> options.dbPassword = value;
+                case "--report" -> options.reportFile = value;
+                default -> throw new IllegalArgumentException("Unknown option " + name + System.lineSeparator() + USAGE);
+            }
+        }
+        return options;
+    }
+
+    private static int positive(String name, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be greater than 0");
+        }
+        return value;
+    }
+}
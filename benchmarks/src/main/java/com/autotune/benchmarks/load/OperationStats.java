@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.benchmarks.load;
+
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latencies and outcomes of one kind of operation driven by the harness
+ */
+public class OperationStats {
+    private final String name;
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private long[] latencies = new long[1024];
+    private int count;
+
+    public OperationStats(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized void recordSuccess(long latencyNanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+    }
+
+    public void recordError() {
+        errors.incrementAndGet();
+    }
+
+    /**
+     * Records an operation that was due but not sent, because the harness was still busy with earlier ones or
+     * there was nothing to send it for
+     */
+    public void recordSkipped() {
+        skipped.incrementAndGet();
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * Returns the latency at the given percentile in milliseconds, 0 if nothing was recorded
+     *
+     * @param percentile between 0 and 100
+     */
+    public synchronized double getPercentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))] / 1e6;
+    }
+
+    /**
+     * Returns the successful operations per second over the given duration
+     */
+    public double getThroughput(double durationSecs) {
+        return durationSecs <= 0 ? 0 : getCount() / durationSecs;
+    }
+
+    public JSONObject toJson(double durationSecs) {
+        return new JSONObject()
+                .put("count", getCount())
+                .put("errors", getErrors())
+                .put("skipped", getSkipped())
+                .put("throughput", getThroughput(durationSecs))
+                .put("p50Millis", getPercentileMillis(50))
+                .put("p99Millis", getPercentileMillis(99))
+                .put("maxMillis", getPercentileMillis(100));
+    }
+}
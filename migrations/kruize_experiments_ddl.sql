@@ -2,8 +2,17 @@ create table IF NOT EXISTS kruize_experiments (experiment_id varchar(255) not nu
 create table IF NOT EXISTS kruize_performance_profiles (name varchar(255) not null, k8s_type varchar(255), profile_version float(53) not null, slo jsonb, primary key (name));
 create table IF NOT EXISTS kruize_recommendations (interval_end_time timestamp(6) not null, experiment_name varchar(255) not null, cluster_name varchar(255), extended_data jsonb, version varchar(255), primary key (experiment_name, interval_end_time)) PARTITION BY RANGE (interval_end_time);
 create table IF NOT EXISTS kruize_results (interval_start_time timestamp(6) not null, interval_end_time timestamp(6) not null, experiment_name varchar(255) not null, cluster_name varchar(255) , duration_minutes float(53) not null, extended_data jsonb, meta_data jsonb, version varchar(255), primary key (experiment_name, interval_end_time, interval_start_time)) PARTITION BY RANGE (interval_end_time);
+create table IF NOT EXISTS kruize_hpo_studies (experiment_name varchar(255) not null, creation_date timestamp(6), direction varchar(255), hpo_algo_impl varchar(255), search_space jsonb, seed bigint not null, updated_date timestamp(6), primary key (experiment_name));
+create table IF NOT EXISTS kruize_hpo_trials (experiment_name varchar(255) not null, trial_number integer not null, result float(53), status varchar(255), tunables jsonb, updated_date timestamp(6), primary key (experiment_name, trial_number));
 alter table if exists kruize_experiments add constraint UK_experiment_name unique (experiment_name);
 create index IF NOT EXISTS idx_recommendation_experiment_name on kruize_recommendations (experiment_name);
 create index IF NOT EXISTS idx_recommendation_interval_end_time on kruize_recommendations (interval_end_time);
 create index IF NOT EXISTS idx_result_experiment_name on kruize_results (experiment_name);
 create index IF NOT EXISTS idx_result_interval_end_time on kruize_results (interval_end_time);
+create table IF NOT EXISTS kruize_replicas (replica_id varchar(255) not null, started timestamp(6), last_heartbeat timestamp(6), primary key (replica_id));
+create table IF NOT EXISTS kruize_tasks (id bigserial, task_type varchar(255) not null, task_key varchar(512), payload text, status varchar(32) not null, attempts integer not null, max_attempts integer not null, visible_at timestamp(6) not null, created timestamp(6), updated timestamp(6), claimed_by varchar(255), last_error text, result text, primary key (id));
+alter table IF EXISTS kruize_tasks add column IF NOT EXISTS result text;
+create index IF NOT EXISTS idx_tasks_claimable on kruize_tasks (task_type, visible_at) where status in ('queued', 'running');
+create unique index IF NOT EXISTS uk_tasks_pending_key on kruize_tasks (task_type, task_key) where status in ('queued', 'running');
+create table IF NOT EXISTS kruize_rollups_hourly (experiment_name varchar(255) not null, bucket_start timestamp(6) not null, cluster_name varchar(255), version varchar(255), interval_count integer not null, duration_minutes float(53) not null, aggregates jsonb, updated timestamp(6), primary key (experiment_name, bucket_start));
+create table IF NOT EXISTS kruize_rollups_daily (experiment_name varchar(255) not null, bucket_start timestamp(6) not null, cluster_name varchar(255), version varchar(255), interval_count integer not null, duration_minutes float(53) not null, aggregates jsonb, updated timestamp(6), primary key (experiment_name, bucket_start));
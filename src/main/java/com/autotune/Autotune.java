@@ -23,18 +23,24 @@ import com.autotune.analyzer.exceptions.MonitoringAgentNotSupportedException;
 import com.autotune.analyzer.performanceProfiles.MetricProfileCollection;
 import com.autotune.analyzer.recommendations.updater.RecommendationUpdaterService;
 import com.autotune.analyzer.utils.AnalyzerConstants;
+import com.autotune.analyzer.workerimpl.BulkJobManager;
+import com.autotune.analyzer.workerimpl.KruizeTaskManager;
 import com.autotune.common.datasource.DataSourceCollection;
 import com.autotune.common.datasource.DataSourceInfo;
 import com.autotune.common.exceptions.datasource.DataSourceAlreadyExist;
 import com.autotune.common.exceptions.datasource.DataSourceNotServiceable;
 import com.autotune.common.exceptions.datasource.UnsupportedDataSourceProvider;
+import com.autotune.database.coordination.KruizeCoordinator;
+import com.autotune.database.dao.ExperimentDAOImpl;
 import com.autotune.database.helper.DBConstants;
 import com.autotune.database.init.KruizeHibernateUtil;
 import com.autotune.experimentManager.core.ExperimentManager;
+import com.autotune.jobs.CreatePartition;
 import com.autotune.operator.InitializeDeployment;
 import com.autotune.operator.KruizeDeploymentInfo;
 import com.autotune.service.HealthService;
 import com.autotune.service.InitiateListener;
+import com.autotune.service.KruizeStartupPipeline;
 import com.autotune.utils.CloudWatchAppender;
 import com.autotune.utils.KruizeConstants;
 import com.autotune.utils.MetricsConfig;
@@ -74,6 +80,28 @@ public class Autotune {
     private static final Logger LOGGER = LoggerFactory.getLogger(Autotune.class);
 
     public static void main(String[] args) {
+        Server server = start();
+        if (KruizeStartupPipeline.isCDSTrainingRun()) {
+            // Exit so that the JVM dumps the classes loaded by the training run into the AppCDS archive
+            System.exit(0);
+        }
+        if (null != server) {
+            try {
+                server.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Initializes Kruize from the mounted config and starts the server, unless START_AUTOTUNE is false.
+     * Used by main and by tools that run Kruize in-process, which can pass the config file paths as system
+     * properties instead of environment variables.
+     *
+     * @return the started server, null if the server was not started or this is an AppCDS training run
+     */
+    public static Server start() {
 
         try {
             // Turning off the logging level for the specific package to reduce console logging
@@ -112,36 +140,20 @@ public class Autotune {
         server.addBean(new KruizeErrorHandler());
 
 
+        if (KruizeStartupPipeline.isCDSTrainingRun()) {
+            // Only load the server and servlet classes so that the JVM can dump them into the AppCDS archive on exit
+            addAutotuneServlets(context);
+            Analyzer.addServlets(context);
+            LOGGER.info("AppCDS training run completed");
+            return null;
+        }
+
         try {
             InitializeDeployment.setup_deployment_info();
             // Configure AWS CloudWatch
             CloudWatchAppender.configureLoggerForCloudWatchLog();
             LOGGER.info("ROS enabled : {}" ,KruizeDeploymentInfo.is_ros_enabled);
-            // Read and execute the DDLs here
-            executeDDLs(AnalyzerConstants.ROS_DDL_SQL);
-            if (KruizeDeploymentInfo.local == true) {
-                LOGGER.info("Now running kruize local DDL's ");
-                executeDDLs(AnalyzerConstants.KRUIZE_LOCAL_DDL_SQL);
-                // load available datasources from db
-                loadDataSourcesFromDB();
-                // setting up DataSources
-                try {
-                    setUpDataSources();
-                } catch (Exception e) {
-                    LOGGER.error(DATASOURCE_CONNECTION_FAILED, e.getMessage());
-                }
-                // checking available DataSources
-                checkAvailableDataSources();
-                // load available metric profiles from db
-                loadMetricProfilesFromDB();
-                // start updater service
-                startRecommendationUpdaterService();
-
-            }
-            // close the existing session factory before recreating
-            KruizeHibernateUtil.closeSessionFactory();
-            //Regenerate a Hibernate session following the creation of new tables
-            KruizeHibernateUtil.buildSessionFactory();
+            runStartupPipeline();
         } catch (Exception | K8sTypeNotSupportedException | MonitoringAgentNotSupportedException |
                  MonitoringAgentNotFoundException e) {
             e.printStackTrace();
@@ -177,13 +189,65 @@ public class Autotune {
             String startAutotune = System.getenv("START_AUTOTUNE");
             if (startAutotune == null || startAutotune.equalsIgnoreCase("true")) {
                 server.start();
-                server.join();
+                return server;
             }
         } catch (Exception e) {
             LOGGER.error("Could not start the server!");
             e.printStackTrace();
         }
+        return null;
+    }
 
+    /**
+     * Runs the init steps needed before the server starts. The DDLs are executed first, after which loading
+     * the datasources, the metric profiles and the performance profiles run in parallel.
+     * The session factory is built once, lazily, by the first phase that needs it.
+     */
+    private static void runStartupPipeline() throws Exception {
+        KruizeStartupPipeline pipeline = new KruizeStartupPipeline(KruizeDeploymentInfo.startup_parallel_init);
+        // Read and execute the DDLs here
+        pipeline.addPhase(KruizeConstants.StartupPhases.DDL, () -> {
+            executeDDLs(AnalyzerConstants.ROS_DDL_SQL);
+            if (KruizeDeploymentInfo.local == true) {
+                LOGGER.info("Now running kruize local DDL's ");
+                executeDDLs(AnalyzerConstants.KRUIZE_LOCAL_DDL_SQL);
+            }
+        });
+        // warm the profile maps used by the servlet context
+        pipeline.addPhase(KruizeConstants.StartupPhases.PERFORMANCE_PROFILES, InitiateListener::preloadProfiles,
+                KruizeConstants.StartupPhases.DDL);
+        if (KruizeDeploymentInfo.coordination) {
+            // join the other replicas, the partitions are then maintained by one of them
+            pipeline.addPhase(KruizeConstants.StartupPhases.COORDINATION, Autotune::startCoordination,
+                    KruizeConstants.StartupPhases.DDL);
+        }
+        if (KruizeDeploymentInfo.local == true) {
+            // load available datasources from db
+            pipeline.addPhase(KruizeConstants.StartupPhases.DATASOURCES, Autotune::loadDataSourcesFromDB,
+                    KruizeConstants.StartupPhases.DDL);
+            // setting up DataSources from the config and checking they are reachable
+            pipeline.addPhase(KruizeConstants.StartupPhases.DATASOURCE_REACHABILITY, () -> {
+                try {
+                    setUpDataSources();
+                } catch (Exception e) {
+                    LOGGER.error(DATASOURCE_CONNECTION_FAILED, e.getMessage());
+                }
+                checkAvailableDataSources();
+            }, KruizeConstants.StartupPhases.DATASOURCES);
+            // load available metric profiles from db
+            pipeline.addPhase(KruizeConstants.StartupPhases.METRIC_PROFILES, Autotune::loadMetricProfilesFromDB,
+                    KruizeConstants.StartupPhases.DDL);
+            // start updater service
+            pipeline.addPhase(KruizeConstants.StartupPhases.UPDATER_SERVICE, Autotune::startRecommendationUpdaterService,
+                    KruizeConstants.StartupPhases.DATASOURCE_REACHABILITY, KruizeConstants.StartupPhases.METRIC_PROFILES);
+            // run the queued bulk jobs once their datasources and profiles are loaded
+            pipeline.addPhase(KruizeConstants.StartupPhases.TASK_QUEUE, Autotune::startBulkJobWorkers,
+                    KruizeConstants.StartupPhases.DATASOURCE_REACHABILITY, KruizeConstants.StartupPhases.METRIC_PROFILES);
+        } else {
+            pipeline.addPhase(KruizeConstants.StartupPhases.TASK_QUEUE, Autotune::startBulkJobWorkers,
+                    KruizeConstants.StartupPhases.DDL);
+        }
+        pipeline.execute();
     }
 
     /**
@@ -291,6 +355,27 @@ public class Autotune {
         LOGGER.info(DBConstants.DB_MESSAGES.DB_LIVELINESS_PROBE_SUCCESS);
     }
 
+    // starts the coordination of the replicas and schedules the singleton duties
+    private static void startCoordination() {
+        KruizeCoordinator coordinator = KruizeCoordinator.getInstance();
+        // leave the ring on shutdown, so that the other replicas rebalance without waiting for the heartbeat to go stale
+        Runtime.getRuntime().addShutdownHook(new Thread(coordinator::close, "kruize-coordination-shutdown"));
+        coordinator.scheduleDuty(KruizeConstants.CoordinationConstants.PARTITION_MAINTENANCE_DUTY, () -> {
+            CreatePartition.createNextMonthPartitions();
+            new ExperimentDAOImpl().deletePartitions(KruizeDeploymentInfo.delete_partition_threshold_in_days);
+        }, 0, KruizeConstants.CoordinationConstants.PARTITION_MAINTENANCE_INTERVAL_SECS);
+    }
+
+    // starts the workers running the bulk jobs queued by any replica, including those left over by a restart
+    private static void startBulkJobWorkers() {
+        if (!KruizeDeploymentInfo.task_queue) {
+            return;
+        }
+        // the status of a job is saved with its task, so that any replica can answer its GET
+        KruizeTaskManager.getInstance().register(KruizeConstants.TaskQueueConstants.BULK_JOB_TASK, BulkJobManager::runTask,
+                KruizeDeploymentInfo.task_queue_bulk_workers, BulkJobManager::getTaskResult);
+    }
+
     // starts the recommendation updater service
     private static void startRecommendationUpdaterService() {
         RecommendationUpdaterService.initiateUpdaterService();
@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.exceptions;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a datasource answers a query with a warning that it is overloaded, such as one asking to reduce the
+ * request rate
+ */
+public class DataSourceRateLimitedException extends IOException {
+    public DataSourceRateLimitedException() {
+    }
+
+    public DataSourceRateLimitedException(String message) {
+        super(message);
+    }
+}
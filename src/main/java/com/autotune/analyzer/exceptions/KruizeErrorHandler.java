@@ -19,6 +19,7 @@ import com.autotune.analyzer.adapters.RecommendationItemAdapter;
 import com.autotune.analyzer.serviceObjects.FailedUpdateResultsAPIObject;
 import com.autotune.analyzer.utils.AnalyzerConstants;
 import com.autotune.analyzer.utils.GsonUTCDateAdapter;
+import com.autotune.utils.KruizeConstants;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import org.eclipse.jetty.ee8.nested.Request;
@@ -60,7 +61,10 @@ public class KruizeErrorHandler extends ErrorPageErrorHandler {
                 .registerTypeAdapter(Date.class, new GsonUTCDateAdapter())
                 .registerTypeAdapter(AnalyzerConstants.RecommendationItem.class, new RecommendationItemAdapter())
                 .create();
-        String gsonStr = gsonObj.toJson(new KruizeResponse(origMessage, errorCode, "", "ERROR", myList));
+        KruizeResponse kruizeResponse = new KruizeResponse(origMessage, errorCode, "", "ERROR", myList);
+        kruizeResponse.setRequestId((String) request.getAttribute(KruizeConstants.KRUIZE_RESULTS_INGESTION.REQUEST_ID));
+        kruizeResponse.setAcceptedResults((Integer) request.getAttribute(KruizeConstants.KRUIZE_RESULTS_INGESTION.ACCEPTED_RESULTS));
+        String gsonStr = gsonObj.toJson(kruizeResponse);
 
             // suppress error in case of duplicate records entry and show errors for all other failed cases.
             // in case of createExp API, data object will be empty so 'myList' will be null
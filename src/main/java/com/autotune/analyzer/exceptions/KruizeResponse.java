@@ -17,6 +17,9 @@ package com.autotune.analyzer.exceptions;
 
 import com.autotune.analyzer.serviceObjects.FailedUpdateResultsAPIObject;
 
+import com.autotune.utils.KruizeConstants;
+import com.google.gson.annotations.SerializedName;
+
 import java.util.List;
 
 public class KruizeResponse {
@@ -26,6 +29,11 @@ public class KruizeResponse {
     private String status;
 
     private List<FailedUpdateResultsAPIObject> data;
+    // set when the results which passed validation were accepted for asynchronous ingestion
+    @SerializedName(KruizeConstants.KRUIZE_RESULTS_INGESTION.REQUEST_ID)
+    private String requestId;
+    @SerializedName(KruizeConstants.KRUIZE_RESULTS_INGESTION.ACCEPTED_RESULTS)
+    private Integer acceptedResults;
 
 
     public KruizeResponse(String message, int httpcode, String documentationLink, String status) {
@@ -71,6 +79,22 @@ public class KruizeResponse {
         return status;
     }
 
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+
+    public Integer getAcceptedResults() {
+        return acceptedResults;
+    }
+
+    public void setAcceptedResults(Integer acceptedResults) {
+        this.acceptedResults = acceptedResults;
+    }
+
     public void setStatus(String status) {
         this.status = status;
     }
@@ -122,6 +122,21 @@ public class ExperimentInitiator {
 
     public void validateAndAddExperimentResults(List<UpdateResultsAPIObject> updateResultsAPIObjects) {
         List<UpdateResultsAPIObject> failedDBObjects;
+        List<ExperimentResultData> resultDataList = validateExperimentResults(updateResultsAPIObjects);
+
+        if (successUpdateResultsAPIObjects.size() > 0) {
+            failedDBObjects = new ExperimentDBService().addResultsToDB(resultDataList);
+            failedUpdateResultsAPIObjects.addAll(failedDBObjects);
+        }
+    }
+
+    /**
+     * Validates the results without saving them to the DB
+     *
+     * @param updateResultsAPIObjects results received by the updateResults API
+     * @return results which passed the validation, converted for saving to the DB
+     */
+    public List<ExperimentResultData> validateExperimentResults(List<UpdateResultsAPIObject> updateResultsAPIObjects) {
         Validator validator = Validation.byProvider(HibernateValidator.class)
                 .configure()
                 .messageInterpolator(new ParameterMessageInterpolator())
@@ -192,11 +207,7 @@ public class ExperimentInitiator {
                     resultDataList.add(Converters.KruizeObjectConverters.convertUpdateResultsAPIObjToExperimentResultData(successObj));
                 }
         );
-
-        if (successUpdateResultsAPIObjects.size() > 0) {
-            failedDBObjects = new ExperimentDBService().addResultsToDB(resultDataList);
-            failedUpdateResultsAPIObjects.addAll(failedDBObjects);
-        }
+        return resultDataList;
     }
 
     private String checkVersion(UpdateResultsAPIObject object, Map<String, KruizeObject> mainKruizeExperimentMAP) {
@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.experiment;
+
+import com.autotune.analyzer.serviceObjects.FailedUpdateResultsAPIObject;
+import com.autotune.analyzer.serviceObjects.UpdateResultsRequestStatus;
+import com.autotune.analyzer.workerimpl.ResultsWriter;
+import com.autotune.common.data.result.ExperimentResultData;
+import com.autotune.common.parallelengine.executor.KruizeExecutor;
+import com.autotune.common.parallelengine.queue.KruizeQueue;
+import com.autotune.common.parallelengine.worker.CallableFactory;
+import com.autotune.common.parallelengine.worker.KruizeWorker;
+import com.autotune.operator.KruizeDeploymentInfo;
+import com.autotune.utils.KruizeConstants;
+import com.autotune.utils.MetricsConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind queue for the results received by the updateResults API.
+ * <p>
+ * Validated results are queued and the API returns right away with a request id. A pool of ResultsWriter
+ * workers drains the queue and saves the results of many requests together as batched inserts.
+ * On shutdown no new results are accepted and the writers drain the queue before the JVM exits.
+ * <p>
+ * The queue is in memory: results are acknowledged before they are saved, and the results still queued when the
+ * JVM dies without a clean shutdown are lost. Clients which cannot afford to resend them poll the request status
+ * until the results are saved, or keep resultsIngestionAsync off so that updateResults returns once they are saved.
+ */
+public class ResultsIngestionManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultsIngestionManager.class);
+    private static volatile ResultsIngestionManager instance;
+
+    private final KruizeQueue<PendingResult> queue;
+    private final Semaphore capacity;
+    private final int queueSize;
+    private final KruizeExecutor writerExecutor;
+    private final int shutdownTimeoutSecs;
+    private final Map<String, UpdateResultsRequestStatus> requestStatusMap = new ConcurrentHashMap<>();
+    private final Counter savedCounter;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+    private final DistributionSummary batchSizeSummary;
+    // held for reading while results are queued, and for writing to stop accepting them, so that no result is
+    // queued once shutdown has started and the writers see the queue drained
+    private final ReadWriteLock acceptingLock = new ReentrantReadWriteLock();
+    private volatile boolean accepting = true;
+
+    ResultsIngestionManager(int queueSize, int writers, Class<? extends KruizeWorker> writerClass, int shutdownTimeoutSecs) {
+        this.queueSize = queueSize;
+        this.shutdownTimeoutSecs = shutdownTimeoutSecs;
+        this.queue = new KruizeQueue<>(queueSize);
+        this.capacity = new Semaphore(queueSize);
+        this.writerExecutor = new KruizeExecutor(writers,
+                writers,
+                0,
+                TimeUnit.SECONDS,
+                new KruizeQueue<>(),
+                new ThreadPoolExecutor.AbortPolicy(),
+                writerClass
+        );
+        Gauge.builder("kruizeResultsIngestion_queue_depth", queue, KruizeQueue::size)
+                .description("Results waiting to be saved to the DB").register(MetricsConfig.meterRegistry());
+        Gauge.builder("kruizeResultsIngestion_lag_seconds", this, m -> m.getLagMillis() / 1000.0)
+                .description("Time the oldest queued result has been waiting").register(MetricsConfig.meterRegistry());
+        savedCounter = Counter.builder("kruizeResultsIngestion_results").description("Results processed by the ingestion writers")
+                .tag("status", "success").register(MetricsConfig.meterRegistry());
+        failedCounter = Counter.builder("kruizeResultsIngestion_results").description("Results processed by the ingestion writers")
+                .tag("status", "failure").register(MetricsConfig.meterRegistry());
+        rejectedCounter = Counter.builder("kruizeResultsIngestion_rejected_requests").description("Requests rejected as the queue was full")
+                .register(MetricsConfig.meterRegistry());
+        batchSizeSummary = DistributionSummary.builder("kruizeResultsIngestion_batch_size").description("Results saved per DB batch")
+                .register(MetricsConfig.meterRegistry());
+
+        for (int i = 0; i < writers; i++) {
+            KruizeWorker writer = new CallableFactory().create(writerExecutor.getWorker());
+            writerExecutor.execute(() -> writer.execute(null, this, writerExecutor, null));
+        }
+    }
+
+    public static ResultsIngestionManager getInstance() {
+        if (null == instance) {
+            synchronized (ResultsIngestionManager.class) {
+                if (null == instance) {
+                    LOGGER.info("Starting results ingestion with {} writers and a queue of {} results",
+                            KruizeDeploymentInfo.results_ingestion_writers, KruizeDeploymentInfo.results_ingestion_queue_size);
+                    instance = new ResultsIngestionManager(KruizeDeploymentInfo.results_ingestion_queue_size,
+                            KruizeDeploymentInfo.results_ingestion_writers, ResultsWriter.class,
+                            KruizeDeploymentInfo.results_ingestion_shutdown_timeout_secs);
+                    Runtime.getRuntime().addShutdownHook(new Thread(instance::shutdown, "results-ingestion-shutdown"));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Queues the results of a request. Either all the results are queued or none of them.
+     *
+     * @param resultDataList validated results of the request
+     * @return id to check the status of the request, null if the queue does not have room for the results
+     */
+    public String submit(List<ExperimentResultData> resultDataList) {
+        String requestId = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis();
+        acceptingLock.readLock().lock();
+        try {
+            if (!accepting || !capacity.tryAcquire(resultDataList.size())) {
+                rejectedCounter.increment();
+                return null;
+            }
+            UpdateResultsRequestStatus requestStatus = new UpdateResultsRequestStatus(requestId, resultDataList.size(), now);
+            requestStatusMap.put(requestId, requestStatus);
+            for (ExperimentResultData resultData : resultDataList) {
+                // cannot fail as the permits acquired above reserve the room in the queue
+                queue.offer(new PendingResult(requestStatus, resultData, now));
+            }
+        } finally {
+            acceptingLock.readLock().unlock();
+        }
+        evictCompletedRequests(now);
+        return requestId;
+    }
+
+    public UpdateResultsRequestStatus getRequestStatus(String requestId) {
+        return requestStatusMap.get(requestId);
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return queueSize;
+    }
+
+    /**
+     * Returns the time in milliseconds for which the oldest result in the queue has been waiting
+     */
+    public long getLagMillis() {
+        PendingResult oldest = (PendingResult) queue.peek();
+        return null == oldest ? 0 : System.currentTimeMillis() - oldest.getAcceptedTime();
+    }
+
+    /**
+     * Returns true once shutdown has started and the queue has been drained, the writers exit at this point. No
+     * result is queued after shutdown has started, so a drained queue stays empty.
+     */
+    public boolean isDrained() {
+        return !accepting && queue.isEmpty();
+    }
+
+    /**
+     * Waits for the next results to be queued and returns up to maxResults of them
+     *
+     * @param maxResults maximum number of results to return
+     * @return queued results, empty if none were queued within the poll interval
+     */
+    public List<PendingResult> takeBatch(int maxResults) throws InterruptedException {
+        List<PendingResult> batch = new ArrayList<>();
+        PendingResult first = (PendingResult) queue.poll(KruizeConstants.KRUIZE_RESULTS_INGESTION.WRITER_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (null == first) {
+            return batch;
+        }
+        batch.add(first);
+        queue.drainTo(batch, maxResults - 1);
+        capacity.release(batch.size());
+        for (PendingResult pendingResult : batch) {
+            pendingResult.getRequestStatus().markInProgress();
+        }
+        return batch;
+    }
+
+    /**
+     * Records the outcome of a batch saved by a writer
+     *
+     * @param batch    results which were part of the batch
+     * @param failures results which could not be saved, along with the failure details
+     */
+    public void onBatchCompleted(List<PendingResult> batch, Map<PendingResult, FailedUpdateResultsAPIObject> failures) {
+        batchSizeSummary.record(batch.size());
+        for (PendingResult pendingResult : batch) {
+            FailedUpdateResultsAPIObject failure = failures.get(pendingResult);
+            if (null == failure) {
+                pendingResult.getRequestStatus().addSaved(1);
+                savedCounter.increment();
+            } else {
+                pendingResult.getRequestStatus().addFailed(failure);
+                failedCounter.increment();
+            }
+        }
+    }
+
+    /**
+     * Stops accepting new results and waits for the writers to save the queued ones
+     */
+    public void shutdown() {
+        acceptingLock.writeLock().lock();
+        try {
+            if (!accepting) {
+                return;
+            }
+            accepting = false;
+        } finally {
+            acceptingLock.writeLock().unlock();
+        }
+        LOGGER.info("Draining {} queued results before shutdown", queue.size());
+        writerExecutor.shutdown();
+        try {
+            if (!writerExecutor.awaitTermination(shutdownTimeoutSecs, TimeUnit.SECONDS)) {
+                LOGGER.error("Results ingestion did not drain within {}s, {} results were not saved",
+                        shutdownTimeoutSecs, queue.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void evictCompletedRequests(long now) {
+        requestStatusMap.values().removeIf(requestStatus -> requestStatus.isCompleted() &&
+                now - requestStatus.getCompletedTime() > KruizeConstants.KRUIZE_RESULTS_INGESTION.STATUS_RETENTION_MILLIS);
+    }
+
+    /**
+     * A result waiting in the queue along with the request it was received in
+     */
+    public static class PendingResult {
+        private final UpdateResultsRequestStatus requestStatus;
+        private final ExperimentResultData resultData;
+        private final long acceptedTime;
+
+        public PendingResult(UpdateResultsRequestStatus requestStatus, ExperimentResultData resultData, long acceptedTime) {
+            this.requestStatus = requestStatus;
+            this.resultData = resultData;
+            this.acceptedTime = acceptedTime;
+        }
+
+        public UpdateResultsRequestStatus getRequestStatus() {
+            return requestStatus;
+        }
+
+        public ExperimentResultData getResultData() {
+            return resultData;
+        }
+
+        public long getAcceptedTime() {
+            return acceptedTime;
+        }
+    }
+}
@@ -1,15 +1,18 @@
 package com.autotune.analyzer.experiment.loop;
 
 import com.autotune.analyzer.experiment.KruizeExperiment;
+import com.autotune.analyzer.hpo.HPOService;
+import com.autotune.analyzer.hpo.LocalHPOService;
+import com.autotune.analyzer.hpo.RemoteHPOService;
+import com.autotune.analyzer.utils.AnalyzerConstants.HPOConstants;
 import com.autotune.common.trials.ExperimentTrial;
 import com.autotune.common.trials.TrialDetails;
-import com.autotune.utils.HttpUtils;
+import com.autotune.operator.KruizeDeploymentInfo;
 import com.autotune.utils.TrialHelpers;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.net.MalformedURLException;
 import java.net.URL;
 
 import static com.autotune.analyzer.utils.AnalyzerConstants.ServiceConstants.*;
@@ -18,7 +21,6 @@ import static com.autotune.utils.KruizeConstants.HpoOperations.*;
 import static com.autotune.utils.KruizeConstants.JSONKeys.*;
 import static com.autotune.utils.KruizeConstants.JSONKeys.EQUALS;
 import static com.autotune.utils.ExperimentMessages.RunExperiment.*;
-import static com.autotune.utils.ServerContext.HPO_TRIALS_END_POINT;
 
 /**
  *
@@ -42,22 +44,20 @@ public class HPOInterface {
 			LOGGER.info(hpoTrial.toString());
 
 			/* STEP 1: Send a request for a trial config from HPO */
-			int trialNumber = Integer.parseInt(HttpUtils.postRequest(experimentTrialsURL, hpoTrial.toString()));
+			HPOService hpoService = getHPOService(experimentTrialsURL);
+			int trialNumber;
+			if (EXP_TRIAL_GENERATE_NEW.equals(hpoTrial.optString(OPERATION))) {
+				trialNumber = hpoService.createExperiment(hpoTrial.getJSONObject(SEARCHSPACE));
+			} else {
+				trialNumber = hpoService.generateTrials(experimentName, 1).get(0);
+			}
 
 			kruizeExperiment.initializeTrial(trialNumber);
 			kruizeExperiment.setExperimentStatus(STATUS_TRIAL_NUMBER + trialNumber + STATUS_RECEIVED_TRIAL_CONFIG);
 			LOGGER.info("HPO Trial No: " + trialNumber);
 
-			StringBuilder trialConfigUrl = new StringBuilder(HPO_TRIALS_END_POINT)
-					.append(QUESTION_MARK).append(EXPERIMENT_NAME)
-					.append(EQUALS).append(experimentName)
-					.append(AMPERSAND).append(TRIAL_NUMBER)
-					.append(EQUALS).append(trialNumber);
-			java.net.URL trialConfigURL = null;
-			trialConfigURL = new URL(trialConfigUrl.toString());
-
 			/* STEP 2: We got a trial id from HPO, now use that to get the actual config */
-			String trialConfigJson = HttpUtils.getDataFromURL(trialConfigURL, "");
+			String trialConfigJson = hpoService.getTrialConfig(experimentName, trialNumber).toString();
 			kruizeExperiment.setExperimentStatus(STATUS_TRIAL_NUMBER + trialNumber + STATUS_RECEIVED_TRIAL_CONFIG_INFO);
 			LOGGER.info(trialConfigJson);
 
@@ -70,7 +70,8 @@ public class HPOInterface {
 			kruizeExperiment.getExperimentTrials().put(trialNumber, experimentTrial);
 
 			return experimentTrial;
-		} catch (MalformedURLException e) {
+		} catch (Exception e) {
+			LOGGER.error("Failed to get a trial from HPO for {}: {}", kruizeExperiment.getAutotuneObject().getExperimentName(), e.getMessage());
 			e.printStackTrace();
 		}
 		return null;
@@ -92,23 +93,32 @@ public class HPOInterface {
 		double rand;
 
 		String experimentName = kruizeExperiment.getAutotuneObject().getExperimentName();
-		JSONObject sendTrialResult = new JSONObject();
-		sendTrialResult.put(EXPERIMENT_NAME, experimentName);
-		sendTrialResult.put(TRIAL_NUMBER, trialNumber);
-		sendTrialResult.put(TRIAL_RESULT, "success");
-		sendTrialResult.put(RESULT_VALUE_TYPE, "double");
 		rand = Math.random() * (max - min + 1) + min;
-		sendTrialResult.put(RESULT_VALUE, rand);
-		sendTrialResult.put(OPERATION, EXP_TRIAL_RESULT);
 
 		/* STEP 7: Now send the calculated result back to HPO */
-		String response = HttpUtils.postRequest(experimentTrialsURL, sendTrialResult.toString());
-		LOGGER.info("HPO Trial No: " + trialNumber + " result response: " + response);
-		kruizeExperiment.setExperimentStatus(STATUS_TRIAL_NUMBER + trialNumber + STATUS_SENT_RESULT_TO_HPO);
+		try {
+			getHPOService(experimentTrialsURL).updateTrialResult(experimentName, trialNumber, true, rand);
+			LOGGER.info("HPO Trial No: " + trialNumber + " result sent");
+			kruizeExperiment.setExperimentStatus(STATUS_TRIAL_NUMBER + trialNumber + STATUS_SENT_RESULT_TO_HPO);
+		} catch (Exception e) {
+			LOGGER.error("Failed to send the result of trial {} of {} to HPO: {}", trialNumber, experimentName, e.getMessage());
+		}
 
 		/* STEP 8: Compare and Summarize the result just obtained */
 		TrialDetails trialDetails = experimentTrial.getTrialDetails().get(String.valueOf(trialNumber));
 		kruizeExperiment.summarizeTrial(trialDetails);
 	}
 
+	/**
+	 * Returns the in-process HPO engine when the hpoEngine config is local, the external HPO service otherwise
+	 *
+	 * @param experimentTrialsURL
+	 * @return
+	 */
+	public static HPOService getHPOService(URL experimentTrialsURL) {
+		if (HPOConstants.ENGINE_LOCAL.equalsIgnoreCase(KruizeDeploymentInfo.hpo_engine)) {
+			return LocalHPOService.getInstance();
+		}
+		return new RemoteHPOService(experimentTrialsURL);
+	}
 }
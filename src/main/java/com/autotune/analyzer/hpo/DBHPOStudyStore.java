@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.hpo;
+
+import com.autotune.common.data.ValidationOutputData;
+import com.autotune.database.service.ExperimentDBService;
+
+/**
+ * Keeps the studies in the kruize_hpo_studies and kruize_hpo_trials tables
+ */
+public class DBHPOStudyStore implements HPOStudyStore {
+
+    @Override
+    public void saveStudy(HPOStudy study) throws Exception {
+        ValidationOutputData validationOutputData = new ExperimentDBService().addHPOStudyToDB(study);
+        if (!validationOutputData.isSuccess()) {
+            throw new Exception("Failed to save HPO study " + study.getExperimentName() + ": " + validationOutputData.getMessage());
+        }
+    }
+
+    @Override
+    public void saveTrial(HPOStudy study, HPOTrial trial) throws Exception {
+        ValidationOutputData validationOutputData = new ExperimentDBService().addOrUpdateHPOTrialToDB(study, trial);
+        if (!validationOutputData.isSuccess()) {
+            throw new Exception("Failed to save trial " + trial.getTrialNumber() + " of HPO study " + study.getExperimentName()
+                    + ": " + validationOutputData.getMessage());
+        }
+    }
+
+    @Override
+    public HPOStudy loadStudy(String experimentName) throws Exception {
+        return new ExperimentDBService().loadHPOStudyFromDBByName(experimentName);
+    }
+}
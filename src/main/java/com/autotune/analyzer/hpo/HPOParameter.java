@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.hpo;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.autotune.analyzer.utils.AnalyzerConstants.AutotuneConfigConstants.*;
+
+/**
+ * One tunable of a search space, as sent to HPO by {@link com.autotune.analyzer.utils.ServiceHelpers#addApplicationToSearchSpace}.
+ * <p>
+ * The samplers see every value as a double: numeric tunables by their value, categorical tunables by the index of
+ * the choice.
+ */
+public class HPOParameter {
+    private final String name;
+    private final String valueType;
+    private final double lowerBound;
+    private final double upperBound;
+    private final double step;
+    private final List<String> choices;
+
+    public HPOParameter(String name, String valueType, double lowerBound, double upperBound, double step, List<String> choices) {
+        this.name = name;
+        this.valueType = valueType;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.step = step;
+        this.choices = null == choices ? Collections.emptyList() : List.copyOf(choices);
+        if (isCategorical() && this.choices.isEmpty()) {
+            throw new IllegalArgumentException("Tunable " + name + " has no choices");
+        }
+        if (!isCategorical() && (Double.isNaN(lowerBound) || Double.isNaN(upperBound) || lowerBound > upperBound)) {
+            throw new IllegalArgumentException("Tunable " + name + " has invalid bounds " + lowerBound + " - " + upperBound);
+        }
+    }
+
+    public static HPOParameter fromJson(JSONObject tunableJson) {
+        String name = tunableJson.getString(NAME);
+        String valueType = tunableJson.getString(VALUE_TYPE);
+        if (valueType.equalsIgnoreCase(CATEGORICAL_TYPE)) {
+            List<String> choices = new ArrayList<>();
+            JSONArray choicesJson = tunableJson.getJSONArray(TUNABLE_CHOICES);
+            for (int i = 0; i < choicesJson.length(); i++) {
+                choices.add(choicesJson.get(i).toString());
+            }
+            return new HPOParameter(name, valueType, 0, 0, 0, choices);
+        }
+        return new HPOParameter(name, valueType, tunableJson.getDouble(LOWER_BOUND), tunableJson.getDouble(UPPER_BOUND),
+                tunableJson.optDouble(STEP, 0), null);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getValueType() {
+        return valueType;
+    }
+
+    public boolean isCategorical() {
+        return valueType.equalsIgnoreCase(CATEGORICAL_TYPE);
+    }
+
+    public boolean isIntegral() {
+        return valueType.equalsIgnoreCase(INTEGER) || valueType.equalsIgnoreCase(LONG);
+    }
+
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    public List<String> getChoices() {
+        return choices;
+    }
+
+    /**
+     * Returns the step between the values of a numeric tunable, 0 if it is continuous
+     */
+    public double getStep() {
+        if (step > 0) {
+            return step;
+        }
+        return isIntegral() ? 1 : 0;
+    }
+
+    /**
+     * Moves a value to the nearest valid one: inside the bounds, on the step grid and integral when needed
+     */
+    public double snap(double value) {
+        if (isCategorical()) {
+            return Math.max(0, Math.min(choices.size() - 1, Math.round(value)));
+        }
+        double snapped = Math.max(lowerBound, Math.min(upperBound, value));
+        double gridStep = getStep();
+        if (gridStep > 0) {
+            long steps = Math.round((snapped - lowerBound) / gridStep);
+            long maxSteps = (long) Math.floor((upperBound - lowerBound) / gridStep + 1e-9);
+            snapped = lowerBound + Math.min(steps, maxSteps) * gridStep;
+        }
+        if (isIntegral()) {
+            snapped = Math.round(snapped);
+        }
+        return snapped;
+    }
+
+    /**
+     * Returns the value as sent in a trial config: a choice, a whole number or a double
+     */
+    public Object toConfigValue(double value) {
+        if (isCategorical()) {
+            return choices.get((int) snap(value));
+        }
+        if (isIntegral()) {
+            return Math.round(value);
+        }
+        return value;
+    }
+
+    /**
+     * Reverse of {@link #toConfigValue}
+     */
+    public double fromConfigValue(Object configValue) {
+        if (isCategorical()) {
+            int index = choices.indexOf(configValue.toString());
+            if (index < 0) {
+                throw new IllegalArgumentException("Unknown choice " + configValue + " of tunable " + name);
+            }
+            return index;
+        }
+        return configValue instanceof Number ? ((Number) configValue).doubleValue() : Double.parseDouble(configValue.toString());
+    }
+
+    /**
+     * Maps a value to [0, 1] over the bounds
+     */
+    double toUnit(double value) {
+        double range = upperBound - lowerBound;
+        return range == 0 ? 0.5 : (value - lowerBound) / range;
+    }
+
+    /**
+     * Reverse of {@link #toUnit}, snapped to a valid value
+     */
+    double fromUnit(double unit) {
+        return snap(lowerBound + unit * (upperBound - lowerBound));
+    }
+
+    @Override
+    public String toString() {
+        return "HPOParameter{" +
+                "name='" + name + '\'' +
+                ", valueType='" + valueType + '\'' +
+                (isCategorical() ? ", choices=" + choices : ", lowerBound=" + lowerBound + ", upperBound=" + upperBound + ", step=" + step) +
+                '}';
+    }
+}
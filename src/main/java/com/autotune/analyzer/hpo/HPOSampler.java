@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.hpo;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Suggests the values of the next trial of a study
+ */
+public interface HPOSampler {
+
+    /**
+     * @param searchSpace tunables of the study
+     * @param trials      all trials of the study so far, including the running and failed ones
+     * @param random      source of randomness, seeded per trial so that a resumed study suggests the same values
+     * @return a value per search space parameter
+     */
+    double[] sample(HPOSearchSpace searchSpace, List<HPOTrial> trials, Random random);
+}
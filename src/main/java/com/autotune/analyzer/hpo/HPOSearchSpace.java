@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.hpo;
+
+import com.autotune.analyzer.utils.AnalyzerConstants;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Search space of an experiment, parsed from the search_space JSON of the EXP_TRIAL_GENERATE_NEW request
+ */
+public class HPOSearchSpace {
+    private final String experimentName;
+    private final String direction;
+    private final String hpoAlgoImpl;
+    private final List<HPOParameter> parameters;
+    private final JSONObject searchSpaceJson;
+
+    public HPOSearchSpace(JSONObject searchSpaceJson) {
+        this.searchSpaceJson = searchSpaceJson;
+        this.experimentName = searchSpaceJson.getString(AnalyzerConstants.ServiceConstants.EXPERIMENT_NAME);
+        this.direction = searchSpaceJson.optString(AnalyzerConstants.AutotuneObjectConstants.DIRECTION,
+                AnalyzerConstants.AutotuneObjectConstants.MINIMIZE);
+        this.hpoAlgoImpl = searchSpaceJson.optString(AnalyzerConstants.AutotuneObjectConstants.HPO_ALGO_IMPL,
+                AnalyzerConstants.AutotuneObjectConstants.DEFAULT_HPO_ALGO_IMPL);
+        List<HPOParameter> parameterList = new ArrayList<>();
+        JSONArray tunables = searchSpaceJson.getJSONArray(AnalyzerConstants.AutotuneConfigConstants.TUNABLES);
+        for (int i = 0; i < tunables.length(); i++) {
+            parameterList.add(HPOParameter.fromJson(tunables.getJSONObject(i)));
+        }
+        if (parameterList.isEmpty()) {
+            throw new IllegalArgumentException("Search space of " + experimentName + " has no tunables");
+        }
+        this.parameters = List.copyOf(parameterList);
+    }
+
+    public String getExperimentName() {
+        return experimentName;
+    }
+
+    public String getDirection() {
+        return direction;
+    }
+
+    public boolean isMinimize() {
+        return !AnalyzerConstants.AutotuneObjectConstants.MAXIMIZE.equalsIgnoreCase(direction);
+    }
+
+    public String getHpoAlgoImpl() {
+        return hpoAlgoImpl;
+    }
+
+    public List<HPOParameter> getParameters() {
+        return parameters;
+    }
+
+    public JSONObject toJson() {
+        return searchSpaceJson;
+    }
+
+    /**
+     * Returns the trial config sent to the Experiment Manager: a tunable_name, tunable_value object per tunable
+     */
+    public JSONArray toTrialConfig(double[] values) {
+        JSONArray trialConfig = new JSONArray();
+        for (int i = 0; i < parameters.size(); i++) {
+            HPOParameter parameter = parameters.get(i);
+            trialConfig.put(new JSONObject()
+                    .put(AnalyzerConstants.AutotuneConfigConstants.TUNABLE_NAME, parameter.getName())
+                    .put(AnalyzerConstants.AutotuneConfigConstants.TUNABLE_VALUE, parameter.toConfigValue(values[i])));
+        }
+        return trialConfig;
+    }
+
+    /**
+     * Reverse of {@link #toTrialConfig}
+     */
+    public double[] fromTrialConfig(JSONArray trialConfig) {
+        double[] values = new double[parameters.size()];
+        boolean[] found = new boolean[parameters.size()];
+        for (int i = 0; i < trialConfig.length(); i++) {
+            JSONObject tunable = trialConfig.getJSONObject(i);
+            String name = tunable.getString(AnalyzerConstants.AutotuneConfigConstants.TUNABLE_NAME);
+            for (int p = 0; p < parameters.size(); p++) {
+                if (parameters.get(p).getName().equals(name)) {
+                    values[p] = parameters.get(p).fromConfigValue(tunable.get(AnalyzerConstants.AutotuneConfigConstants.TUNABLE_VALUE));
+                    found[p] = true;
+                }
+            }
+        }
+        for (int p = 0; p < found.length; p++) {
+            if (!found[p]) {
+                throw new IllegalArgumentException("Trial config of " + experimentName + " misses tunable " + parameters.get(p).getName());
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.hpo;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.List;
+
+/**
+ * The operations the experiment loop needs from an HPO engine, either the external HPO service or the in-process one
+ */
+public interface HPOService {
+    /**
+     * Starts tuning the experiment of the search space, or resumes it if it already exists
+     *
+     * @param searchSpace search space JSON as built by ServiceHelpers.addApplicationToSearchSpace
+     * @return number of the first trial to run
+     */
+    int createExperiment(JSONObject searchSpace) throws Exception;
+
+    /**
+     * Suggests the next trials of the experiment, count of them to be run in parallel
+     */
+    List<Integer> generateTrials(String experimentName, int count) throws Exception;
+
+    /**
+     * Returns the tunable_name, tunable_value config of a trial
+     */
+    JSONArray getTrialConfig(String experimentName, int trialNumber) throws Exception;
+
+    void updateTrialResult(String experimentName, int trialNumber, boolean success, double value) throws Exception;
+}
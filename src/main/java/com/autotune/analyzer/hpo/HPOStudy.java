@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.hpo;
+
+import com.autotune.analyzer.utils.AnalyzerConstants.HPOConstants;
+import com.autotune.analyzer.utils.AnalyzerConstants.HPOConstants.TrialStatus;
+
+import java.util.*;
+
+/**
+ * Trials of one experiment tuned by the in-process HPO engine.
+ * <p>
+ * The values of a trial only depend on the seed of the study, the trial number and the trials before it, so a study
+ * reloaded from the store carries on as if it had never stopped.
+ */
+public class HPOStudy {
+    private final HPOSearchSpace searchSpace;
+    private final long seed;
+    private final HPOSampler sampler;
+    private final TreeMap<Integer, HPOTrial> trials = new TreeMap<>();
+
+    public HPOStudy(HPOSearchSpace searchSpace, long seed) {
+        this(searchSpace, seed, Collections.emptyList());
+    }
+
+    public HPOStudy(HPOSearchSpace searchSpace, long seed, Collection<HPOTrial> trials) {
+        this.searchSpace = searchSpace;
+        this.seed = seed;
+        this.sampler = getSampler(searchSpace.getHpoAlgoImpl());
+        for (HPOTrial trial : trials) {
+            this.trials.put(trial.getTrialNumber(), trial);
+        }
+    }
+
+    /**
+     * Returns random search for the hpo_algo_impl values naming it, TPE for everything else
+     */
+    public static HPOSampler getSampler(String hpoAlgoImpl) {
+        if (null != hpoAlgoImpl && hpoAlgoImpl.toLowerCase(Locale.ROOT).contains(HPOConstants.RANDOM_SAMPLER)) {
+            return new RandomSampler();
+        }
+        return new TPESampler();
+    }
+
+    public HPOSearchSpace getSearchSpace() {
+        return searchSpace;
+    }
+
+    public String getExperimentName() {
+        return searchSpace.getExperimentName();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public synchronized List<HPOTrial> getTrials() {
+        return new ArrayList<>(trials.values());
+    }
+
+    public synchronized HPOTrial getTrial(int trialNumber) {
+        return trials.get(trialNumber);
+    }
+
+    /**
+     * Suggests the next count trials, to be run in parallel. Each suggestion is added as a running trial before the
+     * next one is sampled so that the batch spreads over the search space.
+     */
+    public synchronized List<HPOTrial> suggest(int count) {
+        List<HPOTrial> suggested = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int trialNumber = trials.isEmpty() ? 0 : trials.lastKey() + 1;
+            Random random = new Random(trialSeed(trialNumber));
+            double[] values = sampler.sample(searchSpace, new ArrayList<>(trials.values()), random);
+            HPOTrial trial = new HPOTrial(trialNumber, values);
+            trials.put(trialNumber, trial);
+            suggested.add(trial);
+        }
+        return suggested;
+    }
+
+    public synchronized HPOTrial complete(int trialNumber, double result) {
+        HPOTrial trial = getExistingTrial(trialNumber);
+        trial.complete(result);
+        return trial;
+    }
+
+    public synchronized HPOTrial fail(int trialNumber) {
+        HPOTrial trial = getExistingTrial(trialNumber);
+        trial.fail();
+        return trial;
+    }
+
+    /**
+     * Returns the completed trial with the best result in the direction of the study, null if none has completed
+     */
+    public synchronized HPOTrial getBestTrial() {
+        HPOTrial best = null;
+        for (HPOTrial trial : trials.values()) {
+            if (trial.getStatus() != TrialStatus.COMPLETE || !Double.isFinite(trial.getResult())) {
+                continue;
+            }
+            if (null == best || (searchSpace.isMinimize() ? trial.getResult() < best.getResult() : trial.getResult() > best.getResult())) {
+                best = trial;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Spreads the study seed and the trial number over all the bits, java.util.Random gives correlated sequences for
+     * nearby seeds
+     */
+    private long trialSeed(int trialNumber) {
+        long z = seed + (trialNumber + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    private HPOTrial getExistingTrial(int trialNumber) {
+        HPOTrial trial = trials.get(trialNumber);
+        if (null == trial) {
+            throw new IllegalArgumentException("Trial " + trialNumber + " of " + getExperimentName() + " does not exist");
+        }
+        return trial;
+    }
+}
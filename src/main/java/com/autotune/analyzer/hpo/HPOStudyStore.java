@@ -0,0 +1,29 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.hpo;
+
+/**
+ * Keeps the studies of the in-process HPO engine, so that an experiment resumes where it stopped after a restart
+ */
+public interface HPOStudyStore {
+    void saveStudy(HPOStudy study) throws Exception;
+
+    // called whenever a trial is suggested, completed or failed
+    void saveTrial(HPOStudy study, HPOTrial trial) throws Exception;
+
+    // returns null if the experiment has no study yet
+    HPOStudy loadStudy(String experimentName) throws Exception;
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.hpo;
+
+import com.autotune.analyzer.utils.AnalyzerConstants.HPOConstants.TrialStatus;
+
+import java.util.Arrays;
+
+/**
+ * A trial suggested by the in-process HPO engine, with its values indexed like the search space parameters
+ */
+public class HPOTrial {
+    private final int trialNumber;
+    private final double[] values;
+    private TrialStatus status;
+    private double result = Double.NaN;
+
+    public HPOTrial(int trialNumber, double[] values) {
+        this.trialNumber = trialNumber;
+        this.values = values.clone();
+        this.status = TrialStatus.RUNNING;
+    }
+
+    public HPOTrial(int trialNumber, double[] values, TrialStatus status, double result) {
+        this(trialNumber, values);
+        this.status = status;
+        this.result = result;
+    }
+
+    public int getTrialNumber() {
+        return trialNumber;
+    }
+
+    public double[] getValues() {
+        return values.clone();
+    }
+
+    double getValue(int parameterIndex) {
+        return values[parameterIndex];
+    }
+
+    public TrialStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the objective value reported for the trial, NaN while it is running or if it failed
+     */
+    public double getResult() {
+        return result;
+    }
+
+    void complete(double result) {
+        this.status = TrialStatus.COMPLETE;
+        this.result = result;
+    }
+
+    void fail() {
+        this.status = TrialStatus.FAILED;
+        this.result = Double.NaN;
+    }
+
+    @Override
+    public String toString() {
+        return "HPOTrial{" +
+                "trialNumber=" + trialNumber +
+                ", values=" + Arrays.toString(values) +
+                ", status=" + status +
+                ", result=" + result +
+                '}';
+    }
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.hpo;
+
+import com.autotune.analyzer.utils.AnalyzerConstants.AutotuneConfigConstants;
+import com.autotune.analyzer.utils.AnalyzerConstants.HPOConstants.TrialStatus;
+import com.autotune.analyzer.utils.AnalyzerConstants.ServiceConstants;
+import com.autotune.utils.KruizeConstants;
+import org.json.JSONObject;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Keeps the studies for the life of the process, when Kruize does not save to the database. The studies are stored
+ * as JSON the way the database keeps them, so a reload goes through the same conversion.
+ */
+public class InMemoryHPOStudyStore implements HPOStudyStore {
+    private static final String SEED = "seed";
+    private static final String SEARCH_SPACE = "search_space";
+
+    private final Map<String, String> studies = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, String>> trials = new ConcurrentHashMap<>();
+
+    @Override
+    public void saveStudy(HPOStudy study) {
+        studies.put(study.getExperimentName(), new JSONObject()
+                .put(SEED, study.getSeed())
+                .put(SEARCH_SPACE, study.getSearchSpace().toJson())
+                .toString());
+    }
+
+    @Override
+    public void saveTrial(HPOStudy study, HPOTrial trial) {
+        JSONObject trialJson = new JSONObject()
+                .put(ServiceConstants.TRIAL_NUMBER, trial.getTrialNumber())
+                .put(AutotuneConfigConstants.TUNABLES, study.getSearchSpace().toTrialConfig(trial.getValues()))
+                .put(ServiceConstants.TRIAL_STATUS, trial.getStatus().name());
+        if (Double.isFinite(trial.getResult())) {
+            trialJson.put(KruizeConstants.JSONKeys.RESULT_VALUE, trial.getResult());
+        }
+        trials.computeIfAbsent(study.getExperimentName(), name -> new ConcurrentSkipListMap<>())
+                .put(trial.getTrialNumber(), trialJson.toString());
+    }
+
+    @Override
+    public HPOStudy loadStudy(String experimentName) {
+        String studyJson = studies.get(experimentName);
+        if (null == studyJson) {
+            return null;
+        }
+        JSONObject study = new JSONObject(studyJson);
+        HPOSearchSpace searchSpace = new HPOSearchSpace(study.getJSONObject(SEARCH_SPACE));
+        List<HPOTrial> trialList = new ArrayList<>();
+        for (String trialJson : trials.getOrDefault(experimentName, Collections.emptyMap()).values()) {
+            JSONObject trial = new JSONObject(trialJson);
+            trialList.add(new HPOTrial(trial.getInt(ServiceConstants.TRIAL_NUMBER),
+                    searchSpace.fromTrialConfig(trial.getJSONArray(AutotuneConfigConstants.TUNABLES)),
+                    TrialStatus.valueOf(trial.getString(ServiceConstants.TRIAL_STATUS)),
+                    trial.optDouble(KruizeConstants.JSONKeys.RESULT_VALUE, Double.NaN)));
+        }
+        return new HPOStudy(searchSpace, study.getLong(SEED), trialList);
+    }
+}
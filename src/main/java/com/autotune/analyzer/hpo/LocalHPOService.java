@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.hpo;
+
+import com.autotune.analyzer.utils.AnalyzerConstants;
+import com.autotune.operator.KruizeDeploymentInfo;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process HPO engine offering random search and TPE, enabled with the hpoEngine config set to local. Every
+ * suggestion and result is written to the study store before it is returned, so the experiments resume after a
+ * restart.
+ */
+public class LocalHPOService implements HPOService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalHPOService.class);
+    private static LocalHPOService instance;
+
+    private final HPOStudyStore studyStore;
+    private final Map<String, HPOStudy> studies = new ConcurrentHashMap<>();
+
+    public LocalHPOService(HPOStudyStore studyStore) {
+        this.studyStore = studyStore;
+    }
+
+    public static synchronized LocalHPOService getInstance() {
+        if (null == instance) {
+            HPOStudyStore studyStore = Boolean.TRUE.equals(KruizeDeploymentInfo.settings_save_to_db) ?
+                    new DBHPOStudyStore() : new InMemoryHPOStudyStore();
+            instance = new LocalHPOService(studyStore);
+        }
+        return instance;
+    }
+
+    @Override
+    public int createExperiment(JSONObject searchSpace) throws Exception {
+        String experimentName = searchSpace.getString(AnalyzerConstants.ServiceConstants.EXPERIMENT_NAME);
+        HPOStudy study;
+        synchronized (this) {
+            study = findStudy(experimentName);
+            if (null == study) {
+                study = new HPOStudy(new HPOSearchSpace(searchSpace), experimentName.hashCode());
+                studyStore.saveStudy(study);
+                studies.put(experimentName, study);
+                LOGGER.info("Created HPO study {} with {} sampler", experimentName, study.getSearchSpace().getHpoAlgoImpl());
+            } else {
+                LOGGER.info("Resuming HPO study {} after {} trials", experimentName, study.getTrials().size());
+            }
+        }
+        return suggest(study, 1).get(0);
+    }
+
+    @Override
+    public List<Integer> generateTrials(String experimentName, int count) throws Exception {
+        return suggest(getStudy(experimentName), count);
+    }
+
+    @Override
+    public JSONArray getTrialConfig(String experimentName, int trialNumber) throws Exception {
+        HPOStudy study = getStudy(experimentName);
+        HPOTrial trial = study.getTrial(trialNumber);
+        if (null == trial) {
+            throw new IllegalArgumentException("Trial " + trialNumber + " of " + experimentName + " does not exist");
+        }
+        return study.getSearchSpace().toTrialConfig(trial.getValues());
+    }
+
+    @Override
+    public void updateTrialResult(String experimentName, int trialNumber, boolean success, double value) throws Exception {
+        HPOStudy study = getStudy(experimentName);
+        HPOTrial trial = success && Double.isFinite(value) ? study.complete(trialNumber, value) : study.fail(trialNumber);
+        studyStore.saveTrial(study, trial);
+    }
+
+    public HPOStudy getStudy(String experimentName) throws Exception {
+        HPOStudy study = findStudy(experimentName);
+        if (null == study) {
+            throw new IllegalArgumentException("HPO study " + experimentName + " does not exist");
+        }
+        return study;
+    }
+
+    private HPOStudy findStudy(String experimentName) throws Exception {
+        HPOStudy study = studies.get(experimentName);
+        if (null == study) {
+            synchronized (this) {
+                study = studies.get(experimentName);
+                if (null == study) {
+                    study = studyStore.loadStudy(experimentName);
+                    if (null != study) {
+                        studies.put(experimentName, study);
+                    }
+                }
+            }
+        }
+        return study;
+    }
+
+    private List<Integer> suggest(HPOStudy study, int count) throws Exception {
+        if (count < 1) {
+            throw new IllegalArgumentException("Number of trials must be positive, got " + count);
+        }
+        List<Integer> trialNumbers = new ArrayList<>(count);
+        for (HPOTrial trial : study.suggest(count)) {
+            studyStore.saveTrial(study, trial);
+            trialNumbers.add(trial.getTrialNumber());
+        }
+        return trialNumbers;
+    }
+}
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.hpo;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Random search: every parameter is drawn uniformly over its choices, its step grid or its bounds
+ */
+public class RandomSampler implements HPOSampler {
+
+    @Override
+    public double[] sample(HPOSearchSpace searchSpace, List<HPOTrial> trials, Random random) {
+        List<HPOParameter> parameters = searchSpace.getParameters();
+        double[] values = new double[parameters.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = sampleUniform(parameters.get(i), random);
+        }
+        return values;
+    }
+
+    static double sampleUniform(HPOParameter parameter, Random random) {
+        if (parameter.isCategorical()) {
+            return random.nextInt(parameter.getChoices().size());
+        }
+        double step = parameter.getStep();
+        if (step > 0) {
+            long gridSize = (long) Math.floor((parameter.getUpperBound() - parameter.getLowerBound()) / step + 1e-9) + 1;
+            return parameter.snap(parameter.getLowerBound() + (long) (random.nextDouble() * gridSize) * step);
+        }
+        return parameter.snap(parameter.getLowerBound() + random.nextDouble() * (parameter.getUpperBound() - parameter.getLowerBound()));
+    }
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.hpo;
+
+import com.autotune.utils.HttpUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.autotune.analyzer.utils.AnalyzerConstants.ServiceConstants.*;
+import static com.autotune.analyzer.utils.AnalyzerConstants.ServiceConstants.EXPERIMENT_NAME;
+import static com.autotune.utils.KruizeConstants.HpoOperations.*;
+import static com.autotune.utils.KruizeConstants.JSONKeys.*;
+import static com.autotune.utils.ServerContext.HPO_TRIALS_END_POINT;
+
+/**
+ * The external HPO service, reached over HTTP at the experiment trials endpoint
+ */
+public class RemoteHPOService implements HPOService {
+    private final URL experimentTrialsURL;
+
+    public RemoteHPOService(URL experimentTrialsURL) {
+        this.experimentTrialsURL = experimentTrialsURL;
+    }
+
+    @Override
+    public int createExperiment(JSONObject searchSpace) {
+        JSONObject hpoTrial = new JSONObject();
+        hpoTrial.put(OPERATION, EXP_TRIAL_GENERATE_NEW);
+        hpoTrial.put(SEARCHSPACE, searchSpace);
+        return Integer.parseInt(HttpUtils.postRequest(experimentTrialsURL, hpoTrial.toString()));
+    }
+
+    @Override
+    public List<Integer> generateTrials(String experimentName, int count) {
+        List<Integer> trialNumbers = new ArrayList<>(count);
+        JSONObject hpoTrial = new JSONObject();
+        hpoTrial.put(OPERATION, EXP_TRIAL_GENERATE_SUBSEQUENT);
+        hpoTrial.put(EXPERIMENT_NAME, experimentName);
+        for (int i = 0; i < count; i++) {
+            trialNumbers.add(Integer.parseInt(HttpUtils.postRequest(experimentTrialsURL, hpoTrial.toString())));
+        }
+        return trialNumbers;
+    }
+
+    @Override
+    public JSONArray getTrialConfig(String experimentName, int trialNumber) throws Exception {
+        StringBuilder trialConfigUrl = new StringBuilder(HPO_TRIALS_END_POINT)
+                .append(QUESTION_MARK).append(EXPERIMENT_NAME)
+                .append(EQUALS).append(experimentName)
+                .append(AMPERSAND).append(TRIAL_NUMBER)
+                .append(EQUALS).append(trialNumber);
+        return new JSONArray(HttpUtils.getDataFromURL(new URL(trialConfigUrl.toString()), ""));
+    }
+
+    @Override
+    public void updateTrialResult(String experimentName, int trialNumber, boolean success, double value) {
+        JSONObject sendTrialResult = new JSONObject();
+        sendTrialResult.put(EXPERIMENT_NAME, experimentName);
+        sendTrialResult.put(TRIAL_NUMBER, trialNumber);
+        sendTrialResult.put(TRIAL_RESULT, success ? "success" : "failure");
+        sendTrialResult.put(RESULT_VALUE_TYPE, "double");
+        sendTrialResult.put(RESULT_VALUE, value);
+        sendTrialResult.put(OPERATION, EXP_TRIAL_RESULT);
+        HttpUtils.postRequest(experimentTrialsURL, sendTrialResult.toString());
+    }
+}
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.hpo;
+
+import com.autotune.analyzer.utils.AnalyzerConstants.HPOConstants.TrialStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static com.autotune.analyzer.utils.AnalyzerConstants.HPOConstants.*;
+
+/**
+ * Univariate Tree-structured Parzen Estimator, along the lines of the optuna TPE sampler used by the HPO service.
+ * <p>
+ * The observed trials are split into the best gamma fraction and the rest, each group is modelled per parameter by a
+ * Parzen estimator (truncated Gaussians for numeric parameters, smoothed counts for categorical ones), and the
+ * candidate drawn from the good model with the highest ratio of good to bad density is suggested. Until
+ * TPE_STARTUP_TRIALS trials have completed the values are drawn at random.
+ * <p>
+ * Running trials are counted as if they had the worst result seen so far (the constant liar strategy), so that the
+ * suggestions of a batch for parallel trials move away from each other.
+ */
+public class TPESampler implements HPOSampler {
+    private static final double SQRT_2 = Math.sqrt(2);
+    private static final double LOG_SQRT_2PI = 0.5 * Math.log(2 * Math.PI);
+    private static final double MIN_MASS = 1e-12;
+
+    @Override
+    public double[] sample(HPOSearchSpace searchSpace, List<HPOTrial> trials, Random random) {
+        List<HPOTrial> completed = new ArrayList<>();
+        List<HPOTrial> running = new ArrayList<>();
+        for (HPOTrial trial : trials) {
+            if (trial.getStatus() == TrialStatus.COMPLETE && Double.isFinite(trial.getResult())) {
+                completed.add(trial);
+            } else if (trial.getStatus() == TrialStatus.RUNNING) {
+                running.add(trial);
+            }
+        }
+        List<HPOParameter> parameters = searchSpace.getParameters();
+        if (completed.size() < TPE_STARTUP_TRIALS) {
+            return new RandomSampler().sample(searchSpace, trials, random);
+        }
+
+        // losses to minimize, the running trials lie with the worst loss
+        double sign = searchSpace.isMinimize() ? 1 : -1;
+        double worst = Double.NEGATIVE_INFINITY;
+        List<Observation> observations = new ArrayList<>();
+        for (HPOTrial trial : completed) {
+            double loss = sign * trial.getResult();
+            worst = Math.max(worst, loss);
+            observations.add(new Observation(trial, loss));
+        }
+        for (HPOTrial trial : running) {
+            observations.add(new Observation(trial, worst));
+        }
+        observations.sort(Comparator.comparingDouble((Observation o) -> o.loss)
+                .thenComparingInt(o -> o.trial.getTrialNumber()));
+        int below = Math.max(1, Math.min((int) Math.ceil(TPE_GAMMA * observations.size()), TPE_MAX_BELOW_TRIALS));
+        List<Observation> good = observations.subList(0, below);
+        List<Observation> bad = observations.subList(below, observations.size());
+
+        double[] values = new double[parameters.size()];
+        for (int p = 0; p < parameters.size(); p++) {
+            HPOParameter parameter = parameters.get(p);
+            if (parameter.isCategorical()) {
+                values[p] = sampleCategorical(parameter.getChoices().size(), good, bad, p, random);
+            } else {
+                values[p] = parameter.fromUnit(sampleNumeric(parameter, good, bad, p, random));
+            }
+        }
+        return values;
+    }
+
+    private static double sampleCategorical(int choices, List<Observation> good, List<Observation> bad, int p, Random random) {
+        double[] goodWeights = categoricalWeights(choices, good, p);
+        double[] badWeights = categoricalWeights(choices, bad, p);
+        int best = 0;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int c = 0; c < TPE_EI_CANDIDATES; c++) {
+            int candidate = pick(goodWeights, random);
+            double score = Math.log(goodWeights[candidate]) - Math.log(badWeights[candidate]);
+            if (score > bestScore) {
+                bestScore = score;
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private static double[] categoricalWeights(int choices, List<Observation> observations, int p) {
+        double[] weights = new double[choices];
+        double total = observations.size() + TPE_PRIOR_WEIGHT;
+        for (int c = 0; c < choices; c++) {
+            weights[c] = TPE_PRIOR_WEIGHT / choices / total;
+        }
+        for (Observation observation : observations) {
+            weights[(int) observation.trial.getValue(p)] += 1 / total;
+        }
+        return weights;
+    }
+
+    private static int pick(double[] weights, Random random) {
+        double r = random.nextDouble();
+        double cumulative = 0;
+        for (int i = 0; i < weights.length; i++) {
+            cumulative += weights[i];
+            if (r < cumulative) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    /**
+     * Returns the best candidate in [0, 1], the parameter's bounds mapped to the unit interval
+     */
+    private static double sampleNumeric(HPOParameter parameter, List<Observation> good, List<Observation> bad, int p, Random random) {
+        ParzenEstimator goodEstimator = new ParzenEstimator(parameter, good, p);
+        ParzenEstimator badEstimator = new ParzenEstimator(parameter, bad, p);
+        double best = 0.5;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int c = 0; c < TPE_EI_CANDIDATES; c++) {
+            double candidate = goodEstimator.sample(random);
+            double score = goodEstimator.logDensity(candidate) - badEstimator.logDensity(candidate);
+            if (score > bestScore) {
+                bestScore = score;
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private static final class Observation {
+        private final HPOTrial trial;
+        private final double loss;
+
+        private Observation(HPOTrial trial, double loss) {
+            this.trial = trial;
+            this.loss = loss;
+        }
+    }
+
+    /**
+     * Mixture of Gaussians truncated to [0, 1], one per observation plus a wide prior in the middle. The width of
+     * each Gaussian is the larger distance to its neighbours, clipped so that it neither vanishes nor exceeds the range.
+     */
+    private static final class ParzenEstimator {
+        private final double[] mus;
+        private final double[] sigmas;
+        private final double[] weights;
+        private final double[] logNormalizers;
+
+        private ParzenEstimator(HPOParameter parameter, List<Observation> observations, int p) {
+            int n = observations.size();
+            double[] points = new double[n];
+            for (int i = 0; i < n; i++) {
+                points[i] = Math.max(0, Math.min(1, parameter.toUnit(observations.get(i).trial.getValue(p))));
+            }
+            Arrays.sort(points);
+            mus = new double[n + 1];
+            sigmas = new double[n + 1];
+            weights = new double[n + 1];
+            logNormalizers = new double[n + 1];
+            double minSigma = 1.0 / Math.min(100, 1 + n);
+            double total = n + TPE_PRIOR_WEIGHT;
+            for (int i = 0; i < n; i++) {
+                double left = i == 0 ? points[i] : points[i] - points[i - 1];
+                double right = i == n - 1 ? 1 - points[i] : points[i + 1] - points[i];
+                mus[i] = points[i];
+                sigmas[i] = Math.max(minSigma, Math.min(1, Math.max(left, right)));
+                weights[i] = 1 / total;
+            }
+            mus[n] = 0.5;
+            sigmas[n] = 1;
+            weights[n] = TPE_PRIOR_WEIGHT / total;
+            for (int i = 0; i <= n; i++) {
+                double mass = normalCdf((1 - mus[i]) / sigmas[i]) - normalCdf(-mus[i] / sigmas[i]);
+                logNormalizers[i] = Math.log(Math.max(mass, MIN_MASS));
+            }
+        }
+
+        double sample(Random random) {
+            int component = pick(weights, random);
+            for (int attempt = 0; attempt < 100; attempt++) {
+                double x = mus[component] + sigmas[component] * random.nextGaussian();
+                if (x >= 0 && x <= 1) {
+                    return x;
+                }
+            }
+            return Math.max(0, Math.min(1, mus[component]));
+        }
+
+        double logDensity(double x) {
+            double max = Double.NEGATIVE_INFINITY;
+            double[] terms = new double[mus.length];
+            for (int i = 0; i < mus.length; i++) {
+                double z = (x - mus[i]) / sigmas[i];
+                terms[i] = Math.log(weights[i]) - 0.5 * z * z - LOG_SQRT_2PI - Math.log(sigmas[i]) - logNormalizers[i];
+                max = Math.max(max, terms[i]);
+            }
+            double sum = 0;
+            for (double term : terms) {
+                sum += Math.exp(term - max);
+            }
+            return max + Math.log(sum);
+        }
+    }
+
+    static double normalCdf(double x) {
+        return 0.5 * (1 + erf(x / SQRT_2));
+    }
+
+    /**
+     * Abramowitz and Stegun 7.1.26, accurate to 1.5e-7
+     */
+    private static double erf(double x) {
+        double t = 1 / (1 + 0.3275911 * Math.abs(x));
+        double y = 1 - t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 + t * (-1.453152027 + t * 1.061405429))))
+                * Math.exp(-x * x);
+        return x >= 0 ? y : -y;
+    }
+}
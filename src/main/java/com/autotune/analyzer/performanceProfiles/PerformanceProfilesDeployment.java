@@ -5,9 +5,9 @@ import com.autotune.common.data.ValidationOutputData;
 import com.autotune.common.k8sObjects.*;
 import com.autotune.common.target.kubernetes.service.KubernetesServices;
 import com.autotune.common.target.kubernetes.service.impl.KubernetesServicesImpl;
+import com.autotune.operator.KruizeDeploymentInfo;
 import com.autotune.analyzer.utils.AnalyzerConstants;
 import com.autotune.utils.EventLogger;
-import com.autotune.utils.KubeEventLogger;
 import com.google.gson.Gson;
 import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.Watcher;
@@ -17,7 +17,6 @@ import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.Clock;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -81,11 +80,11 @@ public class PerformanceProfilesDeployment {
                 if (validationOutputData.isSuccess())
                     validationStatus = true;
                 else
-                    new KubeEventLogger(Clock.systemUTC()).log("Failed", validationOutputData.getMessage(), EventLogger.Type.Warning, null, null, null, null);
+                    KruizeDeploymentInfo.getKubeEventLogger().log("Failed", validationOutputData.getMessage(), EventLogger.Type.Warning, null, null, null, null);
             } else
-                    new KubeEventLogger(Clock.systemUTC()).log("Failed", "Validation of performance profile failed! ", EventLogger.Type.Warning, null, null, null, null);
+                    KruizeDeploymentInfo.getKubeEventLogger().log("Failed", "Validation of performance profile failed! ", EventLogger.Type.Warning, null, null, null, null);
         } catch (Exception e) {
-            new KubeEventLogger(Clock.systemUTC()).log("Failed", e.getMessage(), EventLogger.Type.Warning, null, null, null, null);
+            KruizeDeploymentInfo.getKubeEventLogger().log("Failed", e.getMessage(), EventLogger.Type.Warning, null, null, null, null);
         }
         return validationStatus;
     }
@@ -15,6 +15,7 @@
  *******************************************************************************/
 package com.autotune.analyzer.performanceProfiles.utils;
 
+import com.autotune.analyzer.kruizeObject.SloInfo;
 import com.autotune.analyzer.performanceProfiles.PerformanceProfile;
 import com.autotune.analyzer.performanceProfiles.PerformanceProfileValidation;
 import com.autotune.analyzer.serviceObjects.ContainerAPIObject;
@@ -22,6 +23,7 @@ import com.autotune.analyzer.serviceObjects.KubernetesAPIObject;
 import com.autotune.analyzer.serviceObjects.UpdateResultsAPIObject;
 import com.autotune.analyzer.utils.AnalyzerConstants;
 import com.autotune.analyzer.utils.AnalyzerErrorConstants;
+import com.autotune.analyzer.utils.EvalExParser;
 import com.autotune.common.data.ValidationOutputData;
 import com.autotune.common.data.metrics.Metric;
 import com.autotune.common.data.metrics.MetricResults;
@@ -180,10 +182,31 @@ public class PerformanceProfileUtil {
     }
 
     public static void addPerformanceProfile(Map<String, PerformanceProfile> performanceProfileMap, PerformanceProfile performanceProfile) {
+        compileObjectiveFunction(performanceProfile);
         performanceProfileMap.put(performanceProfile.getName(), performanceProfile);
         LOGGER.debug("Added PerformanceProfile: {} ",performanceProfile.getName());
     }
 
+    /**
+     * Compiles the objective function expression of the profile so that scoring trials does not parse it again.
+     * Expressions the compiler does not support are only logged, they can still be evaluated by EvalEx.
+     *
+     * @param performanceProfile
+     */
+    private static void compileObjectiveFunction(PerformanceProfile performanceProfile) {
+        SloInfo sloInfo = performanceProfile.getSloInfo();
+        if (null == sloInfo || null == sloInfo.getObjectiveFunction() || null == sloInfo.getFunctionVariables()
+                || !AnalyzerConstants.AutotuneObjectConstants.EXPRESSION.equals(sloInfo.getObjectiveFunction().getFunction_type())) {
+            return;
+        }
+        List<String> variableNames = sloInfo.getFunctionVariables().stream().map(Metric::getName).toList();
+        try {
+            new EvalExParser().compile(sloInfo.getObjectiveFunction().getExpression(), variableNames);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Objective function of PerformanceProfile {} not compiled: {}", performanceProfile.getName(), e.getMessage());
+        }
+    }
+
     public static void addMetricProfile(Map<String, PerformanceProfile> performanceProfileMap, PerformanceProfile performanceProfile) {
         performanceProfileMap.put(performanceProfile.getMetadata().get("name").asText(), performanceProfile);
         LOGGER.debug("Added MetricProfile: {} ",performanceProfile.getMetadata().get("name"));
@@ -3,11 +3,10 @@ package com.autotune.analyzer.plots;
 import com.autotune.analyzer.recommendations.model.CostBasedRecommendationModel;
 import com.autotune.analyzer.recommendations.term.Terms;
 import com.autotune.analyzer.utils.AnalyzerConstants;
+import com.autotune.common.data.metrics.MetricResults;
 import com.autotune.common.data.result.IntervalResults;
 import com.autotune.common.utils.CommonUtils;
 import com.autotune.utils.KruizeConstants;
-import org.json.JSONArray;
-import org.json.JSONException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,121 +30,158 @@ public class PlotManager {
         this.monitoringEndTime = monitoringEndTime;
     }
 
+    /**
+     * Buckets the results into plots_datapoints windows of plots_datapoints_delta_in_days after the monitoring start
+     * time, each window holding the results with monitoringStartTime < intervalEndTime <= window end, and reduces each
+     * window to min, q1, median, q3 and max of the CPU and memory usage.
+     * <p>
+     * The results are sorted once and swept forward window by window, and the quartiles are found by selection on
+     * the window's slice of the usage arrays, so the cost is linear in the number of results.
+     */
     public PlotData.PlotsData generatePlots() {
-
-        // Convert the HashMap to a TreeMap to maintain sorted order based on IntervalEndTime
-        TreeMap<Timestamp, IntervalResults> sortedResultsHashMap = new TreeMap<>(Collections.reverseOrder());
-        sortedResultsHashMap.putAll(containerResultsMap);
-
-        // Retrieve entries within the specified range
-        Map<Timestamp, IntervalResults> resultInRange = sortedResultsHashMap.subMap(monitoringEndTime, true, monitoringStartTime, false);
-
-        int delimiterNumber = (int) (resultInRange.size() / recommendationTerm.getPlots_datapoints());
-
-        // Convert set to list
-        List<Timestamp> timestampList = new LinkedList<>(resultInRange.keySet());
-        // Sort the LinkedList
-        Collections.sort(timestampList);
+        int datapoints = recommendationTerm.getPlots_datapoints();
+        Timestamp[] intervalEndTimes = containerResultsMap.keySet().toArray(new Timestamp[0]);
+        Arrays.sort(intervalEndTimes);
+        int size = intervalEndTimes.length;
+        double[] cpuMin = new double[size];
+        double[] cpuMax = new double[size];
+        double[] memMin = new double[size];
+        double[] memMax = new double[size];
+
+        // Convert days to milliseconds
+        long millisecondsToAdd = (long) (recommendationTerm.getPlots_datapoints_delta_in_days() * 24 * 60 * 60 * 1000);
+        int delta = (int) millisecondsToAdd;
 
         Map<Timestamp, PlotData.PlotPoint> plotsDataMap = new HashMap<>();
-        Timestamp incrementStartTime = monitoringStartTime;
+        // skip the results at or before the start of the first window
+        int index = 0;
+        while (index < size && intervalEndTimes[index].compareTo(monitoringStartTime) <= 0) {
+            index++;
+        }
+        long windowEndMillis = monitoringStartTime.getTime();
+        for (int i = 0; i < datapoints; i++) {
+            windowEndMillis += delta;
+            Timestamp windowEnd = new Timestamp(windowEndMillis);
+            int from = index;
+            while (index < size && intervalEndTimes[index].compareTo(windowEnd) <= 0) {
+                IntervalResults intervalResults = containerResultsMap.get(intervalEndTimes[index]);
+                JSONObject cpuUsage = CostBasedRecommendationModel.calculateCPUUsage(intervalResults);
+                JSONObject memoryUsage = CostBasedRecommendationModel.calculateMemoryUsage(intervalResults);
+                cpuMin[index] = cpuUsage.getDouble(KruizeConstants.JSONKeys.MIN);
+                cpuMax[index] = cpuUsage.getDouble(KruizeConstants.JSONKeys.MAX);
+                memMin[index] = memoryUsage.getDouble(KruizeConstants.JSONKeys.MIN);
+                memMax[index] = memoryUsage.getDouble(KruizeConstants.JSONKeys.MAX);
+                index++;
+            }
+            PlotData.UsageData cpuUsage = getUsageData(intervalEndTimes, cpuMax, cpuMin, from, index, AnalyzerConstants.MetricName.cpuUsage);
+            PlotData.UsageData memoryUsage = getUsageData(intervalEndTimes, memMax, memMin, from, index, AnalyzerConstants.MetricName.memoryUsage);
+            plotsDataMap.put(windowEnd, new PlotData.PlotPoint(cpuUsage, memoryUsage));
+        }
 
-        // Convert the Timestamp to a Calendar
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTimeInMillis(incrementStartTime.getTime());
+        return new PlotData.PlotsData(datapoints, plotsDataMap);
+    }
 
-        for (int i = 0; i < recommendationTerm.getPlots_datapoints(); i++) {
-            // Add days to the Calendar
-            double daysToAdd = recommendationTerm.getPlots_datapoints_delta_in_days();
-            long millisecondsToAdd = (long) (daysToAdd * 24 * 60 * 60 * 1000); // Convert days to milliseconds
-            calendar.add(Calendar.MILLISECOND, (int) millisecondsToAdd);
-            // Convert the modified Calendar back to a Timestamp
-            Timestamp newTimestamp = new Timestamp(calendar.getTimeInMillis());
-            PlotData.UsageData cpuUsage = getUsageData(sortedResultsHashMap.subMap(newTimestamp, true,
-                    incrementStartTime,false), AnalyzerConstants.MetricName.cpuUsage);
-            PlotData.UsageData memoryUsage = getUsageData(sortedResultsHashMap.subMap(newTimestamp, true,
-                    incrementStartTime, false), AnalyzerConstants.MetricName.memoryUsage);
-            plotsDataMap.put(newTimestamp, new PlotData.PlotPoint(cpuUsage, memoryUsage));
-            incrementStartTime = newTimestamp;
+    /**
+     * Returns the box plot of the window [from, to) of the usage arrays, null if the window is empty. The order of
+     * the maxValues in the window is not preserved.
+     */
+    private PlotData.UsageData getUsageData(Timestamp[] intervalEndTimes, double[] maxValues, double[] minValues,
+                                            int from, int to, AnalyzerConstants.MetricName metricName) {
+        if (from == to) {
+            return null;
+        }
+        double max = maxValues[from];
+        double min = minValues[from];
+        boolean zeroMin = false;
+        for (int i = from; i < to; i++) {
+            if (Double.compare(maxValues[i], max) > 0) {
+                max = maxValues[i];
+            }
+            if (Double.compare(minValues[i], min) < 0) {
+                min = minValues[i];
+            }
+            // a zero minimum of any interval makes the minimum of the window zero
+            if (Double.compare(minValues[i], 0.0) == 0) {
+                zeroMin = true;
+            }
         }
+        if (zeroMin) {
+            min = 0.0;
+        }
+        // nearest rank percentiles, selected in increasing order so that each selection only scans the slice above the previous one
+        int q1Index = from + percentileIndex(TWENTYFIVE_PERCENTILE, to - from);
+        int medianIndex = from + percentileIndex(FIFTY_PERCENTILE, to - from);
+        int q3Index = from + percentileIndex(SEVENTYFIVE_PERCENTILE, to - from);
+        double q1 = select(maxValues, from, to, q1Index);
+        double median = select(maxValues, q1Index, to, medianIndex);
+        double q3 = select(maxValues, medianIndex, to, q3Index);
+
+        LOGGER.debug("q1 : {}, q3 : {}, median : {}, max : {}, min : {}", q1, q3, median, max, min);
+        return new PlotData.UsageData(min, q1, median, q3, max, getFormatValue(intervalEndTimes, from, to, metricName));
+    }
 
-        return new PlotData.PlotsData(recommendationTerm.getPlots_datapoints(), plotsDataMap);
+    /**
+     * Index of the percentile in a sorted list of the given size, the same as {@link CommonUtils#percentile}
+     */
+    private static int percentileIndex(double percentile, int size) {
+        return (int) Math.round(percentile / 100.0 * (size - 1));
     }
 
-    PlotData.UsageData getUsageData(Map<Timestamp, IntervalResults> resultInRange, AnalyzerConstants.MetricName metricName) {
-        // stream through the results value and extract the CPU values
-        try {
-            if (metricName.equals(AnalyzerConstants.MetricName.cpuUsage)) {
-                JSONArray cpuValues = CostBasedRecommendationModel.getCPUUsageList(resultInRange);
-                LOGGER.debug("cpuValues : {}", cpuValues);
-                if (!cpuValues.isEmpty()) {
-                    // Extract "max" values from cpuUsageList
-                    List<Double> cpuMaxValues = new ArrayList<>();
-                    List<Double> cpuMinValues = new ArrayList<>();
-                    for (int i = 0; i < cpuValues.length(); i++) {
-                        JSONObject jsonObject = cpuValues.getJSONObject(i);
-                        double maxValue = jsonObject.getDouble(KruizeConstants.JSONKeys.MAX);
-                        double minValue = jsonObject.getDouble(KruizeConstants.JSONKeys.MIN);
-                        cpuMaxValues.add(maxValue);
-                        cpuMinValues.add(minValue);
-                    }
-                    LOGGER.debug("cpuMaxValues : {}", cpuMaxValues);
-                    LOGGER.debug("cpuMinValues : {}", cpuMinValues);
-                    return getPercentileData(cpuMaxValues, cpuMinValues, resultInRange, metricName);
+    /**
+     * Partially orders values[from, to) so that values[k] holds the value it would hold if the range were sorted,
+     * with only smaller or equal values before it, and returns that value
+     */
+    private static double select(double[] values, int from, int to, int k) {
+        int lo = from;
+        int hi = to - 1;
+        while (lo < hi) {
+            double pivot = values[lo + (hi - lo) / 2];
+            // three way partition into [lo, lt) < pivot, [lt, gt] == pivot, (gt, hi] > pivot
+            int lt = lo;
+            int gt = hi;
+            int i = lo;
+            while (i <= gt) {
+                int cmp = Double.compare(values[i], pivot);
+                if (cmp < 0) {
+                    swap(values, lt++, i++);
+                } else if (cmp > 0) {
+                    swap(values, i, gt--);
+                } else {
+                    i++;
                 }
-
+            }
+            if (k < lt) {
+                hi = lt - 1;
+            } else if (k > gt) {
+                lo = gt + 1;
             } else {
-                // loop through the results value and extract the memory values
-                CostBasedRecommendationModel costBasedRecommendationModel  = new CostBasedRecommendationModel();
-                List<Double> memUsageMinList = new ArrayList<>();
-                List<Double> memUsageMaxList = new ArrayList<>();
-                boolean memDataAvailable = false;
-                for (IntervalResults intervalResults: resultInRange.values()) {
-                    JSONObject jsonObject = costBasedRecommendationModel.calculateMemoryUsage(intervalResults);
-                    if (!jsonObject.isEmpty()) {
-                        memDataAvailable = true;
-                        Double memUsageMax = jsonObject.getDouble(KruizeConstants.JSONKeys.MAX);
-                        Double memUsageMin = jsonObject.getDouble(KruizeConstants.JSONKeys.MIN);
-                        memUsageMaxList.add(memUsageMax);
-                        memUsageMinList.add(memUsageMin);
-                    }
-                }
-                LOGGER.debug("memValues Max : {}, Min : {}", memUsageMaxList, memUsageMinList);
-                if (memDataAvailable)
-                    return getPercentileData(memUsageMaxList, memUsageMinList, resultInRange, metricName);
+                return values[k];
             }
-        } catch (JSONException e) {
-            LOGGER.error("Exception occurred while extracting metric values: {}", e.getMessage());
         }
-        return null;
+        return values[k];
     }
 
-    private PlotData.UsageData getPercentileData(List<Double> metricValuesMax, List<Double> metricValuesMin, Map<Timestamp, IntervalResults> resultInRange, AnalyzerConstants.MetricName metricName) {
-        try {
-            if (!metricValuesMax.isEmpty()) {
-                double q1 = CommonUtils.percentile(TWENTYFIVE_PERCENTILE, metricValuesMax);
-                double q3 = CommonUtils.percentile(SEVENTYFIVE_PERCENTILE, metricValuesMax);
-                double median = CommonUtils.percentile(FIFTY_PERCENTILE, metricValuesMax);
-                // Find max and min
-                double max = Collections.max(metricValuesMax);
-                double min;
-                // check for non zero values
-                boolean nonZeroCheck = metricValuesMin.stream().noneMatch(value -> value.equals(0.0));
-                if (nonZeroCheck) {
-                    min = Collections.min(metricValuesMin);
-                } else {
-                    min = 0.0;
-                }
+    private static void swap(double[] values, int i, int j) {
+        double value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
 
-                LOGGER.debug("q1 : {}, q3 : {}, median : {}, max : {}, min : {}", q1, q3, median, max, min);
-                String format = CostBasedRecommendationModel.getFormatValue(resultInRange, metricName);
-                return new PlotData.UsageData(min, q1, median, q3, max, format);
-            } else {
-                return null;
+    /**
+     * Returns the format of the newest result of the window having one, like
+     * {@link CostBasedRecommendationModel#getFormatValue} walking the window from newest to oldest
+     */
+    private String getFormatValue(Timestamp[] intervalEndTimes, int from, int to, AnalyzerConstants.MetricName metricName) {
+        String format = "";
+        for (int i = to - 1; i >= from; i--) {
+            MetricResults metricResults = containerResultsMap.get(intervalEndTimes[i]).getMetricResultsMap().get(metricName);
+            if (metricResults != null && metricResults.getAggregationInfoResult() != null) {
+                format = metricResults.getAggregationInfoResult().getFormat();
+                if (format != null && !format.isEmpty()) {
+                    break;
+                }
             }
-        } catch (Exception e) {
-            LOGGER.error("Exception occurred while generating percentiles: {}", e.getMessage());
         }
-        return null;
+        return format;
     }
 }
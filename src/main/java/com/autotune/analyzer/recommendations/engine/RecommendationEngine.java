@@ -14,7 +14,11 @@ import com.autotune.analyzer.recommendations.objects.MappedRecommendationForMode
 import com.autotune.analyzer.recommendations.objects.MappedRecommendationForTimestamp;
 import com.autotune.analyzer.recommendations.objects.TermRecommendations;
 import com.autotune.analyzer.recommendations.term.Terms;
+import com.autotune.analyzer.recommendations.utils.LocalMetricsStore;
+import com.autotune.analyzer.recommendations.utils.PrefetchedMetrics;
+import com.autotune.analyzer.recommendations.utils.PrefetchedMetricsStore;
 import com.autotune.analyzer.recommendations.utils.RecommendationUtils;
+import com.autotune.analyzer.serviceObjects.RecommendationBackfillStatus;
 import com.autotune.analyzer.utils.AnalyzerConstants;
 import com.autotune.analyzer.utils.AnalyzerErrorConstants;
 import com.autotune.common.data.ValidationOutputData;
@@ -25,40 +29,49 @@ import com.autotune.common.data.result.NamespaceData;
 import com.autotune.common.data.system.info.device.DeviceDetails;
 import com.autotune.common.data.system.info.device.accelerator.AcceleratorDeviceData;
 import com.autotune.common.datasource.DataSourceInfo;
+import com.autotune.common.datasource.DataSourceQueryCache;
+import com.autotune.common.datasource.RangeQuerySplitter;
 import com.autotune.common.exceptions.DataSourceNotExist;
 import com.autotune.common.k8sObjects.K8sObject;
 import com.autotune.common.utils.CommonUtils;
+import com.autotune.database.helper.DBHelpers;
 import com.autotune.database.service.ExperimentDBService;
+import com.autotune.database.table.KruizeRecommendationEntry;
 import com.autotune.metrics.KruizeNotificationCollectionRegistry;
+import com.autotune.metrics.RecommendationStageMetrics;
+import com.autotune.metrics.RecommendationStageMetrics.Stage;
 import com.autotune.operator.KruizeDeploymentInfo;
-import com.autotune.utils.GenericRestApiClient;
 import com.autotune.utils.KruizeConstants;
 import com.autotune.utils.MetricsConfig;
 import com.autotune.utils.Utils;
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import io.micrometer.core.instrument.Timer;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.servlet.http.HttpServletResponse;
 import java.lang.reflect.Method;
-import java.net.URLEncoder;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static com.autotune.analyzer.recommendations.RecommendationConstants.RecommendationValueConstants.*;
-import static com.autotune.analyzer.utils.AnalyzerConstants.ServiceConstants.CHARACTER_ENCODING;
 import static com.autotune.analyzer.utils.AnalyzerErrorConstants.AutotuneObjectErrors.MISSING_EXPERIMENT_NAME;
 
 public class RecommendationEngine {
     private static final Logger LOGGER = LoggerFactory.getLogger(RecommendationEngine.class);
+    private static volatile ForkJoinPool recommendationPool;
     private final String intervalEndTimeStr;
     private final String intervalStartTimeStr; // TODO: to be used in future
     List<RecommendationModel> recommendationModels;
@@ -269,7 +282,7 @@ public class RecommendationEngine {
      * @param calCount The count of incoming requests.
      * @return The KruizeObject containing the prepared recommendations.
      */
-    public KruizeObject prepareRecommendations(int calCount, String target_cluster) throws FetchMetricsError {
+    public KruizeObject prepareRecommendations(long calCount, String target_cluster) throws FetchMetricsError {
         Map<String, KruizeObject> mainKruizeExperimentMAP = new ConcurrentHashMap<>();
         Map<String, Terms> terms = new HashMap<>();
         ValidationOutputData validationOutputData;
@@ -342,6 +355,115 @@ public class RecommendationEngine {
         return kruizeObject;
     }
 
+    /**
+     * Generates and saves the recommendations of the experiment at every step between the start and end
+     * interval end times, as if updateRecommendations was called at each of them.
+     * <p>
+     * The results needed by the whole range are loaded once. At each step the results are cut at the latest
+     * result not after the step, so the term windows slide forward across the range without reloading them.
+     * Steps which see no new results are skipped, and the recommendations are saved in batches.
+     *
+     * @param startTime      interval end time of the first step
+     * @param endTime        interval end time of the last step
+     * @param stepMinutes    minutes between consecutive steps
+     * @param backfillStatus progress of the backfill, updated as the steps complete
+     * @throws Exception if the experiment or its results could not be loaded or the recommendations could not be saved
+     */
+    public void backfillRecommendations(Timestamp startTime, Timestamp endTime, int stepMinutes,
+                                        RecommendationBackfillStatus backfillStatus) throws Exception {
+        KruizeObject kruizeObject = createKruizeObject(AnalyzerConstants.REMOTE);
+        if (!kruizeObject.getValidation_data().isSuccess()) {
+            throw new Exception(kruizeObject.getValidation_data().getMessage());
+        }
+        if (!kruizeObject.getExperiment_usecase_type().isRemote_monitoring()) {
+            throw new Exception(KruizeConstants.KRUIZE_RECOMMENDATION_BACKFILL.REMOTE_ONLY);
+        }
+        setKruizeObject(kruizeObject);
+        // set the default terms if the terms aren't provided by the user
+        if (kruizeObject.getTerms() == null)
+            KruizeObject.setDefaultTerms(new HashMap<>(), kruizeObject);
+        setPerformanceProfile(kruizeObject.getPerformanceProfile());
+        int maxDay = Terms.getMaxDays(kruizeObject.getTerms());
+
+        // load the results needed by the whole range once
+        Map<String, KruizeObject> mainKruizeExperimentMAP = new ConcurrentHashMap<>();
+        mainKruizeExperimentMAP.put(experimentName, kruizeObject);
+        Timestamp loadStartTime = Timestamp.valueOf(startTime.toLocalDateTime().minusDays(maxDay));
+        if (!new ExperimentDBService().loadResultsFromDBByName(mainKruizeExperimentMAP, experimentName, loadStartTime, endTime)) {
+            SimpleDateFormat dateFormat = new SimpleDateFormat(KruizeConstants.DateFormats.STANDARD_JSON_DATE_FORMAT);
+            throw new Exception(String.format(KruizeConstants.KRUIZE_RECOMMENDATION_BACKFILL.NO_RESULTS,
+                    dateFormat.format(loadStartTime), dateFormat.format(endTime)));
+        }
+        List<BackfillResults> backfillResultsList = new ArrayList<>();
+        for (K8sObject k8sObject : kruizeObject.getKubernetes_objects()) {
+            if (kruizeObject.isNamespaceExperiment()) {
+                NamespaceData namespaceData = k8sObject.getNamespaceData();
+                if (null != namespaceData && null != namespaceData.getResults()) {
+                    backfillResultsList.add(new BackfillResults(namespaceData.getResults(), namespaceData::setResults,
+                            () -> namespaceData.setNamespaceRecommendations(new NamespaceRecommendations())));
+                }
+            } else if (null != k8sObject.getContainerDataMap()) {
+                for (ContainerData containerData : k8sObject.getContainerDataMap().values()) {
+                    if (null != containerData.getResults()) {
+                        backfillResultsList.add(new BackfillResults(containerData.getResults(), containerData::setResults,
+                                () -> containerData.setContainerRecommendations(new ContainerRecommendations())));
+                    }
+                }
+            }
+        }
+        TreeSet<Timestamp> resultTimestamps = new TreeSet<>();
+        for (BackfillResults backfillResults : backfillResultsList) {
+            resultTimestamps.addAll(backfillResults.allResults.keySet());
+        }
+
+        long stepMillis = TimeUnit.MINUTES.toMillis(stepMinutes);
+        int totalSteps = (int) ((endTime.getTime() - startTime.getTime()) / stepMillis) + 1;
+        backfillStatus.setTotal_steps(totalSteps);
+        List<KruizeRecommendationEntry> pendingEntries = new ArrayList<>();
+        Timestamp lastMonitoringEndTime = null;
+        for (int step = 0; step < totalSteps; step++) {
+            Timestamp stepTime = new Timestamp(startTime.getTime() + step * stepMillis);
+            Timestamp monitoringEndTime = resultTimestamps.floor(stepTime);
+            if (null == monitoringEndTime || monitoringEndTime.equals(lastMonitoringEndTime)) {
+                backfillStatus.incrementSkipped_steps();
+                backfillStatus.incrementProcessed_steps();
+                continue;
+            }
+            lastMonitoringEndTime = monitoringEndTime;
+            Timestamp windowStartTime = Timestamp.valueOf(monitoringEndTime.toLocalDateTime().minusDays(maxDay));
+            for (BackfillResults backfillResults : backfillResultsList) {
+                backfillResults.slide(windowStartTime, monitoringEndTime);
+            }
+            setInterval_end_time(monitoringEndTime);
+            generateRecommendations(kruizeObject);
+            KruizeRecommendationEntry recommendationEntry = DBHelpers.Converters.KruizeObjectConverters
+                    .convertKruizeObjectTORecommendation(kruizeObject, monitoringEndTime);
+            if (null == recommendationEntry) {
+                backfillStatus.incrementSkipped_steps();
+            } else {
+                pendingEntries.add(recommendationEntry);
+                if (pendingEntries.size() >= KruizeConstants.KRUIZE_RECOMMENDATION_BACKFILL.DB_BATCH_SIZE) {
+                    saveBackfilledRecommendations(pendingEntries, backfillStatus);
+                }
+            }
+            backfillStatus.incrementProcessed_steps();
+        }
+        saveBackfilledRecommendations(pendingEntries, backfillStatus);
+    }
+
+    private void saveBackfilledRecommendations(List<KruizeRecommendationEntry> pendingEntries,
+                                               RecommendationBackfillStatus backfillStatus) throws Exception {
+        if (pendingEntries.isEmpty()) {
+            return;
+        }
+        ValidationOutputData validationOutputData = new ExperimentDBService().addRecommendationsToDBInBatch(pendingEntries);
+        if (!validationOutputData.isSuccess()) {
+            throw new Exception(validationOutputData.getMessage());
+        }
+        backfillStatus.addSaved_recommendations(pendingEntries.size());
+        pendingEntries.clear();
+    }
+
     /**
      * Generates recommendations for the specified KruizeObject
      *
@@ -357,23 +479,134 @@ public class RecommendationEngine {
                 LOGGER.info("Generating recommendations for namespace: {}", namespaceName);
                 generateRecommendationsBasedOnNamespace(namespaceData, kruizeObject);
             } else if (kruizeObject.isContainerExperiment()) {
+                List<ContainerData> containersToProcess = new ArrayList<>();
                 for (String containerName : k8sObject.getContainerDataMap().keySet()) {
                     ContainerData containerData = k8sObject.getContainerDataMap().get(containerName);
 
                     if (containerData.getResults() == null || containerData.getResults().isEmpty()) {
                         continue;
                     }
+                    containersToProcess.add(containerData);
+                }
+
+                // generate recommendations based on each container
+                if (KruizeDeploymentInfo.recommendation_parallel && containersToProcess.size() > 1) {
+                    List<Callable<Void>> containerTasks = new ArrayList<>();
+                    for (ContainerData containerData : containersToProcess) {
+                        containerTasks.add(() -> {
+                            generateRecommendationsBasedOnContainer(containerData, kruizeObject);
+                            return null;
+                        });
+                    }
+                    invokeInParallel(containerTasks);
+                } else {
+                    for (ContainerData containerData : containersToProcess) {
+                        generateRecommendationsBasedOnContainer(containerData, kruizeObject);
+                    }
+                }
 
-                    // generate recommendations based on each container
-                    generateRecommendationsBasedOnContainer(containerData, kruizeObject);
-                    // TODO: generate recommendations based on kubernetes_object name and type
-                    // todo The process of data validation and notification generation is currently tightly coupled and needs to be separated. By doing so, we can avoid additional iterations at kruizeNotificationCollectionRegistry.logNotification. This should be included as part of the code refactor.
-                    KruizeNotificationCollectionRegistry kruizeNotificationCollectionRegistry = new KruizeNotificationCollectionRegistry(kruizeObject.getExperimentName(), getInterval_end_time(), containerData.getContainer_name());
-                    kruizeNotificationCollectionRegistry.logNotification(containerData);
+                // notifications are logged once all the containers are done, in the container order
+                try (RecommendationStageMetrics.StageSample ignored = RecommendationStageMetrics.start(Stage.NOTIFICATIONS, experimentName)) {
+                    for (ContainerData containerData : containersToProcess) {
+                        // TODO: generate recommendations based on kubernetes_object name and type
+                        // todo The process of data validation and notification generation is currently tightly coupled and needs to be separated. By doing so, we can avoid additional iterations at kruizeNotificationCollectionRegistry.logNotification. This should be included as part of the code refactor.
+                        KruizeNotificationCollectionRegistry kruizeNotificationCollectionRegistry = new KruizeNotificationCollectionRegistry(kruizeObject.getExperimentName(), getInterval_end_time(), containerData.getContainer_name());
+                        kruizeNotificationCollectionRegistry.logNotification(containerData);
+                    }
+                }
+            }
+        }
+    }
 
+    /**
+     * Returns the pool used when recommendation generation runs in parallel, sized by recommendationParallelism
+     */
+    private static ForkJoinPool getRecommendationPool() {
+        if (null == recommendationPool) {
+            synchronized (RecommendationEngine.class) {
+                if (null == recommendationPool) {
+                    int parallelism = Math.max(1, KruizeDeploymentInfo.recommendation_parallelism);
+                    LOGGER.info("Starting recommendation pool with parallelism {}", parallelism);
+                    recommendationPool = new ForkJoinPool(parallelism);
                 }
             }
         }
+        return recommendationPool;
+    }
+
+    /**
+     * Runs the tasks on the recommendation pool and waits for all of them to complete. Tasks forked from a
+     * task already running on the pool are joined by work stealing, so nested fan-outs do not block the pool.
+     *
+     * @param tasks tasks to run
+     * @return results of the tasks, in the order of the tasks
+     */
+    private static <T> List<T> invokeInParallel(List<Callable<T>> tasks) {
+        List<ForkJoinTask<T>> forkJoinTasks = new ArrayList<>();
+        for (Callable<T> task : tasks) {
+            forkJoinTasks.add(ForkJoinTask.adapt(task));
+        }
+        ForkJoinPool pool = getRecommendationPool();
+        if (ForkJoinTask.getPool() == pool) {
+            ForkJoinTask.invokeAll(forkJoinTasks);
+        } else {
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(forkJoinTasks)));
+        }
+        List<T> results = new ArrayList<>();
+        for (ForkJoinTask<T> forkJoinTask : forkJoinTasks) {
+            results.add(forkJoinTask.join());
+        }
+        return results;
+    }
+
+    /**
+     * Checks once for every term if there is enough data to generate its recommendations
+     *
+     * @param terms      terms of the experiment
+     * @param hasMinData checks if there is enough data for a term
+     * @return whether there is enough data, keyed by term
+     */
+    private Map<String, Boolean> checkMinDataAvailableForTerms(Map<String, Terms> terms, Predicate<Terms> hasMinData) {
+        Map<String, Boolean> minDataAvailable = new HashMap<>();
+        for (Map.Entry<String, Terms> termsEntry : terms.entrySet()) {
+            minDataAvailable.put(termsEntry.getKey(), RecommendationStageMetrics.time(Stage.TERM_AVAILABILITY, experimentName,
+                    () -> hasMinData.test(termsEntry.getValue())));
+        }
+        return minDataAvailable;
+    }
+
+    /**
+     * Computes the model recommendations of every term with enough data in parallel. The caller assembles
+     * the results in the usual term and model order, so the notifications are added in the same order as
+     * when the terms and models are processed sequentially.
+     *
+     * @param terms            terms of the experiment
+     * @param minDataAvailable whether there is enough data, keyed by term
+     * @param modelGenerator   generates the recommendation for a term and a model
+     * @return recommendations keyed by term and model name
+     */
+    private Map<String, Map<String, MappedRecommendationForModel>> generateModelRecommendationsInParallel(
+            Map<String, Terms> terms, Map<String, Boolean> minDataAvailable,
+            BiFunction<Map.Entry<String, Terms>, RecommendationModel, MappedRecommendationForModel> modelGenerator) {
+        List<String> taskTerms = new ArrayList<>();
+        List<String> taskModels = new ArrayList<>();
+        List<Callable<MappedRecommendationForModel>> tasks = new ArrayList<>();
+        for (Map.Entry<String, Terms> termsEntry : terms.entrySet()) {
+            if (!minDataAvailable.get(termsEntry.getKey())) {
+                continue;
+            }
+            for (RecommendationModel model : getModels()) {
+                taskTerms.add(termsEntry.getKey());
+                taskModels.add(model.getModelName());
+                tasks.add(() -> modelGenerator.apply(termsEntry, model));
+            }
+        }
+        List<MappedRecommendationForModel> results = invokeInParallel(tasks);
+        Map<String, Map<String, MappedRecommendationForModel>> termModelRecommendations = new HashMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            termModelRecommendations.computeIfAbsent(taskTerms.get(i), k -> new HashMap<>()).put(taskModels.get(i), results.get(i));
+        }
+        return termModelRecommendations;
     }
 
     private void generateRecommendationsBasedOnContainer(ContainerData containerData, KruizeObject kruizeObject) {
@@ -554,6 +787,21 @@ public class RecommendationEngine {
 
         boolean recommendationAvailable = false;
         double measurementDuration = kruizeObject.getTrial_settings().getMeasurement_durationMinutes_inDouble();
+        Map<String, Boolean> minDataAvailable = checkMinDataAvailableForTerms(kruizeObject.getTerms(),
+                terms -> Terms.checkIfMinDataAvailableForTerm(containerData, terms, monitoringEndTime, measurementDuration));
+        Map<String, Map<String, MappedRecommendationForModel>> parallelRecommendations = null;
+        if (KruizeDeploymentInfo.recommendation_parallel) {
+            parallelRecommendations = generateModelRecommendationsInParallel(kruizeObject.getTerms(), minDataAvailable,
+                    (termsEntry, model) -> RecommendationStageMetrics.time(Stage.MODEL_COMPUTATION, experimentName,
+                            () -> generateRecommendationBasedOnModel(
+                                    Terms.getMonitoringStartTime(monitoringEndTime, termsEntry.getValue().getDays()),
+                                    model,
+                                    containerData,
+                                    monitoringEndTime,
+                                    kruizeObject.getRecommendation_settings(),
+                                    currentConfig,
+                                    termsEntry)));
+        }
         for (Map.Entry<String, Terms> termsEntry : kruizeObject.getTerms().entrySet()) {
             String recommendationTerm = termsEntry.getKey();
             Terms terms = termsEntry.getValue();
@@ -564,7 +812,7 @@ public class RecommendationEngine {
 
             TermRecommendations mappedRecommendationForTerm = new TermRecommendations();
             // Check if there is min data available for the term
-            if (!Terms.checkIfMinDataAvailableForTerm(containerData, terms, monitoringEndTime, measurementDuration)) {
+            if (!minDataAvailable.get(recommendationTerm)) {
                 RecommendationNotification recommendationNotification = new RecommendationNotification(
                         RecommendationConstants.RecommendationNotification.INFO_NOT_ENOUGH_DATA);
                 mappedRecommendationForTerm.addNotification(recommendationNotification);
@@ -582,14 +830,20 @@ public class RecommendationEngine {
                     }
 
                     // Now generate a new recommendation for the new data corresponding to the monitoringEndTime
-                    MappedRecommendationForModel mappedRecommendationForModel = generateRecommendationBasedOnModel(
-                            monitoringStartTime,
-                            model,
-                            containerData,
-                            monitoringEndTime,
-                            kruizeObject.getRecommendation_settings(),
-                            currentConfig,
-                            termsEntry);
+                    MappedRecommendationForModel mappedRecommendationForModel;
+                    if (null != parallelRecommendations) {
+                        mappedRecommendationForModel = parallelRecommendations.get(recommendationTerm).get(model.getModelName());
+                    } else {
+                        mappedRecommendationForModel = RecommendationStageMetrics.time(Stage.MODEL_COMPUTATION, experimentName,
+                                () -> generateRecommendationBasedOnModel(
+                                        monitoringStartTime,
+                                        model,
+                                        containerData,
+                                        monitoringEndTime,
+                                        kruizeObject.getRecommendation_settings(),
+                                        currentConfig,
+                                        termsEntry));
+                    }
 
                     if (null == mappedRecommendationForModel) {
                         continue;
@@ -638,16 +892,19 @@ public class RecommendationEngine {
                     if (null != monitoringStartTime) {
                         Timer.Sample timerBoxPlots = null;
                         String status = KruizeConstants.APIMessages.SUCCESS;   // TODO avoid this constant at multiple place
-                        try {
+                        try (RecommendationStageMetrics.StageSample ignored = RecommendationStageMetrics.start(Stage.PLOTS, experimentName)) {
                             timerBoxPlots = Timer.start(MetricsConfig.meterRegistry());
                             mappedRecommendationForTerm.setPlots(new PlotManager(containerData.getResults(), terms, monitoringStartTime, monitoringEndTime).generatePlots());
                         } catch (Exception e) {
                             status = String.format(AnalyzerErrorConstants.APIErrors.UpdateRecommendationsAPI.BOX_PLOTS_FAILURE, e.getMessage());
                         } finally {
                             if (timerBoxPlots != null) {
-                                MetricsConfig.timerBoxPlots = MetricsConfig.timerBBoxPlots.tag(KruizeConstants.DataSourceConstants
-                                        .DataSourceQueryJSONKeys.STATUS, status).register(MetricsConfig.meterRegistry());
-                                timerBoxPlots.stop(MetricsConfig.timerBoxPlots);
+                                // containers may be processed in parallel and the timer builder is shared
+                                synchronized (MetricsConfig.timerBBoxPlots) {
+                                    MetricsConfig.timerBoxPlots = MetricsConfig.timerBBoxPlots.tag(KruizeConstants.DataSourceConstants
+                                            .DataSourceQueryJSONKeys.STATUS, status).register(MetricsConfig.meterRegistry());
+                                    timerBoxPlots.stop(MetricsConfig.timerBoxPlots);
+                                }
                             }
                         }
                     }
@@ -909,6 +1166,21 @@ public class RecommendationEngine {
                                                                  MappedRecommendationForTimestamp timestampRecommendation) {
         boolean namespaceRecommendationAvailable = false;
         double measurementDuration = kruizeObject.getTrial_settings().getMeasurement_durationMinutes_inDouble();
+        Map<String, Boolean> minDataAvailable = checkMinDataAvailableForTerms(kruizeObject.getTerms(),
+                terms -> Terms.checkIfMinDataAvailableForTermForNamespace(namespaceData, terms, monitoringEndTime, measurementDuration));
+        Map<String, Map<String, MappedRecommendationForModel>> parallelRecommendations = null;
+        if (KruizeDeploymentInfo.recommendation_parallel) {
+            parallelRecommendations = generateModelRecommendationsInParallel(kruizeObject.getTerms(), minDataAvailable,
+                    (termsEntry, model) -> RecommendationStageMetrics.time(Stage.MODEL_COMPUTATION, experimentName,
+                            () -> generateNamespaceRecommendationBasedOnModel(
+                                    Terms.getMonitoringStartTime(monitoringEndTime, termsEntry.getValue().getDays()),
+                                    model,
+                                    namespaceData,
+                                    monitoringEndTime,
+                                    kruizeObject.getRecommendation_settings(),
+                                    currentConfig,
+                                    termsEntry)));
+        }
 
         for (Map.Entry<String, Terms> termsEntry : kruizeObject.getTerms().entrySet()) {
             String recommendationTerm = termsEntry.getKey();
@@ -919,7 +1191,7 @@ public class RecommendationEngine {
 
             TermRecommendations mappedRecommendationForTerm = new TermRecommendations();
             // Check if there is min data available for the term
-            if (!Terms.checkIfMinDataAvailableForTermForNamespace(namespaceData, terms, monitoringEndTime, measurementDuration)) {
+            if (!minDataAvailable.get(recommendationTerm)) {
                 RecommendationNotification recommendationNotification = new RecommendationNotification(RecommendationConstants.RecommendationNotification.INFO_NOT_ENOUGH_DATA);
                 mappedRecommendationForTerm.addNotification(recommendationNotification);
             } else {
@@ -936,14 +1208,20 @@ public class RecommendationEngine {
                     }
 
                     // Now generate a new recommendation for the new data corresponding to the monitoringEndTime
-                    MappedRecommendationForModel mappedRecommendationForModel = generateNamespaceRecommendationBasedOnModel(
-                            monitoringStartTime,
-                            model,
-                            namespaceData,
-                            monitoringEndTime,
-                            kruizeObject.getRecommendation_settings(),
-                            currentConfig,
-                            termsEntry);
+                    MappedRecommendationForModel mappedRecommendationForModel;
+                    if (null != parallelRecommendations) {
+                        mappedRecommendationForModel = parallelRecommendations.get(recommendationTerm).get(model.getModelName());
+                    } else {
+                        mappedRecommendationForModel = RecommendationStageMetrics.time(Stage.MODEL_COMPUTATION, experimentName,
+                                () -> generateNamespaceRecommendationBasedOnModel(
+                                        monitoringStartTime,
+                                        model,
+                                        namespaceData,
+                                        monitoringEndTime,
+                                        kruizeObject.getRecommendation_settings(),
+                                        currentConfig,
+                                        termsEntry));
+                    }
 
                     if (null == mappedRecommendationForModel) {
                         continue;
@@ -1757,8 +2035,11 @@ public class RecommendationEngine {
 
     private ValidationOutputData addRecommendationsToDB(Map<String, KruizeObject> mainKruizeExperimentMAP, KruizeObject kruizeObject) {
         ValidationOutputData validationOutputData;
-        try {
+        try (RecommendationStageMetrics.StageSample ignored = RecommendationStageMetrics.start(Stage.DB_WRITE, experimentName)) {
             validationOutputData = new ExperimentDBService().addRecommendationToDB(mainKruizeExperimentMAP, kruizeObject, interval_end_time);
+            if (validationOutputData.isSuccess()) {
+                RecommendationStageMetrics.recordRows(Stage.DB_WRITE, 1);
+            }
         } catch (Exception e) {
             LOGGER.error(RecommendationConstants.RecommendationNotificationMsgConstant.ADDING_RECOMMENDATIONS_TO_DB_FAILED
                     .concat(AnalyzerErrorConstants.AutotuneObjectErrors.EXPERIMENT_AND_INTERVAL_END_TIME)
@@ -1768,6 +2049,29 @@ public class RecommendationEngine {
         return validationOutputData;
     }
 
+    /**
+     * Returns the number of interval results of the containers and namespaces of the experiment
+     */
+    private static long countResults(KruizeObject kruizeObject) {
+        long count = 0;
+        if (null == kruizeObject || null == kruizeObject.getKubernetes_objects()) {
+            return count;
+        }
+        for (K8sObject k8sObject : kruizeObject.getKubernetes_objects()) {
+            if (null != k8sObject.getContainerDataMap()) {
+                for (ContainerData containerData : k8sObject.getContainerDataMap().values()) {
+                    if (null != containerData.getResults()) {
+                        count += containerData.getResults().size();
+                    }
+                }
+            }
+            if (null != k8sObject.getNamespaceData() && null != k8sObject.getNamespaceData().getResults()) {
+                count += k8sObject.getNamespaceData().getResults().size();
+            }
+        }
+        return count;
+    }
+
     /**
      * Retrieves results for the specified experiment and stores them in the main Kruize experiment map.
      *
@@ -1786,7 +2090,13 @@ public class RecommendationEngine {
         // get data from the DB in case of remote monitoring
         if (kruizeObject.getExperiment_usecase_type().isRemote_monitoring()) {
             try {
-                boolean resultsAvailable = new ExperimentDBService().loadResultsFromDBByName(mainKruizeExperimentMAP, experimentName, intervalStartTime, interval_end_time);
+                boolean resultsAvailable;
+                try (RecommendationStageMetrics.StageSample ignored = RecommendationStageMetrics.start(Stage.DB_LOAD, experimentName)) {
+                    resultsAvailable = new ExperimentDBService().loadResultsFromDBByName(mainKruizeExperimentMAP, experimentName, intervalStartTime, interval_end_time);
+                }
+                if (resultsAvailable) {
+                    RecommendationStageMetrics.recordRows(Stage.DB_LOAD, countResults(mainKruizeExperimentMAP.get(experimentName)));
+                }
                 if (!resultsAvailable) {
                     SimpleDateFormat dateFormat = new SimpleDateFormat(KruizeConstants.DateFormats.STANDARD_JSON_DATE_FORMAT);
                     errorMsg = String.format(AnalyzerErrorConstants.AutotuneObjectErrors.NO_METRICS_AVAILABLE,
@@ -1868,8 +2178,7 @@ public class RecommendationEngine {
             long interval_end_time_epoc = 0;
             long interval_start_time_epoc = 0;
             SimpleDateFormat sdf = new SimpleDateFormat(KruizeConstants.DateFormats.STANDARD_JSON_DATE_FORMAT, Locale.ROOT);
-            // Create the client
-            GenericRestApiClient client = new GenericRestApiClient(dataSourceInfo);
+            RangeQuerySplitter rangeQuerySplitter = new RangeQuerySplitter(dataSourceInfo);
 
             Double measurementDurationMinutesInDouble = kruizeObject.getTrial_settings().getMeasurement_durationMinutes_inDouble();
             List<K8sObject> kubernetes_objects = kruizeObject.getKubernetes_objects();
@@ -1883,15 +2192,8 @@ public class RecommendationEngine {
 
                 if (null == interval_end_time) {
                     LOGGER.debug(KruizeConstants.APIMessages.NAMESPACE_USAGE_INFO);
-                    String dateMetricsUrl = String.format(KruizeConstants.DataSourceConstants.DATE_ENDPOINT_WITH_QUERY,
-                            dataSourceInfo.getUrl(),
-                            URLEncoder.encode(namespaceMaxDateQuery, CHARACTER_ENCODING)
-                    );
-                    LOGGER.info(dateMetricsUrl);
-                    client.setBaseURL(dateMetricsUrl);
-                    JSONObject genericJsonObject = client.fetchMetricsJson(KruizeConstants.APIMessages.GET, "");
-                    JsonObject jsonObject = new Gson().fromJson(genericJsonObject.toString(), JsonObject.class);
-                    JsonArray resultArray = jsonObject.getAsJsonObject(KruizeConstants.JSONKeys.DATA).getAsJsonArray(KruizeConstants.DataSourceConstants.DataSourceQueryJSONKeys.RESULT);
+                    LOGGER.info(namespaceMaxDateQuery);
+                    JsonArray resultArray = DataSourceQueryCache.getInstance().fetchInstant(dataSourceInfo, namespaceMaxDateQuery);
                     // Process fetched metrics
                     if (null != resultArray && !resultArray.isEmpty()) {
                         resultArray = resultArray.get(0)
@@ -1955,22 +2257,14 @@ public class RecommendationEngine {
                         // If promQL is determined, fetch metrics from the datasource
                         if (promQL != null) {
                             LOGGER.info(promQL);
-                            String namespaceMetricsUrl;
                             try {
-                                namespaceMetricsUrl = String.format(KruizeConstants.DataSourceConstants.DATASOURCE_ENDPOINT_WITH_QUERY_RANGE,
-                                        dataSourceInfo.getUrl(),
-                                        URLEncoder.encode(promQL, CHARACTER_ENCODING),
+                                JsonArray resultArray = rangeQuerySplitter.fetch(promQL,
                                         interval_start_time_epoc,
                                         interval_end_time_epoc,
                                         measurementDurationMinutesInDouble.intValue() * KruizeConstants.TimeConv.NO_OF_SECONDS_PER_MINUTE);
-                                client.setBaseURL(namespaceMetricsUrl);
-                                JSONObject genericJsonObject = client.fetchMetricsJson(KruizeConstants.APIMessages.GET, "");
-                                JsonObject jsonObject = new Gson().fromJson(genericJsonObject.toString(), JsonObject.class);
-                                JsonArray resultArray = jsonObject.getAsJsonObject(KruizeConstants.JSONKeys.DATA).getAsJsonArray(KruizeConstants.DataSourceConstants.DataSourceQueryJSONKeys.RESULT);
                                 // Process fetched metrics
                                 if (null != resultArray && !resultArray.isEmpty()) {
-                                    resultArray = jsonObject.getAsJsonObject(KruizeConstants.JSONKeys.DATA).getAsJsonArray(
-                                                    KruizeConstants.DataSourceConstants.DataSourceQueryJSONKeys.RESULT).get(0)
+                                    resultArray = resultArray.get(0)
                                             .getAsJsonObject().getAsJsonArray(KruizeConstants.DataSourceConstants
                                                     .DataSourceQueryJSONKeys.VALUES);
                                     sdf.setTimeZone(TimeZone.getTimeZone(KruizeConstants.TimeUnitsExt.TimeZones.UTC));
@@ -2030,8 +2324,7 @@ public class RecommendationEngine {
             long interval_end_time_epoc = 0;
             long interval_start_time_epoc = 0;
             SimpleDateFormat sdf = new SimpleDateFormat(KruizeConstants.DateFormats.STANDARD_JSON_DATE_FORMAT, Locale.ROOT);
-            // Create the client
-            GenericRestApiClient client = new GenericRestApiClient(dataSourceInfo);
+            RangeQuerySplitter rangeQuerySplitter = new RangeQuerySplitter(dataSourceInfo);
 
             Double measurementDurationMinutesInDouble = kruizeObject.getTrial_settings().getMeasurement_durationMinutes_inDouble();
             List<K8sObject> kubernetes_objects = kruizeObject.getKubernetes_objects();
@@ -2044,9 +2337,15 @@ public class RecommendationEngine {
 
                 for (Map.Entry<String, ContainerData> entry : containerDataMap.entrySet()) {
                     ContainerData containerData = entry.getValue();
+                    String containerName = containerData.getContainer_name();
+                    // metrics fetched ahead by grouped queries of a bulk job, if any
+                    PrefetchedMetrics prefetchedMetrics = KruizeDeploymentInfo.bulk_grouped_fetch ? PrefetchedMetricsStore.getInstance()
+                            .take(dataSourceInfo.getName(), namespace, workload, workload_type, containerName) : null;
 
                     // Check if the container data has Accelerator support else check for Accelerator metrics
-                    if (null == containerData.getContainerDeviceList() || !containerData.getContainerDeviceList().isAcceleratorDeviceDetected()) {
+                    boolean detectAccelerator = null == containerData.getContainerDeviceList()
+                            || !containerData.getContainerDeviceList().isAcceleratorDeviceDetected();
+                    if (detectAccelerator && null == prefetchedMetrics) {
                         RecommendationUtils.markAcceleratorDeviceStatusToContainer(containerData,
                                 maxDateQuery,
                                 namespace,
@@ -2058,36 +2357,33 @@ public class RecommendationEngine {
                                 acceleratorDetectionQuery);
                     }
 
-                    String containerName = containerData.getContainer_name();
                     if (null == interval_end_time) {
                         LOGGER.debug(KruizeConstants.APIMessages.CONTAINER_USAGE_INFO);
-                        String queryToEncode = null;
-                        if (null == maxDateQuery || maxDateQuery.isEmpty()) {
-                            throw new NullPointerException("maxDate query cannot be empty or null");
-                        }
+                        Long maxDateEpoch = null == prefetchedMetrics ? null : prefetchedMetrics.getMaxDateEpoch();
+                        if (null == maxDateEpoch) {
+                            String queryToEncode = null;
+                            if (null == maxDateQuery || maxDateQuery.isEmpty()) {
+                                throw new NullPointerException("maxDate query cannot be empty or null");
+                            }
 
 
-                        LOGGER.debug("maxDateQuery: {}", maxDateQuery);
-                        queryToEncode = maxDateQuery
-                                .replace(AnalyzerConstants.NAMESPACE_VARIABLE, namespace)
-                                .replace(AnalyzerConstants.CONTAINER_VARIABLE, containerName)
-                                .replace(AnalyzerConstants.WORKLOAD_VARIABLE, workload)
-                                .replace(AnalyzerConstants.WORKLOAD_TYPE_VARIABLE, workload_type);
+                            LOGGER.debug("maxDateQuery: {}", maxDateQuery);
+                            queryToEncode = maxDateQuery
+                                    .replace(AnalyzerConstants.NAMESPACE_VARIABLE, namespace)
+                                    .replace(AnalyzerConstants.CONTAINER_VARIABLE, containerName)
+                                    .replace(AnalyzerConstants.WORKLOAD_VARIABLE, workload)
+                                    .replace(AnalyzerConstants.WORKLOAD_TYPE_VARIABLE, workload_type);
 
-                        String dateMetricsUrl = String.format(KruizeConstants.DataSourceConstants.DATE_ENDPOINT_WITH_QUERY,
-                                dataSourceInfo.getUrl(),
-                                URLEncoder.encode(queryToEncode, CHARACTER_ENCODING)
-                        );
-                        LOGGER.debug(dateMetricsUrl);
-                        client.setBaseURL(dateMetricsUrl);
-                        JSONObject genericJsonObject = client.fetchMetricsJson(KruizeConstants.APIMessages.GET, "");
-                        JsonObject jsonObject = new Gson().fromJson(genericJsonObject.toString(), JsonObject.class);
-                        JsonArray resultArray = jsonObject.getAsJsonObject(KruizeConstants.JSONKeys.DATA).getAsJsonArray(KruizeConstants.DataSourceConstants.DataSourceQueryJSONKeys.RESULT);
+                            JsonArray resultArray = DataSourceQueryCache.getInstance().fetchInstant(dataSourceInfo, queryToEncode);
+                            if (null != resultArray && !resultArray.isEmpty()) {
+                                maxDateEpoch = resultArray.get(0)
+                                        .getAsJsonObject().getAsJsonArray(KruizeConstants.DataSourceConstants.DataSourceQueryJSONKeys.VALUE)
+                                        .get(0).getAsLong();
+                            }
+                        }
                         // Process fetched metrics
-                        if (null != resultArray && !resultArray.isEmpty()) {
-                            resultArray = resultArray.get(0)
-                                    .getAsJsonObject().getAsJsonArray(KruizeConstants.DataSourceConstants.DataSourceQueryJSONKeys.VALUE);
-                            long epochTime = resultArray.get(0).getAsLong();
+                        if (null != maxDateEpoch) {
+                            long epochTime = maxDateEpoch;
                             String timestamp = sdf.format(new Date(epochTime * KruizeConstants.TimeConv.NO_OF_MSECS_IN_SEC));
                             Date date = sdf.parse(timestamp);
                             Timestamp dateTS = new Timestamp(date.getTime());
@@ -2106,6 +2402,43 @@ public class RecommendationEngine {
                         interval_start_time_epoc = interval_start_time.getTime() / KruizeConstants.TimeConv.NO_OF_MSECS_IN_SEC
                                 - ((long) interval_start_time.getTimezoneOffset() * KruizeConstants.TimeConv.NO_OF_MSECS_IN_SEC);
                     }
+                    if (detectAccelerator && null != prefetchedMetrics) {
+                        JsonArray detectionResults = prefetchedMetrics.getResultArray(PrefetchedMetrics.key(
+                                        AnalyzerConstants.MetricName.gpuMemoryUsage.name(), KruizeConstants.JSONKeys.MAX),
+                                interval_start_time_epoc, interval_end_time_epoc);
+                        if (null != detectionResults) {
+                            RecommendationUtils.markAcceleratorDeviceStatusFromResults(containerData, detectionResults);
+                        } else {
+                            RecommendationUtils.markAcceleratorDeviceStatusToContainer(containerData,
+                                    maxDateQuery,
+                                    namespace,
+                                    workload,
+                                    workload_type,
+                                    dataSourceInfo,
+                                    kruizeObject.getTerms(),
+                                    measurementDurationMinutesInDouble,
+                                    acceleratorDetectionQuery);
+                        }
+                    }
+                    // the results of local monitoring experiments are not stored, only the samples after those held
+                    // from the previous run are fetched, on a window aligned to the step grid
+                    long stepSecs = (long) measurementDurationMinutesInDouble.intValue() * KruizeConstants.TimeConv.NO_OF_SECONDS_PER_MINUTE;
+                    long fetchStartEpoch = interval_start_time_epoc;
+                    String localMetricsKey = null;
+                    String localMetricsSignature = null;
+                    if (Boolean.TRUE.equals(KruizeDeploymentInfo.local_delta_fetch) && null == prefetchedMetrics && stepSecs > 0) {
+                        interval_start_time_epoc = RangeQuerySplitter.alignToStep(interval_start_time_epoc, stepSecs, true);
+                        interval_end_time_epoc = RangeQuerySplitter.alignToStep(interval_end_time_epoc, stepSecs, false);
+                        localMetricsKey = LocalMetricsStore.key(dataSourceInfo.getName(), kruizeObject.getExperimentName(),
+                                namespace, workload_type, workload, containerName);
+                        boolean acceleratorDetected = null != containerData.getContainerDeviceList()
+                                && containerData.getContainerDeviceList().isAcceleratorDeviceDetected();
+                        localMetricsSignature = String.join(KruizeConstants.KRUIZE_BULK_FETCH.KEY_SEPARATOR, metricProfile.getName(),
+                                String.valueOf(metricProfile.getProfile_version()), String.valueOf(stepSecs),
+                                String.valueOf(acceleratorDetected));
+                        fetchStartEpoch = LocalMetricsStore.getInstance().getFetchStartEpoch(localMetricsKey, localMetricsSignature,
+                                interval_start_time_epoc, stepSecs);
+                    }
                     HashMap<Timestamp, IntervalResults> containerDataResults = new HashMap<>();
                     IntervalResults intervalResults = null;
                     HashMap<AnalyzerConstants.MetricName, MetricResults> resMap = null;
@@ -2171,19 +2504,16 @@ public class RecommendationEngine {
                                     .replace(AnalyzerConstants.WORKLOAD_TYPE_VARIABLE, workload_type);
 
                             LOGGER.debug(promQL);
-                            String podMetricsUrl;
                             try {
-                                podMetricsUrl = String.format(KruizeConstants.DataSourceConstants.DATASOURCE_ENDPOINT_WITH_QUERY_RANGE,
-                                        dataSourceInfo.getUrl(),
-                                        URLEncoder.encode(promQL, CHARACTER_ENCODING),
-                                        interval_start_time_epoc,
-                                        interval_end_time_epoc,
-                                        measurementDurationMinutesInDouble.intValue() * KruizeConstants.TimeConv.NO_OF_SECONDS_PER_MINUTE);
-                                LOGGER.debug(podMetricsUrl);
-                                client.setBaseURL(podMetricsUrl);
-                                JSONObject genericJsonObject = client.fetchMetricsJson(KruizeConstants.APIMessages.GET, "");
-                                JsonObject jsonObject = new Gson().fromJson(genericJsonObject.toString(), JsonObject.class);
-                                JsonArray resultArray = jsonObject.getAsJsonObject(KruizeConstants.JSONKeys.DATA).getAsJsonArray(KruizeConstants.DataSourceConstants.DataSourceQueryJSONKeys.RESULT);
+                                JsonArray resultArray = null == prefetchedMetrics ? null : prefetchedMetrics.getResultArray(
+                                        PrefetchedMetrics.key(metricEntry.getName(), aggregationFunctionsEntry.getKey()),
+                                        interval_start_time_epoc, interval_end_time_epoc);
+                                if (null == resultArray && fetchStartEpoch <= interval_end_time_epoc) {
+                                    resultArray = rangeQuerySplitter.fetch(promQL,
+                                            fetchStartEpoch,
+                                            interval_end_time_epoc,
+                                            measurementDurationMinutesInDouble.intValue() * KruizeConstants.TimeConv.NO_OF_SECONDS_PER_MINUTE);
+                                }
 
                                 // Skipping if Result array is null or empty
                                 if (null == resultArray || resultArray.isEmpty())
@@ -2291,8 +2621,7 @@ public class RecommendationEngine {
                                         }
                                     }
                                 } else {
-                                    resultArray = jsonObject.getAsJsonObject(KruizeConstants.JSONKeys.DATA).getAsJsonArray(
-                                                    KruizeConstants.DataSourceConstants.DataSourceQueryJSONKeys.RESULT).get(0)
+                                    resultArray = resultArray.get(0)
                                             .getAsJsonObject().getAsJsonArray(KruizeConstants.DataSourceConstants
                                                     .DataSourceQueryJSONKeys.VALUES);
                                     sdf.setTimeZone(TimeZone.getTimeZone(KruizeConstants.TimeUnitsExt.TimeZones.UTC));
@@ -2318,6 +2647,22 @@ public class RecommendationEngine {
                         }
                     }
 
+                    if (null != localMetricsKey) {
+                        containerDataResults = LocalMetricsStore.getInstance().merge(localMetricsKey, localMetricsSignature,
+                                containerDataResults, fetchStartEpoch, interval_start_time_epoc, interval_end_time_epoc);
+                        // intervals held from the previous runs start at the start of this window, like the fetched ones
+                        Timestamp sTime = new Timestamp(interval_start_time_epoc);
+                        for (Map.Entry<Timestamp, IntervalResults> heldEntry : containerDataResults.entrySet()) {
+                            Timestamp eTime = heldEntry.getKey();
+                            if (eTime.getTime() >= fetchStartEpoch * KruizeConstants.TimeConv.NO_OF_MSECS_IN_SEC) {
+                                continue;
+                            }
+                            heldEntry.getValue().setIntervalStartTime(sTime);
+                            heldEntry.getValue().setDurationInMinutes((double) ((eTime.getTime() - sTime.getTime())
+                                    / ((long) KruizeConstants.TimeConv.NO_OF_SECONDS_PER_MINUTE
+                                    * KruizeConstants.TimeConv.NO_OF_MSECS_IN_SEC)));
+                        }
+                    }
                     containerData.setResults(containerDataResults);
                     if (!containerDataResults.isEmpty())
                         setInterval_end_time(Collections.max(containerDataResults.keySet()));    //TODO Temp fix invalid date is set if experiment having two container with different last seen date
@@ -2335,7 +2680,7 @@ public class RecommendationEngine {
      *
      * @param metricProfile performance profile to be used
      */
-    private String getMaxDateQuery(PerformanceProfile metricProfile, String metricName) {
+    public static String getMaxDateQuery(PerformanceProfile metricProfile, String metricName) {
         List<Metric> metrics = metricProfile.getSloInfo().getFunctionVariables();
         for (Metric metric : metrics) {
             String name = metric.getName();
@@ -2398,7 +2743,7 @@ public class RecommendationEngine {
      * @param maxDateQuery   maxDateQuery metric to be filtered out
      * @param experimentType experiment type
      */
-    public List<Metric> filterMetricsBasedOnExpTypeAndK8sObject(PerformanceProfile metricProfile, String maxDateQuery, AnalyzerConstants.ExperimentType experimentType) {
+    public static List<Metric> filterMetricsBasedOnExpTypeAndK8sObject(PerformanceProfile metricProfile, String maxDateQuery, AnalyzerConstants.ExperimentType experimentType) {
         String namespace = KruizeConstants.JSONKeys.NAMESPACE;
         String container = KruizeConstants.JSONKeys.CONTAINER;
         return metricProfile.getSloInfo().getFunctionVariables().stream()
@@ -2414,5 +2759,26 @@ public class RecommendationEngine {
                 })
                 .toList();
     }
-}
 
+    /**
+     * Results of a container or namespace loaded for a backfill, sorted by interval end time so that the
+     * window of each step is a cheap sub map
+     */
+    private static class BackfillResults {
+        private final TreeMap<Timestamp, IntervalResults> allResults;
+        private final Consumer<HashMap<Timestamp, IntervalResults>> resultsSetter;
+        private final Runnable recommendationsReset;
+
+        private BackfillResults(Map<Timestamp, IntervalResults> allResults, Consumer<HashMap<Timestamp, IntervalResults>> resultsSetter,
+                                Runnable recommendationsReset) {
+            this.allResults = new TreeMap<>(allResults);
+            this.resultsSetter = resultsSetter;
+            this.recommendationsReset = recommendationsReset;
+        }
+
+        private void slide(Timestamp windowStartTime, Timestamp windowEndTime) {
+            resultsSetter.accept(new HashMap<>(allResults.subMap(windowStartTime, true, windowEndTime, true)));
+            recommendationsReset.run();
+        }
+    }
+}
@@ -109,54 +109,58 @@ public class CostBasedRecommendationModel implements RecommendationModel {
     public static JSONArray getCPUUsageList(Map<Timestamp, IntervalResults> filteredResultsMap) {
         JSONArray cpuRequestIntervalArray = new JSONArray();
         for (IntervalResults intervalResults : filteredResultsMap.values()) {
-            JSONObject cpuRequestInterval = new JSONObject();
-            Optional<MetricResults> cpuUsageResults = Optional.ofNullable(intervalResults.getMetricResultsMap().get(AnalyzerConstants.MetricName.cpuUsage));
-            Optional<MetricResults> cpuThrottleResults = Optional.ofNullable(intervalResults.getMetricResultsMap().get(AnalyzerConstants.MetricName.cpuThrottle));
-            double cpuUsageAvg = cpuUsageResults.map(m -> m.getAggregationInfoResult().getAvg()).orElse(0.0);
-            double cpuUsageMax = cpuUsageResults.map(m -> m.getAggregationInfoResult().getMax()).orElse(0.0);
-            double cpuUsageSum = cpuUsageResults.map(m -> m.getAggregationInfoResult().getSum()).orElse(0.0);
-            double cpuUsageMin = cpuUsageResults.map(m -> m.getAggregationInfoResult().getMin()).orElse(0.0);
-            double cpuThrottleAvg = cpuThrottleResults.map(m -> m.getAggregationInfoResult().getAvg()).orElse(0.0);
-            double cpuThrottleMax = cpuThrottleResults.map(m -> m.getAggregationInfoResult().getMax()).orElse(0.0);
-            double cpuThrottleSum = cpuThrottleResults.map(m -> m.getAggregationInfoResult().getSum()).orElse(0.0);
-            double cpuThrottleMin = cpuThrottleResults.map(m -> m.getAggregationInfoResult().getMin()).orElse(0.0);
-
-            double cpuRequestIntervalMax;
-            double cpuRequestIntervalMin;
-            double cpuUsagePod = 0;
-            int numPods;
+            cpuRequestIntervalArray.put(calculateCPUUsage(intervalResults));
+        }
+        return cpuRequestIntervalArray;
+    }
 
-            // Use the Max value when available, if not use the Avg
-            double cpuUsage = (cpuUsageMax > 0) ? cpuUsageMax : cpuUsageAvg;
-            double cpuThrottle = (cpuThrottleMax > 0) ? cpuThrottleMax : cpuThrottleAvg;
-            double cpuUsageTotal = cpuUsage + cpuThrottle;
-
-            // Usage is less than 1 core, set it to the observed value.
-            if (CPU_ONE_CORE > cpuUsageTotal) {
-                cpuRequestIntervalMax = cpuUsageTotal;
-            } else {
-                // Sum/Avg should give us the number of pods
-                if (0 != cpuUsageAvg) {
-                    numPods = (int) Math.ceil(cpuUsageSum / cpuUsageAvg);
-                    if (0 < numPods) {
-                        cpuUsagePod = (cpuUsageSum + cpuThrottleSum) / numPods;
-                    }
+    public static JSONObject calculateCPUUsage(IntervalResults intervalResults) {
+        JSONObject cpuRequestInterval = new JSONObject();
+        Optional<MetricResults> cpuUsageResults = Optional.ofNullable(intervalResults.getMetricResultsMap().get(AnalyzerConstants.MetricName.cpuUsage));
+        Optional<MetricResults> cpuThrottleResults = Optional.ofNullable(intervalResults.getMetricResultsMap().get(AnalyzerConstants.MetricName.cpuThrottle));
+        double cpuUsageAvg = cpuUsageResults.map(m -> m.getAggregationInfoResult().getAvg()).orElse(0.0);
+        double cpuUsageMax = cpuUsageResults.map(m -> m.getAggregationInfoResult().getMax()).orElse(0.0);
+        double cpuUsageSum = cpuUsageResults.map(m -> m.getAggregationInfoResult().getSum()).orElse(0.0);
+        double cpuUsageMin = cpuUsageResults.map(m -> m.getAggregationInfoResult().getMin()).orElse(0.0);
+        double cpuThrottleAvg = cpuThrottleResults.map(m -> m.getAggregationInfoResult().getAvg()).orElse(0.0);
+        double cpuThrottleMax = cpuThrottleResults.map(m -> m.getAggregationInfoResult().getMax()).orElse(0.0);
+        double cpuThrottleSum = cpuThrottleResults.map(m -> m.getAggregationInfoResult().getSum()).orElse(0.0);
+        double cpuThrottleMin = cpuThrottleResults.map(m -> m.getAggregationInfoResult().getMin()).orElse(0.0);
+
+        double cpuRequestIntervalMax;
+        double cpuRequestIntervalMin;
+        double cpuUsagePod = 0;
+        int numPods;
+
+        // Use the Max value when available, if not use the Avg
+        double cpuUsage = (cpuUsageMax > 0) ? cpuUsageMax : cpuUsageAvg;
+        double cpuThrottle = (cpuThrottleMax > 0) ? cpuThrottleMax : cpuThrottleAvg;
+        double cpuUsageTotal = cpuUsage + cpuThrottle;
+
+        // Usage is less than 1 core, set it to the observed value.
+        if (CPU_ONE_CORE > cpuUsageTotal) {
+            cpuRequestIntervalMax = cpuUsageTotal;
+        } else {
+            // Sum/Avg should give us the number of pods
+            if (0 != cpuUsageAvg) {
+                numPods = (int) Math.ceil(cpuUsageSum / cpuUsageAvg);
+                if (0 < numPods) {
+                    cpuUsagePod = (cpuUsageSum + cpuThrottleSum) / numPods;
                 }
-                cpuRequestIntervalMax = Math.max(cpuUsagePod, cpuUsageTotal);
             }
-            double cpuMinTotal = cpuUsageMin + cpuThrottleMin;
-            // traverse over a stream of positive values and find the minimum value
-            cpuRequestIntervalMin = Stream.of(cpuUsagePod, cpuUsageTotal, cpuMinTotal)
-                    .filter(value -> value > 0.0)
-                    .min(Double::compare)
-                    .orElse(0.0);
-
-            cpuRequestInterval.put(KruizeConstants.JSONKeys.MIN, cpuRequestIntervalMin);
-            cpuRequestInterval.put(KruizeConstants.JSONKeys.MAX, cpuRequestIntervalMax);
-            LOGGER.debug("cpuRequestInterval : {}", cpuRequestInterval);
-            cpuRequestIntervalArray.put(cpuRequestInterval);
+            cpuRequestIntervalMax = Math.max(cpuUsagePod, cpuUsageTotal);
         }
-        return cpuRequestIntervalArray;
+        double cpuMinTotal = cpuUsageMin + cpuThrottleMin;
+        // traverse over a stream of positive values and find the minimum value
+        cpuRequestIntervalMin = Stream.of(cpuUsagePod, cpuUsageTotal, cpuMinTotal)
+                .filter(value -> value > 0.0)
+                .min(Double::compare)
+                .orElse(0.0);
+
+        cpuRequestInterval.put(KruizeConstants.JSONKeys.MIN, cpuRequestIntervalMin);
+        cpuRequestInterval.put(KruizeConstants.JSONKeys.MAX, cpuRequestIntervalMax);
+        LOGGER.debug("cpuRequestInterval : {}", cpuRequestInterval);
+        return cpuRequestInterval;
     }
     @Override
     public RecommendationConfigItem getMemoryRequestRecommendation(Map<Timestamp, IntervalResults> filteredResultsMap,
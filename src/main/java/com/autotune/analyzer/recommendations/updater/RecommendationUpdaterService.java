@@ -16,19 +16,20 @@
 
 package com.autotune.analyzer.recommendations.updater;
 
-import com.autotune.analyzer.experiment.ExperimentInterface;
-import com.autotune.analyzer.experiment.ExperimentInterfaceImpl;
+import com.autotune.analyzer.exceptions.ApplyRecommendationsError;
 import com.autotune.analyzer.kruizeObject.KruizeObject;
 import com.autotune.analyzer.recommendations.updater.vpa.VpaUpdaterImpl;
 import com.autotune.analyzer.utils.AnalyzerConstants;
 import com.autotune.analyzer.utils.AnalyzerErrorConstants;
+import com.autotune.analyzer.workerimpl.KruizeTaskManager;
+import com.autotune.database.coordination.KruizeCoordinator;
 import com.autotune.database.service.ExperimentDBService;
-import com.autotune.database.table.KruizeExperimentEntry;
+import com.autotune.operator.KruizeDeploymentInfo;
+import com.autotune.utils.KruizeConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
@@ -42,23 +43,29 @@ public class RecommendationUpdaterService {
 
     public static void initiateUpdaterService() {
         try {
+            if (KruizeDeploymentInfo.task_queue) {
+                // the updates are run by the workers of every replica, whichever replica queued them
+                KruizeTaskManager.getInstance().register(KruizeConstants.TaskQueueConstants.RECOMMENDATION_UPDATE_TASK,
+                        task -> updateExperiment(task.getPayload()), KruizeDeploymentInfo.task_queue_updater_workers);
+            }
             ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
 
             LOGGER.info(AnalyzerConstants.RecommendationUpdaterConstants.InfoMsgs.STARTING_SERVICE);
             executorService.scheduleAtFixedRate(() -> {
                 try {
-                    RecommendationUpdaterImpl updater = new RecommendationUpdaterImpl();
                     Map<String, KruizeObject> experiments = getAutoModeExperiments();
                     for (Map.Entry<String, KruizeObject> experiment : experiments.entrySet()) {
-                        KruizeObject kruizeObject = updater.generateResourceRecommendationsForExperiment(experiment.getValue().getExperimentName());
-                        // TODO:// add default updater in kruizeObject and check if GPU recommendations are present
-                        if (kruizeObject.getDefaultUpdater() == null) {
-                             kruizeObject.setDefaultUpdater(AnalyzerConstants.RecommendationUpdaterConstants.SupportedUpdaters.VPA);
+                        String experimentName = experiment.getValue().getExperimentName();
+                        // with several replicas each one queues the experiments assigned to it
+                        if (!KruizeCoordinator.isAssignedToThisReplica(experimentName)) {
+                            continue;
                         }
-
-                        if (kruizeObject.getDefaultUpdater().equalsIgnoreCase(AnalyzerConstants.RecommendationUpdaterConstants.SupportedUpdaters.VPA)) {
-                            VpaUpdaterImpl vpaUpdater = VpaUpdaterImpl.getInstance();
-                            vpaUpdater.applyResourceRecommendationsForExperiment(kruizeObject);
+                        if (KruizeDeploymentInfo.task_queue) {
+                            // an experiment whose previous update is still pending is not queued twice
+                            KruizeTaskManager.getInstance().enqueue(KruizeConstants.TaskQueueConstants.RECOMMENDATION_UPDATE_TASK,
+                                    experimentName, experimentName);
+                        } else {
+                            updateExperiment(experimentName);
                         }
                     }
                 } catch (Exception e) {
@@ -72,6 +79,31 @@ public class RecommendationUpdaterService {
         }
     }
 
+    /**
+     * Generates the recommendations of the experiment and applies them. A failure is logged and not retried: the next
+     * interval generates and applies them again.
+     */
+    private static void updateExperiment(String experimentName) {
+        RecommendationUpdaterImpl updater = new RecommendationUpdaterImpl();
+        KruizeObject kruizeObject = updater.generateResourceRecommendationsForExperiment(experimentName);
+        if (null == kruizeObject) {
+            return;
+        }
+        // TODO:// add default updater in kruizeObject and check if GPU recommendations are present
+        if (kruizeObject.getDefaultUpdater() == null) {
+            kruizeObject.setDefaultUpdater(AnalyzerConstants.RecommendationUpdaterConstants.SupportedUpdaters.VPA);
+        }
+
+        if (kruizeObject.getDefaultUpdater().equalsIgnoreCase(AnalyzerConstants.RecommendationUpdaterConstants.SupportedUpdaters.VPA)) {
+            try {
+                VpaUpdaterImpl vpaUpdater = VpaUpdaterImpl.getInstance();
+                vpaUpdater.applyResourceRecommendationsForExperiment(kruizeObject);
+            } catch (ApplyRecommendationsError e) {
+                LOGGER.error(e.getMessage());
+            }
+        }
+    }
+
     private static Map<String, KruizeObject> getAutoModeExperiments() {
         try {
             LOGGER.debug(AnalyzerConstants.RecommendationUpdaterConstants.InfoMsgs.CHECKING_AUTO_EXP);
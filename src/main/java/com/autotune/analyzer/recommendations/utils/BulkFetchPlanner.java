@@ -0,0 +1,332 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.recommendations.utils;
+
+import com.autotune.analyzer.performanceProfiles.PerformanceProfile;
+import com.autotune.analyzer.recommendations.engine.RecommendationEngine;
+import com.autotune.analyzer.utils.AnalyzerConstants;
+import com.autotune.common.data.metrics.AggregationFunctions;
+import com.autotune.common.data.metrics.Metric;
+import com.autotune.common.datasource.DataSourceInfo;
+import com.autotune.common.datasource.DataSourceQueryCache;
+import com.autotune.common.datasource.RangeQuerySplitter;
+import com.autotune.utils.KruizeConstants;
+import com.autotune.utils.MetricsConfig;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Plans and runs the metric fetches of a bulk job with grouped queries.
+ * <p>
+ * Instead of specializing every metric profile query to one container, the containers of a namespace are split
+ * into shards and each query is sent once per shard with a regex matcher on the container label. The series
+ * returned are demultiplexed on that label into PrefetchedMetrics, which the recommendation engine takes from
+ * the PrefetchedMetricsStore instead of querying the datasource again. Queries which cannot be grouped, as they
+ * are specialized to a workload or do not aggregate by the container label, are left to the engine. The metrics
+ * are kept per namespace, workload, workload type and container: containers of the same name in several workloads
+ * of a namespace each get their own copy of the series of that name, as the grouped queries do not tell them apart
+ * any more than the engine's own queries do.
+ *
+ * @param <T> items, usually experiments, to be processed once their shard is prefetched
+ */
+public class BulkFetchPlanner<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkFetchPlanner.class);
+    private static final Pattern CONTAINER_MATCHER = Pattern.compile(
+            "(\\w+)\\s*=\\s*\"" + Pattern.quote(AnalyzerConstants.CONTAINER_VARIABLE) + "\"");
+    private static final Pattern GROUPING_LABELS = Pattern.compile("\\bby\\s*\\(([^)]*)\\)");
+
+    private final DataSourceInfo dataSourceInfo;
+    private final PerformanceProfile metricProfile;
+    private final int measurementDurationMinutes;
+    private final int maxDays;
+    private final Map<String, Map<Target, List<T>>> targets = new LinkedHashMap<>();
+    private final Counter queryCounter;
+
+    public BulkFetchPlanner(DataSourceInfo dataSourceInfo, PerformanceProfile metricProfile, int measurementDurationMinutes,
+                            int maxDays) {
+        this.dataSourceInfo = dataSourceInfo;
+        this.metricProfile = metricProfile;
+        this.measurementDurationMinutes = measurementDurationMinutes;
+        this.maxDays = maxDays;
+        this.queryCounter = Counter.builder("kruizeBulkFetch_queries").description("Grouped queries sent to the datasource")
+                .register(MetricsConfig.meterRegistry());
+    }
+
+    /**
+     * Rewrites a metric profile query to match all the given containers of a namespace
+     *
+     * @return grouped query along with the label to demultiplex its series on, null if the query cannot be grouped
+     */
+    static GroupedQuery toGroupedQuery(String query, String namespace, Collection<String> containerNames,
+                                       int measurementDurationMinutes) {
+        if (null == query || query.isEmpty() || query.contains(AnalyzerConstants.WORKLOAD_VARIABLE)
+                || query.contains(AnalyzerConstants.WORKLOAD_TYPE_VARIABLE)) {
+            return null;
+        }
+        Matcher containerMatcher = CONTAINER_MATCHER.matcher(query);
+        if (!containerMatcher.find()) {
+            return null;
+        }
+        String containerLabel = containerMatcher.group(1);
+        // the outermost aggregation has to keep the container label for the series to be told apart
+        Matcher groupingMatcher = GROUPING_LABELS.matcher(query);
+        if (!groupingMatcher.find() || Arrays.stream(groupingMatcher.group(1).split(","))
+                .map(String::trim).noneMatch(containerLabel::equals)) {
+            return null;
+        }
+        String containerRegex = containerNames.stream().map(BulkFetchPlanner::escapeRegex).collect(Collectors.joining("|"));
+        String groupedQuery = containerMatcher.replaceAll(Matcher.quoteReplacement(containerLabel + "=~\"" + containerRegex + "\""))
+                .replace(AnalyzerConstants.NAMESPACE_VARIABLE, namespace)
+                .replace(AnalyzerConstants.MEASUREMENT_DURATION_IN_MIN_VARAIBLE, Integer.toString(measurementDurationMinutes));
+        return new GroupedQuery(groupedQuery, containerLabel);
+    }
+
+    private static String escapeRegex(String value) {
+        StringBuilder escaped = new StringBuilder();
+        for (char c : value.toCharArray()) {
+            if (!Character.isLetterOrDigit(c) && c != '-' && c != '_') {
+                // escaped for both RE2 and the PromQL string literal
+                escaped.append("\\\\");
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Adds an item whose metrics are those of a container of a workload
+     */
+    public void addTarget(String namespace, String workload, String workloadType, String containerName, T item) {
+        targets.computeIfAbsent(namespace, k -> new LinkedHashMap<>())
+                .computeIfAbsent(new Target(namespace, workload, workloadType, containerName), k -> new ArrayList<>())
+                .add(item);
+    }
+
+    /**
+     * Splits the containers added into shards, each shard has containers of one namespace only
+     */
+    public List<Shard<T>> getShards() {
+        List<Shard<T>> shards = new ArrayList<>();
+        for (Map.Entry<String, Map<Target, List<T>>> namespaceEntry : targets.entrySet()) {
+            Shard<T> shard = null;
+            for (Map.Entry<Target, List<T>> containerEntry : namespaceEntry.getValue().entrySet()) {
+                if (null == shard || shard.containers.size() == KruizeConstants.KRUIZE_BULK_FETCH.MAX_CONTAINERS_PER_QUERY) {
+                    shard = new Shard<>(namespaceEntry.getKey());
+                    shards.add(shard);
+                }
+                shard.containers.put(containerEntry.getKey(), containerEntry.getValue());
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * Fetches the metrics of the containers of a shard and adds them to the PrefetchedMetricsStore.
+     * Waits for the store to have room for the shard.
+     *
+     * @return true if the metrics were prefetched, false if the engine has to fetch them on its own
+     */
+    public boolean prefetch(Shard<T> shard) {
+        if (null == metricProfile) {
+            return false;
+        }
+        PrefetchedMetricsStore store = PrefetchedMetricsStore.getInstance();
+        try {
+            if (!store.awaitRoom(shard.containers.size(), KruizeConstants.KRUIZE_BULK_FETCH.ROOM_WAIT_MILLIS)) {
+                LOGGER.warn("No room to prefetch the metrics of {} containers in namespace {}", shard.containers.size(), shard.namespace);
+                return false;
+            }
+            Map<String, Long> maxDates = fetchMaxDates(shard);
+            if (maxDates.isEmpty()) {
+                return false;
+            }
+            long stepSecs = (long) measurementDurationMinutes * KruizeConstants.TimeConv.NO_OF_SECONDS_PER_MINUTE;
+            long windowEnd = Collections.max(maxDates.values());
+            long windowStart = Collections.min(maxDates.values()) - (long) maxDays * KruizeConstants.TimeConv.NO_OF_HOURS_PER_DAY
+                    * KruizeConstants.TimeConv.NO_OF_MINUTES_PER_HOUR * KruizeConstants.TimeConv.NO_OF_SECONDS_PER_MINUTE;
+            Map<Target, PrefetchedMetrics> metricsByTarget = new LinkedHashMap<>();
+            Map<String, List<PrefetchedMetrics>> metricsByContainer = new HashMap<>();
+            for (Target target : shard.containers.keySet()) {
+                Long maxDate = maxDates.get(target.containerName);
+                if (null == maxDate) {
+                    continue;
+                }
+                PrefetchedMetrics metrics = new PrefetchedMetrics(windowStart, windowEnd, stepSecs);
+                metrics.setMaxDateEpoch(maxDate);
+                metricsByTarget.put(target, metrics);
+                metricsByContainer.computeIfAbsent(target.containerName, k -> new ArrayList<>()).add(metrics);
+            }
+
+            List<Metric> metricList = RecommendationEngine.filterMetricsBasedOnExpTypeAndK8sObject(metricProfile,
+                    AnalyzerConstants.MetricName.maxDate.name(), AnalyzerConstants.ExperimentType.CONTAINER);
+            for (Metric metric : metricList) {
+                for (Map.Entry<String, AggregationFunctions> aggregationFunctionsEntry : metric.getAggregationFunctionsMap().entrySet()) {
+                    GroupedQuery groupedQuery = toGroupedQuery(aggregationFunctionsEntry.getValue().getQuery(), shard.namespace,
+                            metricsByContainer.keySet(), measurementDurationMinutes);
+                    if (null == groupedQuery) {
+                        continue;
+                    }
+                    String key = PrefetchedMetrics.key(metric.getName(), aggregationFunctionsEntry.getKey());
+                    fetchRange(groupedQuery, key, windowStart, windowEnd, stepSecs, metricsByContainer);
+                }
+            }
+            for (Map.Entry<Target, PrefetchedMetrics> entry : metricsByTarget.entrySet()) {
+                Target target = entry.getKey();
+                store.put(dataSourceInfo.getName(), target.namespace, target.workload, target.workloadType, target.containerName,
+                        entry.getValue(), shard.containers.get(target).size());
+            }
+            LOGGER.debug("Prefetched the metrics of {} containers in namespace {}", metricsByTarget.size(), shard.namespace);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            LOGGER.error("Failed to prefetch the metrics of namespace {} due to : {}", shard.namespace, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Returns the last seen time of each container of the shard, containers not seen are left out
+     */
+    private Map<String, Long> fetchMaxDates(Shard<T> shard) throws Exception {
+        Map<String, Long> maxDates = new HashMap<>();
+        Set<String> containerNames = shard.getContainerNames();
+        GroupedQuery groupedQuery = toGroupedQuery(RecommendationEngine.getMaxDateQuery(metricProfile, AnalyzerConstants.MetricName.maxDate.name()),
+                shard.namespace, containerNames, measurementDurationMinutes);
+        if (null == groupedQuery) {
+            return maxDates;
+        }
+        queryCounter.increment();
+        JsonArray resultArray = DataSourceQueryCache.getInstance().fetchInstant(dataSourceInfo, groupedQuery.query);
+        for (JsonElement result : resultArray) {
+            JsonObject resultObject = result.getAsJsonObject();
+            JsonElement containerName = resultObject.getAsJsonObject(KruizeConstants.JSONKeys.METRIC).get(groupedQuery.containerLabel);
+            if (null == containerName || !containerNames.contains(containerName.getAsString())) {
+                continue;
+            }
+            // same as the engine, the time at which the query was evaluated is used as the end of the window
+            maxDates.put(containerName.getAsString(), resultObject.getAsJsonArray(KruizeConstants.DataSourceConstants
+                    .DataSourceQueryJSONKeys.VALUE).get(0).getAsLong());
+        }
+        return maxDates;
+    }
+
+    /**
+     * Fetches a grouped range query, split in chunks by the RangeQuerySplitter
+     */
+    private void fetchRange(GroupedQuery groupedQuery, String key, long windowStart, long windowEnd,
+                            long stepSecs, Map<String, List<PrefetchedMetrics>> metricsByContainer) throws Exception {
+        queryCounter.increment();
+        JsonArray resultArray = new RangeQuerySplitter(dataSourceInfo).fetch(groupedQuery.query, windowStart, windowEnd, stepSecs);
+        for (JsonElement result : resultArray) {
+            JsonObject resultObject = result.getAsJsonObject();
+            JsonObject labels = resultObject.getAsJsonObject(KruizeConstants.JSONKeys.METRIC);
+            JsonElement containerName = labels.get(groupedQuery.containerLabel);
+            List<PrefetchedMetrics> containerMetrics = null == containerName ? null : metricsByContainer.get(containerName.getAsString());
+            if (null == containerMetrics) {
+                continue;
+            }
+            for (PrefetchedMetrics metrics : containerMetrics) {
+                metrics.addSamples(key, labels, resultObject.getAsJsonArray(KruizeConstants.DataSourceConstants.DataSourceQueryJSONKeys.VALUES));
+            }
+        }
+        metricsByContainer.values().forEach(containerMetrics -> containerMetrics.forEach(metrics -> metrics.addQuery(key)));
+    }
+
+    /**
+     * A query rewritten to match many containers, along with the label identifying the container of each series
+     */
+    static class GroupedQuery {
+        final String query;
+        final String containerLabel;
+
+        GroupedQuery(String query, String containerLabel) {
+            this.query = query;
+            this.containerLabel = containerLabel;
+        }
+    }
+
+    /**
+     * Container of a workload whose metrics are prefetched
+     */
+    static class Target {
+        final String namespace;
+        final String workload;
+        final String workloadType;
+        final String containerName;
+
+        Target(String namespace, String workload, String workloadType, String containerName) {
+            this.namespace = namespace;
+            this.workload = workload;
+            this.workloadType = workloadType;
+            this.containerName = containerName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Target target)) {
+                return false;
+            }
+            return Objects.equals(namespace, target.namespace) && Objects.equals(workload, target.workload)
+                    && Objects.equals(workloadType, target.workloadType) && Objects.equals(containerName, target.containerName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(namespace, workload, workloadType, containerName);
+        }
+    }
+
+    /**
+     * Containers of one namespace whose metrics are fetched together
+     */
+    public static class Shard<T> {
+        private final String namespace;
+        private final Map<Target, List<T>> containers = new LinkedHashMap<>();
+
+        private Shard(String namespace) {
+            this.namespace = namespace;
+        }
+
+        public String getNamespace() {
+            return namespace;
+        }
+
+        private Set<String> getContainerNames() {
+            return containers.keySet().stream().map(target -> target.containerName).collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+
+        /**
+         * Returns the items of all the containers of the shard
+         */
+        public List<T> getItems() {
+            return containers.values().stream().flatMap(List::stream).toList();
+        }
+    }
+}
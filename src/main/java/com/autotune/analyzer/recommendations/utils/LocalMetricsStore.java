@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.recommendations.utils;
+
+import com.autotune.common.data.result.IntervalResults;
+import com.autotune.operator.KruizeDeploymentInfo;
+import com.autotune.utils.KruizeConstants;
+import com.autotune.utils.MetricsConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Holds the container metrics fetched for local monitoring experiments, so that a recommendation run only fetches
+ * the samples after the high-water mark of the previous run instead of the whole term.
+ * <p>
+ * The results of local monitoring experiments are not stored in the database, this store keeps them in memory. The
+ * window of a run is aligned to the step grid by the caller, so the samples of consecutive runs fall on the same
+ * timestamps and a re-fetched sample replaces the one held. The last localDeltaFetchOverlapMins before the
+ * high-water mark are fetched again on each run to pick up samples which arrived late. An entry is dropped when the
+ * metric profile, the step or the fetched metrics of its container change, and the least recently used containers
+ * are evicted beyond localDeltaFetchMaxContainers.
+ */
+public class LocalMetricsStore {
+    private static volatile LocalMetricsStore instance;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Counter deltaCounter;
+    private final Counter fullCounter;
+    private final Counter evictedCounter;
+
+    private LocalMetricsStore() {
+        Gauge.builder("kruizeLocalFetch_containers", this, LocalMetricsStore::size)
+                .description("Containers of local monitoring experiments with metrics held for delta fetching")
+                .register(MetricsConfig.meterRegistry());
+        deltaCounter = Counter.builder("kruizeLocalFetch_fetches").description("Metric fetches of local monitoring containers")
+                .tag("range", "delta").register(MetricsConfig.meterRegistry());
+        fullCounter = Counter.builder("kruizeLocalFetch_fetches").description("Metric fetches of local monitoring containers")
+                .tag("range", "full").register(MetricsConfig.meterRegistry());
+        evictedCounter = Counter.builder("kruizeLocalFetch_evicted_containers").description("Containers evicted from the delta fetch store")
+                .register(MetricsConfig.meterRegistry());
+    }
+
+    public static LocalMetricsStore getInstance() {
+        if (null == instance) {
+            synchronized (LocalMetricsStore.class) {
+                if (null == instance) {
+                    instance = new LocalMetricsStore();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the key under which the metrics of a container of an experiment are kept
+     */
+    public static String key(String dataSourceName, String experimentName, String namespace, String workloadType,
+                             String workload, String containerName) {
+        return String.join(KruizeConstants.KRUIZE_BULK_FETCH.KEY_SEPARATOR, dataSourceName, experimentName, namespace,
+                workloadType, workload, containerName);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the start of the range to fetch for a window, only the samples after the high-water mark less the
+     * overlap are fetched when the samples held cover the start of the window
+     *
+     * @param signature  metric profile, step and fetched metrics of the container, the samples held are only used
+     *                   when it matches
+     * @param startEpoch start of the window in epoch seconds, on the step grid
+     * @param stepSecs   step of the queries in seconds
+     * @return start of the range to fetch in epoch seconds, past the end of the window if nothing needs fetching
+     */
+    public synchronized long getFetchStartEpoch(String key, String signature, long startEpoch, long stepSecs) {
+        Entry entry = entries.get(key);
+        if (null == entry || !entry.signature.equals(signature) || startEpoch < entry.fromEpoch
+                || entry.highWaterMarkEpoch < startEpoch) {
+            fullCounter.increment();
+            return startEpoch;
+        }
+        deltaCounter.increment();
+        long overlapSecs = (long) KruizeDeploymentInfo.local_delta_fetch_overlap_mins * KruizeConstants.TimeConv.NO_OF_SECONDS_PER_MINUTE;
+        long overlapSteps = (Math.max(0, overlapSecs) + stepSecs - 1) / stepSecs;
+        return Math.max(startEpoch, entry.highWaterMarkEpoch - overlapSteps * stepSecs + stepSecs);
+    }
+
+    /**
+     * Merges the samples fetched for a window into those held and returns the results of the whole window
+     *
+     * @param fetched         results fetched from fetchStartEpoch to the end of the window
+     * @param fetchStartEpoch start of the range fetched, as returned by getFetchStartEpoch
+     * @param startEpoch      start of the window in epoch seconds, on the step grid
+     * @param endEpoch        end of the window in epoch seconds, on the step grid
+     * @return copies of the results of the window, keyed by interval end time
+     */
+    public synchronized HashMap<Timestamp, IntervalResults> merge(String key, String signature,
+                                                                   Map<Timestamp, IntervalResults> fetched,
+                                                                   long fetchStartEpoch, long startEpoch, long endEpoch) {
+        Entry entry = entries.get(key);
+        if (fetchStartEpoch <= startEpoch || null == entry || !entry.signature.equals(signature)) {
+            // an entry evicted or replaced since the fetch started only holds the range fetched, the next run of the
+            // container fetches the whole window again
+            entry = new Entry(signature, Math.max(startEpoch, fetchStartEpoch), endEpoch);
+            entries.put(key, entry);
+            evictLeastRecentlyUsed();
+        } else {
+            if (fetchStartEpoch <= endEpoch) {
+                // the samples of the range fetched replace the ones held, including those which are gone
+                entry.results.subMap(toTimestamp(fetchStartEpoch), true, toTimestamp(endEpoch), true).clear();
+            }
+            entry.highWaterMarkEpoch = Math.max(entry.highWaterMarkEpoch, endEpoch);
+            if (startEpoch > entry.fromEpoch) {
+                entry.results.headMap(toTimestamp(startEpoch), false).clear();
+                entry.fromEpoch = startEpoch;
+            }
+        }
+        entry.results.putAll(fetched);
+        // the caller adjusts the intervals returned, each gets its own copy so the ones held are left as they are
+        HashMap<Timestamp, IntervalResults> window = new HashMap<>();
+        for (Map.Entry<Timestamp, IntervalResults> held : entry.results.subMap(toTimestamp(startEpoch), true, toTimestamp(endEpoch), true).entrySet()) {
+            window.put(held.getKey(), new IntervalResults(held.getValue()));
+        }
+        return window;
+    }
+
+    private void evictLeastRecentlyUsed() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() > Math.max(1, KruizeDeploymentInfo.local_delta_fetch_max_containers) && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictedCounter.increment();
+        }
+    }
+
+    private static Timestamp toTimestamp(long epochSecs) {
+        return new Timestamp(epochSecs * KruizeConstants.TimeConv.NO_OF_MSECS_IN_SEC);
+    }
+
+    /**
+     * Samples held for one container, keyed by interval end time
+     */
+    private static class Entry {
+        private final String signature;
+        private final TreeMap<Timestamp, IntervalResults> results = new TreeMap<>();
+        private long fromEpoch;
+        private long highWaterMarkEpoch;
+
+        private Entry(String signature, long fromEpoch, long highWaterMarkEpoch) {
+            this.signature = signature;
+            this.fromEpoch = fromEpoch;
+            this.highWaterMarkEpoch = highWaterMarkEpoch;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.recommendations.utils;
+
+import com.autotune.utils.KruizeConstants;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Metrics of one container fetched ahead of time by the BulkFetchPlanner using grouped queries.
+ * <p>
+ * Series are kept as primitive arrays and turned back into the Prometheus result format only for the window
+ * asked for, so the recommendation engine processes them exactly like the results of a per-container query.
+ */
+public class PrefetchedMetrics {
+    private final long windowStartEpoch;
+    private final long windowEndEpoch;
+    private final long stepSecs;
+    private Long maxDateEpoch;
+    private final Map<String, Map<String, Series>> seriesMap = new HashMap<>();
+    private int pendingConsumers;
+    private long expiryTime;
+
+    public PrefetchedMetrics(long windowStartEpoch, long windowEndEpoch, long stepSecs) {
+        this.windowStartEpoch = windowStartEpoch;
+        this.windowEndEpoch = windowEndEpoch;
+        this.stepSecs = stepSecs;
+    }
+
+    /**
+     * Returns the key under which the results of an aggregation function of a metric are kept
+     */
+    public static String key(String metricName, String aggregationFunction) {
+        return metricName + KruizeConstants.KRUIZE_BULK_FETCH.KEY_SEPARATOR + aggregationFunction;
+    }
+
+    public Long getMaxDateEpoch() {
+        return maxDateEpoch;
+    }
+
+    public void setMaxDateEpoch(Long maxDateEpoch) {
+        this.maxDateEpoch = maxDateEpoch;
+    }
+
+    /**
+     * Marks the query as fetched even if the container had no series in its results
+     */
+    public void addQuery(String key) {
+        seriesMap.computeIfAbsent(key, k -> new LinkedHashMap<>());
+    }
+
+    /**
+     * Appends the samples of a series returned by the datasource, in time order
+     *
+     * @param key    key of the metric and aggregation function
+     * @param labels labels of the series
+     * @param values samples of the series as [epoch seconds, value] pairs
+     */
+    public void addSamples(String key, JsonObject labels, JsonArray values) {
+        Series series = seriesMap.computeIfAbsent(key, k -> new LinkedHashMap<>())
+                .computeIfAbsent(labels.toString(), k -> new Series(labels));
+        for (JsonElement element : values) {
+            JsonArray valueArray = element.getAsJsonArray();
+            series.add(valueArray.get(0).getAsLong(), valueArray.get(1).getAsDouble());
+        }
+    }
+
+    public boolean hasQuery(String key) {
+        return seriesMap.containsKey(key);
+    }
+
+    /**
+     * Returns the results of the query for the given window in the format of the Prometheus query_range response
+     *
+     * @param key        key of the metric and aggregation function
+     * @param startEpoch start of the window in epoch seconds
+     * @param endEpoch   end of the window in epoch seconds
+     * @return results of the query, null if the query was not prefetched or the window is not covered
+     */
+    public JsonArray getResultArray(String key, long startEpoch, long endEpoch) {
+        Map<String, Series> seriesByLabels = seriesMap.get(key);
+        if (null == seriesByLabels || startEpoch < windowStartEpoch - stepSecs || endEpoch > windowEndEpoch + stepSecs) {
+            return null;
+        }
+        JsonArray resultArray = new JsonArray();
+        for (Series series : seriesByLabels.values()) {
+            JsonArray values = series.toValues(startEpoch, endEpoch);
+            if (values.isEmpty()) {
+                continue;
+            }
+            JsonObject result = new JsonObject();
+            result.add(KruizeConstants.JSONKeys.METRIC, series.labels);
+            result.add(KruizeConstants.DataSourceConstants.DataSourceQueryJSONKeys.VALUES, values);
+            resultArray.add(result);
+        }
+        return resultArray;
+    }
+
+    int getPendingConsumers() {
+        return pendingConsumers;
+    }
+
+    void setPendingConsumers(int pendingConsumers) {
+        this.pendingConsumers = pendingConsumers;
+    }
+
+    long getExpiryTime() {
+        return expiryTime;
+    }
+
+    void setExpiryTime(long expiryTime) {
+        this.expiryTime = expiryTime;
+    }
+
+    /**
+     * Samples of one series, in time order
+     */
+    private static class Series {
+        private final JsonObject labels;
+        private long[] times = new long[KruizeConstants.KRUIZE_BULK_FETCH.INITIAL_SERIES_CAPACITY];
+        private double[] values = new double[KruizeConstants.KRUIZE_BULK_FETCH.INITIAL_SERIES_CAPACITY];
+        private int size;
+
+        private Series(JsonObject labels) {
+            this.labels = labels;
+        }
+
+        private void add(long epochSecs, double value) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            times[size] = epochSecs;
+            values[size] = value;
+            size++;
+        }
+
+        private JsonArray toValues(long startEpoch, long endEpoch) {
+            JsonArray valuesArray = new JsonArray();
+            for (int i = 0; i < size; i++) {
+                if (times[i] < startEpoch || times[i] > endEpoch) {
+                    continue;
+                }
+                JsonArray sample = new JsonArray();
+                sample.add(times[i]);
+                sample.add(String.valueOf(values[i]));
+                valuesArray.add(sample);
+            }
+            return valuesArray;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.recommendations.utils;
+
+import com.autotune.operator.KruizeDeploymentInfo;
+import com.autotune.utils.KruizeConstants;
+import com.autotune.utils.MetricsConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds the metrics prefetched for bulk jobs until the recommendation engine picks them up.
+ * <p>
+ * Entries are kept per container of a workload. An entry is removed once all the experiments of its container have
+ * taken it, or when it expires as the experiment failed before fetching its metrics. The number of containers held
+ * is bounded, the planner waits for room before prefetching the next shard.
+ */
+public class PrefetchedMetricsStore {
+    private static volatile PrefetchedMetricsStore instance;
+
+    private final Map<String, PrefetchedMetrics> entries = new HashMap<>();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter expiredCounter;
+
+    private PrefetchedMetricsStore() {
+        Gauge.builder("kruizeBulkFetch_prefetched_containers", this, PrefetchedMetricsStore::size)
+                .description("Containers with prefetched metrics waiting for the recommendation engine")
+                .register(MetricsConfig.meterRegistry());
+        hitCounter = Counter.builder("kruizeBulkFetch_lookups").description("Lookups of prefetched metrics by the recommendation engine")
+                .tag("result", "hit").register(MetricsConfig.meterRegistry());
+        missCounter = Counter.builder("kruizeBulkFetch_lookups").description("Lookups of prefetched metrics by the recommendation engine")
+                .tag("result", "miss").register(MetricsConfig.meterRegistry());
+        expiredCounter = Counter.builder("kruizeBulkFetch_expired_containers").description("Prefetched containers which expired before use")
+                .register(MetricsConfig.meterRegistry());
+    }
+
+    public static PrefetchedMetricsStore getInstance() {
+        if (null == instance) {
+            synchronized (PrefetchedMetricsStore.class) {
+                if (null == instance) {
+                    instance = new PrefetchedMetricsStore();
+                }
+            }
+        }
+        return instance;
+    }
+
+    private static String key(String dataSourceName, String namespace, String workload, String workloadType, String containerName) {
+        return String.join(KruizeConstants.KRUIZE_BULK_FETCH.KEY_SEPARATOR, dataSourceName, namespace, workload, workloadType,
+                containerName);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Waits until there is room for the given number of containers
+     *
+     * @return false if there was no room within the timeout
+     */
+    public synchronized boolean awaitRoom(int containers, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        evictExpired();
+        while (entries.size() + containers > KruizeDeploymentInfo.bulk_prefetch_max_containers) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(Math.min(remaining, KruizeConstants.KRUIZE_BULK_FETCH.EVICTION_CHECK_MILLIS));
+            evictExpired();
+        }
+        return true;
+    }
+
+    /**
+     * Adds the metrics of a container
+     *
+     * @param consumers number of experiments which will take the metrics
+     */
+    public synchronized void put(String dataSourceName, String namespace, String workload, String workloadType,
+                                 String containerName, PrefetchedMetrics metrics, int consumers) {
+        metrics.setPendingConsumers(consumers);
+        metrics.setExpiryTime(System.currentTimeMillis() + KruizeConstants.KRUIZE_BULK_FETCH.ENTRY_TTL_MILLIS);
+        entries.put(key(dataSourceName, namespace, workload, workloadType, containerName), metrics);
+    }
+
+    /**
+     * Takes the prefetched metrics of a container, the entry is removed once all its experiments have taken it
+     *
+     * @return prefetched metrics, null if none are available
+     */
+    public synchronized PrefetchedMetrics take(String dataSourceName, String namespace, String workload, String workloadType,
+                                               String containerName) {
+        String key = key(dataSourceName, namespace, workload, workloadType, containerName);
+        PrefetchedMetrics metrics = entries.get(key);
+        if (null == metrics) {
+            missCounter.increment();
+            return null;
+        }
+        hitCounter.increment();
+        metrics.setPendingConsumers(metrics.getPendingConsumers() - 1);
+        if (metrics.getPendingConsumers() <= 0) {
+            entries.remove(key);
+            notifyAll();
+        }
+        return metrics;
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        int before = entries.size();
+        entries.values().removeIf(metrics -> metrics.getExpiryTime() < now);
+        if (entries.size() < before) {
+            expiredCounter.increment(before - entries.size());
+        }
+    }
+}
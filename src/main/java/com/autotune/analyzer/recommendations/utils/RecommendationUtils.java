@@ -13,15 +13,14 @@ import com.autotune.common.data.system.info.device.accelerator.AcceleratorDevice
 import com.autotune.common.data.system.info.device.accelerator.metadata.AcceleratorMetaDataService;
 import com.autotune.common.data.system.info.device.accelerator.metadata.AcceleratorProfile;
 import com.autotune.common.datasource.DataSourceInfo;
-import com.autotune.utils.GenericRestApiClient;
+import com.autotune.common.datasource.DataSourceQueryCache;
+import com.autotune.common.datasource.RangeQuerySplitter;
 import com.autotune.utils.KruizeConstants;
 import com.google.gson.*;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.net.URLEncoder;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
@@ -30,8 +29,6 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
 
-import static com.autotune.analyzer.utils.AnalyzerConstants.ServiceConstants.CHARACTER_ENCODING;
-
 public class RecommendationUtils {
     private static final Logger LOGGER = LoggerFactory.getLogger(RecommendationUtils.class);
 
@@ -179,17 +176,15 @@ public class RecommendationUtils {
                 .replace(AnalyzerConstants.WORKLOAD_VARIABLE, workload)
                 .replace(AnalyzerConstants.WORKLOAD_TYPE_VARIABLE, workload_type);
 
-        String dateMetricsUrl = String.format(KruizeConstants.DataSourceConstants.DATE_ENDPOINT_WITH_QUERY,
-                dataSourceInfo.getUrl(),
-                URLEncoder.encode(queryToEncode, CHARACTER_ENCODING)
-        );
-
-        LOGGER.debug(dateMetricsUrl);
-        GenericRestApiClient client = new GenericRestApiClient(dataSourceInfo);
-        client.setBaseURL(dateMetricsUrl);
-        JSONObject genericJsonObject = client.fetchMetricsJson(KruizeConstants.APIMessages.GET, "");
-        JsonObject jsonObject = new Gson().fromJson(genericJsonObject.toString(), JsonObject.class);
-        JsonArray resultArray = jsonObject.getAsJsonObject(KruizeConstants.JSONKeys.DATA).getAsJsonArray(KruizeConstants.DataSourceConstants.DataSourceQueryJSONKeys.RESULT);
+        JsonArray resultArray;
+        try {
+            // shared with the maxDate query of the recommendation engine through the query cache
+            resultArray = DataSourceQueryCache.getInstance().fetchInstant(dataSourceInfo, queryToEncode);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FetchMetricsError(e.getMessage());
+        }
 
         if (null == resultArray || resultArray.isEmpty()) {
             // Need to alert that container max duration is not detected
@@ -217,61 +212,62 @@ public class RecommendationUtils {
                 .replace(AnalyzerConstants.WORKLOAD_VARIABLE, workload)
                 .replace(AnalyzerConstants.WORKLOAD_TYPE_VARIABLE, workload_type);
 
-        String podMetricsUrl;
         try {
-            podMetricsUrl = String.format(KruizeConstants.DataSourceConstants.DATASOURCE_ENDPOINT_WITH_QUERY_RANGE,
-                    dataSourceInfo.getUrl(),
-                    URLEncoder.encode(gpuDetectionQuery, CHARACTER_ENCODING),
+            resultArray = new RangeQuerySplitter(dataSourceInfo).fetch(gpuDetectionQuery,
                     interval_start_time_epoc,
                     interval_end_time_epoc,
                     measurementDurationMinutesInDouble.intValue() * KruizeConstants.TimeConv.NO_OF_SECONDS_PER_MINUTE);
-            LOGGER.debug(podMetricsUrl);
-            client.setBaseURL(podMetricsUrl);
-            genericJsonObject = client.fetchMetricsJson(KruizeConstants.APIMessages.GET, "");
-
-            jsonObject = new Gson().fromJson(genericJsonObject.toString(), JsonObject.class);
-            resultArray = jsonObject.getAsJsonObject(KruizeConstants.JSONKeys.DATA).getAsJsonArray(KruizeConstants.DataSourceConstants.DataSourceQueryJSONKeys.RESULT);
-
-            if (null != resultArray && !resultArray.isEmpty()) {
-                for (JsonElement result : resultArray) {
-                    JsonObject resultObject = result.getAsJsonObject();
-                    JsonArray valuesArray = resultObject.getAsJsonArray(KruizeConstants.DataSourceConstants
-                            .DataSourceQueryJSONKeys.VALUES);
-
-                    for (JsonElement element : valuesArray) {
-                        JsonArray valueArray = element.getAsJsonArray();
-                        double value = valueArray.get(1).getAsDouble();
-                        // TODO: Check for non-zero values to mark as GPU workload
-                        break;
-                    }
-
-                    JsonObject metricObject = resultObject.getAsJsonObject(KruizeConstants.JSONKeys.METRIC);
-                    String modelName = metricObject.get(KruizeConstants.JSONKeys.MODEL_NAME).getAsString();
-                    if (null == modelName)
-                        continue;
-
-                    boolean isSupportedMig = checkIfModelIsKruizeSupportedMIG(modelName);
-                    if (isSupportedMig) {
-                        AcceleratorDeviceData acceleratorDeviceData = new AcceleratorDeviceData(metricObject.get(KruizeConstants.JSONKeys.MODEL_NAME).getAsString(),
-                                metricObject.get(KruizeConstants.JSONKeys.HOSTNAME).getAsString(),
-                                metricObject.get(KruizeConstants.JSONKeys.UUID).getAsString(),
-                                metricObject.get(KruizeConstants.JSONKeys.DEVICE).getAsString(),
-                                isSupportedMig);
-
-
-                        if (null == containerData.getContainerDeviceList()) {
-                            ContainerDeviceList containerDeviceList = new ContainerDeviceList();
-                            containerData.setContainerDeviceList(containerDeviceList);
-                        }
-                        containerData.getContainerDeviceList().addDevice(AnalyzerConstants.DeviceType.ACCELERATOR, acceleratorDeviceData);
-                        // TODO: Currently we consider only the first mig supported GPU
-                        return;
-                    }
+
+            markAcceleratorDeviceStatusFromResults(containerData, resultArray);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Marks the accelerator device of the container from the results of the accelerator detection query
+     *
+     * @param containerData container to mark
+     * @param resultArray   results of the detection query in the Prometheus query_range format
+     */
+    public static void markAcceleratorDeviceStatusFromResults(ContainerData containerData, JsonArray resultArray) {
+        if (null == resultArray || resultArray.isEmpty())
+            return;
+
+        for (JsonElement result : resultArray) {
+            JsonObject resultObject = result.getAsJsonObject();
+            JsonArray valuesArray = resultObject.getAsJsonArray(KruizeConstants.DataSourceConstants
+                    .DataSourceQueryJSONKeys.VALUES);
+
+            for (JsonElement element : valuesArray) {
+                JsonArray valueArray = element.getAsJsonArray();
+                double value = valueArray.get(1).getAsDouble();
+                // TODO: Check for non-zero values to mark as GPU workload
+                break;
+            }
+
+            JsonObject metricObject = resultObject.getAsJsonObject(KruizeConstants.JSONKeys.METRIC);
+            String modelName = metricObject.get(KruizeConstants.JSONKeys.MODEL_NAME).getAsString();
+            if (null == modelName)
+                continue;
+
+            boolean isSupportedMig = checkIfModelIsKruizeSupportedMIG(modelName);
+            if (isSupportedMig) {
+                AcceleratorDeviceData acceleratorDeviceData = new AcceleratorDeviceData(metricObject.get(KruizeConstants.JSONKeys.MODEL_NAME).getAsString(),
+                        metricObject.get(KruizeConstants.JSONKeys.HOSTNAME).getAsString(),
+                        metricObject.get(KruizeConstants.JSONKeys.UUID).getAsString(),
+                        metricObject.get(KruizeConstants.JSONKeys.DEVICE).getAsString(),
+                        isSupportedMig);
+
+
+                if (null == containerData.getContainerDeviceList()) {
+                    ContainerDeviceList containerDeviceList = new ContainerDeviceList();
+                    containerData.setContainerDeviceList(containerDeviceList);
                 }
+                containerData.getContainerDeviceList().addDevice(AnalyzerConstants.DeviceType.ACCELERATOR, acceleratorDeviceData);
+                // TODO: Currently we consider only the first mig supported GPU
+                return;
             }
-        } catch (IOException | NoSuchAlgorithmException | KeyStoreException | KeyManagementException |
-                 JsonSyntaxException e) {
-            throw new RuntimeException(e);
         }
     }
 
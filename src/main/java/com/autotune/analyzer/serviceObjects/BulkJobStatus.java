@@ -17,6 +17,7 @@ package com.autotune.analyzer.serviceObjects;
 
 import com.autotune.utils.KruizeConstants;
 import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,9 +25,10 @@ import org.slf4j.LoggerFactory;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.autotune.utils.KruizeConstants.KRUIZE_BULK_API.JOB_ID;
@@ -40,29 +42,33 @@ public class BulkJobStatus {
     private static final Logger LOGGER = LoggerFactory.getLogger(BulkJobStatus.class);
     @JsonProperty(JOB_ID)
     private String jobID;
-    private String status;
-    private int total_experiments;
-    private AtomicInteger processed_experiments;  //todo : If the primary operations are increments or simple atomic updates, use AtomicInteger. It is designed for lock-free thread-safe access
+    private volatile String status;
+    private final AtomicInteger total_experiments = new AtomicInteger(0);
+    private final AtomicInteger processed_experiments = new AtomicInteger(0);
     @JsonProperty("job_start_time")
-    private String startTime; // Change to String to store formatted time
+    private volatile String startTime; // Change to String to store formatted time
     @JsonProperty("job_end_time")
-    private String endTime;   // Change to String to store formatted time
-    private Map<String, Notification> notifications;
-    private Map<String, Experiment> experiments = Collections.synchronizedMap(new HashMap<>());
-    private Webhook webhook;
+    private volatile String endTime;   // Change to String to store formatted time
+    private volatile Map<String, Notification> notifications;
+    // sorted by name so that pages of experiments stay stable while the job adds more of them
+    private Map<String, Experiment> experiments = new ConcurrentSkipListMap<>();
+    private volatile Webhook webhook;
+    // set once by the first caller that sees the job through, the time is used by the status store to expire the job
+    private final transient AtomicBoolean finished = new AtomicBoolean(false);
+    private transient volatile Instant finishedAt;
+    private transient volatile Instant startedAt;
 
     public BulkJobStatus(String jobID, String status, Instant startTime) {
         this.jobID = jobID;
         this.status = status;
         setStartTime(startTime);
-        this.processed_experiments = new AtomicInteger(0);
     }
 
 
     // Method to set a notification in the map
-    public void setNotification(String key, Notification notification) {
+    public synchronized void setNotification(String key, Notification notification) {
         if (this.notifications == null) {
-            this.notifications = new HashMap<>(); // Initialize if null
+            this.notifications = new ConcurrentHashMap<>(); // Initialize if null
         }
         this.notifications.put(key, notification);
     }
@@ -85,6 +91,15 @@ public class BulkJobStatus {
 
     public void setStartTime(Instant startTime) {
         this.startTime = formatInstantAsUTCString(startTime);
+        this.startedAt = startTime;
+    }
+
+    /**
+     * Returns the time the job started at
+     */
+    @JsonIgnore
+    public Instant getStartedAt() {
+        return startedAt;
     }
 
     public String getEndTime() {
@@ -97,6 +112,15 @@ public class BulkJobStatus {
 
     public void setEndTime(Instant endTime) {
         this.endTime = formatInstantAsUTCString(endTime);
+        this.finishedAt = endTime;
+    }
+
+    /**
+     * Returns the time the job ended at, null while it is running
+     */
+    @JsonIgnore
+    public Instant getFinishedAt() {
+        return finishedAt;
     }
 
     public Map<String, Notification> getNotifications() {
@@ -124,7 +148,7 @@ public class BulkJobStatus {
     }
 
     // Method to add a new experiment with "unprocessed" status and null notification
-    public synchronized Experiment addExperiment(String experimentName) {
+    public Experiment addExperiment(String experimentName) {
         Experiment experiment = new Experiment(experimentName);
         experiments.put(experimentName, experiment);
         return experiment;
@@ -139,16 +163,27 @@ public class BulkJobStatus {
     }
 
     public int getTotal_experiments() {
-        return total_experiments;
+        return total_experiments.get();
     }
 
     public void setTotal_experiments(int total_experiments) {
-        this.total_experiments = total_experiments;
+        this.total_experiments.set(total_experiments);
     }
 
+    /**
+     * Counts one more processed experiment, returns true only for the increment that processes the last experiment
+     * of the job, so that exactly one caller finishes the job without locking it.
+     */
+    public boolean incrementProcessed_experiments() {
+        int processed = this.processed_experiments.incrementAndGet();
+        return processed == total_experiments.get() && finished.compareAndSet(false, true);
+    }
 
-    public void incrementProcessed_experiments() {
-        this.processed_experiments.incrementAndGet();
+    /**
+     * Marks the job as finished, returns true only for the first caller so that the job is finished once
+     */
+    public boolean markFinished() {
+        return finished.compareAndSet(false, true);
     }
 
     public AtomicInteger getProcessed_experiments() {
@@ -187,8 +222,8 @@ public class BulkJobStatus {
 
     public static class Experiment {
         private String name;
-        private Notification notification; // Empty by default
-        private Recommendation recommendations;
+        private volatile Notification notification; // Empty by default
+        private volatile Recommendation recommendations;
 
         public Experiment(String name) {
             this.name = name;
@@ -215,8 +250,8 @@ public class BulkJobStatus {
     }
 
     public static class Recommendation {
-        private KruizeConstants.KRUIZE_BULK_API.NotificationConstants.Status status;
-        private Notification notifications; // Notifications can hold multiple entries
+        private volatile KruizeConstants.KRUIZE_BULK_API.NotificationConstants.Status status;
+        private volatile Notification notifications; // Notifications can hold multiple entries
 
         public Recommendation(KruizeConstants.KRUIZE_BULK_API.NotificationConstants.Status status) {
             this.status = status;
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.serviceObjects;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.autotune.utils.KruizeConstants.KRUIZE_RECOMMENDATION_BACKFILL.JOB_ID;
+
+/**
+ * Progress of a recommendation backfill job
+ */
+public class RecommendationBackfillStatus {
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
+            .withZone(ZoneOffset.UTC);
+    @JsonProperty(JOB_ID)
+    private final String jobID;
+    @JsonProperty("experiment_name")
+    private final String experimentName;
+    private volatile String status;
+    private volatile String message;
+    private volatile int total_steps;
+    private final AtomicInteger processed_steps = new AtomicInteger(0);
+    private final AtomicInteger skipped_steps = new AtomicInteger(0);
+    private final AtomicInteger saved_recommendations = new AtomicInteger(0);
+    @JsonProperty("job_start_time")
+    private final String startTime;
+    @JsonProperty("job_end_time")
+    private volatile String endTime;
+    private volatile Instant finishedAt;
+
+    public RecommendationBackfillStatus(String jobID, String experimentName, String status, Instant startTime) {
+        this.jobID = jobID;
+        this.experimentName = experimentName;
+        this.status = status;
+        this.startTime = DATE_FORMATTER.format(startTime);
+    }
+
+    public String getJobID() {
+        return jobID;
+    }
+
+    public String getExperimentName() {
+        return experimentName;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public int getTotal_steps() {
+        return total_steps;
+    }
+
+    public void setTotal_steps(int total_steps) {
+        this.total_steps = total_steps;
+    }
+
+    public int getProcessed_steps() {
+        return processed_steps.get();
+    }
+
+    public void incrementProcessed_steps() {
+        processed_steps.incrementAndGet();
+    }
+
+    public int getSkipped_steps() {
+        return skipped_steps.get();
+    }
+
+    public void incrementSkipped_steps() {
+        skipped_steps.incrementAndGet();
+    }
+
+    public int getSaved_recommendations() {
+        return saved_recommendations.get();
+    }
+
+    public void addSaved_recommendations(int count) {
+        saved_recommendations.addAndGet(count);
+    }
+
+    public String getStartTime() {
+        return startTime;
+    }
+
+    public String getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(Instant endTime) {
+        this.endTime = DATE_FORMATTER.format(endTime);
+        this.finishedAt = endTime;
+    }
+
+    /**
+     * Returns when the job finished, null while it is running
+     */
+    @JsonIgnore
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+}
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.serviceObjects;
+
+import com.autotune.utils.KruizeConstants;
+import com.google.gson.annotations.SerializedName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Status of an updateResults request accepted for asynchronous ingestion
+ */
+public class UpdateResultsRequestStatus {
+    @SerializedName(KruizeConstants.KRUIZE_RESULTS_INGESTION.REQUEST_ID)
+    private final String requestId;
+    private String status;
+    @SerializedName("total_results")
+    private final int totalResults;
+    @SerializedName("saved_results")
+    private int savedResults;
+    @SerializedName("failed_results")
+    private int failedResults;
+    @SerializedName("accepted_time")
+    private final long acceptedTime;
+    @SerializedName("completed_time")
+    private long completedTime;
+    private final List<FailedUpdateResultsAPIObject> failures = new ArrayList<>();
+
+    public UpdateResultsRequestStatus(String requestId, int totalResults, long acceptedTime) {
+        this.requestId = requestId;
+        this.totalResults = totalResults;
+        this.acceptedTime = acceptedTime;
+        this.status = KruizeConstants.KRUIZE_RESULTS_INGESTION.QUEUED;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public synchronized String getStatus() {
+        return status;
+    }
+
+    public synchronized void markInProgress() {
+        if (KruizeConstants.KRUIZE_RESULTS_INGESTION.QUEUED.equals(status)) {
+            status = KruizeConstants.KRUIZE_RESULTS_INGESTION.IN_PROGRESS;
+        }
+    }
+
+    public synchronized void addSaved(int count) {
+        savedResults += count;
+        checkCompleted();
+    }
+
+    public synchronized void addFailed(FailedUpdateResultsAPIObject failure) {
+        failedResults++;
+        failures.add(failure);
+        checkCompleted();
+    }
+
+    public synchronized boolean isCompleted() {
+        return KruizeConstants.KRUIZE_RESULTS_INGESTION.COMPLETED.equals(status);
+    }
+
+    public synchronized long getCompletedTime() {
+        return completedTime;
+    }
+
+    private void checkCompleted() {
+        if (savedResults + failedResults >= totalResults) {
+            status = KruizeConstants.KRUIZE_RESULTS_INGESTION.COMPLETED;
+            completedTime = System.currentTimeMillis();
+        }
+    }
+}
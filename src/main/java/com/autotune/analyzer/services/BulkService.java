@@ -18,7 +18,13 @@ package com.autotune.analyzer.services;
 import com.autotune.analyzer.serviceObjects.BulkInput;
 import com.autotune.analyzer.serviceObjects.BulkJobStatus;
 import com.autotune.analyzer.workerimpl.BulkJobManager;
+import com.autotune.analyzer.workerimpl.BulkJobStatusStore;
+import com.autotune.analyzer.workerimpl.KruizeTaskManager;
+import com.autotune.operator.KruizeDeploymentInfo;
+import com.autotune.utils.KruizeConstants;
 import com.autotune.utils.MetricsConfig;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
 import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
@@ -34,10 +40,12 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.Writer;
+import java.sql.SQLException;
 import java.time.Instant;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -51,12 +59,23 @@ import static com.autotune.utils.KruizeConstants.KRUIZE_BULK_API.*;
 public class BulkService extends HttpServlet {
     private static final long serialVersionUID = 1L;
     private static final Logger LOGGER = LoggerFactory.getLogger(BulkService.class);
-    private static Map<String, BulkJobStatus> jobStatusMap = new ConcurrentHashMap<>();
-    private ExecutorService executorService = Executors.newFixedThreadPool(10);
+    // shared by all the requests, the experiments are left out of the summary and streamed separately
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .setFilterProvider(new SimpleFilterProvider().addFilter("jobFilter", SimpleBeanPropertyFilter.serializeAllExcept(EXPERIMENTS)));
+
+    static {
+        OBJECT_MAPPER.getFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    // runs the jobs when they are not queued in the DB
+    private ExecutorService executorService;
 
     @Override
     public void init(ServletConfig config) throws ServletException {
         super.init(config);
+        if (!KruizeDeploymentInfo.task_queue) {
+            executorService = Executors.newFixedThreadPool(10);
+        }
     }
 
     /**
@@ -72,11 +91,14 @@ public class BulkService extends HttpServlet {
         try {
             String jobID = req.getParameter(JOB_ID);
             String verboseParam = req.getParameter(VERBOSE);
+            String experimentStatusParam = req.getParameter(EXPERIMENT_STATUS);
+            String limitParam = req.getParameter(LIMIT);
+            String offsetParam = req.getParameter(OFFSET);
             // If the parameter is not provided (null), default it to false
             boolean verbose = verboseParam != null && Boolean.parseBoolean(verboseParam);
-            BulkJobStatus jobDetails;
             LOGGER.info("Job ID: " + jobID);
-            if (jobStatusMap.isEmpty()) {
+            BulkJobStatus jobDetails = getJobStatus(jobID);
+            if (jobDetails == null) {
                 sendErrorResponse(
                         resp,
                         null,
@@ -85,40 +107,27 @@ public class BulkService extends HttpServlet {
                 );
                 return;
             }
-            jobDetails = jobStatusMap.get(jobID);
             LOGGER.info("Job Status: " + jobDetails.getStatus());
-            resp.setContentType(JSON_CONTENT_TYPE);
-            resp.setCharacterEncoding(CHARACTER_ENCODING);
-            SimpleFilterProvider filters = new SimpleFilterProvider();
 
-            if (jobDetails == null) {
-                sendErrorResponse(
-                        resp,
-                        null,
-                        HttpServletResponse.SC_NOT_FOUND,
-                        JOB_NOT_FOUND_MSG
-                );
-            } else {
-                try {
-                    resp.setStatus(HttpServletResponse.SC_OK);
-                    // Return the JSON representation of the JobStatus object
-                    ObjectMapper objectMapper = new ObjectMapper();
-                    if (!verbose) {
-                        filters.addFilter("jobFilter", SimpleBeanPropertyFilter.serializeAllExcept("experiments"));
-                    } else {
-                        filters.addFilter("jobFilter", SimpleBeanPropertyFilter.serializeAll());
-                    }
-                    objectMapper.setFilterProvider(filters);
-                    String jsonResponse = "";
-                    synchronized (jobDetails) {
-                        jsonResponse = objectMapper.writeValueAsString(jobDetails);
-                    }
-                    resp.getWriter().write(jsonResponse);
-                    statusValue = "success";
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
+            KruizeConstants.KRUIZE_BULK_API.NotificationConstants.Status experimentStatus = null;
+            int limit;
+            int offset;
+            try {
+                experimentStatus = parseExperimentStatus(experimentStatusParam);
+                limit = parsePageParam(limitParam, LIMIT, Integer.MAX_VALUE);
+                offset = parsePageParam(offsetParam, OFFSET, 0);
+            } catch (IllegalArgumentException e) {
+                sendErrorResponse(resp, null, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+                return;
             }
+            // asking for a page or a status of experiments implies the verbose output
+            boolean includeExperiments = verbose || null != experimentStatus || null != limitParam || null != offsetParam;
+
+            resp.setContentType(JSON_CONTENT_TYPE);
+            resp.setCharacterEncoding(CHARACTER_ENCODING);
+            resp.setStatus(HttpServletResponse.SC_OK);
+            writeJobStatus(jobDetails, includeExperiments, experimentStatus, offset, limit, resp.getWriter());
+            statusValue = "success";
         } catch (Exception e) {
             e.printStackTrace();
         } finally {
@@ -153,9 +162,24 @@ public class BulkService extends HttpServlet {
             // Generate a unique jobID
             String jobID = UUID.randomUUID().toString();
             BulkJobStatus jobStatus = new BulkJobStatus(jobID, IN_PROGRESS, Instant.now());
-            jobStatusMap.put(jobID, jobStatus);
-            // Submit the job to be processed asynchronously
-            executorService.submit(new BulkJobManager(jobID, jobStatus, payload));
+            BulkJobStatusStore.getInstance().put(jobStatus);
+            if (!KruizeDeploymentInfo.task_queue) {
+                // Submit the job to be processed asynchronously
+                executorService.submit(new BulkJobManager(jobID, jobStatus, payload));
+            } else {
+                // Queue the job in the DB, it is run by a worker of any replica and survives restarts
+                try {
+                    KruizeTaskManager.getInstance().enqueue(KruizeConstants.TaskQueueConstants.BULK_JOB_TASK, jobID,
+                            BulkJobManager.toTaskPayload(jobID, payload));
+                } catch (SQLException e) {
+                    LOGGER.error("Could not queue the bulk job {}: {}", jobID, e.getMessage());
+                    jobStatus.setStatus(FAILED);
+                    jobStatus.setEndTime(Instant.now());
+                    sendErrorResponse(response, null, HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                            String.format(JOB_NOT_QUEUED_MSG, e.getMessage()));
+                    return;
+                }
+            }
 
             // Just sending a simple success response back
             // Return the jobID to the user
@@ -171,10 +195,105 @@ public class BulkService extends HttpServlet {
         }
     }
 
-
     @Override
     public void destroy() {
-        executorService.shutdown();
+        if (null != executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Returns the status of the job. With the task queue, a job this replica does not run may be run by another
+     * replica: its status is then the one saved with its task, and once it is finished it replaces the status left
+     * in progress by the replica which queued it.
+     */
+    private static BulkJobStatus getJobStatus(String jobID) {
+        BulkJobStatus jobStatus = BulkJobStatusStore.getInstance().get(jobID);
+        if (!KruizeDeploymentInfo.task_queue || null == jobID || BulkJobManager.isRunningHere(jobID)
+                || (null != jobStatus && null != jobStatus.getFinishedAt())) {
+            return jobStatus;
+        }
+        try {
+            BulkJobStatus sharedStatus = BulkJobManager.loadStatus(jobID);
+            if (null == sharedStatus) {
+                return jobStatus;
+            }
+            if (null != sharedStatus.getFinishedAt()) {
+                BulkJobStatusStore.getInstance().put(sharedStatus);
+            }
+            return sharedStatus;
+        } catch (Exception e) {
+            LOGGER.warn("Could not load the status of the bulk job {}: {}", jobID, e.getMessage());
+            return jobStatus;
+        }
+    }
+
+    /**
+     * Streams the JSON of the job to the writer, with the experiments of the given recommendation status (all of them
+     * if null) from offset on, at most limit of them. The job is read without locking it: the counters are atomic and
+     * the experiments are a concurrent map, so a poll sees a consistent enough view of a running job.
+     */
+    static void writeJobStatus(BulkJobStatus jobStatus, boolean includeExperiments,
+                               KruizeConstants.KRUIZE_BULK_API.NotificationConstants.Status experimentStatus,
+                               int offset, int limit, Writer writer) throws IOException {
+        JsonNode summary = OBJECT_MAPPER.valueToTree(jobStatus);
+        try (JsonGenerator generator = OBJECT_MAPPER.getFactory().createGenerator(writer)) {
+            generator.writeStartObject();
+            Iterator<Map.Entry<String, JsonNode>> fields = summary.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                generator.writeFieldName(field.getKey());
+                generator.writeTree(field.getValue());
+            }
+            if (includeExperiments) {
+                generator.writeObjectFieldStart(EXPERIMENTS);
+                int skipped = 0;
+                int written = 0;
+                for (Map.Entry<String, BulkJobStatus.Experiment> entry : jobStatus.getExperiments().entrySet()) {
+                    if (written >= limit) {
+                        break;
+                    }
+                    if (null != experimentStatus && experimentStatus != entry.getValue().getRecommendations().getStatus()) {
+                        continue;
+                    }
+                    if (skipped < offset) {
+                        skipped++;
+                        continue;
+                    }
+                    generator.writeObjectField(entry.getKey(), entry.getValue());
+                    written++;
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private static KruizeConstants.KRUIZE_BULK_API.NotificationConstants.Status parseExperimentStatus(String value) {
+        if (null == value) {
+            return null;
+        }
+        for (KruizeConstants.KRUIZE_BULK_API.NotificationConstants.Status status : KruizeConstants.KRUIZE_BULK_API.NotificationConstants.Status.values()) {
+            if (status.getStatus().equalsIgnoreCase(value.trim())) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException(String.format(INVALID_QUERY_PARAM_MSG, value, EXPERIMENT_STATUS));
+    }
+
+    private static int parsePageParam(String value, String name, int defaultValue) {
+        if (null == value) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed >= 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException(String.format(INVALID_QUERY_PARAM_MSG, value, name));
     }
 
     public void sendErrorResponse(HttpServletResponse response, Exception e, int httpStatusCode, String errorMsg) throws
@@ -104,6 +104,8 @@ public class ListRecommendations extends HttpServlet {
         ) {
             rmTable = true;
         }
+        // only the latest recommendation of each container is needed unless a specific timestamp is asked for
+        boolean latestOnly = getLatest && (null == monitoringEndTime || monitoringEndTime.isEmpty());
         List<KruizeObject> kruizeObjectList = new ArrayList<>();
         try {
             // Check if experiment name is passed
@@ -112,9 +114,17 @@ public class ListRecommendations extends HttpServlet {
                 experimentName = experimentName.trim();
                 try {
                     if (rmTable) {
-                        new ExperimentDBService().loadExperimentAndRecommendationsFromDBByName(mKruizeExperimentMap, experimentName);
+                        if (latestOnly) {
+                            new ExperimentDBService().loadExperimentAndLatestRecommendationsFromDBByName(mKruizeExperimentMap, experimentName);
+                        } else {
+                            new ExperimentDBService().loadExperimentAndRecommendationsFromDBByName(mKruizeExperimentMap, experimentName);
+                        }
                     } else {
-                        new ExperimentDBService().loadLMExperimentAndRecommendationsFromDBByName(mKruizeExperimentMap, experimentName);
+                        if (latestOnly) {
+                            new ExperimentDBService().loadLMExperimentAndLatestRecommendationsFromDBByName(mKruizeExperimentMap, experimentName);
+                        } else {
+                            new ExperimentDBService().loadLMExperimentAndRecommendationsFromDBByName(mKruizeExperimentMap, experimentName);
+                        }
                     }
                 } catch (Exception e) {
                     LOGGER.error("Loading saved experiment {} failed: {} ", experimentName, e.getMessage());
@@ -163,9 +173,17 @@ public class ListRecommendations extends HttpServlet {
             } else {
                 try {
                     if (rmTable) {
-                        new ExperimentDBService().loadAllExperimentsAndRecommendations(mKruizeExperimentMap);
+                        if (latestOnly) {
+                            new ExperimentDBService().loadAllExperimentsAndLatestRecommendations(mKruizeExperimentMap);
+                        } else {
+                            new ExperimentDBService().loadAllExperimentsAndRecommendations(mKruizeExperimentMap);
+                        }
                     } else {
-                        new ExperimentDBService().loadAllLMExperimentsAndRecommendations(mKruizeExperimentMap);
+                        if (latestOnly) {
+                            new ExperimentDBService().loadAllLMExperimentsAndLatestRecommendations(mKruizeExperimentMap);
+                        } else {
+                            new ExperimentDBService().loadAllLMExperimentsAndRecommendations(mKruizeExperimentMap);
+                        }
                     }
                 } catch (Exception e) {
                     LOGGER.error("Loading saved experiment {} failed: {} ", experimentName, e.getMessage());
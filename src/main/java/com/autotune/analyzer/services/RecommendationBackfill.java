@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.services;
+
+import com.autotune.analyzer.serviceObjects.RecommendationBackfillStatus;
+import com.autotune.analyzer.utils.AnalyzerErrorConstants;
+import com.autotune.analyzer.workerimpl.RecommendationBackfillJob;
+import com.autotune.analyzer.workerimpl.RecommendationBackfillStatusStore;
+import com.autotune.utils.KruizeConstants;
+import com.autotune.utils.Utils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.autotune.analyzer.utils.AnalyzerConstants.ServiceConstants.CHARACTER_ENCODING;
+import static com.autotune.analyzer.utils.AnalyzerConstants.ServiceConstants.JSON_CONTENT_TYPE;
+import static com.autotune.utils.KruizeConstants.KRUIZE_RECOMMENDATION_BACKFILL.*;
+
+/**
+ * REST API to backfill the recommendations of an experiment over a range of interval end times.
+ * <p>
+ * POST with experiment_name, interval_start_time, interval_end_time and step_minutes starts a backfill job and
+ * returns its job_id. GET with the job_id returns the progress of the job.
+ */
+@WebServlet(asyncSupported = true)
+public class RecommendationBackfill extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecommendationBackfill.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private final RecommendationBackfillStatusStore jobStatusStore;
+    private final RecommendationBackfillJob.Backfiller backfiller;
+    private ExecutorService executorService = Executors.newFixedThreadPool(JOB_THREADS);
+
+    public RecommendationBackfill() {
+        this(RecommendationBackfillStatusStore.getInstance(), RecommendationBackfillJob.Backfiller.RECOMMENDATION_ENGINE);
+    }
+
+    RecommendationBackfill(RecommendationBackfillStatusStore jobStatusStore, RecommendationBackfillJob.Backfiller backfiller) {
+        this.jobStatusStore = jobStatusStore;
+        this.backfiller = backfiller;
+    }
+
+    @Override
+    public void init(ServletConfig config) throws ServletException {
+        super.init(config);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        String jobID = request.getParameter(JOB_ID);
+        RecommendationBackfillStatus jobStatus = jobStatusStore.get(jobID);
+        if (null == jobStatus) {
+            sendErrorResponse(response, null, HttpServletResponse.SC_NOT_FOUND, JOB_NOT_FOUND_MSG);
+            return;
+        }
+        response.setContentType(JSON_CONTENT_TYPE);
+        response.setCharacterEncoding(CHARACTER_ENCODING);
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.getWriter().write(MAPPER.writeValueAsString(jobStatus));
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        String experimentName = request.getParameter(KruizeConstants.JSONKeys.EXPERIMENT_NAME);
+        String startTimeStr = request.getParameter(KruizeConstants.JSONKeys.INTERVAL_START_TIME);
+        String endTimeStr = request.getParameter(KruizeConstants.JSONKeys.INTERVAL_END_TIME);
+        String stepStr = request.getParameter(STEP_MINUTES);
+
+        if (null == experimentName || experimentName.isEmpty()) {
+            sendErrorResponse(response, null, HttpServletResponse.SC_BAD_REQUEST,
+                    AnalyzerErrorConstants.APIErrors.UpdateRecommendationsAPI.EXPERIMENT_NAME_MANDATORY);
+            return;
+        }
+        for (String timeStr : new String[]{startTimeStr, endTimeStr}) {
+            if (null == timeStr || !Utils.DateUtils.isAValidDate(KruizeConstants.DateFormats.STANDARD_JSON_DATE_FORMAT, timeStr)) {
+                sendErrorResponse(response, null, HttpServletResponse.SC_BAD_REQUEST,
+                        String.format(AnalyzerErrorConstants.APIErrors.ListRecommendationsAPI.INVALID_TIMESTAMP_MSG, timeStr));
+                return;
+            }
+        }
+        int stepMinutes;
+        try {
+            stepMinutes = Integer.parseInt(stepStr);
+        } catch (NumberFormatException e) {
+            stepMinutes = 0;
+        }
+        if (stepMinutes <= 0) {
+            sendErrorResponse(response, null, HttpServletResponse.SC_BAD_REQUEST, INVALID_STEP);
+            return;
+        }
+        Timestamp startTime = Utils.DateUtils.getTimeStampFrom(KruizeConstants.DateFormats.STANDARD_JSON_DATE_FORMAT, startTimeStr);
+        Timestamp endTime = Utils.DateUtils.getTimeStampFrom(KruizeConstants.DateFormats.STANDARD_JSON_DATE_FORMAT, endTimeStr);
+        if (startTime.after(endTime)) {
+            sendErrorResponse(response, null, HttpServletResponse.SC_BAD_REQUEST, INVALID_RANGE);
+            return;
+        }
+        long totalSteps = (endTime.getTime() - startTime.getTime()) / TimeUnit.MINUTES.toMillis(stepMinutes) + 1;
+        if (totalSteps > MAX_STEPS) {
+            sendErrorResponse(response, null, HttpServletResponse.SC_BAD_REQUEST, String.format(TOO_MANY_STEPS, totalSteps, MAX_STEPS));
+            return;
+        }
+
+        String jobID = UUID.randomUUID().toString();
+        RecommendationBackfillStatus jobStatus = new RecommendationBackfillStatus(jobID, experimentName, IN_PROGRESS, Instant.now());
+        jobStatusStore.put(jobStatus);
+        executorService.submit(new RecommendationBackfillJob(jobStatus, startTime, endTime, stepMinutes, backfiller));
+        LOGGER.info("Started backfill job {} for experiment {} from {} to {} every {} minutes", jobID, experimentName,
+                startTimeStr, endTimeStr, stepMinutes);
+
+        response.setContentType(JSON_CONTENT_TYPE);
+        response.setCharacterEncoding(CHARACTER_ENCODING);
+        response.setStatus(HttpServletResponse.SC_ACCEPTED);
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put(JOB_ID, jobID);
+        response.getWriter().write(jsonObject.toString());
+    }
+
+    @Override
+    public void destroy() {
+        executorService.shutdown();
+    }
+
+    public void sendErrorResponse(HttpServletResponse response, Exception e, int httpStatusCode, String errorMsg) throws
+            IOException {
+        if (null != e) {
+            LOGGER.error(e.toString());
+            e.printStackTrace();
+            if (null == errorMsg) errorMsg = e.getMessage();
+        }
+        response.sendError(httpStatusCode, errorMsg);
+    }
+}
@@ -29,6 +29,7 @@ import com.autotune.analyzer.utils.GsonUTCDateAdapter;
 import com.autotune.common.data.result.ContainerData;
 import com.autotune.common.data.system.info.device.DeviceDetails;
 import com.autotune.operator.KruizeDeploymentInfo;
+import com.autotune.service.KruizeAsyncDispatcher;
 import com.autotune.utils.KruizeConstants;
 import com.autotune.utils.MetricsConfig;
 import com.autotune.utils.Utils;
@@ -47,6 +48,7 @@ import java.io.IOException;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.autotune.analyzer.utils.AnalyzerConstants.REMOTE;
 import static com.autotune.analyzer.utils.AnalyzerConstants.ServiceConstants.CHARACTER_ENCODING;
@@ -59,7 +61,7 @@ import static com.autotune.analyzer.utils.AnalyzerConstants.ServiceConstants.JSO
 public class UpdateRecommendations extends HttpServlet {
     private static final long serialVersionUID = 1L;
     private static final Logger LOGGER = LoggerFactory.getLogger(UpdateRecommendations.class);
-    private static int requestCount = 0;
+    private static final AtomicLong requestCount = new AtomicLong();
 
     @Override
     public void init(ServletConfig config) throws ServletException {
@@ -81,7 +83,11 @@ public class UpdateRecommendations extends HttpServlet {
      */
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        int calCount = ++requestCount;
+        KruizeAsyncDispatcher.getRecommendationsLane().dispatch(request, response, this::updateRecommendations);
+    }
+
+    private void updateRecommendations(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long calCount = requestCount.incrementAndGet();
         LOGGER.debug(String.format(AnalyzerErrorConstants.APIErrors.UpdateRecommendationsAPI.UPDATE_RECOMMENDATIONS_COUNT, calCount));
         String statusValue = KruizeConstants.APIMessages.FAILURE;
         Timer.Sample timerBUpdateRecommendations = Timer.start(MetricsConfig.meterRegistry());
@@ -20,16 +20,22 @@ import com.autotune.analyzer.adapters.DeviceDetailsAdapter;
 import com.autotune.analyzer.adapters.RecommendationItemAdapter;
 import com.autotune.analyzer.exceptions.KruizeResponse;
 import com.autotune.analyzer.experiment.ExperimentInitiator;
+import com.autotune.analyzer.experiment.ResultsIngestionManager;
 import com.autotune.analyzer.performanceProfiles.PerformanceProfile;
 import com.autotune.analyzer.serviceObjects.FailedUpdateResultsAPIObject;
 import com.autotune.analyzer.serviceObjects.UpdateResultsAPIObject;
+import com.autotune.analyzer.serviceObjects.UpdateResultsRequestStatus;
 import com.autotune.analyzer.utils.AnalyzerConstants;
 import com.autotune.analyzer.utils.AnalyzerErrorConstants;
+import com.autotune.common.data.result.ExperimentResultData;
 import com.autotune.common.data.system.info.device.DeviceDetails;
 import com.autotune.operator.KruizeDeploymentInfo;
+import com.autotune.service.KruizeAsyncDispatcher;
+import com.autotune.utils.KruizeConstants;
 import com.autotune.utils.MetricsConfig;
 import com.google.gson.*;
 import io.micrometer.core.instrument.Timer;
+import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,6 +52,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static com.autotune.analyzer.utils.AnalyzerConstants.ServiceConstants.CHARACTER_ENCODING;
@@ -59,7 +66,8 @@ public class UpdateResults extends HttpServlet {
     private static final long serialVersionUID = 1L;
     private static final Logger LOGGER = LoggerFactory.getLogger(UpdateResults.class);
     public static ConcurrentHashMap<String, PerformanceProfile> performanceProfilesMap = new ConcurrentHashMap<>();
-    private static int requestCount = 0;
+    private static final AtomicLong requestCount = new AtomicLong();
+    private static final int RETRY_AFTER_SECS = 5;
 
     @Override
     public void init(ServletConfig config) throws ServletException {
@@ -68,7 +76,11 @@ public class UpdateResults extends HttpServlet {
 
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        int calCount = ++requestCount;
+        KruizeAsyncDispatcher.getResultsLane().dispatch(request, response, this::updateResults);
+    }
+
+    private void updateResults(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long calCount = requestCount.incrementAndGet();
         LOGGER.debug("updateResults API request count: {}", calCount);
         String statusValue = "failure";
         Timer.Sample timerUpdateResults = Timer.start(MetricsConfig.meterRegistry());
@@ -104,7 +116,25 @@ public class UpdateResults extends HttpServlet {
                 return;
             }
             ExperimentInitiator experimentInitiator = new ExperimentInitiator();
-            experimentInitiator.validateAndAddExperimentResults(updateResultsAPIObjects);
+            String ingestionRequestId = null;
+            int acceptedResults = 0;
+            if (KruizeDeploymentInfo.results_ingestion_async) {
+                // results are validated right away and saved later by the ingestion writers
+                List<ExperimentResultData> resultDataList = experimentInitiator.validateExperimentResults(updateResultsAPIObjects);
+                if (!resultDataList.isEmpty()) {
+                    ingestionRequestId = ResultsIngestionManager.getInstance().submit(resultDataList);
+                    acceptedResults = resultDataList.size();
+                    if (null == ingestionRequestId) {
+                        LOGGER.warn("updateResults API request payload for requestID {} rejected as the ingestion queue is full", calCount);
+                        response.setHeader(AnalyzerConstants.ServiceConstants.RETRY_AFTER, String.valueOf(RETRY_AFTER_SECS));
+                        sendErrorResponse(inputData, request, response, null, AnalyzerConstants.ServiceConstants.SC_TOO_MANY_REQUESTS,
+                                KruizeConstants.KRUIZE_RESULTS_INGESTION.QUEUE_FULL);
+                        return;
+                    }
+                }
+            } else {
+                experimentInitiator.validateAndAddExperimentResults(updateResultsAPIObjects);
+            }
             List<UpdateResultsAPIObject> failureAPIObjs = experimentInitiator.getFailedUpdateResultsAPIObjects();
             List<FailedUpdateResultsAPIObject> jsonObjectList = new ArrayList<>();
             if (!failureAPIObjs.isEmpty()) {
@@ -123,13 +153,26 @@ public class UpdateResults extends HttpServlet {
                         }
                 );
                 request.setAttribute("data", jsonObjectList);
-                String errorMessage = String.format("Out of a total of %s records, %s failed to save", updateResultsAPIObjects.size(), failureAPIObjs.size());
+                String errorMessage;
+                if (null != ingestionRequestId) {
+                    // the valid results are still saved, the client tracks them with the request id
+                    request.setAttribute(KruizeConstants.KRUIZE_RESULTS_INGESTION.REQUEST_ID, ingestionRequestId);
+                    request.setAttribute(KruizeConstants.KRUIZE_RESULTS_INGESTION.ACCEPTED_RESULTS, acceptedResults);
+                    errorMessage = String.format(KruizeConstants.KRUIZE_RESULTS_INGESTION.RESULTS_PARTIALLY_ACCEPTED,
+                            updateResultsAPIObjects.size(), failureAPIObjs.size(), acceptedResults, ingestionRequestId);
+                } else {
+                    errorMessage = String.format("Out of a total of %s records, %s failed to save", updateResultsAPIObjects.size(), failureAPIObjs.size());
+                }
                 LOGGER.error("updateResults API request payload for requestID {} failed", calCount);
                 sendErrorResponse(inputData, request, response, null, HttpServletResponse.SC_BAD_REQUEST, errorMessage);
             } else {
                 if (KruizeDeploymentInfo.log_http_req_resp)
                     LOGGER.info("updateResults API request payload for requestID {} success is {}", calCount, new Gson().toJson(JsonParser.parseString(inputData)));
-                sendSuccessResponse(response, AnalyzerConstants.ServiceConstants.RESULT_SAVED);
+                if (null != ingestionRequestId) {
+                    sendAcceptedResponse(response, ingestionRequestId);
+                } else {
+                    sendSuccessResponse(response, AnalyzerConstants.ServiceConstants.RESULT_SAVED);
+                }
                 statusValue = "success";
             }
         } catch (Exception e) {
@@ -146,6 +189,57 @@ public class UpdateResults extends HttpServlet {
         }
     }
 
+    /**
+     * Returns the status of a request accepted for asynchronous ingestion, or the state of the ingestion
+     * queue if no request_id is passed
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        if (!KruizeDeploymentInfo.results_ingestion_async) {
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+        ResultsIngestionManager ingestionManager = ResultsIngestionManager.getInstance();
+        String requestId = request.getParameter(KruizeConstants.KRUIZE_RESULTS_INGESTION.REQUEST_ID);
+        String output;
+        if (null == requestId) {
+            JSONObject queueStatus = new JSONObject();
+            queueStatus.put(KruizeConstants.KRUIZE_RESULTS_INGESTION.QUEUE_DEPTH, ingestionManager.getQueueDepth());
+            queueStatus.put(KruizeConstants.KRUIZE_RESULTS_INGESTION.QUEUE_CAPACITY, ingestionManager.getQueueCapacity());
+            queueStatus.put(KruizeConstants.KRUIZE_RESULTS_INGESTION.LAG_MILLIS, ingestionManager.getLagMillis());
+            output = queueStatus.toString();
+        } else {
+            UpdateResultsRequestStatus requestStatus = ingestionManager.getRequestStatus(requestId);
+            if (null == requestStatus) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND, KruizeConstants.KRUIZE_RESULTS_INGESTION.REQUEST_NOT_FOUND);
+                return;
+            }
+            synchronized (requestStatus) {
+                output = new Gson().toJson(requestStatus);
+            }
+        }
+        response.setContentType(JSON_CONTENT_TYPE);
+        response.setCharacterEncoding(CHARACTER_ENCODING);
+        response.setStatus(HttpServletResponse.SC_OK);
+        PrintWriter out = response.getWriter();
+        out.append(output);
+        out.flush();
+    }
+
+    private void sendAcceptedResponse(HttpServletResponse response, String requestId) throws IOException {
+        response.setContentType(JSON_CONTENT_TYPE);
+        response.setCharacterEncoding(CHARACTER_ENCODING);
+        response.setStatus(HttpServletResponse.SC_ACCEPTED);
+        JSONObject acceptedOutput = new JSONObject();
+        acceptedOutput.put(KruizeConstants.KRUIZE_RESULTS_INGESTION.REQUEST_ID, requestId);
+        acceptedOutput.put(KruizeConstants.KRUIZE_RESULTS_INGESTION.MESSAGE,
+                String.format(KruizeConstants.KRUIZE_RESULTS_INGESTION.RESULTS_ACCEPTED, requestId));
+        LOGGER.debug("Update Results API response: {}", acceptedOutput);
+        PrintWriter out = response.getWriter();
+        out.append(acceptedOutput.toString());
+        out.flush();
+    }
+
     private void sendSuccessResponse(HttpServletResponse response, String message) throws IOException {
         response.setContentType(JSON_CONTENT_TYPE);
         response.setCharacterEncoding(CHARACTER_ENCODING);
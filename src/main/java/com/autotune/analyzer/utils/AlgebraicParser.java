@@ -18,6 +18,7 @@ package com.autotune.analyzer.utils;
 import com.autotune.common.data.metrics.Metric;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public interface AlgebraicParser {
@@ -26,4 +27,6 @@ public interface AlgebraicParser {
 
     Boolean validate(String objFunction, ArrayList<Metric> functionVariables);
 
+    CompiledObjectiveFunction compile(String objFunction, List<String> variableNames);
+
 }
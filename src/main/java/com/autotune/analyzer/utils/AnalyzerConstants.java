@@ -395,6 +395,31 @@ public class AnalyzerConstants {
 
     }
 
+    /**
+     * Used by the in-process HPO engine
+     */
+    public static final class HPOConstants {
+        // values of the hpoEngine config
+        public static final String ENGINE_REMOTE = "remote";
+        public static final String ENGINE_LOCAL = "local";
+        // hpo_algo_impl values containing this use random search, everything else uses TPE
+        public static final String RANDOM_SAMPLER = "random";
+        public static final int TPE_STARTUP_TRIALS = 10;
+        public static final int TPE_EI_CANDIDATES = 24;
+        public static final double TPE_GAMMA = 0.1;
+        public static final int TPE_MAX_BELOW_TRIALS = 25;
+        public static final double TPE_PRIOR_WEIGHT = 1.0;
+
+        private HPOConstants() {
+        }
+
+        public enum TrialStatus {
+            RUNNING,
+            COMPLETE,
+            FAILED
+        }
+    }
+
     /**
      * Contains Strings used in REST services
      */
@@ -439,6 +464,10 @@ public class AnalyzerConstants {
         public static final String VERBOSE = "verbose";
         public static final String FALSE = "false";
         public static final String RM = "rm";
+        public static final int SC_TOO_MANY_REQUESTS = 429;
+        public static final String RETRY_AFTER = "Retry-After";
+        public static final String REQUEST_QUEUE_FULL = "Too many %s requests in progress. Please retry later.";
+        public static final String REQUEST_TIMED_OUT = "Request timed out after %s seconds.";
 
         private ServiceConstants() {
         }
@@ -0,0 +1,388 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+
+package com.autotune.analyzer.utils;
+
+import java.util.*;
+
+/**
+ * An objective function expression compiled once into a postfix program over double slots.
+ * <p>
+ * The grammar and operator semantics follow the EvalEx expressions accepted by {@link EvalExParser}: + - * / % and
+ * right associative ^, unary minus binding tighter than ^, the functions sin, cos and tan in degrees and log as the
+ * natural logarithm, the constants PI and e, and case insensitive variable names. Unlike EvalEx the arithmetic is
+ * IEEE double, so a division by zero gives an infinity or NaN instead of an exception, and nothing is rounded.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ */
+public final class CompiledObjectiveFunction {
+
+    private static final int CONST = 0;
+    private static final int LOAD = 1;
+    private static final int ADD = 2;
+    private static final int SUB = 3;
+    private static final int MUL = 4;
+    private static final int DIV = 5;
+    private static final int MOD = 6;
+    private static final int POW = 7;
+    private static final int NEG = 8;
+    private static final int SIN = 9;
+    private static final int COS = 10;
+    private static final int TAN = 11;
+    private static final int LOG = 12;
+
+    private static final Map<String, Integer> FUNCTIONS = Map.of("sin", SIN, "cos", COS, "tan", TAN, "log", LOG);
+
+    private final String expression;
+    private final List<String> variableNames;
+    // opcodes, CONST and LOAD are followed by the constant index or the variable slot
+    private final int[] code;
+    private final double[] constants;
+    private final int maxStackDepth;
+
+    private CompiledObjectiveFunction(String expression, List<String> variableNames, int[] code, double[] constants, int maxStackDepth) {
+        this.expression = expression;
+        this.variableNames = variableNames;
+        this.code = code;
+        this.constants = constants;
+        this.maxStackDepth = maxStackDepth;
+    }
+
+    /**
+     * Compiles the expression, binding each variable to its index in variableNames
+     *
+     * @param expression    objective function expression
+     * @param variableNames names of the function variables, in slot order
+     * @return the compiled function
+     * @throws IllegalArgumentException if the expression is malformed or uses an unknown variable or function
+     */
+    public static CompiledObjectiveFunction compile(String expression, List<String> variableNames) {
+        if (null == expression || expression.isBlank()) {
+            throw new IllegalArgumentException(AnalyzerErrorConstants.AutotuneObjectErrors.MISSING_EXPRESSION);
+        }
+        Map<String, Integer> slots = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < variableNames.size(); i++) {
+            slots.putIfAbsent(variableNames.get(i), i);
+        }
+        Compiler compiler = new Compiler(expression, slots);
+        compiler.compile();
+        return new CompiledObjectiveFunction(expression, List.copyOf(variableNames), compiler.code(),
+                compiler.constants(), compiler.maxDepth);
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public List<String> getVariableNames() {
+        return variableNames;
+    }
+
+    /**
+     * Evaluates the function for one set of variable values
+     *
+     * @param values value of each variable, indexed like the variable names
+     */
+    public double evaluate(double[] values) {
+        checkSlots(values.length);
+        return run(values, null, 0, new double[maxStackDepth]);
+    }
+
+    /**
+     * Evaluates the function for every row of the columns
+     *
+     * @param columns one column of values per variable, indexed like the variable names, all of the same length
+     * @return the value of the function for each row
+     */
+    public double[] evaluate(double[][] columns) {
+        checkSlots(columns.length);
+        int rows = columns.length == 0 ? 1 : columns[0].length;
+        for (double[] column : columns) {
+            if (column.length != rows) {
+                throw new IllegalArgumentException("All columns must have the same length");
+            }
+        }
+        double[] results = new double[rows];
+        double[] stack = new double[maxStackDepth];
+        for (int row = 0; row < rows; row++) {
+            results[row] = run(null, columns, row, stack);
+        }
+        return results;
+    }
+
+    /**
+     * Evaluates the function for a map of variable values, like {@link AlgebraicParser#parse}
+     */
+    public double evaluate(Map<String, Double> values) {
+        Map<String, Double> caseInsensitiveValues = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        caseInsensitiveValues.putAll(values);
+        double[] slots = new double[variableNames.size()];
+        for (int i = 0; i < slots.length; i++) {
+            Double value = caseInsensitiveValues.get(variableNames.get(i));
+            if (null == value) {
+                throw new IllegalArgumentException("No value for variable " + variableNames.get(i));
+            }
+            slots[i] = value;
+        }
+        return run(slots, null, 0, new double[maxStackDepth]);
+    }
+
+    private void checkSlots(int provided) {
+        if (provided < variableNames.size()) {
+            throw new IllegalArgumentException("Expected values for " + variableNames.size() + " variables but got " + provided);
+        }
+    }
+
+    private double run(double[] values, double[][] columns, int row, double[] stack) {
+        int top = -1;
+        for (int pc = 0; pc < code.length; pc++) {
+            switch (code[pc]) {
+                case CONST -> stack[++top] = constants[code[++pc]];
+                case LOAD -> {
+                    int slot = code[++pc];
+                    stack[++top] = null == columns ? values[slot] : columns[slot][row];
+                }
+                case ADD -> stack[top - 1] = stack[top - 1] + stack[top--];
+                case SUB -> stack[top - 1] = stack[top - 1] - stack[top--];
+                case MUL -> stack[top - 1] = stack[top - 1] * stack[top--];
+                case DIV -> stack[top - 1] = stack[top - 1] / stack[top--];
+                case MOD -> stack[top - 1] = stack[top - 1] % stack[top--];
+                case POW -> stack[top - 1] = Math.pow(stack[top - 1], stack[top--]);
+                case NEG -> stack[top] = -stack[top];
+                case SIN -> stack[top] = Math.sin(Math.toRadians(stack[top]));
+                case COS -> stack[top] = Math.cos(Math.toRadians(stack[top]));
+                case TAN -> stack[top] = Math.tan(Math.toRadians(stack[top]));
+                case LOG -> stack[top] = Math.log(stack[top]);
+                default -> throw new IllegalStateException("Unknown opcode " + code[pc]);
+            }
+        }
+        return stack[top];
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledObjectiveFunction{" +
+                "expression='" + expression + '\'' +
+                ", variableNames=" + variableNames +
+                '}';
+    }
+
+    /**
+     * Recursive descent compiler emitting postfix code
+     * <pre>
+     * expression := term (('+' | '-') term)*
+     * term       := power (('*' | '/' | '%') power)*
+     * power      := unary ('^' power)?
+     * unary      := ('-' | '+') unary | primary
+     * primary    := number | constant | variable | function '(' expression ')' | '(' expression ')'
+     * </pre>
+     */
+    private static final class Compiler {
+        private final String expression;
+        private final Map<String, Integer> slots;
+        private final List<Integer> code = new ArrayList<>();
+        private final List<Double> constants = new ArrayList<>();
+        private int position;
+        private int depth;
+        private int maxDepth;
+
+        Compiler(String expression, Map<String, Integer> slots) {
+            this.expression = expression;
+            this.slots = slots;
+        }
+
+        void compile() {
+            expression();
+            skipWhitespace();
+            if (position < expression.length()) {
+                throw error("Unexpected '" + expression.charAt(position) + "'");
+            }
+        }
+
+        int[] code() {
+            return code.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        double[] constants() {
+            return constants.stream().mapToDouble(Double::doubleValue).toArray();
+        }
+
+        private void expression() {
+            term();
+            while (true) {
+                if (accept('+')) {
+                    term();
+                    emitBinary(ADD);
+                } else if (accept('-')) {
+                    term();
+                    emitBinary(SUB);
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void term() {
+            power();
+            while (true) {
+                if (accept('*')) {
+                    power();
+                    emitBinary(MUL);
+                } else if (accept('/')) {
+                    power();
+                    emitBinary(DIV);
+                } else if (accept('%')) {
+                    power();
+                    emitBinary(MOD);
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void power() {
+            unary();
+            if (accept('^')) {
+                power();
+                emitBinary(POW);
+            }
+        }
+
+        private void unary() {
+            if (accept('-')) {
+                unary();
+                code.add(NEG);
+            } else if (accept('+')) {
+                unary();
+            } else {
+                primary();
+            }
+        }
+
+        private void primary() {
+            skipWhitespace();
+            if (position >= expression.length()) {
+                throw error("Unexpected end of expression");
+            }
+            char c = expression.charAt(position);
+            if (accept('(')) {
+                expression();
+                expect(')');
+            } else if (Character.isDigit(c) || c == '.') {
+                emitConstant(number());
+            } else if (Character.isLetter(c) || c == '_') {
+                String name = identifier();
+                Integer function = FUNCTIONS.get(name.toLowerCase(Locale.ROOT));
+                Integer slot = slots.get(name);
+                if (null != slot) {
+                    code.add(LOAD);
+                    code.add(slot);
+                    push();
+                } else if (null != function) {
+                    expect('(');
+                    expression();
+                    expect(')');
+                    code.add(function);
+                } else if (name.equalsIgnoreCase("PI")) {
+                    emitConstant(Math.PI);
+                } else if (name.equalsIgnoreCase("e")) {
+                    emitConstant(Math.E);
+                } else {
+                    throw error("Unknown variable or function " + name);
+                }
+            } else {
+                throw error("Unexpected '" + c + "'");
+            }
+        }
+
+        private double number() {
+            int start = position;
+            while (position < expression.length() && (Character.isDigit(expression.charAt(position)) || expression.charAt(position) == '.')) {
+                position++;
+            }
+            // exponent, only when digits follow so that a trailing e stays an error like in EvalEx
+            if (position < expression.length() && Character.toLowerCase(expression.charAt(position)) == 'e') {
+                int exponent = position + 1;
+                if (exponent < expression.length() && (expression.charAt(exponent) == '+' || expression.charAt(exponent) == '-')) {
+                    exponent++;
+                }
+                if (exponent < expression.length() && Character.isDigit(expression.charAt(exponent))) {
+                    position = exponent;
+                    while (position < expression.length() && Character.isDigit(expression.charAt(position))) {
+                        position++;
+                    }
+                }
+            }
+            String literal = expression.substring(start, position);
+            try {
+                return Double.parseDouble(literal);
+            } catch (NumberFormatException e) {
+                throw error("Invalid number " + literal);
+            }
+        }
+
+        private String identifier() {
+            int start = position;
+            while (position < expression.length()
+                    && (Character.isLetterOrDigit(expression.charAt(position)) || expression.charAt(position) == '_')) {
+                position++;
+            }
+            return expression.substring(start, position);
+        }
+
+        private void emitConstant(double value) {
+            code.add(CONST);
+            code.add(constants.size());
+            constants.add(value);
+            push();
+        }
+
+        private void emitBinary(int opcode) {
+            code.add(opcode);
+            depth--;
+        }
+
+        private void push() {
+            maxDepth = Math.max(maxDepth, ++depth);
+        }
+
+        private boolean accept(char c) {
+            skipWhitespace();
+            if (position < expression.length() && expression.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!accept(c)) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        private void skipWhitespace() {
+            while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(AnalyzerErrorConstants.AutotuneObjectErrors.INVALID_OBJECTIVE_FUNCTION.trim()
+                    + ": " + message + " at position " + position + " of " + expression);
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.slf4j.LoggerFactory;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * We're using the EvalEx - Java Expression Evaluator for the objective function evaluation
@@ -39,6 +40,8 @@ import java.util.*;
 public class EvalExParser implements AlgebraicParser {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EvalExParser.class);
+    // compiled objective functions by expression and variable names
+    private static final Map<String, CompiledObjectiveFunction> COMPILED_FUNCTIONS = new ConcurrentHashMap<>();
 
     /**
      * parse the objective function and return the result based on the valueType received
@@ -68,6 +71,21 @@ public class EvalExParser implements AlgebraicParser {
         return result.toString();
     }
 
+    /**
+     * compile the objective function once into a double precision program with the variables bound to slots, for
+     * scoring many sets of values without going through EvalEx and BigDecimal. Compiled functions are cached by
+     * expression and variable names.
+     *
+     * @param objFunction
+     * @param variableNames names of the function variables, in slot order
+     * @return
+     */
+    @Override
+    public CompiledObjectiveFunction compile(String objFunction, List<String> variableNames) {
+        return COMPILED_FUNCTIONS.computeIfAbsent(objFunction + "|" + String.join(",", variableNames),
+                key -> CompiledObjectiveFunction.compile(objFunction, variableNames));
+    }
+
     /**
      * validate the objective function and return boolean based on the result
      * @param objFunction
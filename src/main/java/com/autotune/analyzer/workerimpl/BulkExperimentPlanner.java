@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.workerimpl;
+
+import com.autotune.database.service.ExperimentDBService;
+import com.autotune.operator.KruizeDeploymentInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Planning phase of a bulk job: finds which of the experiments of the job already exist with one lookup of all their
+ * names, so that the job only calls the createExperiment API for the missing ones, a batch per task, and goes
+ * straight to the recommendations of the existing ones.
+ * <p>
+ * If the lookup fails every experiment is planned as missing, and the job falls back to the HTTP 409 of the
+ * createExperiment API to find the existing ones.
+ */
+public class BulkExperimentPlanner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkExperimentPlanner.class);
+
+    private final ExistingExperimentLookup lookup;
+    private final int batchSize;
+
+    public BulkExperimentPlanner(ExistingExperimentLookup lookup, int batchSize) {
+        this.lookup = lookup;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Returns the planner looking the names up in the experiments table
+     */
+    public static BulkExperimentPlanner getInstance() {
+        return new BulkExperimentPlanner(experimentNames -> new ExperimentDBService().loadExistingLMExperimentNames(experimentNames),
+                KruizeDeploymentInfo.bulk_create_batch_size);
+    }
+
+    public Plan plan(Collection<String> experimentNames) {
+        Set<String> existing;
+        try {
+            existing = experimentNames.isEmpty() ? Collections.emptySet() : lookup.findExisting(experimentNames);
+        } catch (Exception e) {
+            LOGGER.warn("Not able to look up the existing experiments, all of them will be created: {}", e.getMessage());
+            existing = Collections.emptySet();
+        }
+        LOGGER.debug("{} of the {} experiments of the job exist", existing.size(), experimentNames.size());
+        return new Plan(existing);
+    }
+
+    /**
+     * Splits the experiments to create in batches of at most batchSize
+     */
+    public <T> List<List<T>> batches(List<T> toCreate) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int start = 0; start < toCreate.size(); start += batchSize) {
+            batches.add(toCreate.subList(start, Math.min(toCreate.size(), start + batchSize)));
+        }
+        return batches;
+    }
+
+    public interface ExistingExperimentLookup {
+        /**
+         * Returns the names among experimentNames that have an experiment
+         */
+        Set<String> findExisting(Collection<String> experimentNames) throws Exception;
+    }
+
+    public static class Plan {
+        private final Set<String> existing;
+
+        private Plan(Set<String> existing) {
+            this.existing = existing;
+        }
+
+        public boolean exists(String experimentName) {
+            return existing.contains(experimentName);
+        }
+
+        public int getExistingCount() {
+            return existing.size();
+        }
+    }
+}
@@ -15,7 +15,13 @@
  *******************************************************************************/
 package com.autotune.analyzer.workerimpl;
 
+import com.autotune.analyzer.exceptions.DataSourceOverloadedException;
+import com.autotune.analyzer.exceptions.FetchMetricsError;
+import com.autotune.analyzer.kruizeObject.KruizeObject;
 import com.autotune.analyzer.kruizeObject.RecommendationSettings;
+import com.autotune.analyzer.performanceProfiles.MetricProfileCollection;
+import com.autotune.analyzer.recommendations.engine.RecommendationEngine;
+import com.autotune.analyzer.recommendations.utils.BulkFetchPlanner;
 import com.autotune.analyzer.serviceObjects.*;
 import com.autotune.analyzer.utils.AnalyzerConstants;
 import com.autotune.common.data.dataSourceMetadata.*;
@@ -28,7 +34,11 @@ import com.autotune.utils.GenericRestApiClient;
 import com.autotune.utils.KruizeConstants;
 import com.autotune.utils.MetricsConfig;
 import com.autotune.utils.Utils;
+import com.autotune.database.coordination.KruizeTask;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.gson.Gson;
 import io.micrometer.core.instrument.Timer;
 import org.apache.http.conn.ConnectTimeoutException;
@@ -41,17 +51,17 @@ import java.net.HttpURLConnection;
 import java.net.SocketTimeoutException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static com.autotune.operator.KruizeDeploymentInfo.bulk_thread_pool_size;
@@ -86,6 +96,9 @@ import static com.autotune.utils.KruizeConstants.KRUIZE_BULK_API.NotificationCon
  */
 public class BulkJobManager implements Runnable {
     private static final Logger LOGGER = LoggerFactory.getLogger(BulkJobManager.class);
+    private static final ObjectMapper TASK_MAPPER = new ObjectMapper();
+    // jobs run by the workers of this replica, their status in the status store is the one being updated
+    private static final Set<String> RUNNING_JOBS = ConcurrentHashMap.newKeySet();
 
     private String jobID;
     private BulkInput bulkInput;
@@ -97,6 +110,112 @@ public class BulkJobManager implements Runnable {
         this.bulkInput = payload;
     }
 
+    /**
+     * Returns the payload of the task of the durable queue running the job
+     */
+    public static String toTaskPayload(String jobID, BulkInput payload) throws JsonProcessingException {
+        ObjectNode task = TASK_MAPPER.createObjectNode();
+        task.put(JOB_ID, jobID);
+        task.set(INPUT, TASK_MAPPER.valueToTree(payload));
+        return TASK_MAPPER.writeValueAsString(task);
+    }
+
+    /**
+     * Runs the job of a task claimed from the durable queue. The status of the job is the one registered by the bulk
+     * API on this replica, or a new one when the job was queued by another replica or is run again after the replica
+     * running it died. Running a job again is safe: the experiments it created are found and not created twice.
+     */
+    public static void runTask(KruizeTask task) throws JsonProcessingException {
+        JsonNode payload = TASK_MAPPER.readTree(task.getPayload());
+        String jobID = payload.get(JOB_ID).asText();
+        BulkInput bulkInput = TASK_MAPPER.treeToValue(payload.get(INPUT), BulkInput.class);
+        BulkJobStatus jobStatus = BulkJobStatusStore.getInstance().get(jobID);
+        if (null == jobStatus || task.getAttempt() > 1) {
+            jobStatus = new BulkJobStatus(jobID, IN_PROGRESS, Instant.now());
+            BulkJobStatusStore.getInstance().put(jobStatus);
+        }
+        RUNNING_JOBS.add(jobID);
+        try {
+            new BulkJobManager(jobID, jobStatus, bulkInput).run();
+        } finally {
+            RUNNING_JOBS.remove(jobID);
+        }
+    }
+
+    public static boolean isRunningHere(String jobID) {
+        return RUNNING_JOBS.contains(jobID);
+    }
+
+    /**
+     * Returns the summary of the status of the job of the task, without its experiments, saved with the task for the
+     * replicas other than the one running it. Null if the job is not known to this replica.
+     */
+    public static String getTaskResult(KruizeTask task) throws JsonProcessingException {
+        String jobID = TASK_MAPPER.readTree(task.getPayload()).get(JOB_ID).asText();
+        BulkJobStatus jobStatus = BulkJobStatusStore.getInstance().get(jobID);
+        if (null == jobStatus) {
+            return null;
+        }
+        ObjectNode summary = TASK_MAPPER.createObjectNode();
+        summary.put(STATUS, jobStatus.getStatus());
+        summary.put(TOTAL_EXPERIMENTS, jobStatus.getTotal_experiments());
+        summary.put(PROCESSED_EXPERIMENTS, jobStatus.getProcessed_experiments().get());
+        summary.put(STARTED, jobStatus.getStartTime());
+        if (null != jobStatus.getFinishedAt()) {
+            summary.put(FINISHED_AT, jobStatus.getFinishedAt().toEpochMilli());
+        }
+        ObjectNode notifications = summary.putObject(NOTIFICATIONS);
+        if (null != jobStatus.getNotifications()) {
+            for (Map.Entry<String, BulkJobStatus.Notification> entry : jobStatus.getNotifications().entrySet()) {
+                ObjectNode notification = notifications.putObject(entry.getKey());
+                notification.put(TYPE, entry.getValue().getType().name());
+                notification.put(MESSAGE, entry.getValue().getMessage());
+                notification.put(CODE, entry.getValue().getCode());
+            }
+        }
+        return TASK_MAPPER.writeValueAsString(summary);
+    }
+
+    /**
+     * Returns the status of the job as saved with its task by the replica running it, without its experiments which
+     * only that replica keeps. A job whose task was dead-lettered before saving any status has failed. Null if the
+     * task is unknown, or has not saved any status yet.
+     */
+    public static BulkJobStatus loadStatus(String jobID) throws SQLException, JsonProcessingException {
+        KruizeTask task = KruizeTaskManager.getInstance().find(KruizeConstants.TaskQueueConstants.BULK_JOB_TASK, jobID);
+        if (null == task) {
+            return null;
+        }
+        if (null == task.getResult()) {
+            if (!KruizeConstants.TaskQueueConstants.DEAD.equals(task.getStatus())) {
+                return null;
+            }
+            BulkJobStatus jobStatus = new BulkJobStatus(jobID, FAILED, Instant.now());
+            jobStatus.setNotification(String.valueOf(HttpURLConnection.HTTP_INTERNAL_ERROR), new BulkJobStatus.Notification(
+                    BulkJobStatus.NotificationType.ERROR, task.getLastError(), HttpURLConnection.HTTP_INTERNAL_ERROR));
+            jobStatus.setEndTime(Instant.now());
+            return jobStatus;
+        }
+        JsonNode summary = TASK_MAPPER.readTree(task.getResult());
+        BulkJobStatus jobStatus = new BulkJobStatus(jobID, summary.get(STATUS).asText(), Instant.now());
+        jobStatus.setStartTime(summary.path(STARTED).asText(null));
+        jobStatus.setTotal_experiments(summary.path(TOTAL_EXPERIMENTS).asInt());
+        jobStatus.setProcessed_experiments(summary.path(PROCESSED_EXPERIMENTS).asInt());
+        Iterator<Map.Entry<String, JsonNode>> notifications = summary.path(NOTIFICATIONS).fields();
+        while (notifications.hasNext()) {
+            Map.Entry<String, JsonNode> entry = notifications.next();
+            jobStatus.setNotification(entry.getKey(), new BulkJobStatus.Notification(
+                    BulkJobStatus.NotificationType.valueOf(entry.getValue().path(TYPE).asText()),
+                    entry.getValue().path(MESSAGE).asText(), entry.getValue().path(CODE).asInt()));
+        }
+        jobStatus.setNotification(REPLICA, new BulkJobStatus.Notification(BulkJobStatus.NotificationType.INFO,
+                String.format(JOB_REPLICA_MSG, task.getClaimedBy()), HttpURLConnection.HTTP_OK));
+        if (summary.has(FINISHED_AT)) {
+            jobStatus.setEndTime(Instant.ofEpochMilli(summary.get(FINISHED_AT).asLong()));
+        }
+        return jobStatus;
+    }
+
     public static List<String> appendExperiments(List<String> allExperiments, String experimentName) {
         allExperiments.add(experimentName);
         return allExperiments;
@@ -168,85 +287,39 @@ public class BulkJobManager implements Runnable {
                     } else {
                         ExecutorService createExecutor = Executors.newFixedThreadPool(bulk_thread_pool_size);
                         ExecutorService generateExecutor = Executors.newFixedThreadPool(bulk_thread_pool_size);
+                        // prefetches the shards one after the other, each shard is processed once its metrics are fetched
+                        ExecutorService prefetchExecutor = KruizeDeploymentInfo.bulk_grouped_fetch ? Executors.newSingleThreadExecutor() : null;
+                        BulkFetchPlanner<CreateExperimentAPIObject> bulkFetchPlanner = getBulkFetchPlanner(createExperimentAPIObjectMap, datasource);
                         try {
-                            for (CreateExperimentAPIObject apiObject : createExperimentAPIObjectMap.values()) {
-                                DataSourceInfo finalDatasource = datasource;
-                                createExecutor.submit(() -> {
-                                    String experiment_name = apiObject.getExperimentName();
-                                    BulkJobStatus.Experiment experiment = jobData.addExperiment(experiment_name);
+                            // the experiments that exist are found with one lookup instead of a 409 per experiment
+                            BulkExperimentPlanner planner = BulkExperimentPlanner.getInstance();
+                            BulkExperimentPlanner.Plan plan = planner.plan(createExperimentAPIObjectMap.keySet());
+                            DataSourceInfo finalDatasource = datasource;
+                            for (BulkFetchPlanner.Shard<CreateExperimentAPIObject> shard : bulkFetchPlanner.getShards()) {
+                                if (null != prefetchExecutor) {
+                                    // metrics of the shard are fetched with grouped queries before its experiments are processed
+                                    prefetchExecutor.submit(() -> {
+                                        bulkFetchPlanner.prefetch(shard);
+                                        processShard(shard, planner, plan, finalDatasource, createExecutor, generateExecutor);
+                                    });
+                                } else {
+                                    processShard(shard, planner, plan, finalDatasource, createExecutor, generateExecutor);
+                                }
+                            }
+                        } finally {
+                            // Shutdown prefetchExecutor first as it submits to the other executors
+                            if (null != prefetchExecutor) {
+                                prefetchExecutor.shutdown();
+                                while (!prefetchExecutor.isTerminated()) {
                                     try {
-                                        // send request to createExperiment API for experiment creation
-                                        GenericRestApiClient apiClient = new GenericRestApiClient(finalDatasource);
-                                        apiClient.setBaseURL(KruizeDeploymentInfo.experiments_url);
-                                        GenericRestApiClient.HttpResponseWrapper responseCode;
-                                        boolean experiment_exists = false;
-                                        try {
-                                            responseCode = apiClient.callKruizeAPI("[" + new Gson().toJson(apiObject) + "]");
-                                            LOGGER.debug("API Response code: {}", responseCode);
-                                            if (responseCode.getStatusCode() == HttpURLConnection.HTTP_CREATED) {
-                                                experiment_exists = true;
-                                            } else if (responseCode.getStatusCode() == HttpURLConnection.HTTP_CONFLICT) {
-                                                experiment_exists = true;
-                                            } else {
-                                                experiment.setNotification(new BulkJobStatus.Notification(BulkJobStatus.NotificationType.ERROR, responseCode.getResponseBody().toString(), responseCode.getStatusCode()));
-                                            }
-                                        } catch (Exception e) {
-                                            e.printStackTrace();
-                                            experiment.setNotification(new BulkJobStatus.Notification(BulkJobStatus.NotificationType.ERROR, e.getMessage(), HttpURLConnection.HTTP_BAD_REQUEST));
-                                        } finally {
-                                            if (!experiment_exists) {
-                                                LOGGER.info("Processing experiment {}", jobData.getProcessed_experiments());
-                                                jobData.incrementProcessed_experiments();
-                                            }
-                                            synchronized (jobData) {
-                                                if (jobData.getTotal_experiments() == jobData.getProcessed_experiments().get()) {
-                                                    setFinalJobStatus(COMPLETED, null, null, finalDatasource);
-                                                }
-                                            }
-                                        }
-
-                                        if (experiment_exists) {
-                                            generateExecutor.submit(() -> {
-                                                // send request to generateRecommendations API
-                                                GenericRestApiClient recommendationApiClient = new GenericRestApiClient(finalDatasource);
-                                                String encodedExperimentName;
-                                                encodedExperimentName = URLEncoder.encode(experiment_name, StandardCharsets.UTF_8);
-                                                recommendationApiClient.setBaseURL(String.format(KruizeDeploymentInfo.recommendations_url, encodedExperimentName));
-                                                GenericRestApiClient.HttpResponseWrapper recommendationResponseCode = null;
-                                                try {
-                                                    recommendationResponseCode = recommendationApiClient.callKruizeAPI(null);
-                                                    LOGGER.debug("API Response code: {}", recommendationResponseCode);
-                                                    if (recommendationResponseCode.getStatusCode() == HttpURLConnection.HTTP_CREATED) {
-                                                        experiment.getRecommendations().setStatus(NotificationConstants.Status.PROCESSED);
-                                                    } else {
-                                                        experiment.getRecommendations().setStatus(NotificationConstants.Status.FAILED);
-                                                        experiment.setNotification(new BulkJobStatus.Notification(BulkJobStatus.NotificationType.ERROR, recommendationResponseCode.getResponseBody().toString(), recommendationResponseCode.getStatusCode()));
-                                                    }
-                                                } catch (Exception e) {
-                                                    e.printStackTrace();
-                                                    experiment.getRecommendations().setStatus(NotificationConstants.Status.FAILED);
-                                                    experiment.getRecommendations().setNotifications(new BulkJobStatus.Notification(BulkJobStatus.NotificationType.ERROR, e.getMessage(), HttpURLConnection.HTTP_INTERNAL_ERROR));
-                                                } finally {
-                                                    jobData.incrementProcessed_experiments();
-                                                    synchronized (jobData) {
-                                                        if (jobData.getTotal_experiments() == jobData.getProcessed_experiments().get()) {
-                                                            setFinalJobStatus(COMPLETED, null, null, finalDatasource);
-                                                        }
-                                                    }
-                                                }
-                                            });
-                                        }
-                                    } catch (Exception e) {
-                                        e.printStackTrace();
-                                        experiment.setNotification(new BulkJobStatus.Notification(BulkJobStatus.NotificationType.ERROR, e.getMessage(), HttpURLConnection.HTTP_INTERNAL_ERROR));
-                                        jobData.incrementProcessed_experiments();
-                                        if (jobData.getTotal_experiments() == jobData.getProcessed_experiments().get()) {
-                                            setFinalJobStatus(COMPLETED, null, null, finalDatasource);
-                                        }
+                                        prefetchExecutor.awaitTermination(1, TimeUnit.MINUTES);
+                                    } catch (InterruptedException e) {
+                                        Thread.currentThread().interrupt();
+                                        break;
                                     }
-                                });
+                                }
                             }
-                        } finally {
+
                             // Shutdown createExecutor and wait for it to finish
                             createExecutor.shutdown();
                             while (!createExecutor.isTerminated()) {
@@ -273,13 +346,19 @@ public class BulkJobManager implements Runnable {
                                 statusValue = "success";
                             }
                         }
+                        // no experiment finishes the job when there were none to process
+                        if (generateExecutor.isTerminated() && jobData.markFinished()) {
+                            setFinalJobStatus(COMPLETED, null, null, datasource);
+                        }
                     }
                 }
             }
         } catch (IOException e) {
             LOGGER.error(e.getMessage());
             BulkJobStatus.Notification notification;
-            if (e instanceof SocketTimeoutException) {
+            if (e instanceof DataSourceOverloadedException) {
+                notification = DATASOURCE_OVERLOADED_INFO;
+            } else if (e instanceof SocketTimeoutException) {
                 notification = DATASOURCE_GATEWAY_TIMEOUT_INFO;
             } else if (e instanceof ConnectTimeoutException) {
                 notification = DATASOURCE_CONNECT_TIMEOUT_INFO;
@@ -301,6 +380,144 @@ public class BulkJobManager implements Runnable {
         }
     }
 
+    /**
+     * Generates the recommendations of the experiments of the shard that exist, and creates the others in batches
+     */
+    private void processShard(BulkFetchPlanner.Shard<CreateExperimentAPIObject> shard, BulkExperimentPlanner planner,
+                              BulkExperimentPlanner.Plan plan, DataSourceInfo datasource, ExecutorService createExecutor,
+                              ExecutorService generateExecutor) {
+        List<CreateExperimentAPIObject> toCreate = new ArrayList<>();
+        for (CreateExperimentAPIObject apiObject : shard.getItems()) {
+            if (plan.exists(apiObject.getExperimentName())) {
+                BulkJobStatus.Experiment experiment = jobData.addExperiment(apiObject.getExperimentName());
+                generateRecommendations(experiment, apiObject.getExperimentName(), datasource, generateExecutor);
+            } else {
+                toCreate.add(apiObject);
+            }
+        }
+        for (List<CreateExperimentAPIObject> batch : planner.batches(toCreate)) {
+            createExecutor.submit(() -> {
+                for (CreateExperimentAPIObject apiObject : batch) {
+                    createExperiment(apiObject, datasource, generateExecutor);
+                }
+            });
+        }
+    }
+
+    /**
+     * Creates the experiment with the createExperiment API, then generates its recommendations if it was created
+     * or already existed
+     */
+    private void createExperiment(CreateExperimentAPIObject apiObject, DataSourceInfo finalDatasource, ExecutorService generateExecutor) {
+        String experiment_name = apiObject.getExperimentName();
+        BulkJobStatus.Experiment experiment = jobData.addExperiment(experiment_name);
+        try {
+            // send request to createExperiment API for experiment creation
+            GenericRestApiClient apiClient = new GenericRestApiClient(finalDatasource);
+            apiClient.setBaseURL(KruizeDeploymentInfo.experiments_url);
+            GenericRestApiClient.HttpResponseWrapper responseCode;
+            boolean experiment_exists = false;
+            try {
+                responseCode = apiClient.callKruizeAPI("[" + new Gson().toJson(apiObject) + "]");
+                LOGGER.debug("API Response code: {}", responseCode);
+                if (responseCode.getStatusCode() == HttpURLConnection.HTTP_CREATED) {
+                    experiment_exists = true;
+                } else if (responseCode.getStatusCode() == HttpURLConnection.HTTP_CONFLICT) {
+                    experiment_exists = true;
+                } else {
+                    experiment.setNotification(new BulkJobStatus.Notification(BulkJobStatus.NotificationType.ERROR, responseCode.getResponseBody().toString(), responseCode.getStatusCode()));
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+                experiment.setNotification(new BulkJobStatus.Notification(BulkJobStatus.NotificationType.ERROR, e.getMessage(), HttpURLConnection.HTTP_BAD_REQUEST));
+            } finally {
+                if (!experiment_exists) {
+                    LOGGER.info("Processing experiment {}", jobData.getProcessed_experiments());
+                    if (jobData.incrementProcessed_experiments()) {
+                        setFinalJobStatus(COMPLETED, null, null, finalDatasource);
+                    }
+                }
+            }
+
+            if (experiment_exists) {
+                generateRecommendations(experiment, experiment_name, finalDatasource, generateExecutor);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            experiment.setNotification(new BulkJobStatus.Notification(BulkJobStatus.NotificationType.ERROR, e.getMessage(), HttpURLConnection.HTTP_INTERNAL_ERROR));
+            if (jobData.incrementProcessed_experiments()) {
+                setFinalJobStatus(COMPLETED, null, null, finalDatasource);
+            }
+        }
+    }
+
+    private void generateRecommendations(BulkJobStatus.Experiment experiment, String experiment_name, DataSourceInfo finalDatasource,
+                                         ExecutorService generateExecutor) {
+        generateExecutor.submit(() -> {
+            if (KruizeDeploymentInfo.bulk_grouped_fetch) {
+                // the metrics prefetched by this replica are only found by its own recommendation engine
+                generateRecommendationsInProcess(experiment, experiment_name, finalDatasource);
+                return;
+            }
+            // send request to generateRecommendations API
+            GenericRestApiClient recommendationApiClient = new GenericRestApiClient(finalDatasource);
+            String encodedExperimentName;
+            encodedExperimentName = URLEncoder.encode(experiment_name, StandardCharsets.UTF_8);
+            recommendationApiClient.setBaseURL(String.format(KruizeDeploymentInfo.recommendations_url, encodedExperimentName));
+            GenericRestApiClient.HttpResponseWrapper recommendationResponseCode = null;
+            try {
+                recommendationResponseCode = recommendationApiClient.callKruizeAPI(null);
+                LOGGER.debug("API Response code: {}", recommendationResponseCode);
+                if (recommendationResponseCode.getStatusCode() == HttpURLConnection.HTTP_CREATED) {
+                    experiment.getRecommendations().setStatus(NotificationConstants.Status.PROCESSED);
+                } else {
+                    experiment.getRecommendations().setStatus(NotificationConstants.Status.FAILED);
+                    experiment.setNotification(new BulkJobStatus.Notification(BulkJobStatus.NotificationType.ERROR, recommendationResponseCode.getResponseBody().toString(), recommendationResponseCode.getStatusCode()));
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+                experiment.getRecommendations().setStatus(NotificationConstants.Status.FAILED);
+                experiment.getRecommendations().setNotifications(new BulkJobStatus.Notification(BulkJobStatus.NotificationType.ERROR, e.getMessage(), HttpURLConnection.HTTP_INTERNAL_ERROR));
+            } finally {
+                if (jobData.incrementProcessed_experiments()) {
+                    setFinalJobStatus(COMPLETED, null, null, finalDatasource);
+                }
+            }
+        });
+    }
+
+    /**
+     * Generates the recommendations of the experiment with the recommendation engine of this replica, as the
+     * generateRecommendations API does
+     */
+    private void generateRecommendationsInProcess(BulkJobStatus.Experiment experiment, String experiment_name, DataSourceInfo finalDatasource) {
+        try {
+            RecommendationEngine recommendationEngine = new RecommendationEngine(experiment_name, null, null);
+            String validationMessage = recommendationEngine.validate_local();
+            if (!validationMessage.isEmpty()) {
+                experiment.getRecommendations().setStatus(NotificationConstants.Status.FAILED);
+                experiment.setNotification(new BulkJobStatus.Notification(BulkJobStatus.NotificationType.ERROR, validationMessage, HttpURLConnection.HTTP_BAD_REQUEST));
+                return;
+            }
+            KruizeObject kruizeObject = recommendationEngine.prepareRecommendations(0, AnalyzerConstants.LOCAL);
+            if (kruizeObject.getValidation_data().isSuccess()) {
+                experiment.getRecommendations().setStatus(NotificationConstants.Status.PROCESSED);
+            } else {
+                experiment.getRecommendations().setStatus(NotificationConstants.Status.FAILED);
+                experiment.setNotification(new BulkJobStatus.Notification(BulkJobStatus.NotificationType.ERROR,
+                        kruizeObject.getValidation_data().getMessage(), kruizeObject.getValidation_data().getErrorCode()));
+            }
+        } catch (Exception | FetchMetricsError e) {
+            LOGGER.error("Failed to generate the recommendations of {} due to : {}", experiment_name, e.getMessage());
+            experiment.getRecommendations().setStatus(NotificationConstants.Status.FAILED);
+            experiment.getRecommendations().setNotifications(new BulkJobStatus.Notification(BulkJobStatus.NotificationType.ERROR, e.getMessage(), HttpURLConnection.HTTP_INTERNAL_ERROR));
+        } finally {
+            if (jobData.incrementProcessed_experiments()) {
+                setFinalJobStatus(COMPLETED, null, null, finalDatasource);
+            }
+        }
+    }
+
     public void setFinalJobStatus(String status, String notificationKey, BulkJobStatus.Notification notification, DataSourceInfo finalDatasource) {
         jobData.setStatus(status);
         jobData.setEndTime(Instant.now());
@@ -334,11 +551,31 @@ public class BulkJobManager implements Runnable {
         }
     }
 
+    /**
+     * Returns the planner with the containers of the experiments added, experiments are processed shard by shard
+     */
+    private BulkFetchPlanner<CreateExperimentAPIObject> getBulkFetchPlanner(Map<String, CreateExperimentAPIObject> createExperimentAPIObjectMap,
+                                                                           DataSourceInfo datasource) {
+        BulkFetchPlanner<CreateExperimentAPIObject> bulkFetchPlanner = new BulkFetchPlanner<>(datasource,
+                MetricProfileCollection.getInstance().getMetricProfileCollection().get(CREATE_EXPERIMENT_CONFIG_BEAN.getPerformanceProfile()),
+                CREATE_EXPERIMENT_CONFIG_BEAN.getMeasurementDuration(),
+                KruizeConstants.RecommendationEngineConstants.DurationBasedEngine.DurationAmount.LONG_TERM_DURATION_DAYS);
+        for (CreateExperimentAPIObject apiObject : createExperimentAPIObjectMap.values()) {
+            KubernetesAPIObject kubernetesAPIObject = apiObject.getKubernetesObjects().get(0);
+            bulkFetchPlanner.addTarget(kubernetesAPIObject.getNamespace(), kubernetesAPIObject.getName(), kubernetesAPIObject.getType(),
+                    kubernetesAPIObject.getContainerAPIObjects().get(0).getContainer_name(), apiObject);
+        }
+        return bulkFetchPlanner;
+    }
+
     Map<String, CreateExperimentAPIObject> getExperimentMap(String labelString, BulkJobStatus jobData, DataSourceMetadataInfo metadataInfo, DataSourceInfo datasource) throws Exception {
         String statusValue = "failure";
         Timer.Sample timerGetExpMap = Timer.start(MetricsConfig.meterRegistry());
         try {
             Map<String, CreateExperimentAPIObject> createExperimentAPIObjectMap = new HashMap<>();
+            // the format and the labels are parsed once for all the experiments of the job
+            ExperimentNameTemplate nameTemplate = ExperimentNameTemplate.compile(KruizeDeploymentInfo.experiment_name_format);
+            Map<String, String> labelsMap = null == labelString ? null : parseLabelString(labelString);
             Collection<DataSource> dataSourceCollection = metadataInfo.getDataSourceHashMap().values();
             for (DataSource ds : dataSourceCollection) {
                 HashMap<String, DataSourceCluster> clusterHashMap = ds.getDataSourceClusterHashMap();
@@ -352,7 +589,10 @@ public class BulkJobManager implements Runnable {
                                 if (dataSourceContainerHashMap != null) {
                                     for (DataSourceContainer dc : dataSourceContainerHashMap.values()) {
                                         // Experiment name - dynamically constructed
-                                        String experiment_name = frameExperimentName(labelString, dsc, namespace, dsw, dc);
+                                        String experiment_name = nameTemplate.format(this.bulkInput.getDatasource(),
+                                                dsc.getDataSourceClusterName(), namespace.getDataSourceNamespaceName(),
+                                                dsw.getDataSourceWorkloadName(), dsw.getDataSourceWorkloadType(),
+                                                dc.getDataSourceContainerName(), labelsMap);
                                         // create JSON to be passed in the createExperimentAPI
                                         List<CreateExperimentAPIObject> createExperimentAPIObjectList = new ArrayList<>();
                                         CreateExperimentAPIObject apiObject = prepareCreateExperimentJSONInput(dc, dsc, dsw, namespace,
@@ -493,41 +733,11 @@ public class BulkJobManager implements Runnable {
      */
     public String frameExperimentName(String labelString, DataSourceCluster dataSourceCluster, DataSourceNamespace dataSourceNamespace, DataSourceWorkload dataSourceWorkload, DataSourceContainer dataSourceContainer) {
 
-        String datasource = this.bulkInput.getDatasource();
-        String clusterName = dataSourceCluster.getDataSourceClusterName();
-        String namespace = dataSourceNamespace.getDataSourceNamespaceName();
-        String workloadName = dataSourceWorkload.getDataSourceWorkloadName();
-        String workloadType = dataSourceWorkload.getDataSourceWorkloadType();
-        String containerName = dataSourceContainer.getDataSourceContainerName();
-
-        String experimentName = KruizeDeploymentInfo.experiment_name_format
-                .replace("%datasource%", datasource)
-                .replace("%clustername%", clusterName)
-                .replace("%namespace%", namespace)
-                .replace("%workloadname%", workloadName)
-                .replace("%workloadtype%", workloadType)
-                .replace("%containername%", containerName);
-
-        if (null != labelString) {
-            // Parse labelString into a map for quick lookup
-            Map<String, String> labelsMap = parseLabelString(labelString);
-
-            // Regular expression to match any %label:labelName% pattern
-            Pattern labelPattern = Pattern.compile("%label:([a-zA-Z0-9_]+)%");
-            Matcher matcher = labelPattern.matcher(experimentName);
-
-            // Process each label placeholder
-            StringBuilder result = new StringBuilder();
-            int lastEnd = 0;
-            while (matcher.find()) {
-                result.append(experimentName, lastEnd, matcher.start());
-                String labelKey = matcher.group(1); // Extracts the label name
-                String labelValue = labelsMap.getOrDefault(labelKey, "unknown" + labelKey);
-                result.append(labelValue != null ? labelValue : "unknown" + labelKey);
-                lastEnd = matcher.end();
-                experimentName = experimentName.replace(matcher.group().toString(), labelValue);
-            }
-        }
+        String experimentName = ExperimentNameTemplate.compile(KruizeDeploymentInfo.experiment_name_format).format(
+                this.bulkInput.getDatasource(), dataSourceCluster.getDataSourceClusterName(),
+                dataSourceNamespace.getDataSourceNamespaceName(), dataSourceWorkload.getDataSourceWorkloadName(),
+                dataSourceWorkload.getDataSourceWorkloadType(), dataSourceContainer.getDataSourceContainerName(),
+                null == labelString ? null : parseLabelString(labelString));
         LOGGER.debug("Experiment name: {}", experimentName);
         return experimentName;
     }
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.workerimpl;
+
+import com.autotune.analyzer.serviceObjects.BulkJobStatus;
+import com.autotune.operator.KruizeDeploymentInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.autotune.utils.KruizeConstants.KRUIZE_BULK_API.JOB_STATUS_EVICTION_INTERVAL_SECS;
+
+/**
+ * Keeps the status of the bulk jobs for the GET of the bulk API.
+ * <p>
+ * A finished job is dropped once it is older than the TTL, and when more than maxJobs jobs are kept the oldest
+ * finished jobs are dropped first. A job which is still running after maxRunningAge is taken to be stuck and is
+ * dropped as well, other running jobs are not dropped. The store is swept periodically, not only when jobs are added.
+ */
+public class BulkJobStatusStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkJobStatusStore.class);
+    private static BulkJobStatusStore instance;
+
+    private final Map<String, BulkJobStatus> jobs = new ConcurrentHashMap<>();
+    private final Clock clock;
+    private final Duration ttl;
+    private final Duration maxRunningAge;
+    private final int maxJobs;
+
+    public BulkJobStatusStore(Clock clock, Duration ttl, Duration maxRunningAge, int maxJobs) {
+        this.clock = clock;
+        this.ttl = ttl;
+        this.maxRunningAge = maxRunningAge;
+        this.maxJobs = Math.max(1, maxJobs);
+    }
+
+    public static synchronized BulkJobStatusStore getInstance() {
+        if (null == instance) {
+            instance = new BulkJobStatusStore(Clock.systemUTC(),
+                    Duration.ofSeconds(KruizeDeploymentInfo.bulk_job_status_ttl_secs),
+                    Duration.ofSeconds(KruizeDeploymentInfo.bulk_job_status_max_running_secs),
+                    KruizeDeploymentInfo.bulk_job_status_max_jobs);
+            ScheduledExecutorService eviction = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "kruize-bulk-job-eviction");
+                thread.setDaemon(true);
+                return thread;
+            });
+            BulkJobStatusStore store = instance;
+            eviction.scheduleWithFixedDelay(() -> {
+                try {
+                    store.evict();
+                } catch (Exception e) {
+                    LOGGER.error("Failed to evict the bulk jobs: {}", e.getMessage());
+                }
+            }, JOB_STATUS_EVICTION_INTERVAL_SECS, JOB_STATUS_EVICTION_INTERVAL_SECS, TimeUnit.SECONDS);
+        }
+        return instance;
+    }
+
+    public void put(BulkJobStatus jobStatus) {
+        jobs.put(jobStatus.getJobID(), jobStatus);
+        evict();
+    }
+
+    /**
+     * Returns the status of the job, null if it is unknown or has expired
+     */
+    public BulkJobStatus get(String jobID) {
+        if (null == jobID) {
+            return null;
+        }
+        BulkJobStatus jobStatus = jobs.get(jobID);
+        if (null != jobStatus && isExpired(jobStatus, clock.instant())) {
+            jobs.remove(jobID, jobStatus);
+            return null;
+        }
+        return jobStatus;
+    }
+
+    public int size() {
+        return jobs.size();
+    }
+
+    /**
+     * Drops the expired and the stuck jobs, then the oldest finished jobs until at most maxJobs are kept
+     */
+    public void evict() {
+        Instant now = clock.instant();
+        List<BulkJobStatus> finished = new ArrayList<>();
+        for (BulkJobStatus jobStatus : jobs.values()) {
+            if (isExpired(jobStatus, now)) {
+                jobs.remove(jobStatus.getJobID(), jobStatus);
+            } else if (null != jobStatus.getFinishedAt()) {
+                finished.add(jobStatus);
+            }
+        }
+        int excess = jobs.size() - maxJobs;
+        if (excess > 0) {
+            finished.sort(Comparator.comparing(BulkJobStatus::getFinishedAt));
+            for (int i = 0; i < excess && i < finished.size(); i++) {
+                jobs.remove(finished.get(i).getJobID(), finished.get(i));
+            }
+            LOGGER.debug("Dropped {} finished bulk jobs over the limit of {}", Math.min(excess, finished.size()), maxJobs);
+        }
+    }
+
+    private boolean isExpired(BulkJobStatus jobStatus, Instant now) {
+        Instant finishedAt = jobStatus.getFinishedAt();
+        if (null != finishedAt) {
+            return finishedAt.plus(ttl).isBefore(now);
+        }
+        Instant startedAt = jobStatus.getStartedAt();
+        if (null != startedAt && startedAt.plus(maxRunningAge).isBefore(now)) {
+            LOGGER.warn("Dropping bulk job {} which is still running since {}", jobStatus.getJobID(), jobStatus.getStartTime());
+            return true;
+        }
+        return false;
+    }
+}
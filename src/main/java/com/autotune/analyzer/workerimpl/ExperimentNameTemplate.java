@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.workerimpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The experiment_name_format of the bulk API, split once into its literal parts and placeholders so that the names of
+ * all the workloads of a job are built without scanning the format again.
+ * <p>
+ * The placeholders are %datasource%, %clustername%, %namespace%, %workloadname%, %workloadtype%, %containername% and
+ * %label:labelName%. A label missing from the labels of the job becomes "unknown" followed by the label name, and
+ * label placeholders are left as they are when the job has no labels.
+ */
+public class ExperimentNameTemplate {
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile(
+            "%(datasource|clustername|namespace|workloadname|workloadtype|containername|label:([a-zA-Z0-9_]+))%");
+    private static final Map<String, ExperimentNameTemplate> COMPILED = new ConcurrentHashMap<>();
+
+    private final String format;
+    private final List<Segment> segments;
+
+    private ExperimentNameTemplate(String format) {
+        this.format = format;
+        List<Segment> segmentList = new ArrayList<>();
+        Matcher matcher = PLACEHOLDER_PATTERN.matcher(format);
+        int lastEnd = 0;
+        while (matcher.find()) {
+            if (matcher.start() > lastEnd) {
+                segmentList.add(new Segment(Part.LITERAL, format.substring(lastEnd, matcher.start())));
+            }
+            if (null != matcher.group(2)) {
+                segmentList.add(new Segment(Part.LABEL, matcher.group(2)));
+            } else {
+                segmentList.add(new Segment(Part.valueOf(matcher.group(1).toUpperCase()), matcher.group()));
+            }
+            lastEnd = matcher.end();
+        }
+        if (lastEnd < format.length()) {
+            segmentList.add(new Segment(Part.LITERAL, format.substring(lastEnd)));
+        }
+        this.segments = List.copyOf(segmentList);
+    }
+
+    /**
+     * Returns the compiled template of the format, compiled on first use
+     */
+    public static ExperimentNameTemplate compile(String format) {
+        return COMPILED.computeIfAbsent(format, ExperimentNameTemplate::new);
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * @param labels labels of the job, null if it has none
+     * @return the experiment name of the container
+     */
+    public String format(String datasource, String clusterName, String namespace, String workloadName,
+                         String workloadType, String containerName, Map<String, String> labels) {
+        StringBuilder name = new StringBuilder(format.length() + 64);
+        for (Segment segment : segments) {
+            switch (segment.part) {
+                case DATASOURCE:
+                    name.append(datasource);
+                    break;
+                case CLUSTERNAME:
+                    name.append(clusterName);
+                    break;
+                case NAMESPACE:
+                    name.append(namespace);
+                    break;
+                case WORKLOADNAME:
+                    name.append(workloadName);
+                    break;
+                case WORKLOADTYPE:
+                    name.append(workloadType);
+                    break;
+                case CONTAINERNAME:
+                    name.append(containerName);
+                    break;
+                case LABEL:
+                    if (null == labels) {
+                        name.append("%label:").append(segment.text).append('%');
+                    } else {
+                        name.append(labels.getOrDefault(segment.text, "unknown" + segment.text));
+                    }
+                    break;
+                default:
+                    name.append(segment.text);
+            }
+        }
+        return name.toString();
+    }
+
+    private enum Part {
+        LITERAL, DATASOURCE, CLUSTERNAME, NAMESPACE, WORKLOADNAME, WORKLOADTYPE, CONTAINERNAME, LABEL
+    }
+
+    private static final class Segment {
+        private final Part part;
+        // the literal text, or the label name of a label placeholder
+        private final String text;
+
+        private Segment(Part part, String text) {
+            this.part = part;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,377 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.workerimpl;
+
+import com.autotune.common.parallelengine.executor.KruizeExecutor;
+import com.autotune.common.parallelengine.queue.KruizeQueue;
+import com.autotune.common.parallelengine.worker.CallableFactory;
+import com.autotune.common.parallelengine.worker.KruizeWorker;
+import com.autotune.database.coordination.KruizeTask;
+import com.autotune.database.coordination.KruizeTaskQueue;
+import com.autotune.operator.KruizeDeploymentInfo;
+import com.autotune.utils.KruizeConstants;
+import com.autotune.utils.MetricsConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.autotune.utils.KruizeConstants.CoordinationConstants.REPLICA_ID_ENV;
+
+/**
+ * Runs the tasks of the durable task queue on this replica.
+ * <p>
+ * Each task type registered with a handler gets its own lane: a KruizeExecutor of KruizeTaskWorker threads which claim
+ * tasks of that type one at a time, so long bulk jobs never hold up the recommendation updates. While a task runs its
+ * claim is extended in the background, so only the tasks of a replica that died become visible to the others. A lane
+ * may have a result provider: the result of its running tasks is saved along with the claim, and kept with the task
+ * once it is done, for the other replicas to read. An idle worker claims again after a delay doubling up to
+ * MAX_IDLE_POLLS poll intervals, and is woken up as soon as a task of its type is queued by this replica. On
+ * shutdown the lanes stop claiming, and the tasks still running after the grace period are given back to the queue.
+ * Done and dead tasks are purged after taskQueueRetentionSecs.
+ */
+public class KruizeTaskManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(KruizeTaskManager.class);
+    private static volatile KruizeTaskManager instance;
+
+    private final KruizeTaskQueue queue;
+    private final String replicaId;
+    private final long pollMillis;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final Set<KruizeTask> running = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService maintenance;
+    private volatile boolean accepting = true;
+
+    public KruizeTaskManager(KruizeTaskQueue queue, String replicaId, long pollMillis) {
+        this.queue = queue;
+        this.replicaId = replicaId;
+        this.pollMillis = pollMillis;
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kruize-task-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long extendSecs = Math.max(1, queue.getVisibilityTimeoutSecs() / 3);
+        maintenance.scheduleWithFixedDelay(this::extendRunningTasks, extendSecs, extendSecs, TimeUnit.SECONDS);
+        maintenance.scheduleWithFixedDelay(this::deadLetterExpiredTasks, KruizeConstants.TaskQueueConstants.DEAD_LETTER_INTERVAL_SECS,
+                KruizeConstants.TaskQueueConstants.DEAD_LETTER_INTERVAL_SECS, TimeUnit.SECONDS);
+        maintenance.scheduleWithFixedDelay(this::purgeFinishedTasks, KruizeConstants.TaskQueueConstants.DEAD_LETTER_INTERVAL_SECS,
+                KruizeConstants.TaskQueueConstants.DEAD_LETTER_INTERVAL_SECS, TimeUnit.SECONDS);
+    }
+
+    public static KruizeTaskManager getInstance() {
+        if (null == instance) {
+            synchronized (KruizeTaskManager.class) {
+                if (null == instance) {
+                    String replicaId = System.getenv(REPLICA_ID_ENV);
+                    if (null == replicaId || replicaId.isBlank()) {
+                        replicaId = UUID.randomUUID().toString();
+                    }
+                    instance = new KruizeTaskManager(KruizeTaskQueue.getInstance(), replicaId, KruizeDeploymentInfo.task_queue_poll_millis);
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> instance.shutdown(
+                            KruizeConstants.TaskQueueConstants.SHUTDOWN_GRACE_SECS), "kruize-task-shutdown"));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Starts the workers running the tasks of the type on this replica
+     */
+    public synchronized void register(String type, TaskHandler handler, int workers) {
+        register(type, handler, workers, null);
+    }
+
+    /**
+     * Starts the workers running the tasks of the type on this replica, saving the results of the tasks
+     *
+     * @param resultProvider returns the result of a running task so far, null for no result
+     */
+    public synchronized void register(String type, TaskHandler handler, int workers, ResultProvider resultProvider) {
+        if (lanes.containsKey(type)) {
+            throw new IllegalStateException("Tasks of type " + type + " already have a handler");
+        }
+        Lane lane = new Lane(type, handler, workers, resultProvider);
+        lanes.put(type, lane);
+        lane.start();
+        LOGGER.info("Started {} workers for the {} tasks", workers, type);
+    }
+
+    /**
+     * Adds a task to the queue, returns false if a task of the same type and key is already pending
+     */
+    public boolean enqueue(String type, String key, String payload) throws SQLException {
+        boolean queued = queue.enqueue(type, key, payload);
+        Lane lane = lanes.get(type);
+        if (queued && null != lane) {
+            lane.signal();
+        }
+        return queued;
+    }
+
+    /**
+     * Returns the latest task of the type with the key, whatever its status, null if there is none
+     */
+    public KruizeTask find(String type, String key) throws SQLException {
+        return queue.find(type, key);
+    }
+
+    public KruizeTaskQueue getQueue() {
+        return queue;
+    }
+
+    public boolean isAccepting() {
+        return accepting;
+    }
+
+    /**
+     * Stops claiming tasks and waits up to graceSecs for the running ones, the rest are given back to the queue
+     */
+    public void shutdown(long graceSecs) {
+        if (!accepting) {
+            return;
+        }
+        accepting = false;
+        for (Lane lane : lanes.values()) {
+            lane.executor.shutdown();
+            lane.signal();
+        }
+        try {
+            for (Lane lane : lanes.values()) {
+                lane.executor.awaitTermination(graceSecs, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        maintenance.shutdownNow();
+        for (KruizeTask task : new ArrayList<>(running)) {
+            try {
+                queue.release(task);
+                LOGGER.warn("Gave back task {} which was still running at shutdown", task);
+            } catch (SQLException e) {
+                LOGGER.error("Could not give back task {}, it runs again once its claim expires: {}", task, e.getMessage());
+            }
+        }
+    }
+
+    private void extendRunningTasks() {
+        try {
+            queue.extend(new ArrayList<>(running));
+        } catch (Exception e) {
+            LOGGER.warn("Could not extend the claims of {} running tasks: {}", running.size(), e.getMessage());
+        }
+        for (KruizeTask task : new ArrayList<>(running)) {
+            Lane lane = lanes.get(task.getType());
+            String result = null == lane ? null : lane.getResult(task);
+            if (null == result) {
+                continue;
+            }
+            try {
+                queue.saveResult(task, result);
+            } catch (Exception e) {
+                LOGGER.warn("Could not save the result of task {}: {}", task, e.getMessage());
+            }
+        }
+    }
+
+    private void purgeFinishedTasks() {
+        try {
+            int purged = queue.purgeFinished(KruizeDeploymentInfo.task_queue_retention_secs);
+            if (purged > 0) {
+                LOGGER.info("Purged {} done and dead tasks older than {} secs", purged, KruizeDeploymentInfo.task_queue_retention_secs);
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Could not purge the done and dead tasks: {}", e.getMessage());
+        }
+    }
+
+    private void deadLetterExpiredTasks() {
+        try {
+            int dead = queue.deadLetterExpired();
+            if (dead > 0) {
+                LOGGER.warn("Dead-lettered {} tasks whose last attempt expired", dead);
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Could not dead-letter the expired tasks: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Does the work of a task. A handler that throws fails the attempt, and the task is retried until it runs out of
+     * attempts; as a task may run again after a replica died mid-way, the handlers must be idempotent.
+     */
+    @FunctionalInterface
+    public interface TaskHandler {
+        void handle(KruizeTask task) throws Exception;
+    }
+
+    /**
+     * Returns the result of a running or finished task, for the other replicas to read
+     */
+    @FunctionalInterface
+    public interface ResultProvider {
+        String getResult(KruizeTask task) throws Exception;
+    }
+
+    /**
+     * Workers of one task type
+     */
+    public class Lane {
+        private final String type;
+        private final TaskHandler handler;
+        private final ResultProvider resultProvider;
+        private final int workers;
+        private final KruizeExecutor executor;
+        private final Counter completedCounter;
+        private final Counter retriedCounter;
+        private final Counter deadCounter;
+        private final Timer durationTimer;
+        // counts the tasks queued by this replica, an idle worker waits until it changes
+        private long queuedCount;
+
+        private Lane(String type, TaskHandler handler, int workers, ResultProvider resultProvider) {
+            this.type = type;
+            this.handler = handler;
+            this.resultProvider = resultProvider;
+            this.workers = workers;
+            this.executor = new KruizeExecutor(workers,
+                    workers,
+                    0,
+                    TimeUnit.SECONDS,
+                    new KruizeQueue<>(),
+                    new ThreadPoolExecutor.AbortPolicy(),
+                    KruizeTaskWorker.class
+            );
+            Gauge.builder("kruizeTasks_running", running, tasks -> tasks.stream().filter(task -> type.equals(task.getType())).count())
+                    .description("Tasks running on this replica").tag("type", type).register(MetricsConfig.meterRegistry());
+            completedCounter = Counter.builder("kruizeTasks").description("Task attempts run on this replica")
+                    .tag("type", type).tag("status", "completed").register(MetricsConfig.meterRegistry());
+            retriedCounter = Counter.builder("kruizeTasks").description("Task attempts run on this replica")
+                    .tag("type", type).tag("status", "retried").register(MetricsConfig.meterRegistry());
+            deadCounter = Counter.builder("kruizeTasks").description("Task attempts run on this replica")
+                    .tag("type", type).tag("status", "dead").register(MetricsConfig.meterRegistry());
+            durationTimer = Timer.builder("kruizeTasks_duration").description("Time taken to run a task")
+                    .tag("type", type).register(MetricsConfig.meterRegistry());
+        }
+
+        private void start() {
+            for (int i = 0; i < workers; i++) {
+                KruizeWorker worker = new CallableFactory().create(executor.getWorker());
+                executor.execute(() -> worker.execute(null, this, executor, null));
+            }
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public boolean isOpen() {
+            return accepting;
+        }
+
+        /**
+         * Claims the next task of the lane. If there is none, waits for the poll interval doubled for each of the
+         * idle polls before, or until this replica queues a task of the type, and returns null.
+         *
+         * @param idlePolls number of claims of the worker in a row which found no task
+         */
+        public KruizeTask claim(int idlePolls) throws InterruptedException {
+            long seen;
+            synchronized (this) {
+                seen = queuedCount;
+            }
+            try {
+                List<KruizeTask> tasks = queue.claim(type, replicaId + "/" + Thread.currentThread().getName(), 1);
+                if (!tasks.isEmpty()) {
+                    return tasks.get(0);
+                }
+            } catch (SQLException e) {
+                LOGGER.warn("Could not claim {} tasks: {}", type, e.getMessage());
+            }
+            long waitMillis = pollMillis * Math.min(1L << Math.min(idlePolls, 30), KruizeConstants.TaskQueueConstants.MAX_IDLE_POLLS);
+            long deadline = System.currentTimeMillis() + waitMillis;
+            synchronized (this) {
+                long remaining = waitMillis;
+                while (seen == queuedCount && accepting && remaining > 0) {
+                    wait(remaining);
+                    remaining = deadline - System.currentTimeMillis();
+                }
+            }
+            return null;
+        }
+
+        private synchronized void signal() {
+            queuedCount++;
+            notifyAll();
+        }
+
+        private String getResult(KruizeTask task) {
+            if (null == resultProvider) {
+                return null;
+            }
+            try {
+                return resultProvider.getResult(task);
+            } catch (Exception e) {
+                LOGGER.warn("Could not get the result of task {}: {}", task, e.getMessage());
+                return null;
+            }
+        }
+
+        /**
+         * Runs the task with the handler of the lane and records the outcome in the queue
+         */
+        public void process(KruizeTask task) {
+            running.add(task);
+            Timer.Sample sample = Timer.start(MetricsConfig.meterRegistry());
+            try {
+                handler.handle(task);
+                if (!queue.complete(task, getResult(task))) {
+                    LOGGER.warn("Task {} completed after its claim expired, it may have run twice", task);
+                }
+                completedCounter.increment();
+            } catch (Exception e) {
+                LOGGER.error("Task {} failed: {}", task, e.getMessage());
+                try {
+                    if (queue.fail(task, String.valueOf(e.getMessage()))) {
+                        deadCounter.increment();
+                        LOGGER.error("Task {} failed on its last attempt and was dead-lettered", task);
+                    } else {
+                        retriedCounter.increment();
+                    }
+                } catch (SQLException ex) {
+                    LOGGER.error("Could not record the failure of task {}, it runs again once its claim expires: {}", task, ex.getMessage());
+                }
+            } finally {
+                sample.stop(durationTimer);
+                running.remove(task);
+            }
+        }
+    }
+}
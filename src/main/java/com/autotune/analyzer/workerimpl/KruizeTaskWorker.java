@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.workerimpl;
+
+import com.autotune.analyzer.kruizeObject.KruizeObject;
+import com.autotune.common.parallelengine.executor.KruizeExecutor;
+import com.autotune.common.parallelengine.worker.KruizeWorker;
+import com.autotune.database.coordination.KruizeTask;
+
+import javax.servlet.ServletContext;
+
+/**
+ * Worker which claims the tasks of a lane of the KruizeTaskManager from the durable task queue and runs them one at
+ * a time, backing off while there is none. Runs until the manager stops accepting tasks.
+ */
+public class KruizeTaskWorker implements KruizeWorker {
+
+    @Override
+    public void execute(KruizeObject kruizeObject, Object o, KruizeExecutor kruizeExecutor, ServletContext context) {
+        KruizeTaskManager.Lane lane = (KruizeTaskManager.Lane) o;
+        int idlePolls = 0;
+        while (lane.isOpen()) {
+            KruizeTask task;
+            try {
+                task = lane.claim(idlePolls);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (null == task) {
+                idlePolls++;
+            } else {
+                idlePolls = 0;
+                lane.process(task);
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.workerimpl;
+
+import com.autotune.analyzer.recommendations.engine.RecommendationEngine;
+import com.autotune.analyzer.serviceObjects.RecommendationBackfillStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static com.autotune.utils.KruizeConstants.KRUIZE_RECOMMENDATION_BACKFILL.COMPLETED;
+import static com.autotune.utils.KruizeConstants.KRUIZE_RECOMMENDATION_BACKFILL.FAILED;
+
+/**
+ * Backfills the recommendations of an experiment over a range of interval end times and updates the job status
+ * as the steps complete.
+ */
+public class RecommendationBackfillJob implements Runnable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecommendationBackfillJob.class);
+
+    /**
+     * Generates and saves the recommendations of the job
+     */
+    @FunctionalInterface
+    public interface Backfiller {
+        Backfiller RECOMMENDATION_ENGINE = (jobData, startTime, endTime, stepMinutes) ->
+                new RecommendationEngine(jobData.getExperimentName(), null, null)
+                        .backfillRecommendations(startTime, endTime, stepMinutes, jobData);
+
+        void backfill(RecommendationBackfillStatus jobData, Timestamp startTime, Timestamp endTime, int stepMinutes) throws Exception;
+    }
+
+    private final RecommendationBackfillStatus jobData;
+    private final Timestamp startTime;
+    private final Timestamp endTime;
+    private final int stepMinutes;
+    private final Backfiller backfiller;
+
+    public RecommendationBackfillJob(RecommendationBackfillStatus jobData, Timestamp startTime, Timestamp endTime, int stepMinutes) {
+        this(jobData, startTime, endTime, stepMinutes, Backfiller.RECOMMENDATION_ENGINE);
+    }
+
+    public RecommendationBackfillJob(RecommendationBackfillStatus jobData, Timestamp startTime, Timestamp endTime, int stepMinutes,
+                                     Backfiller backfiller) {
+        this.jobData = jobData;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.stepMinutes = stepMinutes;
+        this.backfiller = backfiller;
+    }
+
+    @Override
+    public void run() {
+        try {
+            backfiller.backfill(jobData, startTime, endTime, stepMinutes);
+            jobData.setStatus(COMPLETED);
+            LOGGER.info("Backfill job {} for experiment {} completed, {} recommendations saved", jobData.getJobID(),
+                    jobData.getExperimentName(), jobData.getSaved_recommendations());
+        } catch (Exception e) {
+            LOGGER.error("Backfill job {} for experiment {} failed due to : {}", jobData.getJobID(),
+                    jobData.getExperimentName(), e.getMessage());
+            jobData.setMessage(e.getMessage());
+            jobData.setStatus(FAILED);
+        } finally {
+            jobData.setEndTime(Instant.now());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.workerimpl;
+
+import com.autotune.analyzer.serviceObjects.RecommendationBackfillStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.autotune.utils.KruizeConstants.KRUIZE_RECOMMENDATION_BACKFILL.JOB_STATUS_TTL_SECS;
+import static com.autotune.utils.KruizeConstants.KRUIZE_RECOMMENDATION_BACKFILL.MAX_JOBS;
+
+/**
+ * Keeps the status of the recommendation backfill jobs for the GET of the backfill API.
+ * <p>
+ * A finished job is dropped once it is older than the TTL, and when more than maxJobs jobs are kept the oldest
+ * finished jobs are dropped first. Running jobs are never dropped, their number is bounded by the backfill executor.
+ */
+public class RecommendationBackfillStatusStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecommendationBackfillStatusStore.class);
+    private static RecommendationBackfillStatusStore instance;
+
+    private final Map<String, RecommendationBackfillStatus> jobs = new ConcurrentHashMap<>();
+    private final Clock clock;
+    private final Duration ttl;
+    private final int maxJobs;
+
+    public RecommendationBackfillStatusStore(Clock clock, Duration ttl, int maxJobs) {
+        this.clock = clock;
+        this.ttl = ttl;
+        this.maxJobs = Math.max(1, maxJobs);
+    }
+
+    public static synchronized RecommendationBackfillStatusStore getInstance() {
+        if (null == instance) {
+            instance = new RecommendationBackfillStatusStore(Clock.systemUTC(), Duration.ofSeconds(JOB_STATUS_TTL_SECS), MAX_JOBS);
+        }
+        return instance;
+    }
+
+    public void put(RecommendationBackfillStatus jobStatus) {
+        jobs.put(jobStatus.getJobID(), jobStatus);
+        evict();
+    }
+
+    /**
+     * Returns the status of the job, null if it is unknown or has expired
+     */
+    public RecommendationBackfillStatus get(String jobID) {
+        if (null == jobID) {
+            return null;
+        }
+        RecommendationBackfillStatus jobStatus = jobs.get(jobID);
+        if (null != jobStatus && isExpired(jobStatus, clock.instant())) {
+            jobs.remove(jobID, jobStatus);
+            return null;
+        }
+        return jobStatus;
+    }
+
+    public int size() {
+        return jobs.size();
+    }
+
+    /**
+     * Drops the expired jobs, then the oldest finished jobs until at most maxJobs are kept
+     */
+    public void evict() {
+        Instant now = clock.instant();
+        List<RecommendationBackfillStatus> finished = new ArrayList<>();
+        for (RecommendationBackfillStatus jobStatus : jobs.values()) {
+            if (isExpired(jobStatus, now)) {
+                jobs.remove(jobStatus.getJobID(), jobStatus);
+            } else if (null != jobStatus.getFinishedAt()) {
+                finished.add(jobStatus);
+            }
+        }
+        int excess = jobs.size() - maxJobs;
+        if (excess > 0) {
+            finished.sort(Comparator.comparing(RecommendationBackfillStatus::getFinishedAt));
+            for (int i = 0; i < excess && i < finished.size(); i++) {
+                jobs.remove(finished.get(i).getJobID(), finished.get(i));
+            }
+            LOGGER.debug("Dropped {} finished backfill jobs over the limit of {}", Math.min(excess, finished.size()), maxJobs);
+        }
+    }
+
+    private boolean isExpired(RecommendationBackfillStatus jobStatus, Instant now) {
+        Instant finishedAt = jobStatus.getFinishedAt();
+        return null != finishedAt && finishedAt.plus(ttl).isBefore(now);
+    }
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.workerimpl;
+
+import com.autotune.analyzer.experiment.ExperimentInitiator;
+import com.autotune.analyzer.experiment.ResultsIngestionManager;
+import com.autotune.analyzer.experiment.ResultsIngestionManager.PendingResult;
+import com.autotune.analyzer.kruizeObject.KruizeObject;
+import com.autotune.analyzer.serviceObjects.FailedUpdateResultsAPIObject;
+import com.autotune.common.data.result.ExperimentResultData;
+import com.autotune.common.parallelengine.executor.KruizeExecutor;
+import com.autotune.common.parallelengine.worker.KruizeWorker;
+import com.autotune.database.helper.DBHelpers;
+import com.autotune.database.service.ExperimentDBService;
+import com.autotune.database.table.KruizeResultsEntry;
+import com.autotune.operator.KruizeDeploymentInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.ServletContext;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Worker which saves the results queued by the updateResults API to the DB in batches.
+ * Runs until the ResultsIngestionManager is shut down and its queue is drained.
+ */
+public class ResultsWriter implements KruizeWorker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultsWriter.class);
+
+    @Override
+    public void execute(KruizeObject kruizeObject, Object o, KruizeExecutor kruizeExecutor, ServletContext context) {
+        ResultsIngestionManager ingestionManager = (ResultsIngestionManager) o;
+        ExperimentDBService experimentDBService = new ExperimentDBService();
+        while (!ingestionManager.isDrained()) {
+            List<PendingResult> batch;
+            try {
+                batch = ingestionManager.takeBatch(KruizeDeploymentInfo.results_ingestion_batch_size);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            Map<PendingResult, FailedUpdateResultsAPIObject> failures = new IdentityHashMap<>();
+            try {
+                saveBatch(experimentDBService, batch, failures);
+            } catch (Exception e) {
+                LOGGER.error("Failed to save a batch of {} results due to : {}", batch.size(), e.getMessage());
+                for (PendingResult pendingResult : batch) {
+                    failures.putIfAbsent(pendingResult, toFailure(pendingResult.getResultData(), List.of(String.valueOf(e.getMessage()))));
+                }
+            }
+            ingestionManager.onBatchCompleted(batch, failures);
+        }
+    }
+
+    private void saveBatch(ExperimentDBService experimentDBService, List<PendingResult> batch,
+                           Map<PendingResult, FailedUpdateResultsAPIObject> failures) {
+        Map<KruizeResultsEntry, PendingResult> entryToResult = new IdentityHashMap<>();
+        List<KruizeResultsEntry> kruizeResultsEntries = new ArrayList<>();
+        for (PendingResult pendingResult : batch) {
+            KruizeResultsEntry kruizeResultsEntry = DBHelpers.Converters.KruizeObjectConverters
+                    .convertExperimentResultToExperimentResultsTable(pendingResult.getResultData());
+            if (null != kruizeResultsEntry.getErrorReasons() && !kruizeResultsEntry.getErrorReasons().isEmpty()) {
+                failures.put(pendingResult, toFailure(pendingResult.getResultData(), kruizeResultsEntry.getErrorReasons()));
+            } else {
+                entryToResult.put(kruizeResultsEntry, pendingResult);
+                kruizeResultsEntries.add(kruizeResultsEntry);
+            }
+        }
+        for (KruizeResultsEntry failedEntry : experimentDBService.addResultEntriesToDBInBatch(kruizeResultsEntries)) {
+            PendingResult pendingResult = entryToResult.get(failedEntry);
+            if (null != pendingResult) {
+                failures.put(pendingResult, toFailure(pendingResult.getResultData(), failedEntry.getErrorReasons()));
+            }
+        }
+    }
+
+    private FailedUpdateResultsAPIObject toFailure(ExperimentResultData resultData, List<String> errorReasons) {
+        return new FailedUpdateResultsAPIObject(resultData.getVersion(), resultData.getExperiment_name(),
+                resultData.getIntervalStartTime(), resultData.getIntervalEndTime(),
+                ExperimentInitiator.getErrorMap(errorReasons));
+    }
+}
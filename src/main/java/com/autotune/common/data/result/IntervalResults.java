@@ -51,6 +51,19 @@ public class IntervalResults {
     public IntervalResults() {
     }
 
+    /**
+     * Copies the interval, the maps of metric results are copied and the metric results in them are shared
+     */
+    public IntervalResults(IntervalResults intervalResults) {
+        this.metricResultsMap = null == intervalResults.metricResultsMap ? null : new HashMap<>(intervalResults.metricResultsMap);
+        this.acceleratorMetricResultHashMap = null == intervalResults.acceleratorMetricResultHashMap ? null
+                : new HashMap<>(intervalResults.acceleratorMetricResultHashMap);
+        this.intervalStartTime = intervalResults.intervalStartTime;
+        this.intervalEndTime = intervalResults.intervalEndTime;
+        this.durationInMinutes = intervalResults.durationInMinutes;
+        this.duration_in_seconds = intervalResults.duration_in_seconds;
+    }
+
     public Double getDurationInMinutes() {
         return durationInMinutes;
     }
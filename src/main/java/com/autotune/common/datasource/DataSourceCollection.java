@@ -20,6 +20,7 @@ import com.autotune.common.data.ValidationOutputData;
 import com.autotune.common.exceptions.datasource.*;
 import com.autotune.common.utils.CommonUtils;
 import com.autotune.database.service.ExperimentDBService;
+import com.autotune.operator.InitializeDeployment;
 import com.autotune.utils.KruizeConstants;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -141,7 +142,7 @@ public class DataSourceCollection {
      */
     public void addDataSourcesFromConfigFile(String configFileName) throws UnsupportedDataSourceProvider, DataSourceNotServiceable, DataSourceAlreadyExist, IOException, NoSuchAlgorithmException, KeyStoreException, KeyManagementException {
 
-        String configFile = System.getenv(configFileName);
+        String configFile = InitializeDeployment.getConfigFile(configFileName);
         JSONObject configObject;
         ValidationOutputData addedToDB;
 
@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.common.datasource;
+
+import com.autotune.analyzer.exceptions.DataSourceOverloadedException;
+import com.autotune.analyzer.exceptions.DataSourceRateLimitedException;
+import com.autotune.operator.KruizeDeploymentInfo;
+import com.autotune.utils.MetricsConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpResponseException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.autotune.utils.KruizeConstants.KRUIZE_DATASOURCE_LIMITER.*;
+
+/**
+ * Limits the number of requests in flight to a datasource, with an AIMD limit and a circuit breaker.
+ * <p>
+ * The limit grows by one for every limit's worth of successful requests, and is halved when the datasource
+ * times out, answers 429 or 503, or asks to reduce the request rate. Other failures, such as an unknown host or a
+ * refused connection, say nothing about the load of the datasource and leave the limit as it is. After
+ * FAILURE_THRESHOLD consecutive failures of either kind the circuit opens and requests are rejected for
+ * OPEN_MILLIS, after which a single probe request is let through to decide whether to close the circuit again.
+ */
+public class DataSourceLimiter {
+    private static final Map<String, DataSourceLimiter> limiters = new ConcurrentHashMap<>();
+
+    private final String dataSourceName;
+    private final Clock clock;
+    private final double maxLimit;
+    private double limit;
+    private int inFlight;
+    private int consecutiveFailures;
+    private CircuitState circuitState = CircuitState.CLOSED;
+    private long openUntil;
+    private final Counter circuitOpenRejections;
+    private final Counter timeoutRejections;
+    private final Counter overloadSignals;
+
+    DataSourceLimiter(String dataSourceName, int initialLimit, int maxLimit) {
+        this(dataSourceName, initialLimit, maxLimit, Clock.systemUTC());
+    }
+
+    DataSourceLimiter(String dataSourceName, int initialLimit, int maxLimit, Clock clock) {
+        this.dataSourceName = dataSourceName;
+        this.clock = clock;
+        this.maxLimit = Math.max(MIN_CONCURRENCY, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(MIN_CONCURRENCY, initialLimit));
+        Gauge.builder("kruizeDatasource_concurrency_limit", this, DataSourceLimiter::getLimit)
+                .description("Current limit of requests in flight to the datasource").tag("datasource", dataSourceName)
+                .register(MetricsConfig.meterRegistry());
+        Gauge.builder("kruizeDatasource_in_flight", this, DataSourceLimiter::getInFlight)
+                .description("Requests in flight to the datasource").tag("datasource", dataSourceName)
+                .register(MetricsConfig.meterRegistry());
+        Gauge.builder("kruizeDatasource_circuit_open", this, limiter -> limiter.isCircuitOpen() ? 1 : 0)
+                .description("Whether the circuit of the datasource is open").tag("datasource", dataSourceName)
+                .register(MetricsConfig.meterRegistry());
+        circuitOpenRejections = Counter.builder("kruizeDatasource_rejections").description("Requests rejected by the datasource limiter")
+                .tag("datasource", dataSourceName).tag("reason", "circuit_open").register(MetricsConfig.meterRegistry());
+        timeoutRejections = Counter.builder("kruizeDatasource_rejections").description("Requests rejected by the datasource limiter")
+                .tag("datasource", dataSourceName).tag("reason", "timeout").register(MetricsConfig.meterRegistry());
+        overloadSignals = Counter.builder("kruizeDatasource_overload_signals")
+                .description("Timeouts, 429 and 503 responses and overload warnings from the datasource")
+                .tag("datasource", dataSourceName).register(MetricsConfig.meterRegistry());
+    }
+
+    /**
+     * Returns the limiter of a datasource, null if limiting is disabled
+     */
+    public static DataSourceLimiter getInstance(DataSourceInfo dataSourceInfo) {
+        if (!Boolean.TRUE.equals(KruizeDeploymentInfo.datasource_limiter) || null == dataSourceInfo) {
+            return null;
+        }
+        String name = null != dataSourceInfo.getName() ? dataSourceInfo.getName() : String.valueOf(dataSourceInfo.getUrl());
+        return limiters.computeIfAbsent(name, k -> new DataSourceLimiter(k,
+                KruizeDeploymentInfo.datasource_initial_concurrency, KruizeDeploymentInfo.datasource_max_concurrency));
+    }
+
+    /**
+     * Returns the outcome of a request which failed with the given exception
+     */
+    public static Outcome outcomeOf(IOException e) {
+        if (e instanceof InterruptedIOException || e instanceof DataSourceRateLimitedException) {
+            // connect and socket timeouts
+            return Outcome.OVERLOAD;
+        }
+        if (e instanceof HttpResponseException) {
+            int statusCode = ((HttpResponseException) e).getStatusCode();
+            if (statusCode == TOO_MANY_REQUESTS || statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE) {
+                return Outcome.OVERLOAD;
+            }
+        }
+        return Outcome.FAILURE;
+    }
+
+    public synchronized double getLimit() {
+        return limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized boolean isCircuitOpen() {
+        return circuitState == CircuitState.OPEN && clock.millis() < openUntil;
+    }
+
+    /**
+     * Waits for a request slot, every successful acquire has to be followed by a call to release
+     *
+     * @throws DataSourceOverloadedException if the circuit is open or no slot became free in time
+     */
+    public synchronized void acquire() throws DataSourceOverloadedException, InterruptedException {
+        long deadline = clock.millis() + ACQUIRE_TIMEOUT_MILLIS;
+        while (true) {
+            long now = clock.millis();
+            if (circuitState == CircuitState.OPEN) {
+                if (now < openUntil) {
+                    circuitOpenRejections.increment();
+                    throw new DataSourceOverloadedException(String.format(CIRCUIT_OPEN_MSG, dataSourceName,
+                            (openUntil - now + 999) / 1000));
+                }
+                // let a single probe through
+                circuitState = CircuitState.HALF_OPEN;
+                if (inFlight == 0) {
+                    break;
+                }
+            } else if (circuitState == CircuitState.HALF_OPEN) {
+                if (inFlight == 0) {
+                    break;
+                }
+            } else if (inFlight < (int) limit) {
+                break;
+            }
+            long remaining = deadline - now;
+            if (remaining <= 0) {
+                timeoutRejections.increment();
+                throw new DataSourceOverloadedException(String.format(ACQUIRE_TIMEOUT_MSG, dataSourceName));
+            }
+            wait(circuitState == CircuitState.HALF_OPEN ? Math.min(remaining, OPEN_MILLIS) : remaining);
+        }
+        inFlight++;
+    }
+
+    /**
+     * Releases a request slot with the outcome of the request
+     */
+    public synchronized void release(Outcome outcome) {
+        inFlight--;
+        switch (outcome) {
+            case SUCCESS:
+                consecutiveFailures = 0;
+                circuitState = CircuitState.CLOSED;
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+                break;
+            case OVERLOAD:
+                overloadSignals.increment();
+                limit = Math.max(MIN_CONCURRENCY, limit * DECREASE_FACTOR);
+                recordFailure();
+                break;
+            case FAILURE:
+                recordFailure();
+                break;
+            default:
+                // errors which say nothing about the load of the datasource leave the limit as it is
+                break;
+        }
+        notifyAll();
+    }
+
+    private void recordFailure() {
+        consecutiveFailures++;
+        if (circuitState == CircuitState.HALF_OPEN || consecutiveFailures >= FAILURE_THRESHOLD) {
+            circuitState = CircuitState.OPEN;
+            openUntil = clock.millis() + OPEN_MILLIS;
+        }
+    }
+
+    public enum Outcome {
+        SUCCESS,
+        // the datasource is overloaded, the limit is decreased
+        OVERLOAD,
+        // the request failed for a reason unrelated to the load of the datasource
+        FAILURE,
+        IGNORE
+    }
+
+    private enum CircuitState {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+}
@@ -0,0 +1,289 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.common.datasource;
+
+import com.autotune.metrics.RecommendationStageMetrics;
+import com.autotune.metrics.RecommendationStageMetrics.Stage;
+import com.autotune.operator.KruizeDeploymentInfo;
+import com.autotune.utils.GenericRestApiClient;
+import com.autotune.utils.KruizeConstants;
+import com.autotune.utils.MetricsConfig;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URLEncoder;
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static com.autotune.analyzer.utils.AnalyzerConstants.ServiceConstants.CHARACTER_ENCODING;
+import static com.autotune.utils.KruizeConstants.KRUIZE_QUERY_CACHE.*;
+
+/**
+ * Caches the results of datasource queries for a short time, shared by all the experiments and requests.
+ * <p>
+ * Results are keyed by the datasource, the query with its whitespace normalized and, for range queries, the
+ * start, end and step of the window. The RangeQuerySplitter aligns the windows to the step grid, so windows ending
+ * at the time a query was evaluated share their results within a step. Instant queries are evaluated at the current
+ * time, their results are served for queryCacheTtlSecs, like those of range queries. Identical requests in flight
+ * at the same time are collapsed into one request to the datasource. The cache is bounded by queryCacheMaxMB, least
+ * recently used results are evicted first. Callers get their own copy of the results, made outside the lock, so
+ * the cached results cannot be changed by them.
+ */
+public class DataSourceQueryCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataSourceQueryCache.class);
+    private static volatile DataSourceQueryCache instance;
+
+    private final Clock clock;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<JsonArray>> inFlight = new ConcurrentHashMap<>();
+    private long totalBytes;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter collapsedCounter;
+    private final Counter bytesSavedCounter;
+
+    private DataSourceQueryCache() {
+        this(Clock.systemUTC());
+    }
+
+    DataSourceQueryCache(Clock clock) {
+        this.clock = clock;
+        Gauge.builder("kruizeQueryCache_entries", this, DataSourceQueryCache::size)
+                .description("Query results held in the datasource query cache").register(MetricsConfig.meterRegistry());
+        Gauge.builder("kruizeQueryCache_bytes", this, DataSourceQueryCache::getTotalBytes)
+                .description("Approximate size of the query results held in the datasource query cache")
+                .register(MetricsConfig.meterRegistry());
+        hitCounter = Counter.builder("kruizeQueryCache_requests").description("Requests to the datasource query cache")
+                .tag("result", "hit").register(MetricsConfig.meterRegistry());
+        missCounter = Counter.builder("kruizeQueryCache_requests").description("Requests to the datasource query cache")
+                .tag("result", "miss").register(MetricsConfig.meterRegistry());
+        collapsedCounter = Counter.builder("kruizeQueryCache_requests").description("Requests to the datasource query cache")
+                .tag("result", "collapsed").register(MetricsConfig.meterRegistry());
+        bytesSavedCounter = Counter.builder("kruizeQueryCache_bytes_saved")
+                .description("Approximate size of the query results served without querying the datasource")
+                .register(MetricsConfig.meterRegistry());
+    }
+
+    public static DataSourceQueryCache getInstance() {
+        if (null == instance) {
+            synchronized (DataSourceQueryCache.class) {
+                if (null == instance) {
+                    instance = new DataSourceQueryCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Collapses runs of whitespace in a query, so queries formatted differently share their results
+     */
+    static String normalize(String query) {
+        return query.trim().replaceAll("\\s+", " ");
+    }
+
+    private static String dataSourceKey(DataSourceInfo dataSourceInfo) {
+        return null != dataSourceInfo.getName() ? dataSourceInfo.getName() : String.valueOf(dataSourceInfo.getUrl());
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Returns the results of an instant query evaluated at the current time, or at most queryCacheTtlSecs earlier
+     *
+     * @param query PromQL query, with all the variables replaced
+     * @return results in the format of the query response, never null
+     */
+    public JsonArray fetchInstant(DataSourceInfo dataSourceInfo, String query) throws Exception {
+        String key = dataSourceKey(dataSourceInfo) + KEY_SEPARATOR + INSTANT + KEY_SEPARATOR + normalize(query);
+        return get(key, () -> {
+            String url = String.format(KruizeConstants.DataSourceConstants.DATE_ENDPOINT_WITH_QUERY,
+                    dataSourceInfo.getUrl(), URLEncoder.encode(query, CHARACTER_ENCODING));
+            return fetchResults(dataSourceInfo, url);
+        });
+    }
+
+    /**
+     * Queries the datasource and returns the result array of the response, recording the fetch and the decoding
+     * of the response as stages of the recommendation pipeline
+     *
+     * @param url query URL, with the query encoded
+     * @return results of the response, never null
+     */
+    static JsonArray fetchResults(DataSourceInfo dataSourceInfo, String url) throws Exception {
+        LOGGER.debug(url);
+        JSONObject genericJsonObject;
+        try (RecommendationStageMetrics.StageSample ignored = RecommendationStageMetrics.start(Stage.DATASOURCE_FETCH)) {
+            GenericRestApiClient client = new GenericRestApiClient(dataSourceInfo);
+            client.setBaseURL(url);
+            genericJsonObject = client.fetchMetricsJson(KruizeConstants.APIMessages.GET, "");
+        }
+        try (RecommendationStageMetrics.StageSample ignored = RecommendationStageMetrics.start(Stage.JSON_DECODE)) {
+            String response = genericJsonObject.toString();
+            RecommendationStageMetrics.recordBytes(Stage.DATASOURCE_FETCH, response.length());
+            JsonObject jsonObject = new Gson().fromJson(response, JsonObject.class);
+            JsonArray resultArray = jsonObject.getAsJsonObject(KruizeConstants.JSONKeys.DATA)
+                    .getAsJsonArray(KruizeConstants.DataSourceConstants.DataSourceQueryJSONKeys.RESULT);
+            if (null == resultArray) {
+                return new JsonArray();
+            }
+            RecommendationStageMetrics.recordRows(Stage.DATASOURCE_FETCH, resultArray.size());
+            return resultArray;
+        }
+    }
+
+    /**
+     * Returns the results of a range query, loading them with the loader when they are not cached
+     *
+     * @param query  PromQL query, with all the variables replaced
+     * @param startEpoch start of the window, aligned to the step grid by the caller
+     * @param endEpoch   end of the window, aligned to the step grid by the caller
+     * @param loader fetches the results from the datasource
+     * @return results in the format of the query_range response
+     */
+    public JsonArray fetchRange(DataSourceInfo dataSourceInfo, String query, long startEpoch, long endEpoch, long stepSecs,
+                                Callable<JsonArray> loader) throws Exception {
+        String key = dataSourceKey(dataSourceInfo) + KEY_SEPARATOR + startEpoch + KEY_SEPARATOR + endEpoch
+                + KEY_SEPARATOR + stepSecs + KEY_SEPARATOR + normalize(query);
+        return get(key, loader);
+    }
+
+    JsonArray get(String key, Callable<JsonArray> loader) throws Exception {
+        if (!Boolean.TRUE.equals(KruizeDeploymentInfo.query_cache)) {
+            return loader.call();
+        }
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (null != entry && entry.expiryTime <= clock.millis()) {
+                remove(key);
+                entry = null;
+            }
+        }
+        if (null != entry) {
+            hitCounter.increment();
+            bytesSavedCounter.increment(entry.bytes);
+            // the cached results are never changed, they are copied without holding the lock
+            return entry.results.deepCopy();
+        }
+        CompletableFuture<JsonArray> future = new CompletableFuture<>();
+        CompletableFuture<JsonArray> existing = inFlight.putIfAbsent(key, future);
+        if (null != existing) {
+            collapsedCounter.increment();
+            try {
+                return existing.get().deepCopy();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Exception) {
+                    throw (Exception) e.getCause();
+                }
+                throw e;
+            }
+        }
+        missCounter.increment();
+        try {
+            JsonArray results = loader.call();
+            put(key, results);
+            future.complete(results);
+            return results.deepCopy();
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private void put(String key, JsonArray results) {
+        // estimated before taking the lock
+        long bytes = estimateBytes(results);
+        long maxBytes = (long) KruizeDeploymentInfo.query_cache_max_mb * BYTES_PER_MB;
+        if (bytes > maxBytes) {
+            return;
+        }
+        Entry entry = new Entry(results, bytes,
+                clock.millis() + (long) KruizeDeploymentInfo.query_cache_ttl_secs * KruizeConstants.TimeConv.NO_OF_MSECS_IN_SEC);
+        synchronized (this) {
+            remove(key);
+            entries.put(key, entry);
+            totalBytes += bytes;
+            // least recently used first, expired entries never asked for again end up there
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext() && totalBytes > maxBytes) {
+                Map.Entry<String, Entry> eldest = iterator.next();
+                totalBytes -= eldest.getValue().bytes;
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the approximate size of the results in their JSON form, without serializing them
+     */
+    static long estimateBytes(JsonArray results) {
+        long bytes = 0;
+        for (JsonElement result : results) {
+            if (!result.isJsonObject()) {
+                bytes += SAMPLE_BYTES;
+                continue;
+            }
+            JsonObject resultObject = result.getAsJsonObject();
+            JsonObject labels = resultObject.getAsJsonObject(KruizeConstants.JSONKeys.METRIC);
+            if (null != labels) {
+                for (Map.Entry<String, JsonElement> label : labels.entrySet()) {
+                    bytes += label.getKey().length() + label.getValue().toString().length() + LABEL_OVERHEAD_BYTES;
+                }
+            }
+            JsonArray values = resultObject.getAsJsonArray(KruizeConstants.DataSourceConstants.DataSourceQueryJSONKeys.VALUES);
+            bytes += (null == values ? 1 : values.size()) * SAMPLE_BYTES;
+        }
+        return bytes;
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (null != removed) {
+            totalBytes -= removed.bytes;
+        }
+    }
+
+    private static class Entry {
+        private final JsonArray results;
+        private final long bytes;
+        private final long expiryTime;
+
+        private Entry(JsonArray results, long bytes, long expiryTime) {
+            this.results = results;
+            this.bytes = bytes;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
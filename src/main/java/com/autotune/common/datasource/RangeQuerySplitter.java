@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.common.datasource;
+
+import com.autotune.analyzer.exceptions.DataSourceOverloadedException;
+import com.autotune.operator.KruizeDeploymentInfo;
+import com.autotune.utils.KruizeConstants;
+import com.autotune.utils.MetricsConfig;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.autotune.analyzer.utils.AnalyzerConstants.ServiceConstants.CHARACTER_ENCODING;
+
+/**
+ * Fetches range queries from the datasource in time chunks.
+ * <p>
+ * A window is first aligned to the step grid, so the same window requested at different times within a step is the
+ * same query, whose chunks are shared through the DataSourceQueryCache. It is then split into chunks which start on
+ * that grid, so the samples returned are the same as those of a single query over the whole window. Each chunk
+ * stays under the points per series limit of Prometheus and under rangeQueryChunkHours, a day by default, so no
+ * single request makes the datasource load weeks of samples at once. Chunks are fetched in parallel on a pool
+ * shared by all the callers, which bounds the number of range queries in flight, and are retried on their own
+ * when the datasource fails or asks to reduce the request rate. The results are stitched back into one series per
+ * label set, in the format of the query_range response.
+ */
+public class RangeQuerySplitter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RangeQuerySplitter.class);
+    private static volatile ExecutorService chunkPool;
+
+    private final DataSourceInfo dataSourceInfo;
+
+    public RangeQuerySplitter(DataSourceInfo dataSourceInfo) {
+        this.dataSourceInfo = dataSourceInfo;
+    }
+
+    /**
+     * Aligns an epoch to the step grid, rounding up or down
+     */
+    public static long alignToStep(long epochSecs, long stepSecs, boolean roundUp) {
+        long aligned = Math.floorDiv(epochSecs, stepSecs) * stepSecs;
+        return roundUp && aligned < epochSecs ? aligned + stepSecs : aligned;
+    }
+
+    /**
+     * Splits a window into chunks aligned to the step grid of the window
+     *
+     * @param startEpoch       start of the window in epoch seconds
+     * @param endEpoch         end of the window in epoch seconds
+     * @param stepSecs         step of the query in seconds
+     * @param maxPointsPerChunk maximum number of points of a series in one chunk
+     * @return start and end of each chunk in epoch seconds, in time order
+     */
+    static List<long[]> split(long startEpoch, long endEpoch, long stepSecs, long maxPointsPerChunk) {
+        List<long[]> chunks = new ArrayList<>();
+        if (stepSecs <= 0 || endEpoch < startEpoch) {
+            chunks.add(new long[]{startEpoch, endEpoch});
+            return chunks;
+        }
+        long chunkSecs = Math.max(1, maxPointsPerChunk) * stepSecs;
+        for (long chunkStart = startEpoch; chunkStart <= endEpoch; chunkStart += chunkSecs) {
+            chunks.add(new long[]{chunkStart, Math.min(endEpoch, chunkStart + chunkSecs - stepSecs)});
+        }
+        return chunks;
+    }
+
+    /**
+     * Returns the maximum number of points of a series in one chunk for the given step
+     */
+    static long getMaxPointsPerChunk(long stepSecs) {
+        long maxPoints = KruizeConstants.KRUIZE_RANGE_QUERY.MAX_POINTS_PER_SERIES;
+        if (null != KruizeDeploymentInfo.range_query_chunk_hours && KruizeDeploymentInfo.range_query_chunk_hours > 0 && stepSecs > 0) {
+            long chunkSecs = (long) KruizeDeploymentInfo.range_query_chunk_hours * KruizeConstants.TimeConv.NO_OF_MINUTES_PER_HOUR
+                    * KruizeConstants.TimeConv.NO_OF_SECONDS_PER_MINUTE;
+            maxPoints = Math.min(maxPoints, Math.max(1, chunkSecs / stepSecs));
+        }
+        return maxPoints;
+    }
+
+    /**
+     * Merges the results of the chunks into one series per label set, samples at the same time are kept once
+     *
+     * @param chunkResults results of each chunk, in time order
+     * @return results in the format of the query_range response
+     */
+    static JsonArray stitch(List<JsonArray> chunkResults) {
+        Map<String, JsonObject> seriesByLabels = new LinkedHashMap<>();
+        Map<String, Long> lastTimeByLabels = new HashMap<>();
+        for (JsonArray resultArray : chunkResults) {
+            for (JsonElement result : resultArray) {
+                JsonObject resultObject = result.getAsJsonObject();
+                JsonObject labels = resultObject.getAsJsonObject(KruizeConstants.JSONKeys.METRIC);
+                String labelsKey = null == labels ? "" : labels.toString();
+                JsonObject series = seriesByLabels.computeIfAbsent(labelsKey, k -> {
+                    JsonObject newSeries = new JsonObject();
+                    newSeries.add(KruizeConstants.JSONKeys.METRIC, null == labels ? new JsonObject() : labels);
+                    newSeries.add(KruizeConstants.DataSourceConstants.DataSourceQueryJSONKeys.VALUES, new JsonArray());
+                    return newSeries;
+                });
+                JsonArray values = series.getAsJsonArray(KruizeConstants.DataSourceConstants.DataSourceQueryJSONKeys.VALUES);
+                JsonArray chunkValues = resultObject.getAsJsonArray(KruizeConstants.DataSourceConstants.DataSourceQueryJSONKeys.VALUES);
+                if (null == chunkValues) {
+                    continue;
+                }
+                Long lastTime = lastTimeByLabels.get(labelsKey);
+                for (JsonElement value : chunkValues) {
+                    long time = value.getAsJsonArray().get(0).getAsLong();
+                    if (null != lastTime && time <= lastTime) {
+                        continue;
+                    }
+                    values.add(value);
+                    lastTime = time;
+                }
+                if (null != lastTime) {
+                    lastTimeByLabels.put(labelsKey, lastTime);
+                }
+            }
+        }
+        JsonArray stitched = new JsonArray();
+        seriesByLabels.values().forEach(stitched::add);
+        return stitched;
+    }
+
+    private static ExecutorService getChunkPool() {
+        if (null == chunkPool) {
+            synchronized (RangeQuerySplitter.class) {
+                if (null == chunkPool) {
+                    int threads = Math.max(1, KruizeDeploymentInfo.range_query_chunk_threads);
+                    LOGGER.info("Starting range query chunk pool with {} threads", threads);
+                    chunkPool = Executors.newFixedThreadPool(threads, runnable -> {
+                        Thread thread = new Thread(runnable, "range-query-chunk");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return chunkPool;
+    }
+
+    /**
+     * Fetches the results of a range query over the window
+     *
+     * @param query      PromQL query, with all the variables replaced
+     * @param startEpoch start of the window in epoch seconds
+     * @param endEpoch   end of the window in epoch seconds
+     * @param stepSecs   step of the query in seconds
+     * @return results in the format of the query_range response, never null
+     * @throws Exception if a chunk still fails after its retries
+     */
+    public JsonArray fetch(String query, long startEpoch, long endEpoch, long stepSecs) throws Exception {
+        // the window keeps the samples of the grid within it, a window holding none is left as it is
+        if (stepSecs > 0 && alignToStep(startEpoch, stepSecs, true) <= alignToStep(endEpoch, stepSecs, false)) {
+            startEpoch = alignToStep(startEpoch, stepSecs, true);
+            endEpoch = alignToStep(endEpoch, stepSecs, false);
+        }
+        List<long[]> chunks = split(startEpoch, endEpoch, stepSecs, getMaxPointsPerChunk(stepSecs));
+        if (chunks.size() == 1) {
+            return fetchChunk(query, chunks.get(0)[0], chunks.get(0)[1], stepSecs);
+        }
+        ExecutorService pool = getChunkPool();
+        List<Future<JsonArray>> futures = new ArrayList<>();
+        for (long[] chunk : chunks) {
+            futures.add(pool.submit(() -> fetchChunk(query, chunk[0], chunk[1], stepSecs)));
+        }
+        List<JsonArray> chunkResults = new ArrayList<>();
+        try {
+            for (Future<JsonArray> future : futures) {
+                chunkResults.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+        return stitch(chunkResults);
+    }
+
+    /**
+     * Fetches one chunk through the query cache, a chunk loaded from the datasource is retried on IO failures such
+     * as the datasource asking to reduce the request rate
+     */
+    private JsonArray fetchChunk(String query, long chunkStart, long chunkEnd, long stepSecs) throws Exception {
+        return DataSourceQueryCache.getInstance().fetchRange(dataSourceInfo, query, chunkStart, chunkEnd, stepSecs,
+                () -> loadChunk(query, chunkStart, chunkEnd, stepSecs));
+    }
+
+    private JsonArray loadChunk(String query, long chunkStart, long chunkEnd, long stepSecs) throws Exception {
+        String url = String.format(KruizeConstants.DataSourceConstants.DATASOURCE_ENDPOINT_WITH_QUERY_RANGE,
+                dataSourceInfo.getUrl(), URLEncoder.encode(query, CHARACTER_ENCODING), chunkStart, chunkEnd, stepSecs);
+        long retryIntervalMillis = KruizeConstants.KRUIZE_RANGE_QUERY.RETRY_INTERVAL_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return DataSourceQueryCache.fetchResults(dataSourceInfo, url);
+            } catch (IOException e) {
+                // a rejection by the limiter is not retried, the datasource is known to be overloaded
+                if (attempt >= KruizeConstants.KRUIZE_RANGE_QUERY.CHUNK_ATTEMPTS || e instanceof DataSourceOverloadedException) {
+                    throw e;
+                }
+                LOGGER.warn("Retrying chunk {} - {} of range query after attempt {} failed due to : {}", chunkStart, chunkEnd,
+                        attempt, e.getMessage());
+                Counter.builder("kruizeRangeQuery_chunk_retries")
+                        .description("Range query chunks retried after the datasource failed")
+                        .register(MetricsConfig.meterRegistry()).increment();
+                Thread.sleep(retryIntervalMillis);
+                retryIntervalMillis *= 2;
+            }
+        }
+    }
+}
@@ -50,6 +50,10 @@ public class KubernetesServicesImpl implements KubernetesServices {
         initialize();
     }
 
+    public KubernetesServicesImpl(KubernetesClient kubernetesClient) {
+        this.kubernetesClient = kubernetesClient;
+    }
+
     /**
      * kubernetesClient client connection established inside cluster itself
      */
@@ -0,0 +1,292 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.database.coordination;
+
+import com.autotune.database.init.KruizeHibernateUtil;
+import com.autotune.operator.KruizeDeploymentInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.autotune.database.helper.DBConstants.SQLQUERY.*;
+import static com.autotune.utils.KruizeConstants.CoordinationConstants.*;
+
+/**
+ * Coordinates the background work of several Kruize replicas through the Kruize database, with no other coordinator.
+ * <p>
+ * Every replica heartbeats a row of kruize_replicas; the replicas whose heartbeat is recent enough are live, and the
+ * experiments are assigned to the live replicas by a consistent hash ring, so each replica only works on its own
+ * experiments and only the experiments of a failed replica move when it stops heartbeating.
+ * <p>
+ * Singleton duties are guarded by Postgres session advisory locks, taken with pg_try_advisory_lock on a connection
+ * the coordinator keeps open. The lock of a duty is held until the replica releases it or its connection dies, at
+ * which point another replica takes the duty on its next attempt.
+ */
+public class KruizeCoordinator implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(KruizeCoordinator.class);
+    private static KruizeCoordinator instance;
+
+    private final String replicaId;
+    private final ConnectionFactory connectionFactory;
+    private final int replicaTimeoutSecs;
+    private final Set<String> heldDuties = new HashSet<>();
+    private Connection connection;
+    private volatile ConsistentHashRing ring = ConsistentHashRing.EMPTY;
+    private ScheduledExecutorService scheduler;
+
+    public KruizeCoordinator(String replicaId, ConnectionFactory connectionFactory, int replicaTimeoutSecs) {
+        this.replicaId = replicaId;
+        this.connectionFactory = connectionFactory;
+        this.replicaTimeoutSecs = replicaTimeoutSecs;
+    }
+
+    /**
+     * Returns the coordinator of this replica, started on first use, null if coordination is disabled
+     */
+    public static synchronized KruizeCoordinator getInstance() {
+        if (!KruizeDeploymentInfo.coordination) {
+            return null;
+        }
+        if (null == instance) {
+            String replicaId = System.getenv(REPLICA_ID_ENV);
+            if (null == replicaId || replicaId.isBlank()) {
+                replicaId = UUID.randomUUID().toString();
+            }
+            instance = new KruizeCoordinator(replicaId, () -> DriverManager.getConnection(KruizeHibernateUtil.getConnectionURL(),
+                    KruizeDeploymentInfo.database_username, KruizeDeploymentInfo.database_password),
+                    KruizeDeploymentInfo.coordination_replica_timeout_secs);
+            instance.start(KruizeDeploymentInfo.coordination_heartbeat_secs);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns true if this replica should process the experiment: always when coordination is disabled
+     */
+    public static boolean isAssignedToThisReplica(String experimentName) {
+        KruizeCoordinator coordinator = getInstance();
+        return null == coordinator || coordinator.owns(experimentName);
+    }
+
+    public String getReplicaId() {
+        return replicaId;
+    }
+
+    /**
+     * Heartbeats now and then every heartbeatSecs on a background thread
+     */
+    public synchronized void start(int heartbeatSecs) {
+        if (null != scheduler) {
+            return;
+        }
+        scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "kruize-coordinator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                heartbeat();
+            } catch (SQLException e) {
+                LOGGER.warn("Replica {} could not heartbeat: {}", replicaId, e.getMessage());
+            }
+        }, 0, heartbeatSecs, TimeUnit.SECONDS);
+        LOGGER.info("Replica {} started coordinating with a heartbeat every {}s", replicaId, heartbeatSecs);
+    }
+
+    /**
+     * Runs the task every periodSecs on the replica holding the duty. Every replica schedules it, and the one that
+     * gets the lock first keeps running it until it goes away.
+     */
+    public synchronized void scheduleDuty(String duty, Runnable task, long initialDelaySecs, long periodSecs) {
+        if (null == scheduler) {
+            throw new IllegalStateException("Coordinator of replica " + replicaId + " is not started");
+        }
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                runIfLeader(duty, task);
+            } catch (Exception e) {
+                LOGGER.error("Duty {} failed on replica {}: {}", duty, replicaId, e.getMessage());
+            }
+        }, initialDelaySecs, periodSecs, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Records the heartbeat of this replica, forgets the replicas that stopped heartbeating and rebuilds the ring of
+     * the live ones if it changed. On a database error this replica owns nothing until the next heartbeat succeeds.
+     */
+    public synchronized void heartbeat() throws SQLException {
+        try {
+            Connection c = connection();
+            try (PreparedStatement statement = c.prepareStatement(UPSERT_REPLICA_HEARTBEAT)) {
+                statement.setString(1, replicaId);
+                statement.executeUpdate();
+            }
+            try (PreparedStatement statement = c.prepareStatement(DELETE_STALE_REPLICAS)) {
+                statement.setInt(1, replicaTimeoutSecs);
+                statement.executeUpdate();
+            }
+            List<String> liveReplicas = new ArrayList<>();
+            try (PreparedStatement statement = c.prepareStatement(SELECT_LIVE_REPLICAS)) {
+                statement.setInt(1, replicaTimeoutSecs);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        liveReplicas.add(resultSet.getString(1));
+                    }
+                }
+            }
+            if (!liveReplicas.equals(ring.getMembers())) {
+                LOGGER.info("Live replicas changed from {} to {}, rebalancing the experiments", ring.getMembers(), liveReplicas);
+                ring = new ConsistentHashRing(liveReplicas, VIRTUAL_NODES_PER_REPLICA);
+            }
+        } catch (SQLException e) {
+            resetConnection();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns true if the experiment is assigned to this replica by the ring of the live replicas
+     */
+    public boolean owns(String experimentName) {
+        return replicaId.equals(ring.ownerOf(experimentName));
+    }
+
+    public List<String> getLiveReplicas() {
+        return ring.getMembers();
+    }
+
+    /**
+     * Takes the advisory lock of the duty if no replica holds it, returns true if this replica holds it
+     */
+    public synchronized boolean tryAcquireDuty(String duty) {
+        try {
+            // the lock lives as long as the session, so a held duty only needs the connection to be alive
+            if (heldDuties.contains(duty) && connection.isValid(replicaTimeoutSecs)) {
+                return true;
+            }
+        } catch (SQLException e) {
+            LOGGER.warn("Replica {} lost its coordination connection: {}", replicaId, e.getMessage());
+        }
+        if (heldDuties.contains(duty)) {
+            resetConnection();
+        }
+        try (PreparedStatement statement = connection().prepareStatement(TRY_ADVISORY_LOCK)) {
+            statement.setInt(1, ADVISORY_LOCK_CLASS_ID);
+            statement.setInt(2, dutyKey(duty));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next() && resultSet.getBoolean(1)) {
+                    heldDuties.add(duty);
+                    LOGGER.info("Replica {} took the duty {}", replicaId, duty);
+                    return true;
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.warn("Replica {} could not try the lock of duty {}: {}", replicaId, duty, e.getMessage());
+            resetConnection();
+        }
+        return false;
+    }
+
+    public synchronized void releaseDuty(String duty) {
+        if (!heldDuties.remove(duty)) {
+            return;
+        }
+        try (PreparedStatement statement = connection().prepareStatement(ADVISORY_UNLOCK)) {
+            statement.setInt(1, ADVISORY_LOCK_CLASS_ID);
+            statement.setInt(2, dutyKey(duty));
+            statement.executeQuery().close();
+        } catch (SQLException e) {
+            LOGGER.warn("Replica {} could not release the lock of duty {}: {}", replicaId, duty, e.getMessage());
+            resetConnection();
+        }
+    }
+
+    /**
+     * Runs the task if this replica holds the duty, returns true if it ran
+     */
+    public boolean runIfLeader(String duty, Runnable task) {
+        if (!tryAcquireDuty(duty)) {
+            return false;
+        }
+        task.run();
+        return true;
+    }
+
+    /**
+     * Releases the duties and leaves the ring, the other replicas rebalance on their next heartbeat
+     */
+    @Override
+    public synchronized void close() {
+        if (null != scheduler) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (null != connection) {
+            try (PreparedStatement unlock = connection.prepareStatement(ADVISORY_UNLOCK_ALL);
+                 PreparedStatement delete = connection.prepareStatement(DELETE_REPLICA)) {
+                unlock.executeQuery().close();
+                delete.setString(1, replicaId);
+                delete.executeUpdate();
+            } catch (SQLException e) {
+                LOGGER.warn("Replica {} could not leave cleanly: {}", replicaId, e.getMessage());
+            }
+        }
+        resetConnection();
+    }
+
+    private Connection connection() throws SQLException {
+        if (null == connection || connection.isClosed()) {
+            heldDuties.clear();
+            connection = connectionFactory.open();
+            connection.setAutoCommit(true);
+        }
+        return connection;
+    }
+
+    /**
+     * Drops the connection and everything that depended on it: the locks die with the session on the server side
+     */
+    private void resetConnection() {
+        if (null != connection) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                LOGGER.debug("Could not close the coordination connection: {}", e.getMessage());
+            }
+        }
+        connection = null;
+        heldDuties.clear();
+        ring = ConsistentHashRing.EMPTY;
+    }
+
+    private static int dutyKey(String duty) {
+        return (int) ConsistentHashRing.hash(duty);
+    }
+}
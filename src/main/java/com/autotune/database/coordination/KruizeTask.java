@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.database.coordination;
+
+/**
+ * Task claimed from the kruize_tasks table. The attempt identifies the claim: the queue only completes, retries or
+ * extends the task while it is still claimed by the same attempt. A task looked up by its key also carries its status,
+ * the worker that claimed it last, its last error and the result its worker saved.
+ */
+public class KruizeTask {
+    private final long id;
+    private final String type;
+    private final String key;
+    private final String payload;
+    private final int attempt;
+    private final int maxAttempts;
+    private String status;
+    private String claimedBy;
+    private String lastError;
+    private String result;
+
+    public KruizeTask(long id, String type, String key, String payload, int attempt, int maxAttempts) {
+        this.id = id;
+        this.type = type;
+        this.key = key;
+        this.payload = payload;
+        this.attempt = attempt;
+        this.maxAttempts = maxAttempts;
+    }
+
+    public KruizeTask(long id, String type, String key, String payload, int attempt, int maxAttempts, String status,
+                      String claimedBy, String lastError, String result) {
+        this(id, type, key, payload, attempt, maxAttempts);
+        this.status = status;
+        this.claimedBy = claimedBy;
+        this.lastError = lastError;
+        this.result = result;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public int getAttempt() {
+        return attempt;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public boolean isLastAttempt() {
+        return attempt >= maxAttempts;
+    }
+
+    @Override
+    public String toString() {
+        return type + "/" + id + (null == key ? "" : "(" + key + ")") + " attempt " + attempt + "/" + maxAttempts;
+    }
+}
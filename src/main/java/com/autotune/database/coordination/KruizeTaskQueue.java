@@ -0,0 +1,299 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.database.coordination;
+
+import com.autotune.database.init.KruizeHibernateUtil;
+import com.autotune.operator.KruizeDeploymentInfo;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.autotune.database.helper.DBConstants.SQLQUERY.*;
+import static com.autotune.utils.KruizeConstants.TaskQueueConstants.LEASE_EXPIRED_ERROR;
+import static com.autotune.utils.KruizeConstants.TaskQueueConstants.MAX_ERROR_LENGTH;
+
+/**
+ * Durable work queue on the kruize_tasks table, shared by all the replicas using the database.
+ * <p>
+ * A claim makes the task invisible to the other workers for the visibility timeout. The worker then completes the
+ * task, which deletes it, or fails it, which makes it visible again after an exponential backoff. A task whose worker
+ * died becomes visible again once its timeout expires, and a task that failed on its last attempt stays in the table
+ * with the dead status and the last error, for an admin to look at or requeue. A task completed with a result stays
+ * with the done status, so that the other replicas can read the result. Done and dead tasks are purged once they are
+ * older than the retention.
+ * <p>
+ * At most one queued or running task exists per type and key, so enqueuing work that is already pending is a no-op.
+ */
+public class KruizeTaskQueue {
+    private static volatile KruizeTaskQueue instance;
+
+    private final ConnectionFactory connectionFactory;
+    private final int visibilityTimeoutSecs;
+    private final int maxAttempts;
+    private final int backoffSecs;
+    private final int maxBackoffSecs;
+
+    public KruizeTaskQueue(ConnectionFactory connectionFactory, int visibilityTimeoutSecs, int maxAttempts,
+                           int backoffSecs, int maxBackoffSecs) {
+        this.connectionFactory = connectionFactory;
+        this.visibilityTimeoutSecs = visibilityTimeoutSecs;
+        this.maxAttempts = maxAttempts;
+        this.backoffSecs = backoffSecs;
+        this.maxBackoffSecs = maxBackoffSecs;
+    }
+
+    /**
+     * Returns the queue on the connection pool of the Kruize database
+     */
+    public static KruizeTaskQueue getInstance() {
+        if (null == instance) {
+            synchronized (KruizeTaskQueue.class) {
+                if (null == instance) {
+                    instance = new KruizeTaskQueue(KruizeHibernateUtil::getPooledConnection,
+                            KruizeDeploymentInfo.task_queue_visibility_timeout_secs, KruizeDeploymentInfo.task_queue_max_attempts,
+                            KruizeDeploymentInfo.task_queue_backoff_secs, KruizeDeploymentInfo.task_queue_max_backoff_secs);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Opens a connection in autocommit mode, the pooled connections of Hibernate are handed out with autocommit off
+     * and a statement left uncommitted is rolled back when the connection goes back to the pool
+     */
+    private Connection open() throws SQLException {
+        Connection connection = connectionFactory.open();
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
+    public int getVisibilityTimeoutSecs() {
+        return visibilityTimeoutSecs;
+    }
+
+    /**
+     * Adds a task, returns false if a task of the same type and key is already queued or running
+     *
+     * @param key identifies the work of the task, null if the task may be pending several times
+     */
+    public boolean enqueue(String type, String key, String payload) throws SQLException {
+        try (Connection connection = open();
+             PreparedStatement statement = connection.prepareStatement(ENQUEUE_TASK)) {
+            statement.setString(1, type);
+            statement.setString(2, key);
+            statement.setString(3, payload);
+            statement.setInt(4, maxAttempts);
+            return statement.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Claims up to maxTasks visible tasks of the type, oldest first, without waiting on the other workers
+     */
+    public List<KruizeTask> claim(String type, String workerId, int maxTasks) throws SQLException {
+        List<KruizeTask> tasks = new ArrayList<>(maxTasks);
+        try (Connection connection = open();
+             PreparedStatement statement = connection.prepareStatement(CLAIM_TASKS)) {
+            statement.setString(1, workerId);
+            statement.setInt(2, visibilityTimeoutSecs);
+            statement.setString(3, type);
+            statement.setInt(4, maxTasks);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    tasks.add(new KruizeTask(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3),
+                            resultSet.getString(4), resultSet.getInt(5), resultSet.getInt(6)));
+                }
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Deletes the task once done, returns false if its claim expired and it may run again
+     */
+    public boolean complete(KruizeTask task) throws SQLException {
+        return complete(task, null);
+    }
+
+    /**
+     * Marks the task done with its result, or deletes it if it has none. Returns false if its claim expired and it
+     * may run again.
+     */
+    public boolean complete(KruizeTask task, String result) throws SQLException {
+        try (Connection connection = open();
+             PreparedStatement statement = connection.prepareStatement(null == result ? COMPLETE_TASK : COMPLETE_TASK_WITH_RESULT)) {
+            int index = 1;
+            if (null != result) {
+                statement.setString(index++, result);
+            }
+            statement.setLong(index++, task.getId());
+            statement.setInt(index, task.getAttempt());
+            return statement.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Saves the result of a running task so far, returns false if its claim expired
+     */
+    public boolean saveResult(KruizeTask task, String result) throws SQLException {
+        try (Connection connection = open();
+             PreparedStatement statement = connection.prepareStatement(SAVE_TASK_RESULT)) {
+            statement.setString(1, result);
+            statement.setLong(2, task.getId());
+            statement.setInt(3, task.getAttempt());
+            return statement.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Returns the latest task of the type and key with its status and result, null if there is none
+     */
+    public KruizeTask find(String type, String key) throws SQLException {
+        try (Connection connection = open();
+             PreparedStatement statement = connection.prepareStatement(SELECT_LATEST_TASK)) {
+            statement.setString(1, type);
+            statement.setString(2, key);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                return new KruizeTask(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3),
+                        resultSet.getString(4), resultSet.getInt(5), resultSet.getInt(6), resultSet.getString(7),
+                        resultSet.getString(8), resultSet.getString(9), resultSet.getString(10));
+            }
+        }
+    }
+
+    /**
+     * Deletes the done and dead tasks last updated more than retentionSecs ago, returns the number deleted
+     */
+    public int purgeFinished(int retentionSecs) throws SQLException {
+        try (Connection connection = open();
+             PreparedStatement statement = connection.prepareStatement(PURGE_FINISHED_TASKS)) {
+            statement.setInt(1, retentionSecs);
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Records the failure of the attempt: the task is retried after the backoff of the attempt, or dead-lettered if
+     * it was the last one. Returns true if the task was dead-lettered.
+     */
+    public boolean fail(KruizeTask task, String error) throws SQLException {
+        String lastError = null == error || error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+        try (Connection connection = open()) {
+            if (task.isLastAttempt()) {
+                try (PreparedStatement statement = connection.prepareStatement(DEAD_LETTER_TASK)) {
+                    statement.setString(1, lastError);
+                    statement.setLong(2, task.getId());
+                    statement.setInt(3, task.getAttempt());
+                    return statement.executeUpdate() > 0;
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement(RETRY_TASK)) {
+                statement.setInt(1, getBackoffSecs(task.getAttempt()));
+                statement.setString(2, lastError);
+                statement.setLong(3, task.getId());
+                statement.setInt(4, task.getAttempt());
+                statement.executeUpdate();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Gives back a task that was claimed but not run, e.g. on shutdown, without counting the attempt
+     */
+    public boolean release(KruizeTask task) throws SQLException {
+        try (Connection connection = open();
+             PreparedStatement statement = connection.prepareStatement(RELEASE_TASK)) {
+            statement.setLong(1, task.getId());
+            statement.setInt(2, task.getAttempt());
+            return statement.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Pushes the visibility timeout of running tasks a full timeout from now, returns the number still claimed
+     */
+    public int extend(Collection<KruizeTask> tasks) throws SQLException {
+        if (tasks.isEmpty()) {
+            return 0;
+        }
+        Long[] ids = new Long[tasks.size()];
+        Integer[] attempts = new Integer[tasks.size()];
+        int i = 0;
+        for (KruizeTask task : tasks) {
+            ids[i] = task.getId();
+            attempts[i++] = task.getAttempt();
+        }
+        try (Connection connection = open();
+             PreparedStatement statement = connection.prepareStatement(EXTEND_TASKS)) {
+            statement.setInt(1, visibilityTimeoutSecs);
+            statement.setArray(2, connection.createArrayOf("bigint", ids));
+            statement.setArray(3, connection.createArrayOf("integer", attempts));
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Dead-letters the tasks whose last attempt expired, they are not claimable anymore
+     */
+    public int deadLetterExpired() throws SQLException {
+        try (Connection connection = open();
+             PreparedStatement statement = connection.prepareStatement(DEAD_LETTER_EXPIRED_TASKS)) {
+            statement.setString(1, LEASE_EXPIRED_ERROR);
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Returns the number of tasks by type then status
+     */
+    public Map<String, Map<String, Integer>> countByStatus() throws SQLException {
+        Map<String, Map<String, Integer>> counts = new HashMap<>();
+        try (Connection connection = open();
+             PreparedStatement statement = connection.prepareStatement(COUNT_TASKS_BY_STATUS);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                counts.computeIfAbsent(resultSet.getString(1), type -> new HashMap<>())
+                        .put(resultSet.getString(2), resultSet.getInt(3));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the delay before the retry that follows the failed attempt, doubling from the base backoff up to the max
+     */
+    public int getBackoffSecs(int attempt) {
+        long backoff = (long) backoffSecs << Math.min(Math.max(attempt - 1, 0), 30);
+        return (int) Math.min(backoff, maxBackoffSecs);
+    }
+}
@@ -9,6 +9,7 @@ import com.autotune.database.table.lm.KruizeLMExperimentEntry;
 import com.autotune.database.table.lm.KruizeLMRecommendationEntry;
 
 import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
 
 public interface ExperimentDAO {
@@ -23,6 +24,12 @@ public interface ExperimentDAO {
 
     public List<KruizeResultsEntry> addToDBAndFetchFailedResults(List<KruizeResultsEntry> kruizeResultsEntries);
 
+    // Add experiment results to DB as a single batched transaction, all or none of the entries are saved
+    public void addBatchResultsToDB(List<KruizeResultsEntry> kruizeResultsEntries) throws Exception;
+
+    // Add or update the recommendations of an experiment as a single batched transaction
+    public void addBatchRecommendationsToDB(List<KruizeRecommendationEntry> recommendationEntries) throws Exception;
+
     // Add recommendation  to DB
     public ValidationOutputData addRecommendationToDB(KruizeRecommendationEntry recommendationEntry);
 
@@ -79,12 +86,25 @@ public interface ExperimentDAO {
 
     List<KruizeResultsEntry> loadResultsByExperimentName(String experimentName, String cluster_name, Timestamp interval_start_time, Timestamp interval_end_time) throws Exception;
 
+    // Load the results of a time range, the long term part of it from the hourly and daily rollups of the results
+    List<KruizeResultsEntry> loadResultsByExperimentNameWithRollups(String experimentName, String cluster_name, Timestamp interval_start_time, Timestamp interval_end_time) throws Exception;
+
     // Load all recommendations of a particular experiment
     List<KruizeRecommendationEntry> loadRecommendationsByExperimentName(String experimentName) throws Exception;
 
     // Load all recommendations of a particular experiment
     List<KruizeLMRecommendationEntry> loadLMRecommendationsByExperimentName(String experimentName) throws Exception;
 
+    // Load only the latest recommendation of a particular experiment
+    List<KruizeRecommendationEntry> loadLatestRecommendationsByExperimentName(String experimentName) throws Exception;
+
+    List<KruizeLMRecommendationEntry> loadLatestLMRecommendationsByExperimentName(String experimentName) throws Exception;
+
+    // Load only the latest recommendation of every experiment
+    List<KruizeRecommendationEntry> loadAllLatestRecommendations() throws Exception;
+
+    List<KruizeLMRecommendationEntry> loadAllLatestLMRecommendations() throws Exception;
+
     // Load a single Performance Profile based on name
     List<KruizePerformanceProfileEntry> loadPerformanceProfileByName(String performanceProfileName) throws Exception;
 
@@ -129,4 +149,19 @@ public interface ExperimentDAO {
     public ValidationOutputData deleteKruizeDSMetadataEntryByName(String dataSourceName);
 
     ValidationOutputData addAuthenticationDetailsToDB(KruizeAuthenticationEntry kruizeAuthenticationEntry);
+
+    // Add the study of an in-process HPO experiment
+    ValidationOutputData addHPOStudyToDB(KruizeHPOStudyEntry kruizeHPOStudyEntry);
+
+    // Add a trial of an in-process HPO experiment or update its status and result
+    ValidationOutputData addOrUpdateHPOTrialToDB(KruizeHPOTrialEntry kruizeHPOTrialEntry);
+
+    // Load the study of an in-process HPO experiment by experiment name
+    List<KruizeHPOStudyEntry> loadHPOStudyByName(String experimentName) throws Exception;
+
+    // Load the trials of an in-process HPO experiment ordered by trial number
+    List<KruizeHPOTrialEntry> loadHPOTrialsByExperimentName(String experimentName) throws Exception;
+
+    // Load which of the given experiment names exist, with a single query
+    List<String> loadExistingLMExperimentNames(Collection<String> experimentNames) throws Exception;
 }
@@ -23,9 +23,14 @@ import com.autotune.analyzer.utils.AnalyzerErrorConstants;
 import com.autotune.common.data.ValidationOutputData;
 import com.autotune.database.helper.DBConstants;
 import com.autotune.database.init.KruizeHibernateUtil;
+import com.autotune.database.rollup.ResultsRollup;
+import com.autotune.database.rollup.ResultsRollupStore;
+import com.autotune.database.rollup.RollupReadPlan;
+import com.autotune.database.rollup.RollupTier;
 import com.autotune.database.table.*;
 import com.autotune.database.table.lm.KruizeLMExperimentEntry;
 import com.autotune.database.table.lm.KruizeLMRecommendationEntry;
+import com.autotune.operator.KruizeDeploymentInfo;
 import com.autotune.utils.KruizeConstants;
 import com.autotune.utils.MetricsConfig;
 import io.micrometer.core.instrument.Timer;
@@ -39,15 +44,20 @@ import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.IntStream;
 
 import static com.autotune.database.helper.DBConstants.DB_MESSAGES.DUPLICATE_KEY;
@@ -234,6 +244,7 @@ public class ExperimentDAOImpl implements ExperimentDAO {
             try {
                 tx = session.beginTransaction();
                 session.persist(resultsEntry);
+                updateResultsRollups(session, List.of(resultsEntry));
                 tx.commit();
                 validationOutputData.setSuccess(true);
                 statusValue = "success";
@@ -279,6 +290,7 @@ public class ExperimentDAOImpl implements ExperimentDAO {
                 try {
                     session.persist(entry);
                     session.flush();
+                    updateResultsRollups(session, List.of(entry));
                 } catch (PersistenceException e) {
                     ConstraintViolationException constraintViolationException = null;
                     String message = "";
@@ -303,8 +315,12 @@ public class ExperimentDAOImpl implements ExperimentDAO {
                             }
                             session.persist(entry);
                             session.flush();
+                            updateResultsRollups(session, List.of(entry));
                         } catch (Exception partitionException) {
                             LOGGER.error(partitionException.getMessage());
+                            tx.rollback();
+                            // drop the entry which failed, so that it is not flushed again with the next entries
+                            session.clear();
                             entry.setErrorReasons(List.of(partitionException.getMessage()));
                             failedResultsEntries.add(entry);
                         }
@@ -313,10 +329,15 @@ public class ExperimentDAOImpl implements ExperimentDAO {
                         failedResultsEntries.add(entry);
                     }
                 } catch (Exception e) {
+                    // the rollups could not be updated, the result is not saved either
+                    tx.rollback();
+                    session.clear();
                     entry.setErrorReasons(List.of(e.getMessage()));
                     failedResultsEntries.add(entry);
                 } finally {
-                    tx.commit();
+                    if (tx.isActive()) {
+                        tx.commit();
+                    }
                 }
             }
             statusValue = "success";
@@ -335,9 +356,151 @@ public class ExperimentDAOImpl implements ExperimentDAO {
         return failedResultsEntries;
     }
 
+    /**
+     * Adds the results to their hourly and daily rollups in the transaction of the session, when the rollups are
+     * enabled, so a result and its rollups are saved together or not at all.
+     *
+     * @throws Exception if the rollups could not be updated, the transaction should then be rolled back
+     */
+    private void updateResultsRollups(Session session, List<KruizeResultsEntry> kruizeResultsEntries) throws Exception {
+        if (!KruizeDeploymentInfo.results_rollups) {
+            return;
+        }
+        try {
+            session.doWork(connection -> ResultsRollupStore.addResults(connection, kruizeResultsEntries));
+        } catch (HibernateException e) {
+            // not a PersistenceException, so that the callers do not take it for a failure of the insert itself
+            throw new Exception(String.format(DBConstants.DB_MESSAGES.ROLLUP_UPDATE_FAILED, e.getMessage()));
+        }
+    }
+
+    /**
+     * Saves all the entries in a single transaction, so that the inserts go to the DB as JDBC batches.
+     * Nothing is saved if any of the entries fail, callers can fall back to addToDBAndFetchFailedResults
+     * to find out which of the entries failed.
+     *
+     * @param kruizeResultsEntries entries to be saved
+     * @throws Exception if the transaction could not be committed
+     */
+    @Override
+    public void addBatchResultsToDB(List<KruizeResultsEntry> kruizeResultsEntries) throws Exception {
+        Transaction tx = null;
+        String statusValue = "failure";
+        Timer.Sample timerAddBatchResultsDB = Timer.start(MetricsConfig.meterRegistry());
+        try (Session session = KruizeHibernateUtil.getSessionFactory().openSession()) {
+            try {
+                session.setJdbcBatchSize(kruizeResultsEntries.size());
+                tx = session.beginTransaction();
+                for (KruizeResultsEntry entry : kruizeResultsEntries) {
+                    session.persist(entry);
+                }
+                session.flush();
+                updateResultsRollups(session, kruizeResultsEntries);
+                tx.commit();
+                statusValue = "success";
+            } catch (Exception e) {
+                LOGGER.debug("Not able to save the batch of {} results due to {}", kruizeResultsEntries.size(), e.getMessage());
+                if (null != tx && tx.isActive()) tx.rollback();
+                throw new Exception(e.getMessage());
+            }
+        } finally {
+            if (null != timerAddBatchResultsDB) {
+                MetricsConfig.timerAddBatchResultsDB = MetricsConfig.timerBAddBatchResultsDB.tag("status", statusValue).register(MetricsConfig.meterRegistry());
+                timerAddBatchResultsDB.stop(MetricsConfig.timerAddBatchResultsDB);
+            }
+        }
+    }
+
+    /**
+     * Saves the recommendations of an experiment in a single transaction, so that the inserts go to the DB as
+     * JDBC batches. Recommendations already present for an interval end time are updated, the existing ones are
+     * looked up with a single query over the range of interval end times of the entries. When a partition is
+     * missing the partitions are created and the batch is saved again.
+     *
+     * @param recommendationEntries recommendations of a single experiment
+     * @throws Exception if the transaction could not be committed
+     */
+    @Override
+    public void addBatchRecommendationsToDB(List<KruizeRecommendationEntry> recommendationEntries) throws Exception {
+        if (recommendationEntries.isEmpty()) {
+            return;
+        }
+        String statusValue = "failure";
+        Timer.Sample timerAddBatchRecDB = Timer.start(MetricsConfig.meterRegistry());
+        try {
+            try {
+                saveRecommendationsBatch(recommendationEntries);
+            } catch (Exception e) {
+                if (!isMissingPartition(e)) {
+                    throw e;
+                }
+                // backfilled recommendations can fall in months that have no partition yet
+                LOGGER.debug(DBConstants.DB_MESSAGES.CREATE_PARTITION_RETRY);
+                recommendationEntries.stream()
+                        .map(entry -> entry.getInterval_end_time().toLocalDateTime().toLocalDate())
+                        .distinct()
+                        .forEach(date -> createPartitions(Timestamp.valueOf(date.atStartOfDay())));
+                saveRecommendationsBatch(recommendationEntries);
+            }
+            statusValue = "success";
+        } finally {
+            if (null != timerAddBatchRecDB) {
+                MetricsConfig.timerAddBatchRecDB = MetricsConfig.timerBAddBatchRecDB.tag("status", statusValue).register(MetricsConfig.meterRegistry());
+                timerAddBatchRecDB.stop(MetricsConfig.timerAddBatchRecDB);
+            }
+        }
+    }
+
+    private void saveRecommendationsBatch(List<KruizeRecommendationEntry> recommendationEntries) throws Exception {
+        Transaction tx = null;
+        Timestamp minEndTime = recommendationEntries.stream().map(KruizeRecommendationEntry::getInterval_end_time).min(Timestamp::compareTo).get();
+        Timestamp maxEndTime = recommendationEntries.stream().map(KruizeRecommendationEntry::getInterval_end_time).max(Timestamp::compareTo).get();
+        try (Session session = KruizeHibernateUtil.getSessionFactory().openSession()) {
+            try {
+                session.setJdbcBatchSize(recommendationEntries.size());
+                tx = session.beginTransaction();
+                Map<Timestamp, KruizeRecommendationEntry> existingEntries = new HashMap<>();
+                session.createQuery(DBConstants.SQLQUERY.SELECT_FROM_RECOMMENDATIONS_BY_EXP_NAME_AND_END_TIME_RANGE, KruizeRecommendationEntry.class)
+                        .setParameter(KruizeConstants.JSONKeys.EXPERIMENT_NAME, recommendationEntries.get(0).getExperiment_name())
+                        .setParameter(KruizeConstants.JSONKeys.INTERVAL_START_TIME, minEndTime)
+                        .setParameter(KruizeConstants.JSONKeys.INTERVAL_END_TIME, maxEndTime)
+                        .list()
+                        .forEach(entry -> existingEntries.put(entry.getInterval_end_time(), entry));
+                for (KruizeRecommendationEntry entry : recommendationEntries) {
+                    KruizeRecommendationEntry existingEntry = existingEntries.get(entry.getInterval_end_time());
+                    if (null == existingEntry) {
+                        session.persist(entry);
+                    } else {
+                        // managed entity, the update is flushed along with the inserts
+                        existingEntry.setExtended_data(entry.getExtended_data());
+                    }
+                }
+                session.flush();
+                tx.commit();
+            } catch (Exception e) {
+                LOGGER.error("Not able to save the batch of {} recommendations due to {}", recommendationEntries.size(), e.getMessage());
+                if (null != tx && tx.isActive()) tx.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private static boolean isMissingPartition(Throwable throwable) {
+        for (Throwable cause = throwable; null != cause; cause = cause.getCause()) {
+            if (null != cause.getMessage() && cause.getMessage().contains(DBConstants.DB_MESSAGES.NO_PARTITION_RELATION)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void createPartitions(KruizeResultsEntry entry) {
+        createPartitions(entry.getInterval_end_time());
+    }
+
+    private void createPartitions(Timestamp intervalEndTime) {
         try {
-            LocalDateTime localDateTime = entry.getInterval_end_time().toLocalDateTime();
+            LocalDateTime localDateTime = intervalEndTime.toLocalDateTime();
             LocalDateTime newDateTime;
             int dayOfTheMonth = localDateTime.getDayOfMonth();
             // Subtract 15 days from the current date
@@ -615,6 +778,64 @@ public class ExperimentDAOImpl implements ExperimentDAO {
         return validationOutputData;
     }
 
+    /**
+     * Adds the study of an in-process HPO experiment to database
+     *
+     * @param kruizeHPOStudyEntry HPO study Database object to be added
+     * @return validationOutputData contains the status of the DB insert operation
+     */
+    @Override
+    public ValidationOutputData addHPOStudyToDB(KruizeHPOStudyEntry kruizeHPOStudyEntry) {
+        ValidationOutputData validationOutputData = new ValidationOutputData(false, null, null);
+        Transaction tx = null;
+        try (Session session = KruizeHibernateUtil.getSessionFactory().openSession()) {
+            try {
+                tx = session.beginTransaction();
+                session.persist(kruizeHPOStudyEntry);
+                tx.commit();
+                validationOutputData.setSuccess(true);
+            } catch (HibernateException e) {
+                LOGGER.error("Not able to save HPO study due to {}", e.getMessage());
+                if (tx != null) tx.rollback();
+                validationOutputData.setSuccess(false);
+                validationOutputData.setMessage(e.getMessage());
+            }
+        } catch (Exception e) {
+            LOGGER.error("Not able to save HPO study due to {}", e.getMessage());
+            validationOutputData.setMessage(e.getMessage());
+        }
+        return validationOutputData;
+    }
+
+    /**
+     * Adds a trial of an in-process HPO experiment to database, or updates the stored one with the same trial number
+     *
+     * @param kruizeHPOTrialEntry HPO trial Database object to be added or updated
+     * @return validationOutputData contains the status of the DB operation
+     */
+    @Override
+    public ValidationOutputData addOrUpdateHPOTrialToDB(KruizeHPOTrialEntry kruizeHPOTrialEntry) {
+        ValidationOutputData validationOutputData = new ValidationOutputData(false, null, null);
+        Transaction tx = null;
+        try (Session session = KruizeHibernateUtil.getSessionFactory().openSession()) {
+            try {
+                tx = session.beginTransaction();
+                session.merge(kruizeHPOTrialEntry);
+                tx.commit();
+                validationOutputData.setSuccess(true);
+            } catch (HibernateException e) {
+                LOGGER.error("Not able to save HPO trial due to {}", e.getMessage());
+                if (tx != null) tx.rollback();
+                validationOutputData.setSuccess(false);
+                validationOutputData.setMessage(e.getMessage());
+            }
+        } catch (Exception e) {
+            LOGGER.error("Not able to save HPO trial due to {}", e.getMessage());
+            validationOutputData.setMessage(e.getMessage());
+        }
+        return validationOutputData;
+    }
+
     @Override
     public boolean updateExperimentStatus(KruizeObject kruizeObject, AnalyzerConstants.ExperimentStatus status) {
         kruizeObject.setStatus(status);
@@ -654,6 +875,9 @@ public class ExperimentDAOImpl implements ExperimentDAO {
                     Query kruizeRecommendationEntryquery = session.createQuery(DELETE_FROM_RECOMMENDATIONS_BY_EXP_NAME, null);
                     kruizeRecommendationEntryquery.setParameter("experimentName", experimentName);
                     kruizeRecommendationEntryquery.executeUpdate();
+
+                    // Remove the experiment from the rollups of the results
+                    session.doWork(connection -> ResultsRollupStore.deleteRollups(connection, experimentName));
                     validationOutputData.setSuccess(true);
                 }
                 tx.commit();
@@ -1058,6 +1282,70 @@ public class ExperimentDAOImpl implements ExperimentDAO {
         return kruizeResultsEntries;
     }
 
+    /**
+     * Loads the results of the range as loadResultsByExperimentName does, except that the part of the range older
+     * than the raw days comes from the hourly rollups and the part older than the hourly days from the daily ones.
+     * The entries given back for the rollups have the times of the original intervals, their values follow the
+     * distribution of the original values within each bucket, see {@link ResultsRollup}.
+     */
+    @Override
+    public List<KruizeResultsEntry> loadResultsByExperimentNameWithRollups(String experimentName, String cluster_name, Timestamp calculated_start_time, Timestamp interval_end_time) throws Exception {
+        if (null == calculated_start_time || null == interval_end_time) {
+            return loadResultsByExperimentName(experimentName, cluster_name, calculated_start_time, interval_end_time);
+        }
+        RollupReadPlan plan;
+        try (Session session = KruizeHibernateUtil.getSessionFactory().openSession()) {
+            Timestamp firstBucket = session.doReturningWork(connection -> ResultsRollupStore.getFirstBucketStart(connection, experimentName, cluster_name));
+            plan = new RollupReadPlan(calculated_start_time, interval_end_time, firstBucket,
+                    KruizeDeploymentInfo.results_rollup_raw_days, KruizeDeploymentInfo.results_rollup_hourly_days);
+        } catch (Exception e) {
+            LOGGER.error("Not able to load the rollups of the results due to: {}", e.getMessage());
+            throw new Exception("Error while loading results from the database due to : " + e.getMessage());
+        }
+        List<KruizeResultsEntry> kruizeResultsEntries = new ArrayList<>();
+        List<Timestamp[]> rawRanges = plan.getRawRanges();
+        for (int i = 0; i < rawRanges.size(); i++) {
+            Timestamp[] range = rawRanges.get(i);
+            // the ranges before the last one are half open
+            Timestamp rangeEnd = (i == rawRanges.size() - 1) ? range[1] : new Timestamp(range[1].getTime() - 1);
+            List<KruizeResultsEntry> rawEntries = loadResultsByExperimentName(experimentName, cluster_name, range[0], rangeEnd);
+            if (null != rawEntries) {
+                kruizeResultsEntries.addAll(rawEntries);
+            }
+        }
+        if (plan.isRawOnly()) {
+            return kruizeResultsEntries;
+        }
+        String statusValue = "failure";
+        Timer.Sample timerLoadRollups = Timer.start(MetricsConfig.meterRegistry());
+        try (Session session = KruizeHibernateUtil.getSessionFactory().openSession()) {
+            for (RollupTier tier : RollupTier.values()) {
+                for (Timestamp[] range : plan.getRollupRanges(tier)) {
+                    List<ResultsRollup> rollups = session.doReturningWork(connection ->
+                            ResultsRollupStore.loadRollups(connection, tier, experimentName, cluster_name, range[0], range[1]));
+                    for (ResultsRollup rollup : rollups) {
+                        for (KruizeResultsEntry entry : rollup.toResultsEntries()) {
+                            // the first bucket may start before the range
+                            if (!entry.getInterval_end_time().before(calculated_start_time)) {
+                                kruizeResultsEntries.add(entry);
+                            }
+                        }
+                    }
+                }
+            }
+            statusValue = "success";
+        } catch (Exception e) {
+            LOGGER.error("Not able to load the rollups of the results due to: {}", e.getMessage());
+            throw new Exception("Error while loading results from the database due to : " + e.getMessage());
+        } finally {
+            if (null != timerLoadRollups) {
+                MetricsConfig.timerLoadRollups = MetricsConfig.timerBLoadRollups.tag("status", statusValue).register(MetricsConfig.meterRegistry());
+                timerLoadRollups.stop(MetricsConfig.timerLoadRollups);
+            }
+        }
+        return kruizeResultsEntries;
+    }
+
     @Override
     public List<KruizeRecommendationEntry> loadRecommendationsByExperimentName(String experimentName) throws Exception {
         List<KruizeRecommendationEntry> recommendationEntries = null;
@@ -1100,6 +1388,92 @@ public class ExperimentDAOImpl implements ExperimentDAO {
         return recommendationEntries;
     }
 
+    @Override
+    public List<KruizeRecommendationEntry> loadLatestRecommendationsByExperimentName(String experimentName) throws Exception {
+        List<KruizeRecommendationEntry> recommendationEntries = null;
+        String statusValue = "failure";
+        Timer.Sample timerLoadLatestRecExpName = Timer.start(MetricsConfig.meterRegistry());
+        try (Session session = KruizeHibernateUtil.getSessionFactory().openSession()) {
+            recommendationEntries = session.createNativeQuery(DBConstants.SQLQUERY.SELECT_LATEST_FROM_RECOMMENDATIONS_BY_EXP_NAME, KruizeRecommendationEntry.class)
+                    .setParameter("experimentName", experimentName)
+                    .list();
+            statusValue = "success";
+        } catch (Exception e) {
+            LOGGER.error("Not able to load latest recommendations due to {}", e.getMessage());
+            throw new Exception("Error while loading latest recommendations from database due to : " + e.getMessage());
+        } finally {
+            if (null != timerLoadLatestRecExpName) {
+                MetricsConfig.timerLoadLatestRecExpName = MetricsConfig.timerBLoadLatestRecExpName.tag("status", statusValue).register(MetricsConfig.meterRegistry());
+                timerLoadLatestRecExpName.stop(MetricsConfig.timerLoadLatestRecExpName);
+            }
+        }
+        return recommendationEntries;
+    }
+
+    @Override
+    public List<KruizeLMRecommendationEntry> loadLatestLMRecommendationsByExperimentName(String experimentName) throws Exception {
+        List<KruizeLMRecommendationEntry> recommendationEntries = null;
+        String statusValue = "failure";
+        Timer.Sample timerLoadLatestRecExpName = Timer.start(MetricsConfig.meterRegistry());
+        try (Session session = KruizeHibernateUtil.getSessionFactory().openSession()) {
+            recommendationEntries = session.createNativeQuery(DBConstants.SQLQUERY.SELECT_LATEST_FROM_LM_RECOMMENDATIONS_BY_EXP_NAME, KruizeLMRecommendationEntry.class)
+                    .setParameter("experimentName", experimentName)
+                    .list();
+            statusValue = "success";
+        } catch (Exception e) {
+            LOGGER.error("Not able to load latest recommendations due to {}", e.getMessage());
+            throw new Exception("Error while loading latest recommendations from database due to : " + e.getMessage());
+        } finally {
+            if (null != timerLoadLatestRecExpName) {
+                MetricsConfig.timerLoadLatestRecExpName = MetricsConfig.timerBLoadLatestRecExpName.tag("status", statusValue).register(MetricsConfig.meterRegistry());
+                timerLoadLatestRecExpName.stop(MetricsConfig.timerLoadLatestRecExpName);
+            }
+        }
+        return recommendationEntries;
+    }
+
+    @Override
+    public List<KruizeRecommendationEntry> loadAllLatestRecommendations() throws Exception {
+        List<KruizeRecommendationEntry> recommendationEntries = null;
+        String statusValue = "failure";
+        Timer.Sample timerLoadAllLatestRec = Timer.start(MetricsConfig.meterRegistry());
+        try (Session session = KruizeHibernateUtil.getSessionFactory().openSession()) {
+            recommendationEntries = session.createNativeQuery(DBConstants.SQLQUERY.SELECT_LATEST_FROM_RECOMMENDATIONS, KruizeRecommendationEntry.class)
+                    .list();
+            statusValue = "success";
+        } catch (Exception e) {
+            LOGGER.error("Not able to load latest recommendations due to {}", e.getMessage());
+            throw new Exception("Error while loading latest recommendations from database due to : " + e.getMessage());
+        } finally {
+            if (null != timerLoadAllLatestRec) {
+                MetricsConfig.timerLoadAllLatestRec = MetricsConfig.timerBLoadAllLatestRec.tag("status", statusValue).register(MetricsConfig.meterRegistry());
+                timerLoadAllLatestRec.stop(MetricsConfig.timerLoadAllLatestRec);
+            }
+        }
+        return recommendationEntries;
+    }
+
+    @Override
+    public List<KruizeLMRecommendationEntry> loadAllLatestLMRecommendations() throws Exception {
+        List<KruizeLMRecommendationEntry> recommendationEntries = null;
+        String statusValue = "failure";
+        Timer.Sample timerLoadAllLatestRec = Timer.start(MetricsConfig.meterRegistry());
+        try (Session session = KruizeHibernateUtil.getSessionFactory().openSession()) {
+            recommendationEntries = session.createNativeQuery(DBConstants.SQLQUERY.SELECT_LATEST_FROM_LM_RECOMMENDATIONS, KruizeLMRecommendationEntry.class)
+                    .list();
+            statusValue = "success";
+        } catch (Exception e) {
+            LOGGER.error("Not able to load latest recommendations due to {}", e.getMessage());
+            throw new Exception("Error while loading latest recommendations from database due to : " + e.getMessage());
+        } finally {
+            if (null != timerLoadAllLatestRec) {
+                MetricsConfig.timerLoadAllLatestRec = MetricsConfig.timerBLoadAllLatestRec.tag("status", statusValue).register(MetricsConfig.meterRegistry());
+                timerLoadAllLatestRec.stop(MetricsConfig.timerLoadAllLatestRec);
+            }
+        }
+        return recommendationEntries;
+    }
+
     @Override
     public KruizeRecommendationEntry loadRecommendationsByExperimentNameAndDate(String experimentName, String cluster_name, Timestamp interval_end_time) throws Exception {
         KruizeRecommendationEntry recommendationEntries = null;
@@ -1342,6 +1716,70 @@ public class ExperimentDAOImpl implements ExperimentDAO {
         return kruizeDataSourceList;
     }
 
+    /**
+     * @param experimentName
+     * @return single element list of the HPO study of the experiment, empty if it has none
+     * @throws Exception
+     */
+    @Override
+    public List<KruizeHPOStudyEntry> loadHPOStudyByName(String experimentName) throws Exception {
+        List<KruizeHPOStudyEntry> entries;
+        try (Session session = KruizeHibernateUtil.getSessionFactory().openSession()) {
+            entries = session.createQuery(DBConstants.SQLQUERY.SELECT_FROM_HPO_STUDY_BY_EXP_NAME, KruizeHPOStudyEntry.class)
+                    .setParameter("experimentName", experimentName).list();
+        } catch (Exception e) {
+            LOGGER.error("Not able to load HPO study {} due to {}", experimentName, e.getMessage());
+            throw new Exception("Error while loading existing HPO study from database due to : " + e.getMessage());
+        }
+        return entries;
+    }
+
+    /**
+     * @param experimentName
+     * @return list of the HPO trials of the experiment ordered by trial number
+     * @throws Exception
+     */
+    @Override
+    public List<KruizeHPOTrialEntry> loadHPOTrialsByExperimentName(String experimentName) throws Exception {
+        List<KruizeHPOTrialEntry> entries;
+        try (Session session = KruizeHibernateUtil.getSessionFactory().openSession()) {
+            entries = session.createQuery(DBConstants.SQLQUERY.SELECT_FROM_HPO_TRIALS_BY_EXP_NAME, KruizeHPOTrialEntry.class)
+                    .setParameter("experimentName", experimentName).list();
+        } catch (Exception e) {
+            LOGGER.error("Not able to load HPO trials of {} due to {}", experimentName, e.getMessage());
+            throw new Exception("Error while loading existing HPO trials from database due to : " + e.getMessage());
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the names among experimentNames that have an experiment, resolved by one query with the names bound
+     * as a single array parameter however many they are
+     */
+    @Override
+    public List<String> loadExistingLMExperimentNames(Collection<String> experimentNames) throws Exception {
+        List<String> existing = new ArrayList<>();
+        if (experimentNames.isEmpty()) {
+            return existing;
+        }
+        try (Session session = KruizeHibernateUtil.getSessionFactory().openSession()) {
+            session.doWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(SELECT_LM_EXPERIMENT_NAMES_IN)) {
+                    statement.setArray(1, connection.createArrayOf("text", experimentNames.toArray()));
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            existing.add(resultSet.getString(1));
+                        }
+                    }
+                }
+            });
+        } catch (Exception e) {
+            LOGGER.error("Not able to load the existing experiment names due to {}", e.getMessage());
+            throw new Exception("Error while loading existing experiment names from database due to : " + e.getMessage());
+        }
+        return existing;
+    }
+
     /**
      * @return list of datasources after fetching from the DB
      */
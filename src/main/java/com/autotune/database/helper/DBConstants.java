@@ -57,15 +57,107 @@ public class DBConstants {
                         "k.experiment_name = :%s and " +
                         "k.interval_end_time= :%s ",
                 KruizeConstants.JSONKeys.EXPERIMENT_NAME, KruizeConstants.JSONKeys.INTERVAL_END_TIME);
+        public static final String SELECT_FROM_RECOMMENDATIONS_BY_EXP_NAME_AND_END_TIME_RANGE = String.format(
+                "from KruizeRecommendationEntry k WHERE " +
+                        "k.experiment_name = :%s and " +
+                        "k.interval_end_time >= :%s and " +
+                        "k.interval_end_time <= :%s ",
+                KruizeConstants.JSONKeys.EXPERIMENT_NAME, KruizeConstants.JSONKeys.INTERVAL_START_TIME, KruizeConstants.JSONKeys.INTERVAL_END_TIME);
         public static final String SELECT_FROM_LM_RECOMMENDATIONS_BY_EXP_NAME_AND_END_TIME = String.format(
                 "from KruizeLMRecommendationEntry k WHERE " +
                         "k.experiment_name = :%s and " +
                         "k.interval_end_time= :%s ",
                 KruizeConstants.JSONKeys.EXPERIMENT_NAME, KruizeConstants.JSONKeys.INTERVAL_END_TIME);
+        // rows holding the latest recommendation of each container, or namespace, of the experiments. The latest row of
+        // each experiment is looked up through the (experiment_name, interval_end_time) primary key. Only a container of
+        // the experiment missing from that row is searched for further back, it keeps the latest row it is in.
+        private static final String CONTAINER_PATTERN = "jsonb_strip_nulls(jsonb_build_object('kubernetes_objects', " +
+                "jsonb_build_array(jsonb_build_object('type', %1$s.type, 'name', %1$s.name, 'namespace', %1$s.namespace, " +
+                "'containers', jsonb_build_array(jsonb_build_object('container_name', %1$s.container_name))))))";
+        private static final String SELECT_LATEST_RECOMMENDATION_ROWS = "WITH latest AS (" +
+                "SELECT r.* FROM %2$s e CROSS JOIN LATERAL (SELECT * FROM %1$s WHERE experiment_name = e.experiment_name " +
+                "ORDER BY interval_end_time DESC LIMIT 1) r %3$s), " +
+                "missing AS (SELECT m.* FROM (SELECT l.experiment_name, l.extended_data, k->>'type' AS type, k->>'name' AS name, " +
+                "k->>'namespace' AS namespace, c->>'container_name' AS container_name FROM latest l " +
+                "JOIN %2$s e ON e.experiment_name = l.experiment_name " +
+                "CROSS JOIN LATERAL jsonb_array_elements(e.extended_data->'kubernetes_objects') k " +
+                "CROSS JOIN LATERAL jsonb_array_elements(CASE WHEN jsonb_typeof(k->'containers') = 'array' " +
+                "THEN k->'containers' ELSE CAST('[]' AS jsonb) END) c) m " +
+                "WHERE NOT m.extended_data @> " + String.format(CONTAINER_PATTERN, "m") + ") " +
+                "SELECT DISTINCT ON (experiment_name, interval_end_time) * FROM (SELECT * FROM latest UNION ALL " +
+                "SELECT r.* FROM missing m CROSS JOIN LATERAL (SELECT * FROM %1$s WHERE experiment_name = m.experiment_name " +
+                "AND extended_data @> " + String.format(CONTAINER_PATTERN, "m") + " " +
+                "ORDER BY interval_end_time DESC LIMIT 1) r) latest_rows";
+        private static final String BY_EXPERIMENT_NAME = "WHERE e.experiment_name = :experimentName";
+        public static final String SELECT_LATEST_FROM_RECOMMENDATIONS_BY_EXP_NAME = String.format(SELECT_LATEST_RECOMMENDATION_ROWS,
+                "kruize_recommendations", "kruize_experiments", BY_EXPERIMENT_NAME);
+        public static final String SELECT_LATEST_FROM_LM_RECOMMENDATIONS_BY_EXP_NAME = String.format(SELECT_LATEST_RECOMMENDATION_ROWS,
+                "kruize_lm_recommendations", "kruize_lm_experiments", BY_EXPERIMENT_NAME);
+        public static final String SELECT_LATEST_FROM_RECOMMENDATIONS = String.format(SELECT_LATEST_RECOMMENDATION_ROWS,
+                "kruize_recommendations", "kruize_experiments", "");
+        public static final String SELECT_LATEST_FROM_LM_RECOMMENDATIONS = String.format(SELECT_LATEST_RECOMMENDATION_ROWS,
+                "kruize_lm_recommendations", "kruize_lm_experiments", "");
         public static final String SELECT_FROM_RECOMMENDATIONS = "from KruizeRecommendationEntry";
         public static final String SELECT_FROM_LM_RECOMMENDATIONS = "from KruizeLMRecommendationEntry";
         public static final String SELECT_FROM_PERFORMANCE_PROFILE = "from KruizePerformanceProfileEntry";
         public static final String SELECT_FROM_PERFORMANCE_PROFILE_BY_NAME = "from KruizePerformanceProfileEntry k WHERE k.name = :name";
+        public static final String SELECT_FROM_HPO_STUDY_BY_EXP_NAME = "from KruizeHPOStudyEntry k WHERE k.experiment_name = :experimentName";
+        public static final String SELECT_FROM_HPO_TRIALS_BY_EXP_NAME = "from KruizeHPOTrialEntry k WHERE k.experiment_name = :experimentName order by k.trial_number";
+        public static final String SELECT_LM_EXPERIMENT_NAMES_IN = "SELECT experiment_name FROM kruize_lm_experiments WHERE experiment_name = ANY(?)";
+        public static final String UPSERT_REPLICA_HEARTBEAT = "INSERT INTO kruize_replicas (replica_id, started, last_heartbeat) VALUES (?, now(), now()) " +
+                "ON CONFLICT (replica_id) DO UPDATE SET last_heartbeat = now()";
+        public static final String DELETE_STALE_REPLICAS = "DELETE FROM kruize_replicas WHERE last_heartbeat < now() - make_interval(secs => ?)";
+        public static final String SELECT_LIVE_REPLICAS = "SELECT replica_id FROM kruize_replicas WHERE last_heartbeat >= now() - make_interval(secs => ?) ORDER BY replica_id";
+        public static final String DELETE_REPLICA = "DELETE FROM kruize_replicas WHERE replica_id = ?";
+        public static final String TRY_ADVISORY_LOCK = "SELECT pg_try_advisory_lock(?, ?)";
+        public static final String ADVISORY_UNLOCK = "SELECT pg_advisory_unlock(?, ?)";
+        public static final String ADVISORY_UNLOCK_ALL = "SELECT pg_advisory_unlock_all()";
+        public static final String ENQUEUE_TASK = "INSERT INTO kruize_tasks (task_type, task_key, payload, status, attempts, " +
+                "max_attempts, visible_at, created, updated) VALUES (?, ?, ?, 'queued', 0, ?, now(), now(), now()) " +
+                "ON CONFLICT (task_type, task_key) WHERE status IN ('queued', 'running') DO NOTHING";
+        // the claimable rows are locked with SKIP LOCKED, so concurrent claims never wait on each other nor get the
+        // same task; a running task whose visibility timeout expired is claimable again
+        public static final String CLAIM_TASKS = "UPDATE kruize_tasks SET status = 'running', attempts = attempts + 1, " +
+                "claimed_by = ?, visible_at = now() + make_interval(secs => ?), updated = now() WHERE id IN (" +
+                "SELECT id FROM kruize_tasks WHERE task_type = ? AND status IN ('queued', 'running') AND visible_at <= now() " +
+                "AND attempts < max_attempts ORDER BY visible_at LIMIT ? FOR UPDATE SKIP LOCKED) " +
+                "RETURNING id, task_type, task_key, payload, attempts, max_attempts";
+        // the statements on a claimed task match the attempt, so a worker that lost its claim leaves the task alone
+        public static final String COMPLETE_TASK = "DELETE FROM kruize_tasks WHERE id = ? AND attempts = ? AND status = 'running'";
+        // a task with a result is kept as done, for the other replicas to read it until it is purged
+        public static final String COMPLETE_TASK_WITH_RESULT = "UPDATE kruize_tasks SET status = 'done', result = ?, updated = now() " +
+                "WHERE id = ? AND attempts = ? AND status = 'running'";
+        public static final String SAVE_TASK_RESULT = "UPDATE kruize_tasks SET result = ? WHERE id = ? AND attempts = ? AND status = 'running'";
+        public static final String SELECT_LATEST_TASK = "SELECT id, task_type, task_key, payload, attempts, max_attempts, status, " +
+                "claimed_by, last_error, result FROM kruize_tasks WHERE task_type = ? AND task_key = ? ORDER BY id DESC LIMIT 1";
+        public static final String PURGE_FINISHED_TASKS = "DELETE FROM kruize_tasks WHERE status IN ('done', 'dead') " +
+                "AND updated < now() - make_interval(secs => ?)";
+        public static final String RETRY_TASK = "UPDATE kruize_tasks SET status = 'queued', visible_at = now() + make_interval(secs => ?), " +
+                "last_error = ?, updated = now() WHERE id = ? AND attempts = ? AND status = 'running'";
+        public static final String DEAD_LETTER_TASK = "UPDATE kruize_tasks SET status = 'dead', last_error = ?, updated = now() " +
+                "WHERE id = ? AND attempts = ? AND status = 'running'";
+        // the attempt is given back by raising the max, the attempts only go up so that an old claim never matches again
+        public static final String RELEASE_TASK = "UPDATE kruize_tasks SET status = 'queued', max_attempts = max_attempts + 1, " +
+                "visible_at = now(), updated = now() WHERE id = ? AND attempts = ? AND status = 'running'";
+        public static final String EXTEND_TASKS = "UPDATE kruize_tasks t SET visible_at = now() + make_interval(secs => ?), " +
+                "updated = now() FROM unnest(?::bigint[], ?::int[]) AS c(id, attempts) " +
+                "WHERE t.id = c.id AND t.attempts = c.attempts AND t.status = 'running'";
+        public static final String DEAD_LETTER_EXPIRED_TASKS = "UPDATE kruize_tasks SET status = 'dead', last_error = ?, " +
+                "updated = now() WHERE status = 'running' AND visible_at <= now() AND attempts >= max_attempts";
+        public static final String COUNT_TASKS_BY_STATUS = "SELECT task_type, status, count(*) FROM kruize_tasks GROUP BY task_type, status";
+        // the statements on the rollups of the results take the table of the tier
+        public static final String INSERT_EMPTY_ROLLUP = "INSERT INTO %s (experiment_name, bucket_start, cluster_name, version, " +
+                "interval_count, duration_minutes, aggregates, updated) VALUES (?, ?, ?, ?, 0, 0, '{}'::jsonb, now()) " +
+                "ON CONFLICT (experiment_name, bucket_start) DO NOTHING";
+        public static final String SELECT_ROLLUP_FOR_UPDATE = "SELECT aggregates FROM %s WHERE experiment_name = ? AND bucket_start = ? FOR UPDATE";
+        public static final String UPDATE_ROLLUP = "UPDATE %s SET cluster_name = ?, version = ?, interval_count = ?, " +
+                "duration_minutes = ?, aggregates = ?::jsonb, updated = now() WHERE experiment_name = ? AND bucket_start = ?";
+        public static final String SELECT_ROLLUPS = "SELECT bucket_start, cluster_name, version, aggregates FROM %s " +
+                "WHERE experiment_name = ? AND cluster_name IS NOT DISTINCT FROM ? AND bucket_start >= ? AND bucket_start < ? " +
+                "ORDER BY bucket_start";
+        public static final String SELECT_FIRST_ROLLUP = "SELECT min(bucket_start) FROM %s WHERE experiment_name = ? " +
+                "AND cluster_name IS NOT DISTINCT FROM ?";
+        public static final String DELETE_ROLLUPS_BY_EXP_NAME = "DELETE FROM %s WHERE experiment_name = ?";
         public static final String SELECT_FROM_METRIC_PROFILE = "from KruizeMetricProfileEntry";
         public static final String SELECT_FROM_METRIC_PROFILE_BY_NAME = "from KruizeMetricProfileEntry k WHERE k.name = :name";
         public static final String DELETE_FROM_EXPERIMENTS_BY_EXP_NAME = "DELETE FROM KruizeExperimentEntry k WHERE k.experiment_name = :experimentName";
@@ -120,6 +212,7 @@ public class DBConstants {
         public static final String NO_PARTITION_RELATION = "no partition of relation";
         public static final String CREATE_PARTITION_RETRY = "Create partition and retry !";
         public static final String INVALID_PARTITION_TYPE = "Invalid Partition Type";
+        public static final String ROLLUP_UPDATE_FAILED = "Not able to update the rollups of the results due to %s";
         public static final String DATA_NOT_FOUND_KRUIZE_RESULTS = "Data not found in kruizeResultsEntry for exp_name : {} interval_end_time : {} ";
         public static final String ADD_CONSTRAINT = "add constraint";
         public static final String ADD_COLUMN = "add column";
@@ -19,6 +19,9 @@ package com.autotune.database.helper;
 import com.autotune.analyzer.adapters.DeviceDetailsAdapter;
 import com.autotune.analyzer.adapters.RecommendationItemAdapter;
 import com.autotune.analyzer.exceptions.InvalidConversionOfRecommendationEntryException;
+import com.autotune.analyzer.hpo.HPOSearchSpace;
+import com.autotune.analyzer.hpo.HPOStudy;
+import com.autotune.analyzer.hpo.HPOTrial;
 import com.autotune.analyzer.kruizeObject.KruizeObject;
 import com.autotune.analyzer.kruizeObject.SloInfo;
 import com.autotune.analyzer.performanceProfiles.PerformanceProfile;
@@ -49,6 +52,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -1421,6 +1425,52 @@ public class DBHelpers {
                 }
                 return kruizeAuthenticationEntry;
             }
+
+            public static KruizeHPOStudyEntry convertHPOStudyToHPOStudyDBObj(HPOStudy study) throws Exception {
+                KruizeHPOStudyEntry kruizeHPOStudyEntry = new KruizeHPOStudyEntry();
+                HPOSearchSpace searchSpace = study.getSearchSpace();
+                kruizeHPOStudyEntry.setExperiment_name(study.getExperimentName());
+                kruizeHPOStudyEntry.setHpo_algo_impl(searchSpace.getHpoAlgoImpl());
+                kruizeHPOStudyEntry.setDirection(searchSpace.getDirection());
+                kruizeHPOStudyEntry.setSeed(study.getSeed());
+                try {
+                    kruizeHPOStudyEntry.setSearch_space(new ObjectMapper().readTree(searchSpace.toJson().toString()));
+                } catch (JsonProcessingException e) {
+                    throw new Exception("Error while creating search space data due to : " + e.getMessage());
+                }
+                Timestamp now = new Timestamp(System.currentTimeMillis());
+                kruizeHPOStudyEntry.setCreation_date(now);
+                kruizeHPOStudyEntry.setUpdated_date(now);
+                return kruizeHPOStudyEntry;
+            }
+
+            public static KruizeHPOTrialEntry convertHPOTrialToHPOTrialDBObj(HPOStudy study, HPOTrial trial) throws Exception {
+                KruizeHPOTrialEntry kruizeHPOTrialEntry = new KruizeHPOTrialEntry();
+                kruizeHPOTrialEntry.setExperiment_name(study.getExperimentName());
+                kruizeHPOTrialEntry.setTrial_number(trial.getTrialNumber());
+                try {
+                    kruizeHPOTrialEntry.setTunables(new ObjectMapper().readTree(
+                            study.getSearchSpace().toTrialConfig(trial.getValues()).toString()));
+                } catch (JsonProcessingException e) {
+                    throw new Exception("Error while creating trial config data due to : " + e.getMessage());
+                }
+                kruizeHPOTrialEntry.setStatus(trial.getStatus());
+                kruizeHPOTrialEntry.setResult(Double.isFinite(trial.getResult()) ? trial.getResult() : null);
+                kruizeHPOTrialEntry.setUpdated_date(new Timestamp(System.currentTimeMillis()));
+                return kruizeHPOTrialEntry;
+            }
+
+            public static HPOStudy convertHPOStudyEntryToHPOStudyObject(KruizeHPOStudyEntry studyEntry,
+                                                                        List<KruizeHPOTrialEntry> trialEntries) {
+                HPOSearchSpace searchSpace = new HPOSearchSpace(new JSONObject(studyEntry.getSearch_space().toString()));
+                List<HPOTrial> trials = new ArrayList<>();
+                for (KruizeHPOTrialEntry trialEntry : trialEntries) {
+                    double[] values = searchSpace.fromTrialConfig(new JSONArray(trialEntry.getTunables().toString()));
+                    double result = null == trialEntry.getResult() ? Double.NaN : trialEntry.getResult();
+                    trials.add(new HPOTrial(trialEntry.getTrial_number(), values, trialEntry.getStatus(), result));
+                }
+                return new HPOStudy(searchSpace, studyEntry.getSeed(), trials);
+            }
         }
 
     }
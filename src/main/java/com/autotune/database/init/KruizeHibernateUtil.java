@@ -23,25 +23,37 @@ import com.autotune.operator.KruizeDeploymentInfo;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+
 public class KruizeHibernateUtil {
     private static final Logger LOGGER = LoggerFactory.getLogger(KruizeHibernateUtil.class);
-    private static SessionFactory sessionFactory;
+    private static volatile SessionFactory sessionFactory;
 
-    static {
-        buildSessionFactory();
+    /**
+     * Returns the JDBC URL of the Kruize database
+     */
+    public static String getConnectionURL() {
+        return KruizeDeploymentInfo.settings_db_driver +
+                KruizeDeploymentInfo.database_hostname +
+                ":" + Integer.parseInt(KruizeDeploymentInfo.database_port) +
+                "/" + KruizeDeploymentInfo.database_dbname;
     }
 
-    public static void buildSessionFactory() {
+    /**
+     * Builds the session factory. It is built lazily on first use, so this only needs to be called
+     * explicitly to rebuild it after closeSessionFactory().
+     */
+    public static synchronized void buildSessionFactory() {
         SessionFactory sfTemp = null;
         try {
             Configuration configuration = new Configuration();
-            String connectionURL = KruizeDeploymentInfo.settings_db_driver +
-                    KruizeDeploymentInfo.database_hostname +
-                    ":" + Integer.parseInt(KruizeDeploymentInfo.database_port) +
-                    "/" + KruizeDeploymentInfo.database_dbname;
+            String connectionURL = getConnectionURL();
             configuration.setProperty("hibernate.connection.url", connectionURL);
             configuration.setProperty("hibernate.connection.username", KruizeDeploymentInfo.database_username);
             configuration.setProperty("hibernate.connection.password", KruizeDeploymentInfo.database_password);
@@ -58,6 +70,8 @@ public class KruizeHibernateUtil {
             configuration.addAnnotatedClass(KruizeResultsEntry.class);
             configuration.addAnnotatedClass(KruizeRecommendationEntry.class);
             configuration.addAnnotatedClass(KruizePerformanceProfileEntry.class);
+            configuration.addAnnotatedClass(KruizeHPOStudyEntry.class);
+            configuration.addAnnotatedClass(KruizeHPOTrialEntry.class);
             if (KruizeDeploymentInfo.local) {
                 configuration.addAnnotatedClass(KruizeLMExperimentEntry.class);
                 configuration.addAnnotatedClass(KruizeLMRecommendationEntry.class);
@@ -79,14 +93,29 @@ public class KruizeHibernateUtil {
     }
 
     public static Session getSession() {
-        return sessionFactory.getCurrentSession();
+        return getSessionFactory().getCurrentSession();
     }
 
     public static SessionFactory getSessionFactory() {
+        if (null == sessionFactory) {
+            synchronized (KruizeHibernateUtil.class) {
+                if (null == sessionFactory) {
+                    buildSessionFactory();
+                }
+            }
+        }
         return sessionFactory;
     }
 
-    public static void closeSessionFactory() {
+    /**
+     * Returns a JDBC connection of the pool of the session factory, closing it returns it to the pool
+     */
+    public static Connection getPooledConnection() throws SQLException {
+        return getSessionFactory().unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                .getService(ConnectionProvider.class).getConnection();
+    }
+
+    public static synchronized void closeSessionFactory() {
         if (sessionFactory != null) {
             sessionFactory.close();
             sessionFactory = null;
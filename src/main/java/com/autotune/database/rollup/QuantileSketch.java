@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.database.rollup;
+
+import com.autotune.utils.KruizeConstants.RollupConstants;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mergeable quantile sketch with logarithmic buckets: a value v is counted in the bucket i with
+ * gamma^(i-1) < v <= gamma^i, so the value read back for any rank is within the relative accuracy of the value
+ * that was added with that rank. Sketches of the same accuracy merge without any loss, which lets the hourly rollups
+ * of the results add up to the daily ones.
+ * <p>
+ * The sketch is meant for the usage values of the results, values at or below the smallest indexable one, negative
+ * ones included, are counted as zero.
+ */
+public class QuantileSketch {
+    private static final double GAMMA = (1 + RollupConstants.SKETCH_RELATIVE_ACCURACY) / (1 - RollupConstants.SKETCH_RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    private final TreeMap<Integer, Long> buckets = new TreeMap<>();
+    private long zeroCount;
+    private long count;
+
+    public void add(double value) {
+        if (value <= RollupConstants.SKETCH_MIN_INDEXABLE_VALUE) {
+            zeroCount++;
+        } else {
+            buckets.merge((int) Math.ceil(Math.log(value) / LOG_GAMMA), 1L, Long::sum);
+        }
+        count++;
+    }
+
+    public void merge(QuantileSketch other) {
+        other.buckets.forEach((index, bucketCount) -> buckets.merge(index, bucketCount, Long::sum));
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @param rank zero based rank, 0 is the smallest value added
+     * @return estimate of the value with the given rank, the ranks past the count return the largest value
+     */
+    public double getValueAtRank(long rank) {
+        if (0 == count) {
+            return 0;
+        }
+        if (rank < zeroCount) {
+            return 0;
+        }
+        long seen = zeroCount;
+        Map.Entry<Integer, Long> bucket = null;
+        Iterator<Map.Entry<Integer, Long>> iterator = buckets.entrySet().iterator();
+        while (iterator.hasNext()) {
+            bucket = iterator.next();
+            seen += bucket.getValue();
+            if (rank < seen) {
+                break;
+            }
+        }
+        // middle of the bucket, in relative terms
+        return 2 * Math.pow(GAMMA, bucket.getKey()) / (GAMMA + 1);
+    }
+
+    /**
+     * @param quantile between 0 and 1
+     * @return estimate of the value at the given quantile
+     */
+    public double getValueAtQuantile(double quantile) {
+        return getValueAtRank((long) Math.floor(Math.max(0, Math.min(1, quantile)) * (count - 1)));
+    }
+
+    public ObjectNode toJson() {
+        ObjectNode node = JsonNodeFactory.instance.objectNode();
+        node.put(RollupConstants.ZERO, zeroCount);
+        ArrayNode indexes = node.putArray(RollupConstants.INDEX);
+        ArrayNode counts = node.putArray(RollupConstants.COUNTS);
+        buckets.forEach((index, bucketCount) -> {
+            indexes.add(index);
+            counts.add(bucketCount);
+        });
+        return node;
+    }
+
+    public static QuantileSketch fromJson(JsonNode node) {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.zeroCount = node.path(RollupConstants.ZERO).asLong();
+        sketch.count = sketch.zeroCount;
+        JsonNode indexes = node.path(RollupConstants.INDEX);
+        JsonNode counts = node.path(RollupConstants.COUNTS);
+        for (int i = 0; i < indexes.size(); i++) {
+            long bucketCount = counts.get(i).asLong();
+            sketch.buckets.put(indexes.get(i).asInt(), bucketCount);
+            sketch.count += bucketCount;
+        }
+        return sketch;
+    }
+}
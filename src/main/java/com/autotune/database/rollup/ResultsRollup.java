@@ -0,0 +1,429 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.database.rollup;
+
+import com.autotune.database.table.KruizeResultsEntry;
+import com.autotune.utils.KruizeConstants;
+import com.autotune.utils.KruizeConstants.RollupConstants;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Rollup of the results of an experiment over one bucket of a {@link RollupTier}. For every container of every
+ * kubernetes object, each numeric field of the aggregation info of a metric keeps its sum, count, min, max and a
+ * {@link QuantileSketch}, and the container keeps the start and end times of its intervals.
+ * <p>
+ * The rollup gives back one results entry per interval it counted, with the original interval times, so the terms,
+ * their data sufficiency checks and the models work on it as they do on the raw results. The values of a field are
+ * read from its sketch in rank order, the i-th interval of a container getting the i-th smallest value of every field,
+ * so the distribution of each field is kept, to the accuracy of the sketch, but not its order within the bucket nor
+ * the pairing of the values of the different fields of an interval.
+ */
+public class ResultsRollup {
+    private final String experimentName;
+    private final RollupTier tier;
+    private final Timestamp bucketStart;
+    private String clusterName;
+    private String version;
+    private final Map<String, ObjectRollup> objects = new TreeMap<>();
+
+    public ResultsRollup(String experimentName, RollupTier tier, Timestamp bucketStart) {
+        this.experimentName = experimentName;
+        this.tier = tier;
+        this.bucketStart = bucketStart;
+    }
+
+    public String getExperimentName() {
+        return experimentName;
+    }
+
+    public RollupTier getTier() {
+        return tier;
+    }
+
+    public Timestamp getBucketStart() {
+        return bucketStart;
+    }
+
+    public String getClusterName() {
+        return clusterName;
+    }
+
+    public void setClusterName(String clusterName) {
+        this.clusterName = clusterName;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    /**
+     * Adds the container metrics of a results entry, the entry must belong to the bucket of this rollup.
+     */
+    public void add(KruizeResultsEntry entry) {
+        if (null == clusterName) {
+            clusterName = entry.getCluster_name();
+        }
+        if (null != entry.getVersion()) {
+            version = entry.getVersion();
+        }
+        if (null == entry.getExtended_data()) {
+            return;
+        }
+        long startTime = entry.getInterval_start_time().getTime();
+        long endTime = entry.getInterval_end_time().getTime();
+        for (JsonNode objectNode : entry.getExtended_data().path(KruizeConstants.JSONKeys.KUBERNETES_OBJECTS)) {
+            JsonNode containersNode = objectNode.path(KruizeConstants.JSONKeys.CONTAINERS);
+            if (!containersNode.isObject()) {
+                continue;
+            }
+            ObjectRollup objectRollup = getObjectRollup(getText(objectNode, KruizeConstants.JSONKeys.TYPE),
+                    getText(objectNode, KruizeConstants.JSONKeys.NAME), getText(objectNode, KruizeConstants.JSONKeys.NAMESPACE));
+            Iterator<Map.Entry<String, JsonNode>> containers = containersNode.fields();
+            while (containers.hasNext()) {
+                Map.Entry<String, JsonNode> container = containers.next();
+                ContainerRollup containerRollup = objectRollup.containers.computeIfAbsent(container.getKey(), name -> new ContainerRollup());
+                if (null == containerRollup.imageName) {
+                    containerRollup.imageName = getText(container.getValue(), KruizeConstants.JSONKeys.CONTAINER_IMAGE_NAME);
+                }
+                containerRollup.intervals.put(endTime, startTime);
+                Iterator<Map.Entry<String, JsonNode>> metrics = container.getValue().path(KruizeConstants.JSONKeys.METRICS).fields();
+                while (metrics.hasNext()) {
+                    Map.Entry<String, JsonNode> metric = metrics.next();
+                    JsonNode aggregationInfo = metric.getValue().path(KruizeConstants.JSONKeys.RESULTS).path(KruizeConstants.JSONKeys.AGGREGATION_INFO);
+                    if (!aggregationInfo.isObject()) {
+                        continue;
+                    }
+                    MetricRollup metricRollup = containerRollup.metrics.computeIfAbsent(metric.getKey(), name -> new MetricRollup());
+                    Iterator<Map.Entry<String, JsonNode>> fields = aggregationInfo.fields();
+                    while (fields.hasNext()) {
+                        Map.Entry<String, JsonNode> field = fields.next();
+                        if (KruizeConstants.JSONKeys.FORMAT.equals(field.getKey()) && field.getValue().isTextual()) {
+                            metricRollup.format = field.getValue().asText();
+                        } else if (field.getValue().isNumber()) {
+                            metricRollup.fields.computeIfAbsent(field.getKey(), name -> new FieldRollup()).add(field.getValue().asDouble());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds another rollup of the same bucket to this one.
+     */
+    public void merge(ResultsRollup other) {
+        if (null == clusterName) {
+            clusterName = other.clusterName;
+        }
+        if (null != other.version) {
+            version = other.version;
+        }
+        for (ObjectRollup otherObject : other.objects.values()) {
+            ObjectRollup objectRollup = getObjectRollup(otherObject.type, otherObject.name, otherObject.namespace);
+            otherObject.containers.forEach((containerName, otherContainer) -> {
+                ContainerRollup containerRollup = objectRollup.containers.computeIfAbsent(containerName, name -> new ContainerRollup());
+                if (null == containerRollup.imageName) {
+                    containerRollup.imageName = otherContainer.imageName;
+                }
+                containerRollup.intervals.putAll(otherContainer.intervals);
+                otherContainer.metrics.forEach((metricName, otherMetric) -> {
+                    MetricRollup metricRollup = containerRollup.metrics.computeIfAbsent(metricName, name -> new MetricRollup());
+                    if (null != otherMetric.format) {
+                        metricRollup.format = otherMetric.format;
+                    }
+                    otherMetric.fields.forEach((fieldName, otherField) ->
+                            metricRollup.fields.computeIfAbsent(fieldName, name -> new FieldRollup()).merge(otherField));
+                });
+            });
+        }
+    }
+
+    /**
+     * @return interval end time to interval start time of all the intervals counted in this rollup
+     */
+    private TreeMap<Long, Long> getIntervals() {
+        TreeMap<Long, Long> intervals = new TreeMap<>();
+        for (ObjectRollup objectRollup : objects.values()) {
+            for (ContainerRollup containerRollup : objectRollup.containers.values()) {
+                intervals.putAll(containerRollup.intervals);
+            }
+        }
+        return intervals;
+    }
+
+    public int getIntervalCount() {
+        return getIntervals().size();
+    }
+
+    public double getDurationMinutes() {
+        double durationMinutes = 0;
+        for (Map.Entry<Long, Long> interval : getIntervals().entrySet()) {
+            durationMinutes += (interval.getKey() - interval.getValue()) / (60 * 1000.0);
+        }
+        return durationMinutes;
+    }
+
+    /**
+     * @return one results entry per interval counted in this rollup, in the shape of the raw results
+     */
+    public List<KruizeResultsEntry> toResultsEntries() {
+        // position of each interval within the intervals of each container
+        Map<ContainerRollup, Map<Long, Integer>> positions = new HashMap<>();
+        for (ObjectRollup objectRollup : objects.values()) {
+            for (ContainerRollup containerRollup : objectRollup.containers.values()) {
+                Map<Long, Integer> containerPositions = new HashMap<>();
+                for (Long endTime : containerRollup.intervals.keySet()) {
+                    containerPositions.put(endTime, containerPositions.size());
+                }
+                positions.put(containerRollup, containerPositions);
+            }
+        }
+        List<KruizeResultsEntry> entries = new ArrayList<>();
+        for (Map.Entry<Long, Long> interval : getIntervals().entrySet()) {
+            ArrayNode objectsNode = JsonNodeFactory.instance.arrayNode();
+            for (ObjectRollup objectRollup : objects.values()) {
+                ObjectNode containersNode = JsonNodeFactory.instance.objectNode();
+                objectRollup.containers.forEach((containerName, containerRollup) -> {
+                    Integer position = positions.get(containerRollup).get(interval.getKey());
+                    if (null != position) {
+                        containersNode.set(containerName, containerRollup.toResultsJson(containerName, position));
+                    }
+                });
+                if (!containersNode.isEmpty()) {
+                    ObjectNode objectNode = objectsNode.addObject();
+                    objectNode.put(KruizeConstants.JSONKeys.TYPE, objectRollup.type);
+                    objectNode.put(KruizeConstants.JSONKeys.NAME, objectRollup.name);
+                    objectNode.put(KruizeConstants.JSONKeys.NAMESPACE, objectRollup.namespace);
+                    objectNode.set(KruizeConstants.JSONKeys.CONTAINERS, containersNode);
+                }
+            }
+            ObjectNode extendedData = JsonNodeFactory.instance.objectNode();
+            extendedData.set(KruizeConstants.JSONKeys.KUBERNETES_OBJECTS, objectsNode);
+            KruizeResultsEntry entry = new KruizeResultsEntry();
+            entry.setVersion(version);
+            entry.setExperiment_name(experimentName);
+            entry.setCluster_name(clusterName);
+            entry.setInterval_start_time(new Timestamp(interval.getValue()));
+            entry.setInterval_end_time(new Timestamp(interval.getKey()));
+            entry.setDuration_minutes(Double.valueOf((interval.getKey() - interval.getValue()) / (60 * 1000)));
+            entry.setExtended_data(extendedData);
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    public ObjectNode toJson() {
+        ObjectNode node = JsonNodeFactory.instance.objectNode();
+        ArrayNode objectsNode = node.putArray(RollupConstants.OBJECTS);
+        for (ObjectRollup objectRollup : objects.values()) {
+            ObjectNode objectNode = objectsNode.addObject();
+            objectNode.put(KruizeConstants.JSONKeys.TYPE, objectRollup.type);
+            objectNode.put(KruizeConstants.JSONKeys.NAME, objectRollup.name);
+            objectNode.put(KruizeConstants.JSONKeys.NAMESPACE, objectRollup.namespace);
+            ObjectNode containersNode = objectNode.putObject(KruizeConstants.JSONKeys.CONTAINERS);
+            objectRollup.containers.forEach((containerName, containerRollup) -> {
+                ObjectNode containerNode = containersNode.putObject(containerName);
+                containerNode.put(KruizeConstants.JSONKeys.CONTAINER_IMAGE_NAME, containerRollup.imageName);
+                ArrayNode intervalsNode = containerNode.putArray(RollupConstants.INTERVALS);
+                containerRollup.intervals.forEach((endTime, startTime) -> intervalsNode.addArray().add(startTime).add(endTime));
+                ObjectNode metricsNode = containerNode.putObject(KruizeConstants.JSONKeys.METRICS);
+                containerRollup.metrics.forEach((metricName, metricRollup) -> {
+                    ObjectNode metricNode = metricsNode.putObject(metricName);
+                    metricNode.put(KruizeConstants.JSONKeys.FORMAT, metricRollup.format);
+                    ObjectNode fieldsNode = metricNode.putObject(RollupConstants.FIELDS);
+                    metricRollup.fields.forEach((fieldName, fieldRollup) -> fieldsNode.set(fieldName, fieldRollup.toJson()));
+                });
+            });
+        }
+        return node;
+    }
+
+    public static ResultsRollup fromJson(String experimentName, RollupTier tier, Timestamp bucketStart, JsonNode node) {
+        ResultsRollup rollup = new ResultsRollup(experimentName, tier, bucketStart);
+        for (JsonNode objectNode : node.path(RollupConstants.OBJECTS)) {
+            ObjectRollup objectRollup = rollup.getObjectRollup(getText(objectNode, KruizeConstants.JSONKeys.TYPE),
+                    getText(objectNode, KruizeConstants.JSONKeys.NAME), getText(objectNode, KruizeConstants.JSONKeys.NAMESPACE));
+            Iterator<Map.Entry<String, JsonNode>> containers = objectNode.path(KruizeConstants.JSONKeys.CONTAINERS).fields();
+            while (containers.hasNext()) {
+                Map.Entry<String, JsonNode> container = containers.next();
+                ContainerRollup containerRollup = new ContainerRollup();
+                containerRollup.imageName = getText(container.getValue(), KruizeConstants.JSONKeys.CONTAINER_IMAGE_NAME);
+                for (JsonNode intervalNode : container.getValue().path(RollupConstants.INTERVALS)) {
+                    containerRollup.intervals.put(intervalNode.get(1).asLong(), intervalNode.get(0).asLong());
+                }
+                Iterator<Map.Entry<String, JsonNode>> metrics = container.getValue().path(KruizeConstants.JSONKeys.METRICS).fields();
+                while (metrics.hasNext()) {
+                    Map.Entry<String, JsonNode> metric = metrics.next();
+                    MetricRollup metricRollup = new MetricRollup();
+                    metricRollup.format = getText(metric.getValue(), KruizeConstants.JSONKeys.FORMAT);
+                    Iterator<Map.Entry<String, JsonNode>> fields = metric.getValue().path(RollupConstants.FIELDS).fields();
+                    while (fields.hasNext()) {
+                        Map.Entry<String, JsonNode> field = fields.next();
+                        metricRollup.fields.put(field.getKey(), FieldRollup.fromJson(field.getValue()));
+                    }
+                    containerRollup.metrics.put(metric.getKey(), metricRollup);
+                }
+                objectRollup.containers.put(container.getKey(), containerRollup);
+            }
+        }
+        return rollup;
+    }
+
+    private ObjectRollup getObjectRollup(String type, String name, String namespace) {
+        return objects.computeIfAbsent(type + "/" + namespace + "/" + name, key -> new ObjectRollup(type, name, namespace));
+    }
+
+    private static String getText(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return (null == value || value.isNull()) ? null : value.asText();
+    }
+
+    private static final class ObjectRollup {
+        private final String type;
+        private final String name;
+        private final String namespace;
+        private final Map<String, ContainerRollup> containers = new TreeMap<>();
+
+        private ObjectRollup(String type, String name, String namespace) {
+            this.type = type;
+            this.name = name;
+            this.namespace = namespace;
+        }
+    }
+
+    private static final class ContainerRollup {
+        private String imageName;
+        // interval end time to interval start time
+        private final TreeMap<Long, Long> intervals = new TreeMap<>();
+        private final Map<String, MetricRollup> metrics = new TreeMap<>();
+
+        /**
+         * @param position of the interval within the intervals of the container
+         * @return the container in the shape of the raw results, with the values of the fields for that position
+         */
+        private ObjectNode toResultsJson(String containerName, int position) {
+            ObjectNode containerNode = JsonNodeFactory.instance.objectNode();
+            containerNode.put(KruizeConstants.JSONKeys.CONTAINER_IMAGE_NAME, imageName);
+            containerNode.put(KruizeConstants.JSONKeys.CONTAINER_NAME, containerName);
+            ObjectNode metricsNode = containerNode.putObject(KruizeConstants.JSONKeys.METRICS);
+            metrics.forEach((metricName, metricRollup) -> {
+                ObjectNode aggregationInfo = JsonNodeFactory.instance.objectNode();
+                metricRollup.fields.forEach((fieldName, fieldRollup) -> {
+                    // a field missing from some of the intervals takes the last ones
+                    long fieldCount = Math.min(fieldRollup.count, intervals.size());
+                    long rank = position - (intervals.size() - fieldCount);
+                    if (0 <= rank) {
+                        double value = fieldRollup.getValue(rank, fieldCount);
+                        if (KruizeConstants.JSONKeys.COUNT.equals(fieldName)) {
+                            aggregationInfo.put(fieldName, Math.round(value));
+                        } else {
+                            aggregationInfo.put(fieldName, value);
+                        }
+                    }
+                });
+                if (!aggregationInfo.isEmpty()) {
+                    if (null != metricRollup.format) {
+                        aggregationInfo.put(KruizeConstants.JSONKeys.FORMAT, metricRollup.format);
+                    }
+                    ObjectNode metricNode = metricsNode.putObject(metricName);
+                    metricNode.put(KruizeConstants.JSONKeys.NAME, metricName);
+                    metricNode.putObject(KruizeConstants.JSONKeys.RESULTS).set(KruizeConstants.JSONKeys.AGGREGATION_INFO, aggregationInfo);
+                }
+            });
+            return containerNode;
+        }
+    }
+
+    private static final class MetricRollup {
+        private String format;
+        private final Map<String, FieldRollup> fields = new TreeMap<>();
+    }
+
+    private static final class FieldRollup {
+        private double sum;
+        private long count;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private QuantileSketch sketch = new QuantileSketch();
+
+        private void add(double value) {
+            sum += value;
+            count++;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sketch.add(value);
+        }
+
+        private void merge(FieldRollup other) {
+            sum += other.sum;
+            count += other.count;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            sketch.merge(other.sketch);
+        }
+
+        /**
+         * @param rank       zero based rank among the top fieldCount values
+         * @param fieldCount number of values handed out
+         * @return value of the given rank, the smallest and the largest ones being exact
+         */
+        private double getValue(long rank, long fieldCount) {
+            if (rank >= fieldCount - 1) {
+                return max;
+            }
+            long sketchRank = rank + (count - fieldCount);
+            if (0 == sketchRank) {
+                return min;
+            }
+            return Math.max(min, Math.min(max, sketch.getValueAtRank(sketchRank)));
+        }
+
+        private ObjectNode toJson() {
+            ObjectNode node = JsonNodeFactory.instance.objectNode();
+            node.put(KruizeConstants.JSONKeys.SUM, sum);
+            node.put(KruizeConstants.JSONKeys.COUNT, count);
+            node.put(KruizeConstants.JSONKeys.MIN, min);
+            node.put(KruizeConstants.JSONKeys.MAX, max);
+            node.set(RollupConstants.SKETCH, sketch.toJson());
+            return node;
+        }
+
+        private static FieldRollup fromJson(JsonNode node) {
+            FieldRollup fieldRollup = new FieldRollup();
+            fieldRollup.sum = node.path(KruizeConstants.JSONKeys.SUM).asDouble();
+            fieldRollup.count = node.path(KruizeConstants.JSONKeys.COUNT).asLong();
+            fieldRollup.min = node.path(KruizeConstants.JSONKeys.MIN).asDouble();
+            fieldRollup.max = node.path(KruizeConstants.JSONKeys.MAX).asDouble();
+            fieldRollup.sketch = QuantileSketch.fromJson(node.path(RollupConstants.SKETCH));
+            return fieldRollup;
+        }
+    }
+}
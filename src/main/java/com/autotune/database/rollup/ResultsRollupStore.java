@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.database.rollup;
+
+import com.autotune.database.table.KruizeResultsEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.autotune.database.helper.DBConstants.SQLQUERY.*;
+
+/**
+ * Reads and writes the rollups of the results on the connection of the caller, so that the rollups are updated in
+ * the transaction writing the raw results.
+ */
+public final class ResultsRollupStore {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ResultsRollupStore() {
+    }
+
+    /**
+     * Adds the results to the hourly and daily rollups of their buckets. The rows are locked in a fixed order, tier
+     * then experiment then bucket, so concurrent writers of overlapping buckets do not deadlock.
+     */
+    public static void addResults(Connection connection, List<KruizeResultsEntry> entries) throws SQLException {
+        for (RollupTier tier : RollupTier.values()) {
+            Map<String, Map<Long, ResultsRollup>> rollups = new TreeMap<>();
+            for (KruizeResultsEntry entry : entries) {
+                Timestamp bucketStart = tier.getBucketStart(entry.getInterval_end_time());
+                rollups.computeIfAbsent(entry.getExperiment_name(), name -> new TreeMap<>())
+                        .computeIfAbsent(bucketStart.getTime(), time -> new ResultsRollup(entry.getExperiment_name(), tier, bucketStart))
+                        .add(entry);
+            }
+            for (Map<Long, ResultsRollup> experimentRollups : rollups.values()) {
+                for (ResultsRollup rollup : experimentRollups.values()) {
+                    // results without any container metrics, e.g. the namespace ones, have nothing to roll up
+                    if (0 < rollup.getIntervalCount()) {
+                        mergeIntoRow(connection, rollup);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void mergeIntoRow(Connection connection, ResultsRollup rollup) throws SQLException {
+        String table = rollup.getTier().getTableName();
+        try (PreparedStatement insert = connection.prepareStatement(String.format(INSERT_EMPTY_ROLLUP, table))) {
+            insert.setString(1, rollup.getExperimentName());
+            insert.setTimestamp(2, rollup.getBucketStart());
+            insert.setString(3, rollup.getClusterName());
+            insert.setString(4, rollup.getVersion());
+            insert.executeUpdate();
+        }
+        ResultsRollup merged = new ResultsRollup(rollup.getExperimentName(), rollup.getTier(), rollup.getBucketStart());
+        try (PreparedStatement select = connection.prepareStatement(String.format(SELECT_ROLLUP_FOR_UPDATE, table))) {
+            select.setString(1, rollup.getExperimentName());
+            select.setTimestamp(2, rollup.getBucketStart());
+            try (ResultSet resultSet = select.executeQuery()) {
+                if (resultSet.next()) {
+                    merged = fromRow(rollup.getExperimentName(), rollup.getTier(), rollup.getBucketStart(),
+                            null, null, resultSet.getString(1));
+                }
+            }
+        }
+        merged.merge(rollup);
+        try (PreparedStatement update = connection.prepareStatement(String.format(UPDATE_ROLLUP, table))) {
+            update.setString(1, merged.getClusterName());
+            update.setString(2, merged.getVersion());
+            update.setInt(3, merged.getIntervalCount());
+            update.setDouble(4, merged.getDurationMinutes());
+            update.setString(5, merged.toJson().toString());
+            update.setString(6, merged.getExperimentName());
+            update.setTimestamp(7, merged.getBucketStart());
+            update.executeUpdate();
+        }
+    }
+
+    /**
+     * @return the rollups of the experiment whose bucket starts within [from, to)
+     */
+    public static List<ResultsRollup> loadRollups(Connection connection, RollupTier tier, String experimentName,
+                                                  String clusterName, Timestamp from, Timestamp to) throws SQLException {
+        List<ResultsRollup> rollups = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(String.format(SELECT_ROLLUPS, tier.getTableName()))) {
+            select.setString(1, experimentName);
+            select.setString(2, clusterName);
+            select.setTimestamp(3, from);
+            select.setTimestamp(4, to);
+            try (ResultSet resultSet = select.executeQuery()) {
+                while (resultSet.next()) {
+                    rollups.add(fromRow(experimentName, tier, resultSet.getTimestamp(1), resultSet.getString(2),
+                            resultSet.getString(3), resultSet.getString(4)));
+                }
+            }
+        }
+        return rollups;
+    }
+
+    /**
+     * @return start of the first hourly rollup of the experiment, null if it has none
+     */
+    public static Timestamp getFirstBucketStart(Connection connection, String experimentName, String clusterName) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(String.format(SELECT_FIRST_ROLLUP, RollupTier.HOURLY.getTableName()))) {
+            select.setString(1, experimentName);
+            select.setString(2, clusterName);
+            try (ResultSet resultSet = select.executeQuery()) {
+                return resultSet.next() ? resultSet.getTimestamp(1) : null;
+            }
+        }
+    }
+
+    public static void deleteRollups(Connection connection, String experimentName) throws SQLException {
+        for (RollupTier tier : RollupTier.values()) {
+            try (PreparedStatement delete = connection.prepareStatement(String.format(DELETE_ROLLUPS_BY_EXP_NAME, tier.getTableName()))) {
+                delete.setString(1, experimentName);
+                delete.executeUpdate();
+            }
+        }
+    }
+
+    private static ResultsRollup fromRow(String experimentName, RollupTier tier, Timestamp bucketStart, String clusterName,
+                                         String version, String aggregates) throws SQLException {
+        try {
+            ResultsRollup rollup = ResultsRollup.fromJson(experimentName, tier, bucketStart, MAPPER.readTree(aggregates));
+            rollup.setClusterName(clusterName);
+            rollup.setVersion(version);
+            return rollup;
+        } catch (Exception e) {
+            throw new SQLException("Invalid aggregates of the " + tier.getTableName() + " rollup of " + experimentName
+                    + " at " + bucketStart + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.database.rollup;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits the range of interval end times of a results load between the raw results and the rollups: the last raw days
+ * are read raw, the hourly rollups serve the days before them up to the hourly days and the daily rollups serve the
+ * older ones. Everything before the rollups of the experiment start, i.e. the results written before the rollups were
+ * turned on, is read raw.
+ * <p>
+ * The raw ranges are closed at the end of the load and half open before it, the rollup ranges are ranges of bucket
+ * start times, half open. The buckets at the start of the load may hold older intervals, which the caller drops.
+ */
+public class RollupReadPlan {
+    private final List<Timestamp[]> rawRanges = new ArrayList<>();
+    private final List<Timestamp[]> hourlyRanges = new ArrayList<>();
+    private final List<Timestamp[]> dailyRanges = new ArrayList<>();
+
+    /**
+     * @param start       start of the load
+     * @param end         end of the load
+     * @param firstBucket start of the first hourly rollup of the experiment, null if there are none
+     * @param rawDays     days before the end read raw
+     * @param hourlyDays  days before the end served by the hourly rollups
+     */
+    public RollupReadPlan(Timestamp start, Timestamp end, Timestamp firstBucket, int rawDays, int hourlyDays) {
+        long startTime = start.getTime();
+        long endTime = end.getTime();
+        // the first bucket may hold only part of its hour
+        long coveredFrom = (null == firstBucket) ? Long.MAX_VALUE : firstBucket.getTime() + RollupTier.HOURLY.getBucketMillis();
+        long rawFrom = RollupTier.HOURLY.floor(endTime - TimeUnit.DAYS.toMillis(rawDays));
+        if (rawFrom <= coveredFrom || rawFrom <= startTime) {
+            rawRanges.add(new Timestamp[]{start, end});
+            return;
+        }
+        if (startTime < coveredFrom) {
+            rawRanges.add(new Timestamp[]{start, new Timestamp(coveredFrom)});
+        }
+        rawRanges.add(new Timestamp[]{new Timestamp(rawFrom), end});
+
+        long hourlyFrom = Math.max(coveredFrom, RollupTier.HOURLY.floor(startTime));
+        long dailyFrom = Math.max(RollupTier.DAILY.ceil(coveredFrom), RollupTier.DAILY.floor(startTime));
+        long dailyTo = Math.min(RollupTier.DAILY.floor(endTime - TimeUnit.DAYS.toMillis(Math.max(rawDays, hourlyDays))),
+                RollupTier.DAILY.floor(rawFrom));
+        if (dailyFrom < dailyTo) {
+            addRange(hourlyRanges, hourlyFrom, dailyFrom);
+            addRange(dailyRanges, dailyFrom, dailyTo);
+            addRange(hourlyRanges, Math.max(hourlyFrom, dailyTo), rawFrom);
+        } else {
+            addRange(hourlyRanges, hourlyFrom, rawFrom);
+        }
+    }
+
+    private static void addRange(List<Timestamp[]> ranges, long from, long to) {
+        if (from < to) {
+            ranges.add(new Timestamp[]{new Timestamp(from), new Timestamp(to)});
+        }
+    }
+
+    /**
+     * @return [from, to) ranges of interval end times read raw, the last one being [from, end]
+     */
+    public List<Timestamp[]> getRawRanges() {
+        return rawRanges;
+    }
+
+    /**
+     * @return [from, to) ranges of bucket start times of the rollups of the tier
+     */
+    public List<Timestamp[]> getRollupRanges(RollupTier tier) {
+        return RollupTier.HOURLY == tier ? hourlyRanges : dailyRanges;
+    }
+
+    public boolean isRawOnly() {
+        return hourlyRanges.isEmpty() && dailyRanges.isEmpty();
+    }
+}
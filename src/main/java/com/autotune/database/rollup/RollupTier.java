@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.database.rollup;
+
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Granularity of the rollups of the results, each one kept in its own table keyed by the experiment and the start of
+ * the bucket. An interval is counted in the bucket of its interval end time.
+ */
+public enum RollupTier {
+    HOURLY("kruize_rollups_hourly", TimeUnit.HOURS.toMillis(1)),
+    DAILY("kruize_rollups_daily", TimeUnit.DAYS.toMillis(1));
+
+    private final String tableName;
+    private final long bucketMillis;
+
+    RollupTier(String tableName, long bucketMillis) {
+        this.tableName = tableName;
+        this.bucketMillis = bucketMillis;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    public long floor(long timeMillis) {
+        return Math.floorDiv(timeMillis, bucketMillis) * bucketMillis;
+    }
+
+    public long ceil(long timeMillis) {
+        return -Math.floorDiv(-timeMillis, bucketMillis) * bucketMillis;
+    }
+
+    public Timestamp getBucketStart(Timestamp intervalEndTime) {
+        return new Timestamp(floor(intervalEndTime.getTime()));
+    }
+}
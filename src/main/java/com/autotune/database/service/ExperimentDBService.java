@@ -18,6 +18,8 @@ package com.autotune.database.service;
 import com.autotune.analyzer.exceptions.InvalidConversionOfRecommendationEntryException;
 import com.autotune.analyzer.experiment.ExperimentInterface;
 import com.autotune.analyzer.experiment.ExperimentInterfaceImpl;
+import com.autotune.analyzer.hpo.HPOStudy;
+import com.autotune.analyzer.hpo.HPOTrial;
 import com.autotune.analyzer.kruizeObject.KruizeObject;
 import com.autotune.analyzer.performanceProfiles.PerformanceProfile;
 import com.autotune.analyzer.performanceProfiles.utils.PerformanceProfileUtil;
@@ -40,6 +42,7 @@ import com.autotune.operator.KruizeOperator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.servlet.http.HttpServletResponse;
 import java.sql.Timestamp;
 import java.util.*;
 
@@ -203,7 +206,13 @@ public class ExperimentDBService {
         KruizeObject kruizeObject = mainKruizeExperimentMap.get(experimentName);
         boolean resultsAvailable = false;
         // Load results from the DB and save to local
-        List<KruizeResultsEntry> kruizeResultsEntries = experimentDAO.loadResultsByExperimentName(experimentName, kruizeObject.getClusterName(), calculated_start_time, interval_end_time);
+        List<KruizeResultsEntry> kruizeResultsEntries;
+        // the rollups only hold the container metrics
+        if (KruizeDeploymentInfo.results_rollups && !kruizeObject.isNamespaceExperiment()) {
+            kruizeResultsEntries = experimentDAO.loadResultsByExperimentNameWithRollups(experimentName, kruizeObject.getClusterName(), calculated_start_time, interval_end_time);
+        } else {
+            kruizeResultsEntries = experimentDAO.loadResultsByExperimentName(experimentName, kruizeObject.getClusterName(), calculated_start_time, interval_end_time);
+        }
         if (null != kruizeResultsEntries && !kruizeResultsEntries.isEmpty()) {
             resultsAvailable = true;
             List<UpdateResultsAPIObject> updateResultsAPIObjects = DBHelpers.Converters.KruizeObjectConverters.convertResultEntryToUpdateResultsAPIObject(kruizeResultsEntries);
@@ -271,6 +280,67 @@ public class ExperimentDBService {
         }
     }
 
+    /**
+     * Loads only the rows holding the latest recommendation of each container of the experiment, the older ones are
+     * neither fetched nor deserialized
+     */
+    public void loadLatestRecommendationsFromDBByName(Map<String, KruizeObject> mainKruizeExperimentMap, String experimentName) throws Exception {
+        addRecommendationEntriesToLocalStorage(mainKruizeExperimentMap, experimentDAO.loadLatestRecommendationsByExperimentName(experimentName));
+    }
+
+    public void loadLatestLMRecommendationsFromDBByName(Map<String, KruizeObject> mainKruizeExperimentMap, String experimentName) throws Exception {
+        addLMRecommendationEntriesToLocalStorage(mainKruizeExperimentMap, experimentDAO.loadLatestLMRecommendationsByExperimentName(experimentName));
+    }
+
+    /**
+     * Loads only the rows holding the latest recommendation of each container of every experiment
+     */
+    public void loadAllLatestRecommendations(Map<String, KruizeObject> mainKruizeExperimentMap) throws Exception {
+        addRecommendationEntriesToLocalStorage(mainKruizeExperimentMap, experimentDAO.loadAllLatestRecommendations());
+    }
+
+    public void loadAllLatestLMRecommendations(Map<String, KruizeObject> mainKruizeExperimentMap) throws Exception {
+        addLMRecommendationEntriesToLocalStorage(mainKruizeExperimentMap, experimentDAO.loadAllLatestLMRecommendations());
+    }
+
+    private void addRecommendationEntriesToLocalStorage(Map<String, KruizeObject> mainKruizeExperimentMap,
+                                                        List<KruizeRecommendationEntry> recommendationEntries) throws Exception {
+        if (null == recommendationEntries || recommendationEntries.isEmpty()) {
+            return;
+        }
+        List<ListRecommendationsAPIObject> recommendationsAPIObjects = null;
+        try {
+            recommendationsAPIObjects = DBHelpers.Converters.KruizeObjectConverters
+                    .convertRecommendationEntryToRecommendationAPIObject(recommendationEntries);
+        } catch (InvalidConversionOfRecommendationEntryException e) {
+            e.printStackTrace();
+        }
+        if (null != recommendationsAPIObjects && !recommendationsAPIObjects.isEmpty()) {
+            new ExperimentInterfaceImpl().addRecommendationsToLocalStorage(mainKruizeExperimentMap,
+                    recommendationsAPIObjects,
+                    true);
+        }
+    }
+
+    private void addLMRecommendationEntriesToLocalStorage(Map<String, KruizeObject> mainKruizeExperimentMap,
+                                                          List<KruizeLMRecommendationEntry> recommendationEntries) throws Exception {
+        if (null == recommendationEntries || recommendationEntries.isEmpty()) {
+            return;
+        }
+        List<ListRecommendationsAPIObject> recommendationsAPIObjects = null;
+        try {
+            recommendationsAPIObjects = DBHelpers.Converters.KruizeObjectConverters
+                    .convertLMRecommendationEntryToRecommendationAPIObject(recommendationEntries);
+        } catch (InvalidConversionOfRecommendationEntryException e) {
+            e.printStackTrace();
+        }
+        if (null != recommendationsAPIObjects && !recommendationsAPIObjects.isEmpty()) {
+            new ExperimentInterfaceImpl().addRecommendationsToLocalStorage(mainKruizeExperimentMap,
+                    recommendationsAPIObjects,
+                    true);
+        }
+    }
+
     public ValidationOutputData addExperimentToDB(CreateExperimentAPIObject createExperimentAPIObject) {
         ValidationOutputData validationOutputData = new ValidationOutputData(false, null, null);
         try {
@@ -305,6 +375,41 @@ public class ExperimentDBService {
     }
 
 
+    /**
+     * Saves the result entries as a single batch. If the batch fails, e.g. because one of the entries is a
+     * duplicate or a partition is missing, the entries are saved one by one to isolate the failed ones.
+     *
+     * @param kruizeResultsEntries entries to be saved
+     * @return entries which could not be saved, with the error reasons set
+     */
+    public List<KruizeResultsEntry> addResultEntriesToDBInBatch(List<KruizeResultsEntry> kruizeResultsEntries) {
+        if (kruizeResultsEntries.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            experimentDAO.addBatchResultsToDB(kruizeResultsEntries);
+            return new ArrayList<>();
+        } catch (Exception e) {
+            LOGGER.debug("Batch insert of {} results failed, saving them individually: {}", kruizeResultsEntries.size(), e.getMessage());
+            return experimentDAO.addToDBAndFetchFailedResults(kruizeResultsEntries);
+        }
+    }
+
+    /**
+     * Saves the recommendations of an experiment as a single batch, updating the ones already present
+     *
+     * @param recommendationEntries recommendations of a single experiment
+     * @return success if all the recommendations were saved
+     */
+    public ValidationOutputData addRecommendationsToDBInBatch(List<KruizeRecommendationEntry> recommendationEntries) {
+        try {
+            experimentDAO.addBatchRecommendationsToDB(recommendationEntries);
+            return new ValidationOutputData(true, null, null);
+        } catch (Exception e) {
+            return new ValidationOutputData(false, e.getMessage(), HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+    }
+
     public ValidationOutputData addRecommendationToDB(Map<String, KruizeObject> experimentsMap, KruizeObject kruizeObject,
                                                       Timestamp interval_end_time) {
         ValidationOutputData validationOutputData = new ValidationOutputData(false, "", null);
@@ -517,6 +622,20 @@ public class ExperimentDBService {
         loadLMRecommendationsFromDBByName(mainKruizeExperimentMap, experimentName);
     }
 
+    public void loadExperimentAndLatestRecommendationsFromDBByName(Map<String, KruizeObject> mainKruizeExperimentMap, String experimentName) throws Exception {
+
+        loadExperimentFromDBByName(mainKruizeExperimentMap, experimentName);
+
+        loadLatestRecommendationsFromDBByName(mainKruizeExperimentMap, experimentName);
+    }
+
+    public void loadLMExperimentAndLatestRecommendationsFromDBByName(Map<String, KruizeObject> mainKruizeExperimentMap, String experimentName) throws Exception {
+
+        loadLMExperimentFromDBByName(mainKruizeExperimentMap, experimentName);
+
+        loadLatestLMRecommendationsFromDBByName(mainKruizeExperimentMap, experimentName);
+    }
+
     public void loadPerformanceProfileFromDBByName(Map<String, PerformanceProfile> performanceProfileMap, String performanceProfileName) throws Exception {
         List<KruizePerformanceProfileEntry> entries = experimentDAO.loadPerformanceProfileByName(performanceProfileName);
         if (null != entries && !entries.isEmpty()) {
@@ -568,6 +687,20 @@ public class ExperimentDBService {
         loadAllLMRecommendations(mainKruizeExperimentMap);
     }
 
+    public void loadAllExperimentsAndLatestRecommendations(Map<String, KruizeObject> mainKruizeExperimentMap) throws Exception {
+
+        loadAllExperiments(mainKruizeExperimentMap);
+
+        loadAllLatestRecommendations(mainKruizeExperimentMap);
+    }
+
+    public void loadAllLMExperimentsAndLatestRecommendations(Map<String, KruizeObject> mainKruizeExperimentMap) throws Exception {
+
+        loadAllLMExperiments(mainKruizeExperimentMap);
+
+        loadAllLatestLMRecommendations(mainKruizeExperimentMap);
+    }
+
     public boolean updateExperimentStatus(KruizeObject kruizeObject, AnalyzerConstants.ExperimentStatus status) {
         kruizeObject.setStatus(status);
         // TODO   update into database
@@ -743,4 +876,55 @@ public class ExperimentDBService {
         else
             return dataSourceMetadataInfoList.get(0);
     }
+
+    /**
+     * Adds the study of an experiment tuned by the in-process HPO engine to database
+     *
+     * @param study HPO study to be added
+     * @return ValidationOutputData object containing the status of the DB insert operation
+     */
+    public ValidationOutputData addHPOStudyToDB(HPOStudy study) throws Exception {
+        KruizeHPOStudyEntry kruizeHPOStudyEntry = DBHelpers.Converters.KruizeObjectConverters.convertHPOStudyToHPOStudyDBObj(study);
+        return this.experimentDAO.addHPOStudyToDB(kruizeHPOStudyEntry);
+    }
+
+    /**
+     * Adds a trial of an in-process HPO study to database, or updates its status and result
+     *
+     * @param study HPO study the trial belongs to
+     * @param trial HPO trial to be added or updated
+     * @return ValidationOutputData object containing the status of the DB operation
+     */
+    public ValidationOutputData addOrUpdateHPOTrialToDB(HPOStudy study, HPOTrial trial) throws Exception {
+        KruizeHPOTrialEntry kruizeHPOTrialEntry = DBHelpers.Converters.KruizeObjectConverters.convertHPOTrialToHPOTrialDBObj(study, trial);
+        return this.experimentDAO.addOrUpdateHPOTrialToDB(kruizeHPOTrialEntry);
+    }
+
+    /**
+     * fetches the in-process HPO study of an experiment with all its trials from database
+     *
+     * @param experimentName String containing the name of the experiment
+     * @return HPOStudy object, null if the experiment has no study
+     * @throws Exception
+     */
+    public HPOStudy loadHPOStudyFromDBByName(String experimentName) throws Exception {
+        List<KruizeHPOStudyEntry> studyEntries = experimentDAO.loadHPOStudyByName(experimentName);
+        if (null == studyEntries || studyEntries.isEmpty()) {
+            return null;
+        }
+        List<KruizeHPOTrialEntry> trialEntries = experimentDAO.loadHPOTrialsByExperimentName(experimentName);
+        return DBHelpers.Converters.KruizeObjectConverters.convertHPOStudyEntryToHPOStudyObject(studyEntries.get(0),
+                null == trialEntries ? Collections.emptyList() : trialEntries);
+    }
+
+    /**
+     * Returns the names among experimentNames that already have an experiment, looked up with a single query
+     *
+     * @param experimentNames names of the experiments to look up
+     * @return set of the names that exist
+     * @throws Exception
+     */
+    public Set<String> loadExistingLMExperimentNames(Collection<String> experimentNames) throws Exception {
+        return new HashSet<>(experimentDAO.loadExistingLMExperimentNames(experimentNames));
+    }
 }
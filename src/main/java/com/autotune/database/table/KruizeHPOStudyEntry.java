@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.database.table;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.sql.Timestamp;
+
+/**
+ * This is a Java class named KruizeHPOStudyEntry annotated with JPA annotations.
+ * It represents a table named kruize_hpo_studies in a relational database.
+ * <p>
+ * The class has the following fields:
+ * <p>
+ * experiment_name: A string representing the name of the experiment being tuned.
+ * hpo_algo_impl: A string representing the sampler, optuna_tpe or random.
+ * direction: A string representing the direction of the objective, minimize or maximize.
+ * seed: The seed the trials of the study are sampled with.
+ * search_space: A JSON object representing the search space of the experiment.
+ */
+@Entity
+@Table(name = "kruize_hpo_studies")
+public class KruizeHPOStudyEntry {
+    @Id
+    private String experiment_name;
+    private String hpo_algo_impl;
+    private String direction;
+    private long seed;
+    @JdbcTypeCode(SqlTypes.JSON)
+    private JsonNode search_space;
+    private Timestamp creation_date;
+    private Timestamp updated_date;
+
+    public String getExperiment_name() {
+        return experiment_name;
+    }
+
+    public void setExperiment_name(String experiment_name) {
+        this.experiment_name = experiment_name;
+    }
+
+    public String getHpo_algo_impl() {
+        return hpo_algo_impl;
+    }
+
+    public void setHpo_algo_impl(String hpo_algo_impl) {
+        this.hpo_algo_impl = hpo_algo_impl;
+    }
+
+    public String getDirection() {
+        return direction;
+    }
+
+    public void setDirection(String direction) {
+        this.direction = direction;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public JsonNode getSearch_space() {
+        return search_space;
+    }
+
+    public void setSearch_space(JsonNode search_space) {
+        this.search_space = search_space;
+    }
+
+    public Timestamp getCreation_date() {
+        return creation_date;
+    }
+
+    public void setCreation_date(Timestamp creation_date) {
+        this.creation_date = creation_date;
+    }
+
+    public Timestamp getUpdated_date() {
+        return updated_date;
+    }
+
+    public void setUpdated_date(Timestamp updated_date) {
+        this.updated_date = updated_date;
+    }
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.database.table;
+
+import com.autotune.analyzer.utils.AnalyzerConstants;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.sql.Timestamp;
+
+/**
+ * This is a Java class named KruizeHPOTrialEntry annotated with JPA annotations.
+ * It represents a table named kruize_hpo_trials in a relational database.
+ * <p>
+ * The class has the following fields:
+ * <p>
+ * experiment_name: A string representing the name of the experiment the trial belongs to.
+ * trial_number: The number of the trial within the experiment.
+ * tunables: A JSON array representing the trial config, a tunable_name and tunable_value per tunable.
+ * status: An enum representing the status of the trial, defined in AnalyzerConstants.HPOConstants.TrialStatus.
+ * result: The objective value reported for the trial, null until it completes.
+ * updated_date: The time the trial was suggested or its result was reported.
+ */
+@Entity
+@Table(name = "kruize_hpo_trials")
+public class KruizeHPOTrialEntry {
+    @Id
+    private String experiment_name;
+    @Id
+    private int trial_number;
+    @JdbcTypeCode(SqlTypes.JSON)
+    private JsonNode tunables;
+    @Enumerated(EnumType.STRING)
+    private AnalyzerConstants.HPOConstants.TrialStatus status;
+    private Double result;
+    private Timestamp updated_date;
+
+    public String getExperiment_name() {
+        return experiment_name;
+    }
+
+    public void setExperiment_name(String experiment_name) {
+        this.experiment_name = experiment_name;
+    }
+
+    public int getTrial_number() {
+        return trial_number;
+    }
+
+    public void setTrial_number(int trial_number) {
+        this.trial_number = trial_number;
+    }
+
+    public JsonNode getTunables() {
+        return tunables;
+    }
+
+    public void setTunables(JsonNode tunables) {
+        this.tunables = tunables;
+    }
+
+    public AnalyzerConstants.HPOConstants.TrialStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(AnalyzerConstants.HPOConstants.TrialStatus status) {
+        this.status = status;
+    }
+
+    public Double getResult() {
+        return result;
+    }
+
+    public void setResult(Double result) {
+        this.result = result;
+    }
+
+    public Timestamp getUpdated_date() {
+        return updated_date;
+    }
+
+    public void setUpdated_date(Timestamp updated_date) {
+        this.updated_date = updated_date;
+    }
+}
@@ -22,31 +22,9 @@ public class CreatePartition {
 
     public static void main(String[] args) {
         LOGGER.info("Checking Liveliness probe DB connection...");
-        Transaction tx = null;
-        String statusValue = "failure";
-        Timer.Sample timerAddBulkResultsDB = Timer.start(MetricsConfig.meterRegistry());
         try {
             InitializeDeployment.setup_deployment_info();
-            // create partitions
-            try (Session session = KruizeHibernateUtil.getSessionFactory().openSession()) {
-                tx = session.beginTransaction();
-                // Get the current year and month
-                YearMonth yearMonth = new ExperimentDAOImpl().buildDateForNextMonth(YearMonth.now());
-                // Fixing the partition type to 'by_month'
-                new ExperimentDAOImpl().addPartitions(DBConstants.TABLE_NAMES.KRUIZE_RESULTS, String.format("%02d", yearMonth.getMonthValue()), String.valueOf(yearMonth.getYear()), 1, DBConstants.PARTITION_TYPES.BY_MONTH);
-                new ExperimentDAOImpl().addPartitions(DBConstants.TABLE_NAMES.KRUIZE_RECOMMENDATIONS, String.format("%02d", yearMonth.getMonthValue()), String.valueOf(yearMonth.getYear()), 1, DBConstants.PARTITION_TYPES.BY_MONTH);
-                statusValue = "success";
-                tx.commit();
-                LOGGER.info("Partition creation successful!");
-            } catch (Exception partitionException) {
-                LOGGER.error(partitionException.getMessage());
-                tx.commit();
-            } finally {
-                if (null != timerAddBulkResultsDB) {
-                    MetricsConfig.timerAddBulkResultsDB = MetricsConfig.timerBAddBulkResultsDB.tag("status", statusValue).register(MetricsConfig.meterRegistry());
-                    timerAddBulkResultsDB.stop(MetricsConfig.timerAddBulkResultsDB);
-                }
-            }
+            createNextMonthPartitions();
         } catch (Exception | K8sTypeNotSupportedException | MonitoringAgentNotSupportedException |
                  MonitoringAgentNotFoundException e) {
             e.printStackTrace();
@@ -54,4 +32,33 @@ public class CreatePartition {
         }
         LOGGER.info("DB Liveliness probe connection successful!");
     }
+
+    /**
+     * Creates the partitions of the next month, run by the cron job or by the replica holding the partition duty
+     */
+    public static void createNextMonthPartitions() {
+        Transaction tx = null;
+        String statusValue = "failure";
+        Timer.Sample timerAddBulkResultsDB = Timer.start(MetricsConfig.meterRegistry());
+        // create partitions
+        try (Session session = KruizeHibernateUtil.getSessionFactory().openSession()) {
+            tx = session.beginTransaction();
+            // Get the current year and month
+            YearMonth yearMonth = new ExperimentDAOImpl().buildDateForNextMonth(YearMonth.now());
+            // Fixing the partition type to 'by_month'
+            new ExperimentDAOImpl().addPartitions(DBConstants.TABLE_NAMES.KRUIZE_RESULTS, String.format("%02d", yearMonth.getMonthValue()), String.valueOf(yearMonth.getYear()), 1, DBConstants.PARTITION_TYPES.BY_MONTH);
+            new ExperimentDAOImpl().addPartitions(DBConstants.TABLE_NAMES.KRUIZE_RECOMMENDATIONS, String.format("%02d", yearMonth.getMonthValue()), String.valueOf(yearMonth.getYear()), 1, DBConstants.PARTITION_TYPES.BY_MONTH);
+            statusValue = "success";
+            tx.commit();
+            LOGGER.info("Partition creation successful!");
+        } catch (Exception partitionException) {
+            LOGGER.error(partitionException.getMessage());
+            tx.commit();
+        } finally {
+            if (null != timerAddBulkResultsDB) {
+                MetricsConfig.timerAddBulkResultsDB = MetricsConfig.timerBAddBulkResultsDB.tag("status", statusValue).register(MetricsConfig.meterRegistry());
+                timerAddBulkResultsDB.stop(MetricsConfig.timerAddBulkResultsDB);
+            }
+        }
+    }
 }
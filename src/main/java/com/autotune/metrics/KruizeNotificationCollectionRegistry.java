@@ -14,18 +14,24 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Timestamp;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * KruizeNotificationCollectionRegistry is responsible for logging and creating metrics for notifications
  * related to Kruize recommendations.
+ * <p>
+ * The counters are cached by term, model and type, which have few distinct values, and the notifications of a
+ * container are logged as a single entry, formatted only if INFO is enabled.
  */
 public class KruizeNotificationCollectionRegistry {
+    private static final Map<CounterKey, Counter> notificationCounters = new ConcurrentHashMap<>();
+    private static volatile String loggedTypesConfig;
+    private static volatile Set<String> loggedTypes = Collections.emptySet();
     private String experiment_name;
     private Timestamp interval_end_time;
     private String container_name;
+    private String formattedEndTime;
     private static final Logger LOGGER = LoggerFactory.getLogger(KruizeNotificationCollectionRegistry.class);
 
     /**
@@ -47,26 +53,34 @@ public class KruizeNotificationCollectionRegistry {
      * @param containerData The container data from which to log notifications.
      */
     public void logNotification(ContainerData containerData) {
+        Set<String> types = getLoggedTypes();
+        if (types.isEmpty()) {
+            return;
+        }
+        StringBuilder notificationLog = LOGGER.isInfoEnabled() ? new StringBuilder() : null;
         HashMap<Integer, RecommendationNotification> containerLevelNotifications = containerData.getContainerRecommendations().getNotificationMap();
-        createCounterTag("container", null, null, containerLevelNotifications.values());
+        countNotifications(types, "container", null, null, containerLevelNotifications.values(), notificationLog);
         for (MappedRecommendationForTimestamp mappedRecommendationForTimestamp : containerData.getContainerRecommendations().getData().values()) {
             HashMap<Integer, RecommendationNotification> timeStampNotificationHashMap = mappedRecommendationForTimestamp.getHigherLevelNotificationMap();
-            createCounterTag("timestamp", null, null, timeStampNotificationHashMap.values());
+            countNotifications(types, "timestamp", null, null, timeStampNotificationHashMap.values(), notificationLog);
             for (Map.Entry<String, TermRecommendations> entry : mappedRecommendationForTimestamp.getRecommendationForTermHashMap().entrySet()) {
                 String termName = entry.getKey();
                 TermRecommendations termRecommendations = entry.getValue();
                 HashMap<Integer, RecommendationNotification> termLevelNotificationHashMap = termRecommendations.getNotifications();
-                createCounterTag("term", termName, null, termLevelNotificationHashMap.values());
+                countNotifications(types, "term", termName, null, termLevelNotificationHashMap.values(), notificationLog);
                 if (null != termRecommendations.getRecommendationForModelHashMap()) {
                     for (Map.Entry<String, MappedRecommendationForModel> recommendationForModel : termRecommendations.getRecommendationForModelHashMap().entrySet()) {
                         String modelName = recommendationForModel.getKey();
                         MappedRecommendationForModel mappedRecommendationForModel = recommendationForModel.getValue();
                         HashMap<Integer, RecommendationNotification> modelNotificationHashMap = mappedRecommendationForModel.getNotificationHashMap();
-                        createCounterTag("model", termName, modelName, modelNotificationHashMap.values());
+                        countNotifications(types, "model", termName, modelName, modelNotificationHashMap.values(), notificationLog);
                     }
                 }
             }
         }
+        if (null != notificationLog && notificationLog.length() > 0) {
+            LOGGER.info(notificationLog.toString());
+        }
     }
 
     /**
@@ -78,19 +92,92 @@ public class KruizeNotificationCollectionRegistry {
      * @param recommendationNotificationList The list of recommendation notifications to create counters for.
      */
     public void createCounterTag(String level, String term, String model, Collection<RecommendationNotification> recommendationNotificationList) {
+        StringBuilder notificationLog = LOGGER.isInfoEnabled() ? new StringBuilder() : null;
+        countNotifications(getLoggedTypes(), level, term, model, recommendationNotificationList, notificationLog);
+        if (null != notificationLog && notificationLog.length() > 0) {
+            LOGGER.info(notificationLog.toString());
+        }
+    }
+
+    private void countNotifications(Set<String> types, String level, String term, String model,
+                                    Collection<RecommendationNotification> recommendationNotificationList, StringBuilder notificationLog) {
         for (RecommendationNotification recommendationNotification : recommendationNotificationList) {
-            Tags additionalTags = Tags.empty();
-            if (("|" + KruizeDeploymentInfo.log_recommendation_metrics_level + "|").contains("|" + recommendationNotification.getType() + "|") == true) {
-                String notificationLog =  String.format(KruizeConstants.KRUIZE_RECOMMENDATION_METRICS.notification_format_for_LOG, this.experiment_name, this.container_name, KruizeConstants.DateFormats.simpleDateFormatForUTC.format(this.interval_end_time), level, term, model, String.valueOf(recommendationNotification.getCode()), recommendationNotification.getType(), recommendationNotification.getMessage());
-                String metricEntry =  String.format(KruizeConstants.KRUIZE_RECOMMENDATION_METRICS.notification_format_for_METRICS,  term, model, recommendationNotification.getType());
-                LOGGER.info(notificationLog);
-                additionalTags = additionalTags.and(KruizeConstants.KRUIZE_RECOMMENDATION_METRICS.TAG_NAME,metricEntry); // A metric entry with only three tags, which are unlikely to have many unique values, will therefore help reduce cardinality.
-                Counter counterNotifications = MetricsConfig.meterRegistry().find(KruizeConstants.KRUIZE_RECOMMENDATION_METRICS.METRIC_NAME).tags(additionalTags).counter();
-                if (counterNotifications == null) {
-                    counterNotifications = MetricsConfig.timerBKruizeNotifications.tags(additionalTags).register(MetricsConfig.meterRegistry);
+            if (!types.contains(recommendationNotification.getType())) {
+                continue;
+            }
+            if (null != notificationLog) {
+                // experiment_name|container_name|endtime|level|termname|modelname|code|type|message, one line each
+                if (notificationLog.length() > 0) {
+                    notificationLog.append(System.lineSeparator());
                 }
-                counterNotifications.increment();
+                notificationLog.append(this.experiment_name).append('|').append(this.container_name).append('|')
+                        .append(getFormattedEndTime()).append('|').append(level).append('|').append(term).append('|')
+                        .append(model).append('|').append(recommendationNotification.getCode()).append('|')
+                        .append(recommendationNotification.getType()).append('|').append(recommendationNotification.getMessage());
             }
+            getCounter(term, model, recommendationNotification.getType()).increment();
+        }
+    }
+
+    private String getFormattedEndTime() {
+        if (null == formattedEndTime) {
+            formattedEndTime = null == this.interval_end_time ? String.valueOf((Object) null)
+                    : KruizeConstants.DateFormats.dateTimeFormatterForUTC.format(this.interval_end_time.toInstant());
+        }
+        return formattedEndTime;
+    }
+
+    /**
+     * Returns the notification types to log and count, parsed again only when logRecommendationMetricsLevel changes
+     */
+    private static Set<String> getLoggedTypes() {
+        String config = KruizeDeploymentInfo.log_recommendation_metrics_level;
+        if (!Objects.equals(config, loggedTypesConfig)) {
+            Set<String> types = new HashSet<>();
+            if (null != config) {
+                for (String type : config.split("\\|")) {
+                    if (!type.isEmpty()) {
+                        types.add(type);
+                    }
+                }
+            }
+            loggedTypes = types;
+            loggedTypesConfig = config;
+        }
+        return loggedTypes;
+    }
+
+    private static Counter getCounter(String term, String model, String type) {
+        return notificationCounters.computeIfAbsent(new CounterKey(term, model, type), key -> {
+            // A metric entry with only three tags, which are unlikely to have many unique values, will therefore help reduce cardinality.
+            String metricEntry = String.format(KruizeConstants.KRUIZE_RECOMMENDATION_METRICS.notification_format_for_METRICS, term, model, type);
+            return MetricsConfig.timerBKruizeNotifications.tags(Tags.of(KruizeConstants.KRUIZE_RECOMMENDATION_METRICS.TAG_NAME, metricEntry))
+                    .register(MetricsConfig.meterRegistry());
+        });
+    }
+
+    private static final class CounterKey {
+        private final String term;
+        private final String model;
+        private final String type;
+
+        private CounterKey(String term, String model, String type) {
+            this.term = term;
+            this.model = model;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CounterKey)) return false;
+            CounterKey that = (CounterKey) o;
+            return Objects.equals(term, that.term) && Objects.equals(model, that.model) && Objects.equals(type, that.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(term, model, type);
         }
     }
 }
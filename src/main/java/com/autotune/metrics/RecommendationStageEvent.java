@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for a stage of the recommendation pipeline, emitted when recommendationStageJfr is set and recorded
+ * only while a flight recording is running.
+ */
+@Name("com.autotune.RecommendationStage")
+@Label("Recommendation Stage")
+@Category({"Kruize", "Recommendations"})
+@Description("A stage of the recommendation pipeline")
+public class RecommendationStageEvent extends Event {
+    @Label("Stage")
+    String stage;
+
+    @Label("Experiment")
+    String experiment;
+}
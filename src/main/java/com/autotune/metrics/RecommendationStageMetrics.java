@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.metrics;
+
+import com.autotune.operator.KruizeDeploymentInfo;
+import com.autotune.utils.MetricsConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Latency of each stage of the recommendation pipeline, with the bytes and rows moved by the stages.
+ * <p>
+ * The meters are registered once, with percentile histograms for the stage timers, so recording a stage does not
+ * look up or register meters. When recommendationStageJfr is set, each stage is also emitted as a
+ * {@link RecommendationStageEvent} for flight recordings.
+ * <pre>
+ * try (RecommendationStageMetrics.StageSample ignored = RecommendationStageMetrics.start(Stage.DB_WRITE, experimentName)) {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class RecommendationStageMetrics {
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.95, 0.99};
+    private static volatile RecommendationStageMetrics instance;
+
+    private final Map<Stage, Timer> timers = new EnumMap<>(Stage.class);
+    private final Map<Stage, Counter> bytesCounters = new EnumMap<>(Stage.class);
+    private final Map<Stage, Counter> rowsCounters = new EnumMap<>(Stage.class);
+
+    private RecommendationStageMetrics() {
+        for (Stage stage : Stage.values()) {
+            timers.put(stage, Timer.builder("kruizeRecommendation_stage")
+                    .description("Time taken by the stages of the recommendation pipeline")
+                    .tag("stage", stage.getName())
+                    .publishPercentiles(PERCENTILES)
+                    .publishPercentileHistogram()
+                    .register(MetricsConfig.meterRegistry()));
+            bytesCounters.put(stage, Counter.builder("kruizeRecommendation_stage_bytes")
+                    .description("Bytes moved by the stages of the recommendation pipeline")
+                    .tag("stage", stage.getName()).register(MetricsConfig.meterRegistry()));
+            rowsCounters.put(stage, Counter.builder("kruizeRecommendation_stage_rows")
+                    .description("Rows or series moved by the stages of the recommendation pipeline")
+                    .tag("stage", stage.getName()).register(MetricsConfig.meterRegistry()));
+        }
+    }
+
+    private static RecommendationStageMetrics getInstance() {
+        if (null == instance) {
+            synchronized (RecommendationStageMetrics.class) {
+                if (null == instance) {
+                    instance = new RecommendationStageMetrics();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Starts timing a stage, the stage is recorded when the returned sample is closed
+     *
+     * @param experimentName experiment the stage runs for, may be null
+     */
+    public static StageSample start(Stage stage, String experimentName) {
+        RecommendationStageEvent event = null;
+        if (Boolean.TRUE.equals(KruizeDeploymentInfo.recommendation_stage_jfr)) {
+            event = new RecommendationStageEvent();
+            if (event.isEnabled()) {
+                event.stage = stage.getName();
+                event.experiment = experimentName;
+                event.begin();
+            } else {
+                event = null;
+            }
+        }
+        return new StageSample(getInstance().timers.get(stage), event);
+    }
+
+    public static StageSample start(Stage stage) {
+        return start(stage, null);
+    }
+
+    /**
+     * Runs the supplier as the given stage and returns its result
+     */
+    public static <T> T time(Stage stage, String experimentName, Supplier<T> supplier) {
+        try (StageSample ignored = start(stage, experimentName)) {
+            return supplier.get();
+        }
+    }
+
+    public static void recordBytes(Stage stage, long bytes) {
+        getInstance().bytesCounters.get(stage).increment(bytes);
+    }
+
+    public static void recordRows(Stage stage, long rows) {
+        getInstance().rowsCounters.get(stage).increment(rows);
+    }
+
+    public enum Stage {
+        DB_LOAD("dbLoad"),
+        DATASOURCE_FETCH("datasourceFetch"),
+        JSON_DECODE("jsonDecode"),
+        TERM_AVAILABILITY("termAvailability"),
+        MODEL_COMPUTATION("modelComputation"),
+        PLOTS("plots"),
+        NOTIFICATIONS("notifications"),
+        DB_WRITE("dbWrite");
+
+        private final String name;
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Timing of one run of a stage
+     */
+    public static final class StageSample implements AutoCloseable {
+        private final Timer timer;
+        private final RecommendationStageEvent event;
+        private final long startNanos = System.nanoTime();
+
+        private StageSample(Timer timer, RecommendationStageEvent event) {
+            this.timer = timer;
+            this.event = event;
+        }
+
+        @Override
+        public void close() {
+            timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            if (null != event) {
+                event.commit();
+            }
+        }
+    }
+}
@@ -83,7 +83,7 @@ public class InitializeDeployment {
      * Any errors encountered during this process are logged as warnings.
      */
     private static void setConfigValues(String configFileName, Class envClass) {
-        String configFile = System.getenv(configFileName);
+        String configFile = getConfigFile(configFileName);
         JSONObject configObject = null;
         if (null != configFile) {
             try (InputStream is = new FileInputStream(configFile)) {
@@ -114,6 +114,21 @@ public class InitializeDeployment {
         }
     }
 
+    /**
+     * Returns the path of a mounted config file, set by the environment variable of the given name or, when
+     * Kruize is started in-process, by the system property of the same name.
+     *
+     * @param configFileName name of the variable holding the path, KRUIZE_CONFIG_FILE or DB_CONFIG_FILE
+     * @return path of the config file, null if it is not set
+     */
+    public static String getConfigFile(String configFileName) {
+        String configFile = System.getenv(configFileName);
+        if (null == configFile) {
+            configFile = System.getProperty(configFileName);
+        }
+        return configFile;
+    }
+
     private static String getKruizeConfigValue(String envName, JSONObject kruizeConfigObject) {
         Object envValue = null;
         String message = "Config variable : " + envName;
@@ -22,6 +22,7 @@ import com.autotune.analyzer.kruizeLayer.layers.ContainerLayer;
 import com.autotune.analyzer.kruizeLayer.layers.GenericLayer;
 import com.autotune.analyzer.kruizeLayer.layers.HotspotLayer;
 import com.autotune.analyzer.kruizeLayer.layers.QuarkusLayer;
+import com.autotune.analyzer.utils.AnalyzerConstants;
 import com.autotune.utils.KruizeSupportedTypes;
 import com.autotune.utils.KubeEventLogger;
 import org.slf4j.Logger;
@@ -73,6 +74,10 @@ public class KruizeDeploymentInfo {
     public static String cloudwatch_logs_region;
     public static String cloudwatch_logs_log_level;
     public static String cloudwatch_logs_log_stream;
+    public static Integer cloudwatch_logs_buffer_size = 8192;
+    public static Integer cloudwatch_logs_flush_interval_ms = 1000;
+    public static String cloudwatch_logs_overflow_policy = "drop";
+    public static String cloudwatch_logs_endpoint;
 
     public static Boolean settings_save_to_db;
     public static String em_only_mode;
@@ -90,6 +95,55 @@ public class KruizeDeploymentInfo {
     //private static KubernetesClient kubernetesClient;
     private static KubeEventLogger kubeEventLogger;
     public static Boolean is_ros_enabled = false;
+    public static Boolean startup_parallel_init = true;
+    public static Boolean async_requests = true;
+    public static Integer async_pool_size = 10;
+    public static Integer async_queue_size = 100;
+    public static Integer async_request_timeout_secs = 300;
+    public static Boolean results_ingestion_async = false;
+    public static Integer results_ingestion_queue_size = 10000;
+    public static Integer results_ingestion_writers = 2;
+    public static Integer results_ingestion_batch_size = 500;
+    public static Integer results_ingestion_shutdown_timeout_secs = 20;
+    public static Boolean recommendation_parallel = false;
+    public static Integer recommendation_parallelism = Runtime.getRuntime().availableProcessors();
+    public static Boolean bulk_grouped_fetch = false;
+    public static Integer bulk_prefetch_max_containers = 200;
+    public static Integer range_query_chunk_hours = 24;
+    public static Integer range_query_chunk_threads = 4;
+    public static Boolean datasource_limiter = false;
+    public static Integer datasource_initial_concurrency = 10;
+    public static Integer datasource_max_concurrency = 50;
+    public static Boolean query_cache = false;
+    public static Integer query_cache_ttl_secs = 60;
+    public static Integer query_cache_max_mb = 64;
+    public static Boolean recommendation_stage_jfr = false;
+    public static String hpo_engine = AnalyzerConstants.HPOConstants.ENGINE_REMOTE;
+    public static Integer event_queue_size = 1000;
+    public static Integer event_rate_limit = 10;
+    public static Integer event_aggregation_window_ms = 5000;
+    public static Integer bulk_job_status_ttl_secs = 86400;
+    public static Integer bulk_job_status_max_jobs = 1000;
+    public static Integer bulk_job_status_max_running_secs = 604800;
+    public static Integer bulk_create_batch_size = 50;
+    public static Boolean coordination = false;
+    public static Integer coordination_heartbeat_secs = 10;
+    public static Integer coordination_replica_timeout_secs = 30;
+    public static Boolean task_queue = false;
+    public static Integer task_queue_retention_secs = 86400;
+    public static Integer task_queue_bulk_workers = 10;
+    public static Integer task_queue_updater_workers = 2;
+    public static Integer task_queue_visibility_timeout_secs = 300;
+    public static Integer task_queue_max_attempts = 5;
+    public static Integer task_queue_backoff_secs = 10;
+    public static Integer task_queue_max_backoff_secs = 600;
+    public static Integer task_queue_poll_millis = 1000;
+    public static Boolean results_rollups = false;
+    public static Integer results_rollup_raw_days = 1;
+    public static Integer results_rollup_hourly_days = 7;
+    public static Boolean local_delta_fetch = false;
+    public static Integer local_delta_fetch_overlap_mins = 30;
+    public static Integer local_delta_fetch_max_containers = 100;
 
 
     private KruizeDeploymentInfo() {
@@ -144,11 +198,17 @@ public class KruizeDeploymentInfo {
         }
     }
 
-    public static void initiateEventLogging() {
+    public static synchronized void initiateEventLogging() {
+        if (null != kubeEventLogger) {
+            kubeEventLogger.close();
+        }
         kubeEventLogger = new KubeEventLogger(Clock.systemUTC());
     }
 
-    public static KubeEventLogger getKubeEventLogger() {
+    public static synchronized KubeEventLogger getKubeEventLogger() {
+        if (null == kubeEventLogger) {
+            initiateEventLogging();
+        }
         return kubeEventLogger;
     }
 
@@ -39,7 +39,6 @@ import com.autotune.common.target.kubernetes.service.KubernetesServices;
 import com.autotune.common.target.kubernetes.service.impl.KubernetesServicesImpl;
 import com.autotune.common.variables.Variables;
 import com.autotune.utils.EventLogger;
-import com.autotune.utils.KubeEventLogger;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.gson.Gson;
@@ -61,7 +60,6 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
-import java.time.Clock;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -173,15 +171,15 @@ public class KruizeOperator {
                 experimentInitiator.validateAndAddNewExperiments(autotuneObjectMap, kruizeObjectList);
                 KruizeObject invalidKruizeObject = kruizeObjectList.stream().filter((ko) -> (!ko.getValidation_data().isSuccess())).findAny().orElse(null);
                 if (invalidKruizeObject != null) {
-                    new KubeEventLogger(Clock.systemUTC()).log("Failed", invalidKruizeObject.getValidation_data().getMessage(), EventLogger.Type.Warning, null, null, kruizeObject.getObjectReference(), null);
+                    KruizeDeploymentInfo.getKubeEventLogger().log("Failed", invalidKruizeObject.getValidation_data().getMessage(), EventLogger.Type.Warning, null, null, kruizeObject.getObjectReference(), null);
                 } else {
                     LOGGER.debug(kruizeObject.getExperimentName() + " " + kruizeObject.getValidation_data().getMessage());
                 }
             } else {
-                new KubeEventLogger(Clock.systemUTC()).log("Failed", "Not able to process KruizeObject ", EventLogger.Type.Warning, null, null, kruizeObject.getObjectReference(), null);
+                KruizeDeploymentInfo.getKubeEventLogger().log("Failed", "Not able to process KruizeObject ", EventLogger.Type.Warning, null, null, kruizeObject.getObjectReference(), null);
             }
         } catch (Exception e) {
-            new KubeEventLogger(Clock.systemUTC()).log("Failed", e.getMessage(), EventLogger.Type.Warning, null, null, kruizeObject.getObjectReference(), null);
+            KruizeDeploymentInfo.getKubeEventLogger().log("Failed", e.getMessage(), EventLogger.Type.Warning, null, null, kruizeObject.getObjectReference(), null);
         }
     }
 
@@ -422,7 +420,7 @@ public class KruizeOperator {
 
         } catch (InvalidValueException | NullPointerException | JSONException | SloClassNotSupportedException e) {
             LOGGER.error(e.getMessage());
-            new KubeEventLogger(Clock.systemUTC()).log("Failed", e.getMessage(), EventLogger.Type.Warning, null, null, null, null);
+            KruizeDeploymentInfo.getKubeEventLogger().log("Failed", e.getMessage(), EventLogger.Type.Warning, null, null, null, null);
             return null;
         }
     }
@@ -441,14 +439,14 @@ public class KruizeOperator {
                     LOGGER.info("Added Performance Profile : {} into the map with version: {}",
                             performanceProfile.getName(), performanceProfile.getProfile_version());
                 } else {
-                    new KubeEventLogger(Clock.systemUTC()).log("Failed", validationOutputData.getMessage(), EventLogger.Type.Warning, null, null, null, null);
+                    KruizeDeploymentInfo.getKubeEventLogger().log("Failed", validationOutputData.getMessage(), EventLogger.Type.Warning, null, null, null, null);
                 }
             } else {
-                new KubeEventLogger(Clock.systemUTC()).log("Failed", "Unable to create performance profile ", EventLogger.Type.Warning, null, null, null, null);
+                KruizeDeploymentInfo.getKubeEventLogger().log("Failed", "Unable to create performance profile ", EventLogger.Type.Warning, null, null, null, null);
             }
         } catch (Exception e) {
             LOGGER.error("Exception while adding PP with message: {} ", e.getMessage());
-            new KubeEventLogger(Clock.systemUTC()).log("Failed", e.getMessage(), EventLogger.Type.Warning, null, null, null, null);
+            KruizeDeploymentInfo.getKubeEventLogger().log("Failed", e.getMessage(), EventLogger.Type.Warning, null, null, null, null);
             return null;
         }
         return performanceProfile.getName();
@@ -474,14 +472,14 @@ public class KruizeOperator {
                     LOGGER.info("Added metric Profile : {} into the map with version: {}",
                             metricProfile.getName(), metricProfile.getProfile_version());
                 } else {
-                    new KubeEventLogger(Clock.systemUTC()).log("Failed", validationOutputData.getMessage(), EventLogger.Type.Warning, null, null, null, null);
+                    KruizeDeploymentInfo.getKubeEventLogger().log("Failed", validationOutputData.getMessage(), EventLogger.Type.Warning, null, null, null, null);
                 }
             } else {
-                new KubeEventLogger(Clock.systemUTC()).log("Failed", "Unable to create metric profile ", EventLogger.Type.Warning, null, null, null, null);
+                KruizeDeploymentInfo.getKubeEventLogger().log("Failed", "Unable to create metric profile ", EventLogger.Type.Warning, null, null, null, null);
             }
         } catch (Exception e) {
             LOGGER.error("Exception while adding Metric profile with message: {} ", e.getMessage());
-            new KubeEventLogger(Clock.systemUTC()).log("Failed", e.getMessage(), EventLogger.Type.Warning, null, null, null, null);
+            KruizeDeploymentInfo.getKubeEventLogger().log("Failed", e.getMessage(), EventLogger.Type.Warning, null, null, null, null);
             return null;
         }
         return metricProfile.getName();
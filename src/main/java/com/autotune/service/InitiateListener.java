@@ -42,6 +42,39 @@ import java.util.concurrent.TimeUnit;
  */
 public class InitiateListener implements ServletContextListener {
     private static final Logger LOGGER = LoggerFactory.getLogger(InitiateListener.class);
+    private static volatile ConcurrentHashMap<String, PerformanceProfile> preloadedPerformanceProfilesMap;
+    private static volatile ConcurrentHashMap<String, PerformanceProfile> preloadedMetricProfilesMap;
+
+    /**
+     * Loads the performance and metric profiles from the DB during the startup pipeline, so that
+     * the context initialization reuses them instead of reading the DB again before the server starts.
+     */
+    public static void preloadProfiles() {
+        preloadedPerformanceProfilesMap = loadPerformanceProfiles();
+        if (KruizeDeploymentInfo.local == true) {
+            preloadedMetricProfilesMap = loadMetricProfiles();
+        }
+    }
+
+    private static ConcurrentHashMap<String, PerformanceProfile> loadPerformanceProfiles() {
+        ConcurrentHashMap<String, PerformanceProfile> performanceProfilesMap = new ConcurrentHashMap<>();
+        try {
+            new ExperimentDBService().loadAllPerformanceProfiles(performanceProfilesMap);
+        } catch (Exception e) {
+            LOGGER.error("Failed to load performance profile: {} ", e.getMessage());
+        }
+        return performanceProfilesMap;
+    }
+
+    private static ConcurrentHashMap<String, PerformanceProfile> loadMetricProfiles() {
+        ConcurrentHashMap<String, PerformanceProfile> metricProfilesMap = new ConcurrentHashMap<>();
+        try {
+            new ExperimentDBService().loadAllMetricProfiles(metricProfilesMap);
+        } catch (Exception e) {
+            LOGGER.error("Failed to load metric profile: {} ", e.getMessage());
+        }
+        return metricProfilesMap;
+    }
 
     @Override
     public void contextInitialized(ServletContextEvent sce) {
@@ -150,11 +183,9 @@ public class InitiateListener implements ServletContextListener {
         /*
           Kruize Performance Profile configuration
          */
-        ConcurrentHashMap<String, PerformanceProfile> performanceProfilesMap = new ConcurrentHashMap<>();
-        try {
-            new ExperimentDBService().loadAllPerformanceProfiles(performanceProfilesMap);
-        } catch (Exception e) {
-            LOGGER.error("Failed to load performance profile: {} ", e.getMessage());
+        ConcurrentHashMap<String, PerformanceProfile> performanceProfilesMap = preloadedPerformanceProfilesMap;
+        if (null == performanceProfilesMap) {
+            performanceProfilesMap = loadPerformanceProfiles();
         }
         sce.getServletContext().setAttribute(AnalyzerConstants.PerformanceProfileConstants.PERF_PROFILE_MAP, performanceProfilesMap);
 
@@ -162,11 +193,9 @@ public class InitiateListener implements ServletContextListener {
             /*
             Kruize Metric Profile configuration
             */
-            ConcurrentHashMap<String, PerformanceProfile> metricProfilesMap = new ConcurrentHashMap<>();
-            try {
-                new ExperimentDBService().loadAllMetricProfiles(metricProfilesMap);
-            } catch (Exception e) {
-                LOGGER.error("Failed to load metric profile: {} ", e.getMessage());
+            ConcurrentHashMap<String, PerformanceProfile> metricProfilesMap = preloadedMetricProfilesMap;
+            if (null == metricProfilesMap) {
+                metricProfilesMap = loadMetricProfiles();
             }
             sce.getServletContext().setAttribute(AnalyzerConstants.PerformanceProfileConstants.METRIC_PROFILE_MAP, metricProfilesMap);
         }
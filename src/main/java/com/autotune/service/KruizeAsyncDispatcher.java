@@ -0,0 +1,454 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.service;
+
+import com.autotune.analyzer.utils.AnalyzerConstants;
+import com.autotune.common.parallelengine.executor.KruizeExecutor;
+import com.autotune.common.parallelengine.queue.KruizeQueue;
+import com.autotune.operator.KruizeDeploymentInfo;
+import com.autotune.utils.MetricsConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs slow API requests off the Jetty thread pool using the servlet AsyncContext.
+ * <p>
+ * Each lane has its own bounded executor, so a burst of slow requests on one lane neither blocks the other
+ * lanes nor the Jetty threads serving cheap requests like /health and /metrics. When the queue of a lane
+ * is full the request is rejected with 429 and a Retry-After header, and requests which do not complete
+ * within the configured timeout get a 503. Once a request timed out or failed, whatever its handler still
+ * writes is dropped.
+ */
+public class KruizeAsyncDispatcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(KruizeAsyncDispatcher.class);
+    public static final String RECOMMENDATIONS_LANE = "recommendations";
+    public static final String RESULTS_LANE = "results";
+    private static final int RETRY_AFTER_SECS = 5;
+    private static volatile KruizeAsyncDispatcher recommendationsLane;
+    private static volatile KruizeAsyncDispatcher resultsLane;
+
+    private final String lane;
+    private final KruizeExecutor executor;
+    private final long timeoutMillis;
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+    private final Counter rejectedCounter;
+    private final Counter timedOutCounter;
+
+    private KruizeAsyncDispatcher(String lane, int poolSize, int queueSize, long timeoutMillis) {
+        this.lane = lane;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = new KruizeExecutor(poolSize,
+                poolSize,
+                60,
+                TimeUnit.SECONDS,
+                new KruizeQueue<>(queueSize),
+                new ThreadPoolExecutor.AbortPolicy(),
+                null
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+        Gauge.builder("kruizeAsync_queue_depth", executor, e -> e.getQueue().size())
+                .description("Requests waiting for a worker").tag("lane", lane)
+                .register(MetricsConfig.meterRegistry());
+        Gauge.builder("kruizeAsync_in_flight", inFlight, AtomicInteger::get)
+                .description("Requests accepted and not yet completed").tag("lane", lane)
+                .register(MetricsConfig.meterRegistry());
+        this.rejectedCounter = Counter.builder("kruizeAsync_rejected").description("Requests rejected as the lane queue was full")
+                .tag("lane", lane).register(MetricsConfig.meterRegistry());
+        this.timedOutCounter = Counter.builder("kruizeAsync_timed_out").description("Requests which did not complete within the timeout")
+                .tag("lane", lane).register(MetricsConfig.meterRegistry());
+    }
+
+    /**
+     * Lane used by the updateRecommendations and generateRecommendations APIs
+     */
+    public static KruizeAsyncDispatcher getRecommendationsLane() {
+        if (null == recommendationsLane) {
+            synchronized (KruizeAsyncDispatcher.class) {
+                if (null == recommendationsLane) {
+                    recommendationsLane = createLane(RECOMMENDATIONS_LANE);
+                }
+            }
+        }
+        return recommendationsLane;
+    }
+
+    /**
+     * Lane used by the updateResults API
+     */
+    public static KruizeAsyncDispatcher getResultsLane() {
+        if (null == resultsLane) {
+            synchronized (KruizeAsyncDispatcher.class) {
+                if (null == resultsLane) {
+                    resultsLane = createLane(RESULTS_LANE);
+                }
+            }
+        }
+        return resultsLane;
+    }
+
+    private static KruizeAsyncDispatcher createLane(String lane) {
+        LOGGER.info("Starting async lane {} with {} workers, queue size {} and timeout {}s", lane,
+                KruizeDeploymentInfo.async_pool_size, KruizeDeploymentInfo.async_queue_size,
+                KruizeDeploymentInfo.async_request_timeout_secs);
+        return new KruizeAsyncDispatcher(lane, KruizeDeploymentInfo.async_pool_size,
+                KruizeDeploymentInfo.async_queue_size,
+                TimeUnit.SECONDS.toMillis(KruizeDeploymentInfo.async_request_timeout_secs));
+    }
+
+    /**
+     * Processes the request on this lane. The request runs inline on the calling thread if async
+     * processing is disabled or the servlet was not registered with async support.
+     *
+     * @param request  request received by the servlet
+     * @param response response of the servlet
+     * @param handler  handler which does the actual processing of the request
+     */
+    public void dispatch(HttpServletRequest request, HttpServletResponse response, AsyncRequestHandler handler) throws IOException {
+        if (!KruizeDeploymentInfo.async_requests || !request.isAsyncSupported()) {
+            handler.handle(request, response);
+            return;
+        }
+        AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(timeoutMillis);
+        // taken by whichever of the timeout, an error or the handler completes the request first; the handler writes
+        // through a response holding it while writing, so nothing is written once the request is completed
+        AtomicBoolean completed = new AtomicBoolean(false);
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) throws IOException {
+                synchronized (completed) {
+                    if (completed.compareAndSet(false, true)) {
+                        timedOutCounter.increment();
+                        LOGGER.error("{} request {} timed out", lane, request.getRequestURI());
+                        HttpServletResponse asyncResponse = (HttpServletResponse) event.getAsyncContext().getResponse();
+                        if (!asyncResponse.isCommitted()) {
+                            asyncResponse.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                                    String.format(AnalyzerConstants.ServiceConstants.REQUEST_TIMED_OUT,
+                                            TimeUnit.MILLISECONDS.toSeconds(timeoutMillis)));
+                        }
+                        event.getAsyncContext().complete();
+                    }
+                }
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                synchronized (completed) {
+                    if (completed.compareAndSet(false, true)) {
+                        LOGGER.error("{} request {} failed due to : {}", lane, request.getRequestURI(),
+                                null == event.getThrowable() ? null : event.getThrowable().getMessage());
+                        event.getAsyncContext().complete();
+                    }
+                }
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        try {
+            executor.execute(() -> {
+                inFlight.incrementAndGet();
+                try {
+                    if (!completed.get()) {
+                        handler.handle((HttpServletRequest) asyncContext.getRequest(),
+                                new GuardedResponse((HttpServletResponse) asyncContext.getResponse(), completed));
+                    }
+                } catch (Exception e) {
+                    LOGGER.error("{} request {} failed due to : {}", lane, request.getRequestURI(), e.getMessage());
+                } finally {
+                    inFlight.decrementAndGet();
+                    synchronized (completed) {
+                        if (completed.compareAndSet(false, true)) {
+                            asyncContext.complete();
+                        }
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            LOGGER.warn("{} queue is full, rejecting request {}", lane, request.getRequestURI());
+            synchronized (completed) {
+                if (completed.compareAndSet(false, true)) {
+                    response.setHeader(AnalyzerConstants.ServiceConstants.RETRY_AFTER, String.valueOf(RETRY_AFTER_SECS));
+                    response.sendError(AnalyzerConstants.ServiceConstants.SC_TOO_MANY_REQUESTS,
+                            String.format(AnalyzerConstants.ServiceConstants.REQUEST_QUEUE_FULL, lane));
+                    asyncContext.complete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Response handed to the handler of a dispatched request. The status, headers and body are written holding the
+     * completion guard of the request, and dropped once the request was completed by its timeout or an error, as
+     * the container may then recycle the response for another request.
+     */
+    private static class GuardedResponse extends HttpServletResponseWrapper {
+        private final AtomicBoolean completed;
+        private PrintWriter writer;
+        private ServletOutputStream outputStream;
+
+        private GuardedResponse(HttpServletResponse response, AtomicBoolean completed) {
+            super(response);
+            this.completed = completed;
+        }
+
+        @Override
+        public void setContentType(String type) {
+            synchronized (completed) {
+                if (!completed.get()) {
+                    super.setContentType(type);
+                }
+            }
+        }
+
+        @Override
+        public void setCharacterEncoding(String charset) {
+            synchronized (completed) {
+                if (!completed.get()) {
+                    super.setCharacterEncoding(charset);
+                }
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            synchronized (completed) {
+                if (!completed.get()) {
+                    super.setHeader(name, value);
+                }
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            synchronized (completed) {
+                if (!completed.get()) {
+                    super.addHeader(name, value);
+                }
+            }
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            synchronized (completed) {
+                if (!completed.get()) {
+                    super.setIntHeader(name, value);
+                }
+            }
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            synchronized (completed) {
+                if (!completed.get()) {
+                    super.addIntHeader(name, value);
+                }
+            }
+        }
+
+        @Override
+        public void setDateHeader(String name, long date) {
+            synchronized (completed) {
+                if (!completed.get()) {
+                    super.setDateHeader(name, date);
+                }
+            }
+        }
+
+        @Override
+        public void addDateHeader(String name, long date) {
+            synchronized (completed) {
+                if (!completed.get()) {
+                    super.addDateHeader(name, date);
+                }
+            }
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            synchronized (completed) {
+                if (!completed.get()) {
+                    super.setContentLength(len);
+                }
+            }
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            synchronized (completed) {
+                if (!completed.get()) {
+                    super.setContentLengthLong(len);
+                }
+            }
+        }
+
+        @Override
+        public void setStatus(int sc) {
+            synchronized (completed) {
+                if (!completed.get()) {
+                    super.setStatus(sc);
+                }
+            }
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            synchronized (completed) {
+                if (!completed.get()) {
+                    super.sendError(sc, msg);
+                }
+            }
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            synchronized (completed) {
+                if (!completed.get()) {
+                    super.sendError(sc);
+                }
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            synchronized (completed) {
+                if (!completed.get()) {
+                    super.flushBuffer();
+                }
+            }
+        }
+
+        @Override
+        public synchronized PrintWriter getWriter() throws IOException {
+            if (null == writer) {
+                PrintWriter delegate;
+                synchronized (completed) {
+                    delegate = completed.get() ? new PrintWriter(Writer.nullWriter()) : super.getWriter();
+                }
+                writer = new PrintWriter(new Writer() {
+                    @Override
+                    public void write(char[] chars, int off, int len) {
+                        synchronized (completed) {
+                            if (!completed.get()) {
+                                delegate.write(chars, off, len);
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void flush() {
+                        synchronized (completed) {
+                            if (!completed.get()) {
+                                delegate.flush();
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void close() {
+                        flush();
+                    }
+                });
+            }
+            return writer;
+        }
+
+        @Override
+        public synchronized ServletOutputStream getOutputStream() throws IOException {
+            if (null == outputStream) {
+                // null once completed, the writes below are then skipped
+                ServletOutputStream delegate;
+                synchronized (completed) {
+                    delegate = completed.get() ? null : super.getOutputStream();
+                }
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public boolean isReady() {
+                        return null == delegate || delegate.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        if (null != delegate) {
+                            delegate.setWriteListener(writeListener);
+                        }
+                    }
+
+                    @Override
+                    public void write(int b) throws IOException {
+                        synchronized (completed) {
+                            if (!completed.get()) {
+                                delegate.write(b);
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void write(byte[] bytes, int off, int len) throws IOException {
+                        synchronized (completed) {
+                            if (!completed.get()) {
+                                delegate.write(bytes, off, len);
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        synchronized (completed) {
+                            if (!completed.get()) {
+                                delegate.flush();
+                            }
+                        }
+                    }
+                };
+            }
+            return outputStream;
+        }
+    }
+
+    /**
+     * Processing done for a request dispatched on a lane
+     */
+    @FunctionalInterface
+    public interface AsyncRequestHandler {
+        void handle(HttpServletRequest request, HttpServletResponse response) throws IOException;
+    }
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.service;
+
+import com.autotune.utils.KruizeConstants;
+import com.autotune.utils.MetricsConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the init phases needed before the server starts accepting requests.
+ * <p>
+ * Each phase declares the phases it depends on; independent phases run in parallel once their
+ * dependencies complete. A failed phase fails every phase depending on it and the pipeline as a whole.
+ * The time taken by each phase is exported through the kruizeStartup timer.
+ */
+public class KruizeStartupPipeline {
+    private static final Logger LOGGER = LoggerFactory.getLogger(KruizeStartupPipeline.class);
+    private final boolean parallel;
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
+    private final Map<String, Long> phaseTimings = new ConcurrentHashMap<>();
+    private final Map<String, String> phaseStatus = new ConcurrentHashMap<>();
+
+    /**
+     * @param parallel run independent phases concurrently, otherwise run them in the order they were added
+     */
+    public KruizeStartupPipeline(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Returns true when the JVM was launched only to record the classes loaded at startup into an AppCDS archive
+     */
+    public static boolean isCDSTrainingRun() {
+        return Boolean.parseBoolean(System.getenv(KruizeConstants.StartupPhases.CDS_TRAINING_RUN));
+    }
+
+    /**
+     * Adds an init phase to the pipeline
+     *
+     * @param name      name of the phase, used in logs and as the metric tag
+     * @param task      work done by the phase
+     * @param dependsOn phases which must complete successfully before this one starts
+     * @return this pipeline
+     */
+    public KruizeStartupPipeline addPhase(String name, StartupTask task, String... dependsOn) {
+        for (String dependency : dependsOn) {
+            if (!phases.containsKey(dependency)) {
+                throw new IllegalArgumentException("Startup phase " + name + " depends on unknown phase " + dependency);
+            }
+        }
+        phases.put(name, new Phase(name, task, dependsOn));
+        return this;
+    }
+
+    /**
+     * Runs all the phases and waits for them to complete
+     *
+     * @throws Exception the failure of the first phase which did not complete
+     */
+    public void execute() throws Exception {
+        long pipelineStart = System.nanoTime();
+        try {
+            if (parallel) {
+                executeParallel();
+            } else {
+                for (Phase phase : phases.values()) {
+                    runPhase(phase);
+                }
+            }
+            phaseStatus.put(KruizeConstants.StartupPhases.TOTAL, "success");
+        } catch (Exception e) {
+            phaseStatus.put(KruizeConstants.StartupPhases.TOTAL, "failure");
+            throw e;
+        } finally {
+            phaseTimings.put(KruizeConstants.StartupPhases.TOTAL, System.nanoTime() - pipelineStart);
+            recordTimings();
+        }
+    }
+
+    private void executeParallel() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.max(1, phases.size()));
+        Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        try {
+            // phases are added after their dependencies, so a single pass wires the whole graph
+            for (Phase phase : phases.values()) {
+                CompletableFuture<?>[] dependencies = new CompletableFuture<?>[phase.dependsOn.length];
+                for (int i = 0; i < phase.dependsOn.length; i++) {
+                    dependencies[i] = futures.get(phase.dependsOn[i]);
+                }
+                CompletableFuture<Void> future = CompletableFuture.allOf(dependencies).thenRunAsync(() -> {
+                    try {
+                        runPhase(phase);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, executorService);
+                futures.put(phase.name, future);
+            }
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            while (cause instanceof CompletionException && null != cause.getCause()) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        } finally {
+            executorService.shutdown();
+            executorService.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private void runPhase(Phase phase) throws Exception {
+        LOGGER.debug("Starting startup phase {}", phase.name);
+        long start = System.nanoTime();
+        String statusValue = "failure";
+        try {
+            phase.task.run();
+            statusValue = "success";
+        } catch (Exception e) {
+            LOGGER.error("Startup phase {} failed due to : {}", phase.name, e.getMessage());
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            phaseTimings.put(phase.name, elapsed);
+            phaseStatus.put(phase.name, statusValue);
+            LOGGER.info("Startup phase {} completed in {} ms with status {}", phase.name, TimeUnit.NANOSECONDS.toMillis(elapsed), statusValue);
+        }
+    }
+
+    /**
+     * Timers are registered from the calling thread once all the phases are done, as the shared
+     * Timer.Builder in MetricsConfig is not safe to tag concurrently.
+     */
+    private void recordTimings() {
+        List<String> phaseNames = new ArrayList<>(phaseTimings.keySet());
+        for (String phaseName : phaseNames) {
+            String statusValue = phaseStatus.getOrDefault(phaseName, "failure");
+            MetricsConfig.timerBStartupPhase.tag("phase", phaseName).tag("status", statusValue)
+                    .register(MetricsConfig.meterRegistry())
+                    .record(phaseTimings.get(phaseName), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Work done by a single startup phase
+     */
+    @FunctionalInterface
+    public interface StartupTask {
+        void run() throws Exception;
+    }
+
+    private static class Phase {
+        private final String name;
+        private final StartupTask task;
+        private final String[] dependsOn;
+
+        private Phase(String name, StartupTask task, String[] dependsOn) {
+            this.name = name;
+            this.task = task;
+            this.dependsOn = dependsOn;
+        }
+    }
+}
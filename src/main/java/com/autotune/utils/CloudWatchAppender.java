@@ -1,5 +1,7 @@
 package com.autotune.utils;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.core.Filter;
@@ -11,65 +13,216 @@ import org.apache.logging.log4j.core.config.Configuration;
 import org.apache.logging.log4j.core.config.LoggerConfig;
 import org.apache.logging.log4j.core.filter.AbstractFilter;
 import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.apache.logging.log4j.status.StatusLogger;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.client.builder.SdkClientBuilder;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsAsyncClient;
 import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
 import software.amazon.awssdk.services.cloudwatchlogs.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
 import static com.autotune.operator.KruizeDeploymentInfo.*;
+import static com.autotune.utils.KruizeConstants.CLOUDWATCH_LOGS.*;
 
+/**
+ * Sends the logs to CloudWatch in batches.
+ * <p>
+ * append only puts the event in a bounded lock-free ring buffer, a background flusher sends the buffered events
+ * every flush interval, or as soon as a full batch is buffered, in PutLogEvents requests within the batch size
+ * and byte limits of the API. When the buffer is full the event is dropped, or the logging thread waits for room
+ * if the overflow policy is block. Only the flusher talks to CloudWatch, so the sequence token is never raced on.
+ */
 public class CloudWatchAppender extends AbstractAppender {
     private static final Logger LOGGER = LoggerFactory.getLogger(CloudWatchAppender.class);
     private final String logGroupName;
     private final String logStreamName;
     private final CloudWatchLogsAsyncClient cloudWatchLogsClient;
+    private final BoundedRingBuffer<InputLogEvent> buffer;
+    private final long flushIntervalMillis;
+    private final boolean blockWhenFull;
+    private final Counter queuedCounter;
+    private final Counter droppedCounter;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private volatile boolean running;
+    private volatile Thread flusher;
+    // only used by the flusher
     private String sequenceToken = null;
+    private InputLogEvent carriedEvent;
 
     public CloudWatchAppender(String name, Filter filter, Layout<?> layout, String logGroupName, String logStreamName, String region, String awsAccessKeyId, String awsSecretKey) {
+        this(name, filter, layout, logGroupName, logStreamName,
+                withEndpoint(CloudWatchLogsAsyncClient.builder(), cloudwatch_logs_endpoint)
+                        .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(awsAccessKeyId, awsSecretKey)))
+                        .region(Region.of(region))
+                        .build(),
+                cloudwatch_logs_buffer_size, cloudwatch_logs_flush_interval_ms,
+                OVERFLOW_POLICY_BLOCK.equalsIgnoreCase(cloudwatch_logs_overflow_policy));
+    }
+
+    CloudWatchAppender(String name, Filter filter, Layout<?> layout, String logGroupName, String logStreamName,
+                       CloudWatchLogsAsyncClient cloudWatchLogsClient, int bufferSize, long flushIntervalMillis, boolean blockWhenFull) {
         super(name, filter, layout, false, null);
         this.logGroupName = logGroupName;
         this.logStreamName = logStreamName;
-        this.cloudWatchLogsClient = CloudWatchLogsAsyncClient.builder()
-                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(awsAccessKeyId, awsSecretKey)))
-                .region(Region.of(region))
-                .build();
+        this.cloudWatchLogsClient = cloudWatchLogsClient;
+        this.buffer = new BoundedRingBuffer<>(bufferSize);
+        this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
+        this.blockWhenFull = blockWhenFull;
+        Gauge.builder("kruizeCloudWatch_buffered_events", buffer, BoundedRingBuffer::size)
+                .description("Log events waiting to be sent to CloudWatch").register(MetricsConfig.meterRegistry());
+        queuedCounter = eventCounter("queued");
+        droppedCounter = eventCounter("dropped");
+        sentCounter = eventCounter("sent");
+        failedCounter = eventCounter("failed");
+    }
+
+    private static Counter eventCounter(String state) {
+        return Counter.builder("kruizeCloudWatch_events").description("Log events handled by the CloudWatch appender")
+                .tag("state", state).register(MetricsConfig.meterRegistry());
+    }
+
+    private static <B extends SdkClientBuilder<B, ?>> B withEndpoint(B builder, String endpoint) {
+        if (null != endpoint && !endpoint.isEmpty()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder;
     }
 
     @Override
     public void start() {
+        running = true;
+        flusher = new Thread(this::runFlusher, FLUSHER_THREAD_NAME);
+        flusher.setDaemon(true);
+        flusher.start();
         super.start();
     }
 
+    @Override
+    public boolean stop(long timeout, TimeUnit timeUnit) {
+        setStopping();
+        running = false;
+        Thread flusherThread = flusher;
+        if (null != flusherThread) {
+            LockSupport.unpark(flusherThread);
+            try {
+                flusherThread.join(timeout > 0 ? timeUnit.toMillis(timeout) : STOP_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        cloudWatchLogsClient.close();
+        boolean stopped = super.stop(timeout, timeUnit, false);
+        setStopped();
+        return stopped;
+    }
+
     @Override
     public void append(LogEvent event) {
-        String message = getLayout().toSerializable(event).toString();
-        List<InputLogEvent> logEvents = new ArrayList<>();
-        logEvents.add(InputLogEvent.builder()
+        String message = truncate(getLayout().toSerializable(event).toString());
+        InputLogEvent logEvent = InputLogEvent.builder()
                 .timestamp(event.getTimeMillis())
                 .message(message)
-                .build());
+                .build();
+        while (!buffer.offer(logEvent)) {
+            // the flusher itself must never wait for room, it is the one making it
+            if (!blockWhenFull || !running || Thread.currentThread() == flusher) {
+                droppedCounter.increment();
+                return;
+            }
+            LockSupport.unpark(flusher);
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+        queuedCounter.increment();
+        if (buffer.size() >= MAX_BATCH_EVENTS) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    private static String truncate(String message) {
+        int maxBytes = MAX_EVENT_BYTES - EVENT_OVERHEAD_BYTES;
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= maxBytes) {
+            return message;
+        }
+        // cut on a character boundary
+        String truncated = new String(bytes, 0, maxBytes, StandardCharsets.UTF_8);
+        while (truncated.getBytes(StandardCharsets.UTF_8).length > maxBytes) {
+            truncated = truncated.substring(0, truncated.length() - 1);
+        }
+        return truncated;
+    }
+
+    private static int eventBytes(InputLogEvent event) {
+        return event.message().getBytes(StandardCharsets.UTF_8).length + EVENT_OVERHEAD_BYTES;
+    }
+
+    private void runFlusher() {
+        while (running) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis));
+            flush();
+        }
+        // send what is left once stopped
+        flush();
+    }
 
+    /**
+     * Sends all the buffered events, in as many batches as needed
+     */
+    void flush() {
+        while (null != carriedEvent || !buffer.isEmpty()) {
+            List<InputLogEvent> batch = new ArrayList<>();
+            int batchBytes = 0;
+            while (batch.size() < MAX_BATCH_EVENTS) {
+                InputLogEvent event = null != carriedEvent ? carriedEvent : buffer.poll();
+                carriedEvent = null;
+                if (null == event) {
+                    break;
+                }
+                int bytes = eventBytes(event);
+                if (batchBytes + bytes > MAX_BATCH_BYTES) {
+                    carriedEvent = event;
+                    break;
+                }
+                batch.add(event);
+                batchBytes += bytes;
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            send(batch);
+        }
+    }
+
+    private void send(List<InputLogEvent> batch) {
+        // events of a request have to be in chronological order
+        batch.sort(Comparator.comparing(InputLogEvent::timestamp));
         PutLogEventsRequest request = PutLogEventsRequest.builder()
                 .logGroupName(logGroupName)
                 .logStreamName(logStreamName)
-                .logEvents(logEvents)
+                .logEvents(batch)
                 .sequenceToken(sequenceToken)
                 .build();
-
-        CompletableFuture<PutLogEventsResponse> futureResponse = cloudWatchLogsClient.putLogEvents(request);
-        futureResponse.whenComplete((response, error) -> {
-            if (error != null) {
-                error.printStackTrace();
-            } else {
-                sequenceToken = response.nextSequenceToken();
-            }
-        });
+        try {
+            PutLogEventsResponse response = cloudWatchLogsClient.putLogEvents(request).join();
+            sequenceToken = response.nextSequenceToken();
+            sentCounter.increment(batch.size());
+        } catch (Exception e) {
+            failedCounter.increment(batch.size());
+            // not logged through slf4j, the error would come back to this appender
+            StatusLogger.getLogger().error("Failed to send {} log events to CloudWatch: {}", batch.size(), e.getMessage());
+        }
     }
 
     public static void configureLoggerForCloudWatchLog() {
@@ -82,7 +235,7 @@ public class CloudWatchAppender extends AbstractAppender {
                 String cw_logs_log_level_uc = cw_logs_log_level.toUpperCase();
 
 
-                CloudWatchLogsClient logsClient = CloudWatchLogsClient.builder()
+                CloudWatchLogsClient logsClient = withEndpoint(CloudWatchLogsClient.builder(), cloudwatch_logs_endpoint)
                         .region(Region.of(cloudwatch_logs_region))
                         .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(cloudwatch_logs_access_key_id, cloudwatch_logs_secret_access_key)))
                         .build();
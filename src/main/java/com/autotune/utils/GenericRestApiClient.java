@@ -15,9 +15,11 @@
  *******************************************************************************/
 package com.autotune.utils;
 
+import com.autotune.analyzer.exceptions.DataSourceRateLimitedException;
 import com.autotune.common.auth.AuthenticationStrategy;
 import com.autotune.common.auth.AuthenticationStrategyFactory;
 import com.autotune.common.datasource.DataSourceInfo;
+import com.autotune.common.datasource.DataSourceLimiter;
 import com.autotune.utils.authModels.APIKeysAuthentication;
 import com.autotune.utils.authModels.BasicAuthentication;
 import com.autotune.utils.authModels.BearerAccessToken;
@@ -25,7 +27,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
-import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.HttpResponseException;
 import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
@@ -64,6 +66,7 @@ public class GenericRestApiClient {
     private BearerAccessToken bearerAccessToken;
     private APIKeysAuthentication apiKeysAuthentication;
     private AuthenticationStrategy authenticationStrategy;
+    private DataSourceInfo dataSourceInfo;
 
     /**
      * constructor to set the authentication based on the datasourceInfo object
@@ -74,6 +77,7 @@ public class GenericRestApiClient {
         // TODO: add partial URL as well as part of this constructor
         this.authenticationStrategy = AuthenticationStrategyFactory.createAuthenticationStrategy(
                 dataSourceInfo.getAuthenticationConfig());
+        this.dataSourceInfo = dataSourceInfo;
     }
 
     /**
@@ -85,6 +89,34 @@ public class GenericRestApiClient {
      * @throws IOException
      */
     public JSONObject fetchMetricsJson(String methodType, String queryString) throws IOException, NoSuchAlgorithmException, KeyStoreException, KeyManagementException {
+        DataSourceLimiter limiter = DataSourceLimiter.getInstance(dataSourceInfo);
+        if (null == limiter) {
+            return new JSONObject(executeMetricsRequest(methodType, queryString));
+        }
+        try {
+            limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        DataSourceLimiter.Outcome outcome = DataSourceLimiter.Outcome.IGNORE;
+        try {
+            JSONObject jsonObject = new JSONObject(executeMetricsRequest(methodType, queryString));
+            outcome = DataSourceLimiter.Outcome.SUCCESS;
+            return jsonObject;
+        } catch (IOException e) {
+            outcome = DataSourceLimiter.outcomeOf(e);
+            throw e;
+        } finally {
+            limiter.release(outcome);
+        }
+    }
+
+    /**
+     * Executes the metrics request and returns the response body. A response that is not 2xx is thrown as an
+     * HttpResponseException with its status code
+     */
+    private String executeMetricsRequest(String methodType, String queryString) throws IOException, NoSuchAlgorithmException, KeyStoreException, KeyManagementException {
         String jsonResponse;
         try (CloseableHttpClient httpclient = setupHttpClient()) {
 
@@ -122,12 +154,12 @@ public class GenericRestApiClient {
                     String warningMessage = warning.asText();
                     if (warningMessage.contains("error reading from server") || warningMessage.contains("Please reduce your request rate")) {
                         LOGGER.warn("Warning detected: {}", warningMessage);
-                        throw new IOException(warningMessage);
+                        throw new DataSourceRateLimitedException(warningMessage);
                     }
                 }
             }
         }
-        return new JSONObject(jsonResponse);
+        return jsonResponse;
     }
 
 
@@ -210,7 +242,7 @@ public class GenericRestApiClient {
                 HttpEntity entity = response.getEntity();
                 return entity != null ? EntityUtils.toString(entity) : null;
             } else {
-                throw new ClientProtocolException("Unexpected response status: " + status);
+                throw new HttpResponseException(status, "Unexpected response status: " + status);
             }
         }
 
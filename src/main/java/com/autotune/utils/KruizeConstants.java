@@ -21,9 +21,9 @@ import com.autotune.analyzer.kruizeObject.CreateExperimentConfigBean;
 import com.autotune.analyzer.serviceObjects.BulkJobStatus;
 import com.autotune.analyzer.utils.AnalyzerConstants;
 
-import java.text.SimpleDateFormat;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.Locale;
-import java.util.TimeZone;
 
 /**
  * Constants for Autotune module
@@ -100,6 +100,76 @@ public class KruizeConstants {
         }
     }
 
+    /**
+     * Holds the names of the init phases run by the startup pipeline before the server starts
+     */
+    public static final class StartupPhases {
+        public static final String DDL = "ddl";
+        public static final String PERFORMANCE_PROFILES = "performanceProfiles";
+        public static final String DATASOURCES = "datasources";
+        public static final String DATASOURCE_REACHABILITY = "datasourceReachability";
+        public static final String METRIC_PROFILES = "metricProfiles";
+        public static final String UPDATER_SERVICE = "updaterService";
+        public static final String COORDINATION = "coordination";
+        public static final String TASK_QUEUE = "taskQueue";
+        public static final String TOTAL = "total";
+        // env var set by the image build to do an AppCDS training run instead of starting the server
+        public static final String CDS_TRAINING_RUN = "KRUIZE_CDS_TRAINING";
+
+        private StartupPhases() {
+        }
+    }
+
+    public static final class CoordinationConstants {
+        // first key of the advisory locks of the duties, "KRUZ"
+        public static final int ADVISORY_LOCK_CLASS_ID = 0x4B52555A;
+        public static final int VIRTUAL_NODES_PER_REPLICA = 128;
+        public static final String PARTITION_MAINTENANCE_DUTY = "partitionMaintenance";
+        public static final long PARTITION_MAINTENANCE_INTERVAL_SECS = 6 * 60 * 60;
+        public static final String REPLICA_ID_ENV = "HOSTNAME";
+
+        private CoordinationConstants() {
+        }
+    }
+
+    public static final class TaskQueueConstants {
+        // types of the tasks of the kruize_tasks table
+        public static final String BULK_JOB_TASK = "bulkJob";
+        public static final String RECOMMENDATION_UPDATE_TASK = "recommendationUpdate";
+        // status of a task, a task that ran successfully is deleted
+        public static final String QUEUED = "queued";
+        public static final String RUNNING = "running";
+        public static final String DEAD = "dead";
+        // status of a task that ran successfully and whose result is kept for the other replicas
+        public static final String DONE = "done";
+        public static final String LEASE_EXPIRED_ERROR = "visibility timeout expired on every attempt";
+        public static final int MAX_ERROR_LENGTH = 4000;
+        public static final long DEAD_LETTER_INTERVAL_SECS = 60;
+        public static final long SHUTDOWN_GRACE_SECS = 30;
+        // an idle worker claims again at most this many poll intervals later
+        public static final int MAX_IDLE_POLLS = 16;
+
+        private TaskQueueConstants() {
+        }
+    }
+
+    public static final class RollupConstants {
+        // relative error of the values read back from the quantile sketch of a rollup
+        public static final double SKETCH_RELATIVE_ACCURACY = 0.01;
+        // values below this one are counted in the zero bucket of the sketch
+        public static final double SKETCH_MIN_INDEXABLE_VALUE = 1e-9;
+        public static final String OBJECTS = "objects";
+        public static final String INTERVALS = "intervals";
+        public static final String FIELDS = "fields";
+        public static final String SKETCH = "sketch";
+        public static final String ZERO = "zero";
+        public static final String INDEX = "index";
+        public static final String COUNTS = "counts";
+
+        private RollupConstants() {
+        }
+    }
+
     public static final class HpoOperations {
         public static final String EXP_TRIAL_GENERATE_NEW = "EXP_TRIAL_GENERATE_NEW";
         public static final String EXP_TRIAL_GENERATE_SUBSEQUENT = "EXP_TRIAL_GENERATE_SUBSEQUENT";
@@ -642,10 +712,11 @@ public class KruizeConstants {
         public static final String DB_EXTRACTION_FORMAT = "yyyy-MM-dd HH:mm:ss.SSS";
         public static final long MILLI_SECONDS_FOR_DAY = 24 * 60 * 60 * 1000;
         public static final long MINUTES_FOR_DAY = 24 * 60;
-        public static SimpleDateFormat simpleDateFormatForUTC = new SimpleDateFormat(KruizeConstants.DateFormats.STANDARD_JSON_DATE_FORMAT, Locale.ROOT);
+        // immutable, so it can be shared by threads unlike SimpleDateFormat
+        public static final DateTimeFormatter dateTimeFormatterForUTC = DateTimeFormatter.ofPattern(STANDARD_JSON_DATE_FORMAT, Locale.ROOT)
+                .withZone(ZoneOffset.UTC);
 
         private DateFormats() {
-            simpleDateFormatForUTC.setTimeZone(TimeZone.getTimeZone(KruizeConstants.TimeUnitsExt.TimeZones.UTC));
         }
     }
 
@@ -703,6 +774,10 @@ public class KruizeConstants {
         public static final String CLOUDWATCH_LOGS_REGION = "logging_cloudwatch_region";
         public static final String CLOUDWATCH_LOGS_LOG_STREAM = "logging_cloudwatch_logStream";
         public static final String CLOUDWATCH_LOGS_LOG_LEVEL = "logging_cloudwatch_logLevel";
+        public static final String CLOUDWATCH_LOGS_BUFFER_SIZE = "logging_cloudwatch_bufferSize";
+        public static final String CLOUDWATCH_LOGS_FLUSH_INTERVAL_MS = "logging_cloudwatch_flushIntervalMs";
+        public static final String CLOUDWATCH_LOGS_OVERFLOW_POLICY = "logging_cloudwatch_overflowPolicy";
+        public static final String CLOUDWATCH_LOGS_ENDPOINT = "logging_cloudwatch_endpoint";
         public static final String LOCAL = "local";
         public static final String LOG_HTTP_REQ_RESP = "logAllHttpReqAndResp";
         public static final String RECOMMENDATIONS_URL = "recommendationsURL";
@@ -711,6 +786,55 @@ public class KruizeConstants {
         public static final String BULK_THREAD_POOL_SIZE = "bulkThreadPoolSize";
         public static final String EXPERIMENT_NAME_FORMAT = "experimentNameFormat";
         public static final String IS_ROS_ENABLED = "isROSEnabled";
+        public static final String STARTUP_PARALLEL_INIT = "startupParallelInit";
+        public static final String ASYNC_REQUESTS = "asyncRequests";
+        public static final String ASYNC_POOL_SIZE = "asyncPoolSize";
+        public static final String ASYNC_QUEUE_SIZE = "asyncQueueSize";
+        public static final String ASYNC_REQUEST_TIMEOUT_SECS = "asyncRequestTimeoutSecs";
+        public static final String RESULTS_INGESTION_ASYNC = "resultsIngestionAsync";
+        public static final String RESULTS_INGESTION_QUEUE_SIZE = "resultsIngestionQueueSize";
+        public static final String RESULTS_INGESTION_WRITERS = "resultsIngestionWriters";
+        public static final String RESULTS_INGESTION_BATCH_SIZE = "resultsIngestionBatchSize";
+        public static final String RESULTS_INGESTION_SHUTDOWN_TIMEOUT_SECS = "resultsIngestionShutdownTimeoutSecs";
+        public static final String RECOMMENDATION_PARALLEL = "recommendationParallel";
+        public static final String RECOMMENDATION_PARALLELISM = "recommendationParallelism";
+        public static final String BULK_GROUPED_FETCH = "bulkGroupedFetch";
+        public static final String BULK_PREFETCH_MAX_CONTAINERS = "bulkPrefetchMaxContainers";
+        public static final String RANGE_QUERY_CHUNK_HOURS = "rangeQueryChunkHours";
+        public static final String RANGE_QUERY_CHUNK_THREADS = "rangeQueryChunkThreads";
+        public static final String DATASOURCE_LIMITER = "datasourceLimiter";
+        public static final String DATASOURCE_INITIAL_CONCURRENCY = "datasourceInitialConcurrency";
+        public static final String DATASOURCE_MAX_CONCURRENCY = "datasourceMaxConcurrency";
+        public static final String QUERY_CACHE = "queryCache";
+        public static final String QUERY_CACHE_TTL_SECS = "queryCacheTtlSecs";
+        public static final String QUERY_CACHE_MAX_MB = "queryCacheMaxMB";
+        public static final String RECOMMENDATION_STAGE_JFR = "recommendationStageJfr";
+        public static final String HPO_ENGINE = "hpoEngine";
+        public static final String EVENT_QUEUE_SIZE = "eventQueueSize";
+        public static final String EVENT_RATE_LIMIT = "eventRateLimit";
+        public static final String EVENT_AGGREGATION_WINDOW_MS = "eventAggregationWindowMs";
+        public static final String BULK_JOB_STATUS_TTL_SECS = "bulkJobStatusTtlSecs";
+        public static final String BULK_JOB_STATUS_MAX_JOBS = "bulkJobStatusMaxJobs";
+        public static final String BULK_JOB_STATUS_MAX_RUNNING_SECS = "bulkJobStatusMaxRunningSecs";
+        public static final String BULK_CREATE_BATCH_SIZE = "bulkCreateBatchSize";
+        public static final String COORDINATION = "coordination";
+        public static final String COORDINATION_HEARTBEAT_SECS = "coordinationHeartbeatSecs";
+        public static final String COORDINATION_REPLICA_TIMEOUT_SECS = "coordinationReplicaTimeoutSecs";
+        public static final String TASK_QUEUE_BULK_WORKERS = "taskQueueBulkWorkers";
+        public static final String TASK_QUEUE_UPDATER_WORKERS = "taskQueueUpdaterWorkers";
+        public static final String TASK_QUEUE_VISIBILITY_TIMEOUT_SECS = "taskQueueVisibilityTimeoutSecs";
+        public static final String TASK_QUEUE_MAX_ATTEMPTS = "taskQueueMaxAttempts";
+        public static final String TASK_QUEUE_BACKOFF_SECS = "taskQueueBackoffSecs";
+        public static final String TASK_QUEUE_MAX_BACKOFF_SECS = "taskQueueMaxBackoffSecs";
+        public static final String TASK_QUEUE_POLL_MILLIS = "taskQueuePollMillis";
+        public static final String TASK_QUEUE = "taskQueue";
+        public static final String TASK_QUEUE_RETENTION_SECS = "taskQueueRetentionSecs";
+        public static final String RESULTS_ROLLUPS = "resultsRollups";
+        public static final String RESULTS_ROLLUP_RAW_DAYS = "resultsRollupRawDays";
+        public static final String RESULTS_ROLLUP_HOURLY_DAYS = "resultsRollupHourlyDays";
+        public static final String LOCAL_DELTA_FETCH = "localDeltaFetch";
+        public static final String LOCAL_DELTA_FETCH_OVERLAP_MINS = "localDeltaFetchOverlapMins";
+        public static final String LOCAL_DELTA_FETCH_MAX_CONTAINERS = "localDeltaFetchMaxContainers";
     }
 
     public static final class RecommendationEngineConstants {
@@ -771,7 +895,6 @@ public class KruizeConstants {
     public static final class KRUIZE_RECOMMENDATION_METRICS {
         public static final String METRIC_NAME = "KruizeRecommendationsNotification";
         public static final String TAG_NAME = "recommendations_notifications";
-        public static final String notification_format_for_LOG = "%s|%s|%s|%s|%s|%s|%s|%s|%s"; //experiment_name,container_name,endtime,level,termname,modelname,code,type,message
         public static final String notification_format_for_METRICS = "%s|%s|%s"; //termname,modelname,type
 
     }
@@ -799,10 +922,126 @@ public class KruizeConstants {
 
     }
 
+    public static final class KRUIZE_RESULTS_INGESTION {
+        public static final String REQUEST_ID = "request_id";
+        public static final String MESSAGE = "message";
+        public static final String QUEUED = "QUEUED";
+        public static final String IN_PROGRESS = "IN_PROGRESS";
+        public static final String COMPLETED = "COMPLETED";
+        public static final String RESULTS_ACCEPTED = "Results accepted for processing. Check the status using /updateResults?request_id=%s";
+        public static final String QUEUE_FULL = "Results ingestion queue is full. Please retry later.";
+        public static final String REQUEST_NOT_FOUND = "Request not found";
+        public static final String QUEUE_DEPTH = "queue_depth";
+        public static final String QUEUE_CAPACITY = "queue_capacity";
+        public static final String LAG_MILLIS = "lag_millis";
+        // completed request statuses are kept for this long to be polled by the clients
+        public static final long STATUS_RETENTION_MILLIS = 60 * 60 * 1000;
+        public static final long WRITER_POLL_MILLIS = 500;
+        public static final String ACCEPTED_RESULTS = "accepted_results";
+        public static final String RESULTS_PARTIALLY_ACCEPTED = "Out of a total of %s records, %s failed validation. " +
+                "The other %s were accepted for processing, check their status using /updateResults?request_id=%s";
+
+        private KRUIZE_RESULTS_INGESTION() {
+        }
+    }
+
+    public static final class KRUIZE_RECOMMENDATION_BACKFILL {
+        public static final String JOB_ID = "job_id";
+        public static final String STEP_MINUTES = "step_minutes";
+        public static final String IN_PROGRESS = "IN_PROGRESS";
+        public static final String COMPLETED = "COMPLETED";
+        public static final String FAILED = "FAILED";
+        public static final String JOB_NOT_FOUND_MSG = "Job not found";
+        public static final String INVALID_STEP = "step_minutes must be a positive number";
+        public static final String INVALID_RANGE = "interval_start_time must not be after interval_end_time";
+        public static final String TOO_MANY_STEPS = "The range has %d steps, the maximum supported is %d";
+        public static final String REMOTE_ONLY = "Backfill is supported only for remote monitoring experiments";
+        public static final String NO_RESULTS = "No results available for the experiment between %s and %s";
+        public static final int MAX_STEPS = 10000;
+        // recommendations saved per DB transaction
+        public static final int DB_BATCH_SIZE = 100;
+        public static final int JOB_THREADS = 2;
+        // finished jobs are kept for a day, at most MAX_JOBS of them
+        public static final int JOB_STATUS_TTL_SECS = 86400;
+        public static final int MAX_JOBS = 1000;
+
+        private KRUIZE_RECOMMENDATION_BACKFILL() {
+        }
+    }
+
+    public static final class KRUIZE_DATASOURCE_LIMITER {
+        public static final int MIN_CONCURRENCY = 1;
+        // multiplicative decrease of the limit on an overload signal
+        public static final double DECREASE_FACTOR = 0.5;
+        // consecutive failures after which the circuit opens
+        public static final int FAILURE_THRESHOLD = 5;
+        public static final long OPEN_MILLIS = 30 * 1000L;
+        public static final long ACQUIRE_TIMEOUT_MILLIS = 60 * 1000L;
+        public static final int TOO_MANY_REQUESTS = 429;
+        public static final String CIRCUIT_OPEN_MSG = "Circuit open for datasource %s after repeated failures, retry in %d seconds";
+        public static final String ACQUIRE_TIMEOUT_MSG = "Timed out waiting for a request slot of datasource %s";
+
+        private KRUIZE_DATASOURCE_LIMITER() {
+        }
+    }
+
+    public static final class CLOUDWATCH_LOGS {
+        // limits of a PutLogEvents request
+        public static final int MAX_BATCH_EVENTS = 10000;
+        public static final int MAX_BATCH_BYTES = 1048576;
+        public static final int MAX_EVENT_BYTES = 262144;
+        public static final int EVENT_OVERHEAD_BYTES = 26;
+        public static final String OVERFLOW_POLICY_DROP = "drop";
+        public static final String OVERFLOW_POLICY_BLOCK = "block";
+        public static final long BLOCK_PARK_NANOS = 100000L;
+        public static final long STOP_TIMEOUT_MILLIS = 10000L;
+        public static final String FLUSHER_THREAD_NAME = "cloudwatch-log-flusher";
+
+        private CLOUDWATCH_LOGS() {
+        }
+    }
+
+    public static final class KRUIZE_QUERY_CACHE {
+        public static final String KEY_SEPARATOR = "|";
+        public static final String INSTANT = "instant";
+        public static final long BYTES_PER_MB = 1024 * 1024L;
+        // approximate JSON size of a [timestamp, "value"] sample and of the quotes and separators of a label
+        public static final int SAMPLE_BYTES = 32;
+        public static final int LABEL_OVERHEAD_BYTES = 6;
+
+        private KRUIZE_QUERY_CACHE() {
+        }
+    }
+
+    public static final class KRUIZE_RANGE_QUERY {
+        // Prometheus rejects range queries returning more than 11000 points per series
+        public static final int MAX_POINTS_PER_SERIES = 11000;
+        public static final int CHUNK_ATTEMPTS = 3;
+        public static final long RETRY_INTERVAL_MILLIS = 500;
+
+        private KRUIZE_RANGE_QUERY() {
+        }
+    }
+
+    public static final class KRUIZE_BULK_FETCH {
+        public static final String KEY_SEPARATOR = "|";
+        // containers matched by one grouped query, keeps the regex and the request URL short
+        public static final int MAX_CONTAINERS_PER_QUERY = 50;
+        public static final int INITIAL_SERIES_CAPACITY = 128;
+        public static final long ENTRY_TTL_MILLIS = 10 * 60 * 1000L;
+        public static final long ROOM_WAIT_MILLIS = 2 * 60 * 1000L;
+        public static final long EVICTION_CHECK_MILLIS = 5000;
+
+        private KRUIZE_BULK_FETCH() {
+        }
+    }
+
     public static final class KRUIZE_BULK_API {
         public static final String JOB_ID = "job_id";
         public static final String ERROR = "error";
         public static final String JOB_NOT_FOUND_MSG = "Job not found";
+        // how often the job status store drops the expired jobs
+        public static final int JOB_STATUS_EVICTION_INTERVAL_SECS = 300;
         public static final String IN_PROGRESS = "IN_PROGRESS";
         public static final String COMPLETED = "COMPLETED";
         public static final String FAILED = "FAILED";
@@ -812,6 +1051,26 @@ public class KruizeConstants {
         public static final String END_TIME = "end_time";
         public static final String STEPS = "steps";
         public static final String ADDITIONAL_LABEL = "ADDITIONAL_LABEL";
+        public static final String EXPERIMENTS = "experiments";
+        public static final String EXPERIMENT_STATUS = "experiment_status";
+        public static final String LIMIT = "limit";
+        public static final String OFFSET = "offset";
+        public static final String INVALID_QUERY_PARAM_MSG = "Invalid value %s of query parameter %s";
+        // field of the bulk job tasks holding the request payload
+        public static final String INPUT = "input";
+        public static final String JOB_NOT_QUEUED_MSG = "Could not queue the job: %s";
+        // fields of the job summary saved with the bulk job tasks, for the other replicas to read
+        public static final String STATUS = "status";
+        public static final String TOTAL_EXPERIMENTS = "total_experiments";
+        public static final String PROCESSED_EXPERIMENTS = "processed_experiments";
+        public static final String STARTED = "started";
+        public static final String FINISHED_AT = "finished_at";
+        public static final String NOTIFICATIONS = "notifications";
+        public static final String TYPE = "type";
+        public static final String MESSAGE = "message";
+        public static final String CODE = "code";
+        public static final String REPLICA = "replica";
+        public static final String JOB_REPLICA_MSG = "The experiments of the job are kept by replica %s";
 
         // TODO : Bulk API Create Experiments defaults
         public static final CreateExperimentConfigBean CREATE_EXPERIMENT_CONFIG_BEAN;
@@ -871,6 +1130,11 @@ public class KruizeConstants {
                     "ConnectTimeoutException: cannot establish a data source connection in a given time frame due to connectivity issues. (%s)",
                     503
             );
+            public static final BulkJobStatus.Notification DATASOURCE_OVERLOADED_INFO = new BulkJobStatus.Notification(
+                    BulkJobStatus.NotificationType.ERROR,
+                    "DataSourceOverloadedException: the data source is overloaded, requests are paused. Please try again later. (%s)",
+                    503
+            );
 
 
             // More notification constants can be added here as needed
@@ -18,65 +18,266 @@ package com.autotune.utils;
 import com.autotune.analyzer.utils.AnalyzerConstants;
 import com.autotune.common.target.kubernetes.service.KubernetesServices;
 import com.autotune.common.target.kubernetes.service.impl.KubernetesServicesImpl;
+import com.autotune.operator.KruizeDeploymentInfo;
 import io.fabric8.kubernetes.api.model.Event;
 import io.fabric8.kubernetes.api.model.EventBuilder;
 import io.fabric8.kubernetes.api.model.ObjectReference;
-import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.micrometer.core.instrument.Counter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Clock;
 import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * Event logging class that allows creating or replacing events with custom messages and reasons
  * for kubernetes objects.
+ * <p>
+ * log() only queues the event, a single writer thread sends them to the API server with one shared client. Identical
+ * events logged within the aggregation window are coalesced into one write that adds to the event count, the writes
+ * are limited by a token bucket, and events that do not fit in the bounded queue are dropped so that callers never
+ * block on the API server.
  */
-public class KubeEventLogger implements EventLogger {
+public class KubeEventLogger implements EventLogger, AutoCloseable {
     private final Clock clock;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(KubeEventLogger.class);
 
-    public KubeEventLogger( Clock clock) {
+    private final Supplier<KubernetesServices> kubernetesServicesSupplier;
+    private KubernetesServices kubernetesServices;
+    private final BlockingQueue<String> queue;
+    private final ConcurrentHashMap<String, PendingEvent> pending = new ConcurrentHashMap<>();
+    private final long aggregationWindowNanos;
+    private final TokenBucket tokenBucket;
+    private final Thread writer;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public KubeEventLogger(Clock clock) {
+        this(clock, KubernetesServicesImpl::new, KruizeDeploymentInfo.event_queue_size,
+                KruizeDeploymentInfo.event_rate_limit, KruizeDeploymentInfo.event_aggregation_window_ms);
+    }
+
+    public KubeEventLogger(Clock clock, KubernetesServices kubernetesServices, int queueSize, int eventsPerSecond,
+                           long aggregationWindowMillis) {
+        this(clock, () -> kubernetesServices, queueSize, eventsPerSecond, aggregationWindowMillis);
+    }
+
+    private KubeEventLogger(Clock clock, Supplier<KubernetesServices> kubernetesServicesSupplier, int queueSize,
+                            int eventsPerSecond, long aggregationWindowMillis) {
         this.clock = clock;
+        this.kubernetesServicesSupplier = kubernetesServicesSupplier;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+        this.aggregationWindowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, aggregationWindowMillis));
+        this.tokenBucket = new TokenBucket(Math.max(1, eventsPerSecond));
+        // registers the event counters
+        MetricsConfig.meterRegistry();
+        this.writer = new Thread(this::writeEvents, "kruize-event-logger");
+        this.writer.setDaemon(true);
+        this.writer.start();
     }
 
     @Override
     public void log(String reason, String message, Type type, String objectName, String namespace, ObjectReference objectReference, String kind) {
-        KubernetesServices kubernetesServices = null;
-        String componentName = AnalyzerConstants.AUTOTUNE;
+        String involvedName = null != objectName ? objectName : (null != objectReference ? objectReference.getName() : null);
+        String eventName = AnalyzerConstants.AUTOTUNE + "." + ((reason + message + type + involvedName).hashCode() & 0x7FFFFFFF);
+        String key = namespace + "/" + eventName + "/" + kind;
+        String timestamp = Instant.now(clock).toString();
+        boolean[] added = {false};
+        pending.compute(key, (k, event) -> {
+            if (null == event) {
+                added[0] = true;
+                return new PendingEvent(eventName, reason, message, type, involvedName, namespace, objectReference, kind, timestamp);
+            }
+            event.count++;
+            event.lastTimestamp = timestamp;
+            return event;
+        });
+        if (!added[0]) {
+            coalesced.incrementAndGet();
+            countEvents(MetricsConfig.counterKubeEventsCoalesced, 1);
+        } else if (!queue.offer(key)) {
+            PendingEvent event = pending.remove(key);
+            int count = null == event ? 1 : event.count;
+            dropped.addAndGet(count);
+            countEvents(MetricsConfig.counterKubeEventsDropped, count);
+            LOGGER.debug("Event queue is full, dropped event {}: {}", reason, message);
+        }
+    }
+
+    /**
+     * Number of writes to the API server
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * Number of events merged into an event already waiting to be written
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * Number of events dropped because the queue was full
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public void close() {
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (null != kubernetesServices) {
+            kubernetesServices.shutdownClient();
+        }
+    }
+
+    private void writeEvents() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                String key = queue.take();
+                PendingEvent event = pending.get(key);
+                if (null == event) {
+                    continue;
+                }
+                // events are queued in the order they are first seen, so the head is always the first to be due
+                long wait = event.firstSeenNanos + aggregationWindowNanos - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                tokenBucket.acquire();
+                event = pending.remove(key);
+                if (null != event) {
+                    writeEvent(event);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeEvent(PendingEvent event) {
         try {
-            kubernetesServices = new KubernetesServicesImpl();
-            String eventName = componentName + "." + ((reason + message + type + objectName).hashCode() & 0x7FFFFFFF);
-            Event existing = kubernetesServices.getEvent(namespace,eventName);
-            String timestamp = Instant.now(clock).toString();
-            if (existing != null && existing.getType().equals(type.name()) && existing.getReason().equals(reason) && existing.getInvolvedObject().getName().equals(objectName) && existing.getInvolvedObject().getKind().equals(kind)) {
-                existing.setCount(existing.getCount() + 1);
-                existing.setLastTimestamp(timestamp);
-                kubernetesServices.replaceEvent(namespace, eventName, existing);
+            if (null == kubernetesServices) {
+                kubernetesServices = kubernetesServicesSupplier.get();
+            }
+            Event existing = kubernetesServices.getEvent(event.namespace, event.eventName);
+            boolean sent;
+            if (existing != null && event.type.name().equals(existing.getType()) && Objects.equals(event.reason, existing.getReason())
+                    && isSameObject(existing.getInvolvedObject(), event)) {
+                existing.setCount((null == existing.getCount() ? 0 : existing.getCount()) + event.count);
+                existing.setLastTimestamp(event.lastTimestamp);
+                sent = kubernetesServices.replaceEvent(event.namespace, event.eventName, existing);
             } else {
                 Event newEvent = new EventBuilder()
                         .withNewMetadata()
-                        .withName(eventName)
+                        .withName(event.eventName)
                         .endMetadata()
-                        .withCount(1)
-                        .withReason(reason)
-                        .withMessage(message)
-                        .withType(type.name())
-                        .withInvolvedObject(objectReference)
-                        .withFirstTimestamp(timestamp)
-                        .withLastTimestamp(timestamp)
+                        .withCount(event.count)
+                        .withReason(event.reason)
+                        .withMessage(event.message)
+                        .withType(event.type.name())
+                        .withInvolvedObject(event.objectReference)
+                        .withFirstTimestamp(event.firstTimestamp)
+                        .withLastTimestamp(event.lastTimestamp)
                         .withNewSource()
-                        .withComponent(componentName)
+                        .withComponent(AnalyzerConstants.AUTOTUNE)
                         .endSource()
                         .build();
-                kubernetesServices.createEvent(namespace,eventName,newEvent);
+                sent = kubernetesServices.createEvent(event.namespace, event.eventName, newEvent);
             }
-        } catch (KubernetesClientException e) {
+            if (sent) {
+                written.incrementAndGet();
+                countEvents(MetricsConfig.counterKubeEventsWritten, 1);
+            } else {
+                LOGGER.warn("Error reporting event {}: {}", event.reason, event.message);
+            }
+        } catch (Exception e) {
             LOGGER.warn("Error reporting event: {}", e.getMessage());
-        } finally {
-            if (kubernetesServices != null) {
-                kubernetesServices.shutdownClient();
+        }
+    }
+
+    private static boolean isSameObject(ObjectReference involvedObject, PendingEvent event) {
+        if (null == involvedObject) {
+            return null == event.objectReference;
+        }
+        String kind = null != event.kind ? event.kind : (null != event.objectReference ? event.objectReference.getKind() : null);
+        return Objects.equals(involvedObject.getName(), event.involvedName) && Objects.equals(involvedObject.getKind(), kind);
+    }
+
+    private static void countEvents(Counter counter, int count) {
+        counter.increment(count);
+    }
+
+    private static final class PendingEvent {
+        private final String eventName;
+        private final String reason;
+        private final String message;
+        private final Type type;
+        private final String involvedName;
+        private final String namespace;
+        private final ObjectReference objectReference;
+        private final String kind;
+        private final String firstTimestamp;
+        private final long firstSeenNanos = System.nanoTime();
+        private String lastTimestamp;
+        private int count = 1;
+
+        private PendingEvent(String eventName, String reason, String message, Type type, String involvedName,
+                             String namespace, ObjectReference objectReference, String kind, String timestamp) {
+            this.eventName = eventName;
+            this.reason = reason;
+            this.message = message;
+            this.type = type;
+            this.involvedName = involvedName;
+            this.namespace = namespace;
+            this.objectReference = objectReference;
+            this.kind = kind;
+            this.firstTimestamp = timestamp;
+            this.lastTimestamp = timestamp;
+        }
+    }
+
+    /**
+     * Allows eventsPerSecond writes a second on average, with bursts of up to a second's worth
+     */
+    private static final class TokenBucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long lastRefillNanos = System.nanoTime();
+
+        private TokenBucket(int eventsPerSecond) {
+            this.capacity = eventsPerSecond;
+            this.tokensPerNano = eventsPerSecond / 1e9;
+            this.tokens = capacity;
+        }
+
+        private void acquire() throws InterruptedException {
+            while (true) {
+                long now = System.nanoTime();
+                tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+                lastRefillNanos = now;
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                TimeUnit.NANOSECONDS.sleep((long) Math.ceil((1 - tokens) / tokensPerNano));
             }
         }
     }
@@ -17,19 +17,22 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class MetricsConfig {
     
     public static Timer timerListRec, timerListExp, timerCreateExp, timerUpdateResults, timerUpdateRecomendations;
-    public static Timer timerLoadRecExpName, timerLoadResultsExpName, timerLoadExpName, timerLoadRecExpNameDate, timerBoxPlots;
+    public static Timer timerLoadRecExpName, timerLoadResultsExpName, timerLoadRollups, timerLoadExpName, timerLoadRecExpNameDate, timerBoxPlots;
     public static Timer timerLoadAllRec, timerLoadAllExp, timerLoadAllResults;
-    public static Timer timerAddRecDB, timerAddResultsDB, timerAddExpDB, timerAddBulkResultsDB;
+    public static Timer timerLoadLatestRecExpName, timerLoadAllLatestRec;
+    public static Timer timerAddRecDB, timerAddResultsDB, timerAddExpDB, timerAddBulkResultsDB, timerAddBatchResultsDB, timerAddBatchRecDB;
     public static Timer timerAddPerfProfileDB, timerLoadPerfProfileName, timerLoadAllPerfProfiles;
     public static Timer timerImportMetadata, timerGetMetadata;
     public static Timer timerJobStatus, timerCreateBulkJob, timerGetExpMap, timerCreateBulkExp, timerGenerateBulkRec, timerRunJob;
     public static Counter timerKruizeNotifications , timerBulkJobs;
     public static Timer.Builder timerBListRec, timerBListExp, timerBCreateExp, timerBUpdateResults, timerBUpdateRecommendations;
-    public static Timer.Builder timerBLoadRecExpName, timerBLoadResultsExpName, timerBLoadExpName, timerBLoadRecExpNameDate, timerBBoxPlots;
+    public static Timer.Builder timerBLoadRecExpName, timerBLoadResultsExpName, timerBLoadRollups, timerBLoadExpName, timerBLoadRecExpNameDate, timerBBoxPlots;
     public static Timer.Builder timerBLoadAllRec, timerBLoadAllExp, timerBLoadAllResults;
-    public static Timer.Builder timerBAddRecDB, timerBAddResultsDB, timerBAddExpDB, timerBAddBulkResultsDB;
+    public static Timer.Builder timerBLoadLatestRecExpName, timerBLoadAllLatestRec;
+    public static Timer.Builder timerBAddRecDB, timerBAddResultsDB, timerBAddExpDB, timerBAddBulkResultsDB, timerBAddBatchResultsDB, timerBAddBatchRecDB;
     public static Timer.Builder timerBAddPerfProfileDB, timerBLoadPerfProfileName, timerBLoadAllPerfProfiles;
     public static Counter.Builder timerBKruizeNotifications, timerBBulkJobs;
+    public static Counter counterKubeEventsWritten, counterKubeEventsCoalesced, counterKubeEventsDropped;
     public static PrometheusMeterRegistry meterRegistry;
     public static Timer timerListDS, timerImportDSMetadata, timerListDSMetadata;
     public static Timer.Builder timerBListDS, timerBImportDSMetadata, timerBListDSMetadata;
@@ -41,6 +44,9 @@ public class MetricsConfig {
     public String METHOD_METRIC_DESC = "Time taken for Kruize methods";
     public static final AtomicInteger activeJobs = new AtomicInteger(0);
     public static Gauge.Builder timerBBulkRunJobs;
+    public static Timer.Builder timerBStartupPhase;
+    public String STARTUP_METRIC_DESC = "Time taken for Kruize startup phases";
+    public String KUBE_EVENTS_METRIC_DESC = "Kubernetes events written, coalesced or dropped";
 
     private MetricsConfig() {
         meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
@@ -55,13 +61,18 @@ public class MetricsConfig {
         timerBLoadRecExpName = Timer.builder("kruizeDB").description(DB_METRIC_DESC).tag("method", "loadRecommendationsByExperimentName");
         timerBLoadRecExpNameDate = Timer.builder("kruizeDB").description(DB_METRIC_DESC).tag("method", "loadRecommendationsByExperimentNameAndDate");
         timerBLoadResultsExpName = Timer.builder("kruizeDB").description(DB_METRIC_DESC).tag("method", "loadResultsByExperimentName");
+        timerBLoadRollups = Timer.builder("kruizeDB").description(DB_METRIC_DESC).tag("method", "loadRollupsByExperimentName");
         timerBLoadExpName = Timer.builder("kruizeDB").description(DB_METRIC_DESC).tag("method", "loadExperimentByName");
         timerBLoadAllRec = Timer.builder("kruizeDB").description(DB_METRIC_DESC).tag("method", "loadAllRecommendations");
+        timerBLoadLatestRecExpName = Timer.builder("kruizeDB").description(DB_METRIC_DESC).tag("method", "loadLatestRecommendationsByExperimentName");
+        timerBLoadAllLatestRec = Timer.builder("kruizeDB").description(DB_METRIC_DESC).tag("method", "loadAllLatestRecommendations");
         timerBLoadAllExp = Timer.builder("kruizeDB").description(DB_METRIC_DESC).tag("method", "loadAllExperiments");
         timerBLoadAllResults = Timer.builder("kruizeDB").description(DB_METRIC_DESC).tag("method", "loadAllResults");
         timerBAddRecDB = Timer.builder("kruizeDB").description(DB_METRIC_DESC).tag("method", "addRecommendationToDB");
         timerBAddResultsDB = Timer.builder("kruizeDB").description(DB_METRIC_DESC).tag("method", "addResultToDB");
         timerBAddBulkResultsDB = Timer.builder("kruizeDB").description(DB_METRIC_DESC).tag("method", "addBulkResultsToDBAndFetchFailedResults");
+        timerBAddBatchResultsDB = Timer.builder("kruizeDB").description(DB_METRIC_DESC).tag("method", "addBatchResultsToDB");
+        timerBAddBatchRecDB = Timer.builder("kruizeDB").description(DB_METRIC_DESC).tag("method", "addBatchRecommendationsToDB");
         timerBAddExpDB = Timer.builder("kruizeDB").description(DB_METRIC_DESC).tag("method", "addExperimentToDB");
         timerBAddPerfProfileDB = Timer.builder("kruizeDB").description(DB_METRIC_DESC).tag("method", "addPerformanceProfileToDB");
         timerBLoadPerfProfileName = Timer.builder("kruizeDB").description(DB_METRIC_DESC).tag("method", "loadPerformanceProfileByName");
@@ -72,6 +83,9 @@ public class MetricsConfig {
         timerBImportDSMetadata = Timer.builder("kruizeAPI").description(API_METRIC_DESC).tag("api", "dsmetadata").tag("method", "POST");
         timerBListDSMetadata = Timer.builder("kruizeAPI").description(API_METRIC_DESC).tag("api", "dsmetadata").tag("method", "GET");
         timerBKruizeNotifications = Counter.builder("KruizeNotifications").description("Kruize notifications").tag("api", "updateRecommendations");
+        counterKubeEventsWritten = Counter.builder("kruizeKubeEvents").description(KUBE_EVENTS_METRIC_DESC).tag("outcome", "written").register(meterRegistry);
+        counterKubeEventsCoalesced = Counter.builder("kruizeKubeEvents").description(KUBE_EVENTS_METRIC_DESC).tag("outcome", "coalesced").register(meterRegistry);
+        counterKubeEventsDropped = Counter.builder("kruizeKubeEvents").description(KUBE_EVENTS_METRIC_DESC).tag("outcome", "dropped").register(meterRegistry);
 
         timerBImportMetadata = Timer.builder("kruizeAPI").description(API_METRIC_DESC).tag("api", "datasources").tag("method", "importMetadata");
         timerBGetMetadata = Timer.builder("kruizeAPI").description(API_METRIC_DESC).tag("api", "datasources").tag("method", "getMetadata");
@@ -81,6 +95,7 @@ public class MetricsConfig {
         timerBRunJob = Timer.builder("kruizeAPI").description(API_METRIC_DESC).tag("api", "bulk").tag("method", "runBulkJob");
         timerBBulkRunJobs = Gauge.builder("kruizeAPI_active_jobs_count", activeJobs, AtomicInteger::get).description("No.of bulk jobs running").tags("api", "bulk", "method", "runBulkJob" , "status", "running");
         timerBBulkRunJobs.register(meterRegistry);
+        timerBStartupPhase = Timer.builder("kruizeStartup").description(STARTUP_METRIC_DESC);
 
         new ClassLoaderMetrics().bindTo(meterRegistry);
         new ProcessorMetrics().bindTo(meterRegistry);
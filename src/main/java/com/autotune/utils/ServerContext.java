@@ -78,4 +78,7 @@ public class ServerContext {
 
     //Bulk Service
     public static final String BULK_SERVICE = ROOT_CONTEXT + "bulk";
+
+    //Recommendation backfill
+    public static final String RECOMMENDATION_BACKFILL = ROOT_CONTEXT + "backfillRecommendations";
 }
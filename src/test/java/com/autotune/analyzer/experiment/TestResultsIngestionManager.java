@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.experiment;
+
+import com.autotune.analyzer.experiment.ResultsIngestionManager.PendingResult;
+import com.autotune.analyzer.kruizeObject.KruizeObject;
+import com.autotune.analyzer.serviceObjects.UpdateResultsRequestStatus;
+import com.autotune.common.data.result.ExperimentResultData;
+import com.autotune.common.parallelengine.executor.KruizeExecutor;
+import com.autotune.common.parallelengine.worker.KruizeWorker;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.ServletContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestResultsIngestionManager {
+    private static final int REQUEST_SIZE = 5;
+    private static final Map<String, AtomicInteger> WRITTEN = new ConcurrentHashMap<>();
+
+    /**
+     * Records the results instead of saving them, the same way ResultsWriter drains the queue
+     */
+    public static class RecordingWriter implements KruizeWorker {
+        @Override
+        public void execute(KruizeObject kruizeObject, Object o, KruizeExecutor kruizeExecutor, ServletContext context) {
+            ResultsIngestionManager ingestionManager = (ResultsIngestionManager) o;
+            while (!ingestionManager.isDrained()) {
+                List<PendingResult> batch;
+                try {
+                    batch = ingestionManager.takeBatch(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                for (PendingResult pendingResult : batch) {
+                    WRITTEN.computeIfAbsent(pendingResult.getResultData().getExperiment_name(), k -> new AtomicInteger()).incrementAndGet();
+                }
+                if (!batch.isEmpty()) {
+                    ingestionManager.onBatchCompleted(batch, Collections.emptyMap());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNoLossOrDuplicationAcrossShutdown() throws Exception {
+        WRITTEN.clear();
+        ResultsIngestionManager ingestionManager = new ResultsIngestionManager(200, 3, RecordingWriter.class, 30);
+        Set<String> accepted = ConcurrentHashMap.newKeySet();
+        Set<String> rejected = ConcurrentHashMap.newKeySet();
+        List<String> requestIds = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean submitting = new AtomicBoolean(true);
+        AtomicInteger sequence = new AtomicInteger();
+
+        ExecutorService submitters = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(submitters.submit(() -> {
+                while (submitting.get()) {
+                    List<ExperimentResultData> request = new ArrayList<>();
+                    List<String> names = new ArrayList<>();
+                    for (int j = 0; j < REQUEST_SIZE; j++) {
+                        String name = "exp-" + sequence.incrementAndGet();
+                        ExperimentResultData resultData = new ExperimentResultData();
+                        resultData.setExperiment_name(name);
+                        request.add(resultData);
+                        names.add(name);
+                    }
+                    String requestId = ingestionManager.submit(request);
+                    if (null == requestId) {
+                        rejected.addAll(names);
+                        Thread.yield();
+                    } else {
+                        accepted.addAll(names);
+                        requestIds.add(requestId);
+                    }
+                }
+            }));
+        }
+        // shut down while the requests keep coming in
+        while (accepted.size() < 5000) {
+            Thread.sleep(5);
+        }
+        ingestionManager.shutdown();
+        submitting.set(false);
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        submitters.shutdown();
+
+        assertTrue(ingestionManager.isDrained());
+        assertEquals(0, ingestionManager.getQueueDepth());
+        assertFalse(rejected.isEmpty(), "no request came in after the shutdown");
+        // every accepted result is written exactly once, the rejected ones not at all
+        assertEquals(accepted, WRITTEN.keySet());
+        for (Map.Entry<String, AtomicInteger> written : WRITTEN.entrySet()) {
+            assertEquals(1, written.getValue().get(), written.getKey());
+        }
+        for (String requestId : requestIds) {
+            UpdateResultsRequestStatus requestStatus = ingestionManager.getRequestStatus(requestId);
+            assertTrue(requestStatus.isCompleted(), requestId);
+        }
+        assertNull(ingestionManager.submit(List.of(new ExperimentResultData())));
+    }
+}
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+
+package com.autotune.analyzer.hpo;
+
+import com.autotune.analyzer.utils.AnalyzerConstants.HPOConstants.TrialStatus;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestLocalHPOService {
+
+    private static final int TRIALS = 80;
+    private static final int PARALLEL_TRIALS = 4;
+
+    @Test
+    public void testTPEConverges() throws Exception {
+        double tpeTotal = 0;
+        double randomTotal = 0;
+        int converged = 0;
+        int runs = 10;
+        for (int run = 0; run < runs; run++) {
+            double tpeBest = optimize(new LocalHPOService(new InMemoryHPOStudyStore()), searchSpace("tpe-" + run, "optuna_tpe", "minimize"));
+            double randomBest = optimize(new LocalHPOService(new InMemoryHPOStudyStore()), searchSpace("random-" + run, "random", "minimize"));
+            tpeTotal += tpeBest;
+            randomTotal += randomBest;
+            // below 1 only with the right gc and close to the numeric optimum
+            if (tpeBest < 1) {
+                converged++;
+            }
+        }
+        assertTrue(tpeTotal < randomTotal / 2, "TPE mean best " + tpeTotal / runs + ", random mean best " + randomTotal / runs);
+        assertTrue(converged >= 3, converged + " of " + runs + " TPE runs converged");
+    }
+
+    @Test
+    public void testMaximize() throws Exception {
+        LocalHPOService service = new LocalHPOService(new InMemoryHPOStudyStore());
+        double best = -optimizeMaximize(service, searchSpace("maximize", "optuna_tpe", "maximize"));
+        assertTrue(best < 1.5, "best " + best);
+        HPOTrial bestTrial = service.getStudy("maximize").getBestTrial();
+        assertEquals(-best, bestTrial.getResult());
+    }
+
+    @Test
+    public void testResume() throws Exception {
+        InMemoryHPOStudyStore store = new InMemoryHPOStudyStore();
+        JSONObject searchSpace = searchSpace("resume", "optuna_tpe", "minimize");
+        LocalHPOService service = new LocalHPOService(store);
+        int first = service.createExperiment(searchSpace);
+        service.updateTrialResult("resume", first, true, objective(service.getTrialConfig("resume", first)));
+        for (int trialNumber : service.generateTrials("resume", 14)) {
+            JSONArray config = service.getTrialConfig("resume", trialNumber);
+            service.updateTrialResult("resume", trialNumber, trialNumber != 5, objective(config));
+        }
+        List<Integer> pending = service.generateTrials("resume", 2);
+        JSONArray pendingConfig = service.getTrialConfig("resume", pending.get(0));
+
+        // a new engine on the same store carries on with the stored trials
+        LocalHPOService resumed = new LocalHPOService(store);
+        assertEquals(pendingConfig.toString(), resumed.getTrialConfig("resume", pending.get(0)).toString());
+        HPOStudy study = resumed.getStudy("resume");
+        assertEquals(17, study.getTrials().size());
+        assertEquals(TrialStatus.FAILED, study.getTrial(5).getStatus());
+        assertEquals(TrialStatus.RUNNING, study.getTrial(16).getStatus());
+        assertEquals(service.getStudy("resume").getBestTrial().getResult(), study.getBestTrial().getResult());
+        assertEquals(17, resumed.createExperiment(searchSpace));
+        assertEquals(List.of(18, 19), resumed.generateTrials("resume", 2));
+
+        // and suggests what the first engine would have
+        assertEquals(List.of(17), service.generateTrials("resume", 1));
+        assertEquals(service.getTrialConfig("resume", 17).toString(), resumed.getTrialConfig("resume", 17).toString());
+    }
+
+    @Test
+    public void testBatchSuggestionsAreDistinct() throws Exception {
+        LocalHPOService service = new LocalHPOService(new InMemoryHPOStudyStore());
+        JSONObject searchSpace = searchSpace("batch", "optuna_tpe", "minimize");
+        int first = service.createExperiment(searchSpace);
+        service.updateTrialResult("batch", first, true, objective(service.getTrialConfig("batch", first)));
+        for (int trialNumber : service.generateTrials("batch", 19)) {
+            service.updateTrialResult("batch", trialNumber, true, objective(service.getTrialConfig("batch", trialNumber)));
+        }
+        List<Integer> batch = service.generateTrials("batch", 8);
+        assertEquals(8, batch.size());
+        Set<String> configs = new HashSet<>();
+        for (int trialNumber : batch) {
+            configs.add(service.getTrialConfig("batch", trialNumber).toString());
+        }
+        assertEquals(batch.size(), configs.size());
+    }
+
+    @Test
+    public void testTrialConfigValues() throws Exception {
+        LocalHPOService service = new LocalHPOService(new InMemoryHPOStudyStore());
+        int first = service.createExperiment(searchSpace("values", "random", "minimize"));
+        for (int trialNumber : service.generateTrials("values", 50)) {
+            JSONArray config = service.getTrialConfig("values", trialNumber);
+            assertEquals(4, config.length());
+            for (int i = 0; i < config.length(); i++) {
+                JSONObject tunable = config.getJSONObject(i);
+                Object value = tunable.get("tunable_value");
+                switch (tunable.getString("tunable_name")) {
+                    case "x":
+                    case "y":
+                        assertTrue(value instanceof Double);
+                        assertTrue((Double) value >= -10 && (Double) value <= 10);
+                        break;
+                    case "threads":
+                        assertTrue(value instanceof Long);
+                        assertTrue((Long) value >= 1 && (Long) value <= 16);
+                        break;
+                    case "gc":
+                        assertTrue(List.of("a", "b", "c").contains(value));
+                        break;
+                    default:
+                        fail("unexpected tunable " + tunable);
+                }
+            }
+        }
+        assertEquals(0, first);
+        assertThrows(IllegalArgumentException.class, () -> service.getTrialConfig("values", 100));
+        assertThrows(IllegalArgumentException.class, () -> service.generateTrials("unknown", 1));
+    }
+
+    private static double optimize(LocalHPOService service, JSONObject searchSpace) throws Exception {
+        String experimentName = searchSpace.getString("experiment_name");
+        int first = service.createExperiment(searchSpace);
+        service.updateTrialResult(experimentName, first, true, objective(service.getTrialConfig(experimentName, first)));
+        double best = Double.MAX_VALUE;
+        for (int completed = 1; completed < TRIALS; completed += PARALLEL_TRIALS) {
+            for (int trialNumber : service.generateTrials(experimentName, PARALLEL_TRIALS)) {
+                double value = objective(service.getTrialConfig(experimentName, trialNumber));
+                service.updateTrialResult(experimentName, trialNumber, true, value);
+                best = Math.min(best, value);
+            }
+        }
+        return best;
+    }
+
+    private static double optimizeMaximize(LocalHPOService service, JSONObject searchSpace) throws Exception {
+        String experimentName = searchSpace.getString("experiment_name");
+        int first = service.createExperiment(searchSpace);
+        service.updateTrialResult(experimentName, first, true, -objective(service.getTrialConfig(experimentName, first)));
+        double best = -Double.MAX_VALUE;
+        for (int completed = 1; completed < TRIALS; completed += PARALLEL_TRIALS) {
+            for (int trialNumber : service.generateTrials(experimentName, PARALLEL_TRIALS)) {
+                double value = -objective(service.getTrialConfig(experimentName, trialNumber));
+                service.updateTrialResult(experimentName, trialNumber, true, value);
+                best = Math.max(best, value);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Synthetic objective with its minimum 0 at x = 3, y = -2, threads = 6 and gc = b
+     */
+    private static double objective(JSONArray config) {
+        double x = 0, y = 0, threads = 0;
+        String gc = null;
+        for (int i = 0; i < config.length(); i++) {
+            JSONObject tunable = config.getJSONObject(i);
+            switch (tunable.getString("tunable_name")) {
+                case "x" -> x = tunable.getDouble("tunable_value");
+                case "y" -> y = tunable.getDouble("tunable_value");
+                case "threads" -> threads = tunable.getDouble("tunable_value");
+                case "gc" -> gc = tunable.getString("tunable_value");
+            }
+        }
+        double distance = (x - 3) * (x - 3) + (y + 2) * (y + 2) + 0.1 * (threads - 6) * (threads - 6);
+        return (distance + 1) * ("b".equals(gc) ? 1 : 2) - 1;
+    }
+
+    private static JSONObject searchSpace(String experimentName, String hpoAlgoImpl, String direction) {
+        JSONArray tunables = new JSONArray()
+                .put(new JSONObject().put("name", "x").put("value_type", "double").put("lower_bound", -10).put("upper_bound", 10))
+                .put(new JSONObject().put("name", "y").put("value_type", "double").put("lower_bound", -10).put("upper_bound", 10))
+                .put(new JSONObject().put("name", "threads").put("value_type", "integer").put("lower_bound", 1).put("upper_bound", 16).put("step", 1))
+                .put(new JSONObject().put("name", "gc").put("value_type", "categorical").put("choices", new JSONArray().put("a").put("b").put("c")));
+        return new JSONObject()
+                .put("experiment_name", experimentName)
+                .put("experiment_id", experimentName)
+                .put("direction", direction)
+                .put("objective_function", "transaction_response_time")
+                .put("hpo_algo_impl", hpoAlgoImpl)
+                .put("value_type", "double")
+                .put("total_trials", TRIALS)
+                .put("parallel_trials", PARALLEL_TRIALS)
+                .put("tunables", tunables);
+    }
+}
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+
+package com.autotune.analyzer.plots;
+
+import com.autotune.analyzer.recommendations.model.CostBasedRecommendationModel;
+import com.autotune.analyzer.recommendations.term.Terms;
+import com.autotune.analyzer.utils.AnalyzerConstants;
+import com.autotune.common.data.metrics.MetricAggregationInfoResults;
+import com.autotune.common.data.metrics.MetricResults;
+import com.autotune.common.data.result.IntervalResults;
+import com.autotune.common.utils.CommonUtils;
+import com.autotune.utils.KruizeConstants;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.*;
+
+import static com.autotune.analyzer.recommendations.RecommendationConstants.RecommendationEngine.PercentileConstants.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class TestPlotManager {
+
+    private static final long MONITORING_END_TIME = Timestamp.valueOf("2024-06-30 00:00:00").getTime();
+    private static final long FIFTEEN_MINUTES = 15 * 60 * 1000L;
+    private static final Gson GSON = new GsonBuilder().serializeSpecialFloatingPointValues().create();
+
+    @Test
+    public void testSameAsSortedBuckets() {
+        HashMap<Timestamp, IntervalResults> results = getResults(15 * 96 + 40, 42);
+        String[][] termSettings = {{"short_term", "1", "4", "0.25"}, {"medium_term", "7", "7", "1"}, {"long_term", "15", "15", "1"}};
+        for (String[] term : termSettings) {
+            Terms recommendationTerm = new Terms(term[0], Integer.parseInt(term[1]), 0, Integer.parseInt(term[2]), Double.parseDouble(term[3]));
+            Timestamp monitoringEndTime = new Timestamp(MONITORING_END_TIME);
+            Timestamp monitoringStartTime = new Timestamp(MONITORING_END_TIME - Integer.parseInt(term[1]) * 24 * 60 * 60 * 1000L);
+
+            String expected = GSON.toJson(generateSortedBucketPlots(results, recommendationTerm, monitoringStartTime, monitoringEndTime));
+            String actual = GSON.toJson(new PlotManager(results, recommendationTerm, monitoringStartTime, monitoringEndTime).generatePlots());
+            assertEquals(expected, actual, term[0]);
+        }
+    }
+
+    @Test
+    public void testEmptyBuckets() {
+        // only the newest day has results, the older windows of the long term are empty
+        HashMap<Timestamp, IntervalResults> results = getResults(96, 7);
+        Terms terms = new Terms("long_term", 15, 0, 15, 1);
+        Timestamp monitoringEndTime = new Timestamp(MONITORING_END_TIME);
+        Timestamp monitoringStartTime = new Timestamp(MONITORING_END_TIME - 15 * 24 * 60 * 60 * 1000L);
+
+        PlotData.PlotsData plotsData = new PlotManager(results, terms, monitoringStartTime, monitoringEndTime).generatePlots();
+        assertEquals(15, plotsData.plotsData.size());
+        PlotData.PlotPoint oldest = plotsData.plotsData.get(new Timestamp(monitoringStartTime.getTime() + 24 * 60 * 60 * 1000L));
+        assertNull(oldest.cpuUsage);
+        assertNull(oldest.memoryUsage);
+        assertEquals(GSON.toJson(generateSortedBucketPlots(results, terms, monitoringStartTime, monitoringEndTime)), GSON.toJson(plotsData));
+    }
+
+    /**
+     * Returns results every 15 minutes up to the monitoring end time, with repeated values, zero minimums, missing
+     * metrics and missing formats mixed in
+     */
+    private static HashMap<Timestamp, IntervalResults> getResults(int count, long seed) {
+        Random random = new Random(seed);
+        HashMap<Timestamp, IntervalResults> results = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            Timestamp intervalEndTime = new Timestamp(MONITORING_END_TIME - i * FIFTEEN_MINUTES);
+            IntervalResults intervalResults = new IntervalResults(new Timestamp(intervalEndTime.getTime() - FIFTEEN_MINUTES), intervalEndTime);
+            HashMap<AnalyzerConstants.MetricName, MetricResults> metricResultsMap = new HashMap<>();
+            int pods = 1 + random.nextInt(3);
+            if (random.nextInt(20) != 0) {
+                // coarse values so that windows hold duplicates
+                double cpuMax = Math.round(random.nextDouble() * 30) / 10.0;
+                double cpuMin = random.nextInt(10) == 0 ? 0 : cpuMax * random.nextDouble();
+                metricResultsMap.put(AnalyzerConstants.MetricName.cpuUsage,
+                        getMetricResults(cpuMin, cpuMax, cpuMax * 0.7, pods, random.nextInt(30) == 0 ? "" : "cores"));
+            }
+            if (random.nextInt(4) == 0) {
+                double throttleMax = random.nextDouble() / 10;
+                metricResultsMap.put(AnalyzerConstants.MetricName.cpuThrottle,
+                        getMetricResults(0, throttleMax, throttleMax / 2, pods, "cores"));
+            }
+            if (random.nextInt(25) != 0) {
+                double memMax = (200 + random.nextInt(50) * 10) * 1024 * 1024.0;
+                double memMin = random.nextInt(10) == 0 ? 0 : memMax * random.nextDouble();
+                metricResultsMap.put(AnalyzerConstants.MetricName.memoryUsage,
+                        getMetricResults(memMin, memMax, memMax * 0.8, pods, random.nextInt(30) == 0 ? null : "MiB"));
+            }
+            intervalResults.setMetricResultsMap(metricResultsMap);
+            results.put(intervalEndTime, intervalResults);
+        }
+        return results;
+    }
+
+    private static MetricResults getMetricResults(double min, double max, double avg, int pods, String format) {
+        MetricAggregationInfoResults aggregationInfoResults = new MetricAggregationInfoResults();
+        aggregationInfoResults.setMin(min);
+        aggregationInfoResults.setMax(max);
+        aggregationInfoResults.setAvg(avg);
+        aggregationInfoResults.setSum(avg * pods);
+        aggregationInfoResults.setFormat(format);
+        MetricResults metricResults = new MetricResults();
+        metricResults.setAggregationInfoResult(aggregationInfoResults);
+        return metricResults;
+    }
+
+    /**
+     * The plot computation before the single sweep: a sub map of a reverse sorted copy of the results per window,
+     * with the percentiles taken on a sorted list
+     */
+    private static PlotData.PlotsData generateSortedBucketPlots(HashMap<Timestamp, IntervalResults> containerResultsMap, Terms recommendationTerm,
+                                                                Timestamp monitoringStartTime, Timestamp monitoringEndTime) {
+        TreeMap<Timestamp, IntervalResults> sortedResultsHashMap = new TreeMap<>(Collections.reverseOrder());
+        sortedResultsHashMap.putAll(containerResultsMap);
+        Map<Timestamp, PlotData.PlotPoint> plotsDataMap = new HashMap<>();
+        Timestamp incrementStartTime = monitoringStartTime;
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(incrementStartTime.getTime());
+        for (int i = 0; i < recommendationTerm.getPlots_datapoints(); i++) {
+            double daysToAdd = recommendationTerm.getPlots_datapoints_delta_in_days();
+            long millisecondsToAdd = (long) (daysToAdd * 24 * 60 * 60 * 1000);
+            calendar.add(Calendar.MILLISECOND, (int) millisecondsToAdd);
+            Timestamp newTimestamp = new Timestamp(calendar.getTimeInMillis());
+            PlotData.UsageData cpuUsage = getSortedUsageData(sortedResultsHashMap.subMap(newTimestamp, true,
+                    incrementStartTime, false), AnalyzerConstants.MetricName.cpuUsage);
+            PlotData.UsageData memoryUsage = getSortedUsageData(sortedResultsHashMap.subMap(newTimestamp, true,
+                    incrementStartTime, false), AnalyzerConstants.MetricName.memoryUsage);
+            plotsDataMap.put(newTimestamp, new PlotData.PlotPoint(cpuUsage, memoryUsage));
+            incrementStartTime = newTimestamp;
+        }
+        return new PlotData.PlotsData(recommendationTerm.getPlots_datapoints(), plotsDataMap);
+    }
+
+    private static PlotData.UsageData getSortedUsageData(Map<Timestamp, IntervalResults> resultInRange, AnalyzerConstants.MetricName metricName) {
+        List<Double> maxValues = new ArrayList<>();
+        List<Double> minValues = new ArrayList<>();
+        if (metricName.equals(AnalyzerConstants.MetricName.cpuUsage)) {
+            JSONArray cpuValues = CostBasedRecommendationModel.getCPUUsageList(resultInRange);
+            for (int i = 0; i < cpuValues.length(); i++) {
+                maxValues.add(cpuValues.getJSONObject(i).getDouble(KruizeConstants.JSONKeys.MAX));
+                minValues.add(cpuValues.getJSONObject(i).getDouble(KruizeConstants.JSONKeys.MIN));
+            }
+        } else {
+            for (IntervalResults intervalResults : resultInRange.values()) {
+                JSONObject jsonObject = CostBasedRecommendationModel.calculateMemoryUsage(intervalResults);
+                maxValues.add(jsonObject.getDouble(KruizeConstants.JSONKeys.MAX));
+                minValues.add(jsonObject.getDouble(KruizeConstants.JSONKeys.MIN));
+            }
+        }
+        if (maxValues.isEmpty()) {
+            return null;
+        }
+        double q1 = CommonUtils.percentile(TWENTYFIVE_PERCENTILE, maxValues);
+        double q3 = CommonUtils.percentile(SEVENTYFIVE_PERCENTILE, maxValues);
+        double median = CommonUtils.percentile(FIFTY_PERCENTILE, maxValues);
+        double max = Collections.max(maxValues);
+        double min = minValues.stream().noneMatch(value -> value.equals(0.0)) ? Collections.min(minValues) : 0.0;
+        String format = CostBasedRecommendationModel.getFormatValue(resultInRange, metricName);
+        return new PlotData.UsageData(min, q1, median, q3, max, format);
+    }
+}
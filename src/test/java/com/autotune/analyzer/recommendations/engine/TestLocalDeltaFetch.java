@@ -0,0 +1,265 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.recommendations.engine;
+
+import com.autotune.analyzer.exceptions.FetchMetricsError;
+import com.autotune.analyzer.exceptions.InvalidValueException;
+import com.autotune.analyzer.kruizeObject.KruizeObject;
+import com.autotune.analyzer.kruizeObject.SloInfo;
+import com.autotune.analyzer.performanceProfiles.MetricProfileCollection;
+import com.autotune.analyzer.performanceProfiles.PerformanceProfile;
+import com.autotune.analyzer.recommendations.utils.LocalMetricsStore;
+import com.autotune.analyzer.utils.AnalyzerConstants;
+import com.autotune.common.auth.AuthenticationConfig;
+import com.autotune.common.data.metrics.AggregationFunctions;
+import com.autotune.common.data.metrics.Metric;
+import com.autotune.common.data.metrics.MetricResults;
+import com.autotune.common.data.result.ContainerData;
+import com.autotune.common.data.result.IntervalResults;
+import com.autotune.common.datasource.DataSourceInfo;
+import com.autotune.common.datasource.RangeQuerySplitter;
+import com.autotune.common.k8sObjects.K8sObject;
+import com.autotune.common.k8sObjects.TrialSettings;
+import com.autotune.operator.KruizeDeploymentInfo;
+import com.autotune.utils.KruizeConstants;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Runs the metric fetch of local monitoring experiments against a stub of the Prometheus query API which records
+ * the ranges queried
+ */
+public class TestLocalDeltaFetch {
+    private static final String PROFILE_NAME = "delta-fetch-test";
+    private static final String DATASOURCE_NAME = "delta-fetch-prometheus";
+    private static final String CPU_QUERY = "cpu_usage{container=\"$CONTAINER_NAME$\"}";
+    private static final long STEP_SECS = 15 * 60;
+    private static final long DAY_SECS = 24 * 60 * 60;
+
+    private HttpServer server;
+    private DataSourceInfo dataSourceInfo;
+    private final AtomicLong maxDateEpoch = new AtomicLong();
+    private final List<long[]> cpuRanges = new CopyOnWriteArrayList<>();
+    private final Map<Long, Double> lateSamples = new ConcurrentHashMap<>();
+    private Boolean savedDeltaFetch;
+    private Boolean savedQueryCache;
+    private Integer savedChunkHours;
+    private Integer savedOverlapMins;
+
+    @BeforeEach
+    public void setUp() throws Exception, InvalidValueException {
+        savedDeltaFetch = KruizeDeploymentInfo.local_delta_fetch;
+        savedQueryCache = KruizeDeploymentInfo.query_cache;
+        savedChunkHours = KruizeDeploymentInfo.range_query_chunk_hours;
+        savedOverlapMins = KruizeDeploymentInfo.local_delta_fetch_overlap_mins;
+        KruizeDeploymentInfo.local_delta_fetch = true;
+        // every range has to reach the stub
+        KruizeDeploymentInfo.query_cache = false;
+        // each window is one request
+        KruizeDeploymentInfo.range_query_chunk_hours = 0;
+        KruizeDeploymentInfo.local_delta_fetch_overlap_mins = 30;
+        LocalMetricsStore.getInstance().clear();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v1/query_range", this::handleRangeQuery);
+        server.createContext("/api/v1/query", exchange -> {
+            // the engine takes the time of the max date sample as the end of the window
+            respond(exchange, "vector", "[{\"metric\":{},\"value\":[" + maxDateEpoch.get() + ",\"1\"]}]");
+        });
+        server.start();
+        dataSourceInfo = new DataSourceInfo(DATASOURCE_NAME, KruizeConstants.SupportedDatasources.PROMETHEUS, null, null,
+                new URL("http://127.0.0.1:" + server.getAddress().getPort()), AuthenticationConfig.noAuth());
+
+        ArrayList<Metric> metrics = new ArrayList<>();
+        metrics.add(metric(AnalyzerConstants.MetricName.maxDate.name(), "max", "max_date{container=\"$CONTAINER_NAME$\"}"));
+        metrics.add(metric(AnalyzerConstants.MetricName.gpuMemoryUsage.name(), "max", "gpu_memory{container=\"$CONTAINER_NAME$\"}"));
+        metrics.add(metric(AnalyzerConstants.MetricName.cpuUsage.name(), "avg", CPU_QUERY));
+        SloInfo sloInfo = new SloInfo("resource_usage", null, "minimize", metrics);
+        MetricProfileCollection.getInstance().getMetricProfileCollection()
+                .put(PROFILE_NAME, new PerformanceProfile(PROFILE_NAME, 1.0, "openshift", sloInfo));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+        MetricProfileCollection.getInstance().getMetricProfileCollection().remove(PROFILE_NAME);
+        LocalMetricsStore.getInstance().clear();
+        KruizeDeploymentInfo.local_delta_fetch = savedDeltaFetch;
+        KruizeDeploymentInfo.query_cache = savedQueryCache;
+        KruizeDeploymentInfo.range_query_chunk_hours = savedChunkHours;
+        KruizeDeploymentInfo.local_delta_fetch_overlap_mins = savedOverlapMins;
+    }
+
+    private static Metric metric(String name, String function, String query) {
+        Metric metric = new Metric(name, null, DATASOURCE_NAME, "double", KruizeConstants.JSONKeys.CONTAINER);
+        HashMap<String, AggregationFunctions> aggregationFunctions = new HashMap<>();
+        aggregationFunctions.put(function, new AggregationFunctions(function, query, null));
+        metric.setAggregationFunctionsMap(aggregationFunctions);
+        return metric;
+    }
+
+    private static double sampleValue(long epochSecs) {
+        return 0.1 + (epochSecs / STEP_SECS) % 97 / 100.0;
+    }
+
+    private void handleRangeQuery(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        for (String param : exchange.getRequestURI().getRawQuery().split("&")) {
+            String[] pair = param.split("=", 2);
+            params.put(pair[0], URLDecoder.decode(pair[1], StandardCharsets.UTF_8));
+        }
+        String query = params.get("query");
+        long start = Long.parseLong(params.get("start"));
+        long end = Long.parseLong(params.get("end"));
+        long step = Long.parseLong(params.get("step"));
+        if (!query.startsWith("cpu_usage")) {
+            // no accelerator attached to the container
+            respond(exchange, "matrix", "[]");
+            return;
+        }
+        cpuRanges.add(new long[]{start, end});
+        StringBuilder values = new StringBuilder();
+        for (long time = start; time <= end; time += step) {
+            if (!values.isEmpty()) {
+                values.append(',');
+            }
+            values.append('[').append(time).append(",\"").append(lateSamples.getOrDefault(time, sampleValue(time))).append("\"]");
+        }
+        respond(exchange, "matrix", "[{\"metric\":{\"container\":\"app\"},\"values\":[" + values + "]}]");
+    }
+
+    private static void respond(HttpExchange exchange, String resultType, String result) throws IOException {
+        byte[] response = ("{\"status\":\"success\",\"data\":{\"resultType\":\"" + resultType + "\",\"result\":" + result + "}}")
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    private KruizeObject createExperiment() {
+        KruizeObject kruizeObject = new KruizeObject();
+        kruizeObject.setExperimentName("delta-fetch-exp");
+        kruizeObject.setExperimentType(AnalyzerConstants.ExperimentType.CONTAINER);
+        kruizeObject.setPerformanceProfile(PROFILE_NAME);
+        TrialSettings trialSettings = new TrialSettings();
+        trialSettings.setMeasurement_durationMinutes("15min");
+        kruizeObject.setTrial_settings(trialSettings);
+        KruizeObject.setDefaultTerms(new HashMap<>(), kruizeObject);
+        K8sObject k8sObject = new K8sObject("app-deployment", "deployment", "default");
+        HashMap<String, ContainerData> containerDataMap = new HashMap<>();
+        containerDataMap.put("app", new ContainerData("app", "app-image", null, null));
+        k8sObject.setContainerDataMap(containerDataMap);
+        List<K8sObject> k8sObjects = new ArrayList<>();
+        k8sObjects.add(k8sObject);
+        kruizeObject.setKubernetes_objects(k8sObjects);
+        return kruizeObject;
+    }
+
+    private HashMap<Timestamp, IntervalResults> fetch(long endEpoch) throws Exception, FetchMetricsError {
+        maxDateEpoch.set(endEpoch);
+        KruizeObject kruizeObject = createExperiment();
+        new RecommendationEngine(kruizeObject.getExperimentName(), null, null)
+                .fetchMetricsBasedOnProfileAndDatasource(kruizeObject, null, null, dataSourceInfo);
+        return kruizeObject.getKubernetes_objects().get(0).getContainerDataMap().get("app").getResults();
+    }
+
+    private static double cpuAvg(IntervalResults intervalResults) {
+        MetricResults metricResults = intervalResults.getMetricResultsMap().get(AnalyzerConstants.MetricName.cpuUsage);
+        assertNotNull(metricResults);
+        return metricResults.getAggregationInfoResult().getAvg();
+    }
+
+    private static void assertSameResults(HashMap<Timestamp, IntervalResults> expected, HashMap<Timestamp, IntervalResults> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<Timestamp, IntervalResults> entry : expected.entrySet()) {
+            IntervalResults actualResults = actual.get(entry.getKey());
+            assertEquals(cpuAvg(entry.getValue()), cpuAvg(actualResults));
+            assertEquals(entry.getValue().getIntervalStartTime(), actualResults.getIntervalStartTime());
+            assertEquals(entry.getValue().getDurationInMinutes(), actualResults.getDurationInMinutes());
+        }
+    }
+
+    @Test
+    public void fetchesOnlyTheDeltaAfterTheHighWaterMark() throws Exception, FetchMetricsError {
+        // neither end is on the step grid
+        long firstEnd = 1_700_000_123L;
+        long firstAlignedEnd = RangeQuerySplitter.alignToStep(firstEnd, STEP_SECS, false);
+        HashMap<Timestamp, IntervalResults> firstResults = fetch(firstEnd);
+        assertEquals(1, cpuRanges.size());
+        assertEquals(RangeQuerySplitter.alignToStep(firstEnd - 15 * DAY_SECS, STEP_SECS, true), cpuRanges.get(0)[0]);
+        assertEquals(firstAlignedEnd, cpuRanges.get(0)[1]);
+        // the start rounds up to the grid, the window holds one sample per step
+        assertEquals(15 * DAY_SECS / STEP_SECS, firstResults.size());
+
+        // two hours later only the new samples and the overlap of 30 minutes are fetched
+        long secondEnd = firstEnd + 2 * 60 * 60;
+        long secondAlignedEnd = RangeQuerySplitter.alignToStep(secondEnd, STEP_SECS, false);
+        cpuRanges.clear();
+        HashMap<Timestamp, IntervalResults> deltaResults = fetch(secondEnd);
+        assertEquals(1, cpuRanges.size());
+        assertEquals(firstAlignedEnd - STEP_SECS, cpuRanges.get(0)[0]);
+        assertEquals(secondAlignedEnd, cpuRanges.get(0)[1]);
+
+        // the merged results are those of a full fetch of the window
+        LocalMetricsStore.getInstance().clear();
+        cpuRanges.clear();
+        HashMap<Timestamp, IntervalResults> fullResults = fetch(secondEnd);
+        assertEquals(1, cpuRanges.size());
+        assertEquals(RangeQuerySplitter.alignToStep(secondEnd - 15 * DAY_SECS, STEP_SECS, true), cpuRanges.get(0)[0]);
+        assertSameResults(fullResults, deltaResults);
+    }
+
+    @Test
+    public void refetchesTheOverlapForLateSamples() throws Exception, FetchMetricsError {
+        long firstEnd = 1_700_000_123L;
+        long alignedEnd = RangeQuerySplitter.alignToStep(firstEnd, STEP_SECS, false);
+        fetch(firstEnd);
+
+        // a sample inside the overlap and one before it change after the first fetch
+        long lateSample = alignedEnd - STEP_SECS;
+        long oldSample = alignedEnd - 3 * STEP_SECS;
+        lateSamples.put(lateSample, 5.0);
+        lateSamples.put(oldSample, 7.0);
+        cpuRanges.clear();
+        HashMap<Timestamp, IntervalResults> results = fetch(firstEnd + STEP_SECS);
+        assertEquals(1, cpuRanges.size());
+        assertEquals(5.0, cpuAvg(results.get(new Timestamp(lateSample * 1000))));
+        assertEquals(sampleValue(oldSample), cpuAvg(results.get(new Timestamp(oldSample * 1000))));
+    }
+}
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.recommendations.engine;
+
+import com.autotune.analyzer.kruizeObject.KruizeObject;
+import com.autotune.analyzer.recommendations.ContainerRecommendations;
+import com.autotune.analyzer.recommendations.RecommendationConstants;
+import com.autotune.analyzer.recommendations.objects.MappedRecommendationForTimestamp;
+import com.autotune.analyzer.recommendations.objects.TermRecommendations;
+import com.autotune.analyzer.utils.AnalyzerConstants;
+import com.autotune.common.data.metrics.MetricAggregationInfoResults;
+import com.autotune.common.data.metrics.MetricResults;
+import com.autotune.common.data.result.ContainerData;
+import com.autotune.common.data.result.IntervalResults;
+import com.autotune.common.k8sObjects.K8sObject;
+import com.autotune.common.k8sObjects.TrialSettings;
+import com.autotune.operator.KruizeDeploymentInfo;
+import com.autotune.utils.KruizeConstants;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that generating the recommendations of the containers, terms and models in parallel gives the same
+ * recommendations and notifications as generating them one after the other
+ */
+public class TestParallelRecommendations {
+    private static final long FIFTEEN_MINUTES = 15 * 60 * 1000L;
+    private static final long MONITORING_END_TIME = Timestamp.valueOf("2024-01-20 00:00:00").getTime();
+    // enough for the short and medium terms, not for the long term
+    private static final int INTERVALS = 3 * 24 * 4;
+    private static final List<String> CONTAINERS = List.of("app", "sidecar", "proxy");
+
+    private Boolean savedParallel;
+
+    @BeforeEach
+    public void setUp() {
+        savedParallel = KruizeDeploymentInfo.recommendation_parallel;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        KruizeDeploymentInfo.recommendation_parallel = savedParallel;
+    }
+
+    private static KruizeObject createExperiment() {
+        KruizeObject kruizeObject = new KruizeObject();
+        kruizeObject.setExperimentName("parallel-recommendations-exp");
+        kruizeObject.setExperimentType(AnalyzerConstants.ExperimentType.CONTAINER);
+        TrialSettings trialSettings = new TrialSettings();
+        trialSettings.setMeasurement_durationMinutes("15min");
+        kruizeObject.setTrial_settings(trialSettings);
+        KruizeObject.setDefaultTerms(new HashMap<>(), kruizeObject);
+        K8sObject k8sObject = new K8sObject("app-deployment", "deployment", "default");
+        HashMap<String, ContainerData> containerDataMap = new HashMap<>();
+        long seed = 0;
+        for (String containerName : CONTAINERS) {
+            ContainerData containerData = new ContainerData(containerName, containerName + "-image", null, null);
+            containerData.setResults(getResults(seed++));
+            containerDataMap.put(containerName, containerData);
+        }
+        k8sObject.setContainerDataMap(containerDataMap);
+        List<K8sObject> k8sObjects = new ArrayList<>();
+        k8sObjects.add(k8sObject);
+        kruizeObject.setKubernetes_objects(k8sObjects);
+        return kruizeObject;
+    }
+
+    private static HashMap<Timestamp, IntervalResults> getResults(long seed) {
+        Random random = new Random(seed);
+        HashMap<Timestamp, IntervalResults> results = new HashMap<>();
+        for (int i = 0; i < INTERVALS; i++) {
+            Timestamp intervalEndTime = new Timestamp(MONITORING_END_TIME - i * FIFTEEN_MINUTES);
+            IntervalResults intervalResults = new IntervalResults(new Timestamp(intervalEndTime.getTime() - FIFTEEN_MINUTES), intervalEndTime);
+            HashMap<AnalyzerConstants.MetricName, MetricResults> metricResultsMap = new HashMap<>();
+            int pods = 1 + random.nextInt(3);
+            double cpuMax = 0.1 + random.nextDouble() * 2;
+            metricResultsMap.put(AnalyzerConstants.MetricName.cpuRequest, getMetricResults(1, 1, 1, pods, "cores"));
+            metricResultsMap.put(AnalyzerConstants.MetricName.cpuLimit, getMetricResults(2, 2, 2, pods, "cores"));
+            metricResultsMap.put(AnalyzerConstants.MetricName.cpuUsage,
+                    getMetricResults(cpuMax * random.nextDouble(), cpuMax, cpuMax * 0.7, pods, "cores"));
+            metricResultsMap.put(AnalyzerConstants.MetricName.cpuThrottle,
+                    getMetricResults(0, cpuMax / 10, cpuMax / 20, pods, "cores"));
+            double memoryMax = (200 + random.nextInt(50) * 10) * 1024 * 1024.0;
+            metricResultsMap.put(AnalyzerConstants.MetricName.memoryRequest,
+                    getMetricResults(512 * 1024 * 1024.0, 512 * 1024 * 1024.0, 512 * 1024 * 1024.0, pods, "MiB"));
+            metricResultsMap.put(AnalyzerConstants.MetricName.memoryLimit,
+                    getMetricResults(1024 * 1024 * 1024.0, 1024 * 1024 * 1024.0, 1024 * 1024 * 1024.0, pods, "MiB"));
+            metricResultsMap.put(AnalyzerConstants.MetricName.memoryUsage,
+                    getMetricResults(memoryMax * random.nextDouble(), memoryMax, memoryMax * 0.8, pods, "MiB"));
+            metricResultsMap.put(AnalyzerConstants.MetricName.memoryRSS,
+                    getMetricResults(memoryMax * random.nextDouble(), memoryMax * 0.9, memoryMax * 0.7, pods, "MiB"));
+            intervalResults.setMetricResultsMap(metricResultsMap);
+            results.put(intervalEndTime, intervalResults);
+        }
+        return results;
+    }
+
+    private static MetricResults getMetricResults(double min, double max, double avg, int pods, String format) {
+        MetricAggregationInfoResults aggregationInfoResults = new MetricAggregationInfoResults();
+        aggregationInfoResults.setMin(min);
+        aggregationInfoResults.setMax(max);
+        aggregationInfoResults.setAvg(avg);
+        aggregationInfoResults.setSum(avg * pods);
+        aggregationInfoResults.setFormat(format);
+        MetricResults metricResults = new MetricResults();
+        metricResults.setAggregationInfoResult(aggregationInfoResults);
+        return metricResults;
+    }
+
+    /**
+     * Generates the recommendations of a new experiment and returns those of each container
+     */
+    private static Map<String, ContainerRecommendations> generate(boolean parallel) {
+        KruizeDeploymentInfo.recommendation_parallel = parallel;
+        KruizeObject kruizeObject = createExperiment();
+        new RecommendationEngine(kruizeObject.getExperimentName(), null, null).generateRecommendations(kruizeObject);
+        Map<String, ContainerRecommendations> recommendations = new TreeMap<>();
+        kruizeObject.getKubernetes_objects().get(0).getContainerDataMap()
+                .forEach((name, containerData) -> recommendations.put(name, containerData.getContainerRecommendations()));
+        return recommendations;
+    }
+
+    @Test
+    public void generatesTheSameRecommendationsAsSequentially() {
+        Map<String, ContainerRecommendations> sequential = generate(false);
+        Map<String, ContainerRecommendations> parallel = generate(true);
+        assertEquals(CONTAINERS.size(), sequential.size());
+
+        Gson gson = new Gson();
+        for (String containerName : CONTAINERS) {
+            MappedRecommendationForTimestamp recommendation = sequential.get(containerName).getData()
+                    .get(new Timestamp(MONITORING_END_TIME));
+            assertNotNull(recommendation, containerName);
+            HashMap<String, TermRecommendations> terms = recommendation.getRecommendationForTermHashMap();
+            // the terms with enough data have the recommendations of every model
+            for (String term : List.of(KruizeConstants.JSONKeys.SHORT_TERM, KruizeConstants.JSONKeys.MEDIUM_TERM)) {
+                assertEquals(Set.of(RecommendationConstants.RecommendationEngine.ModelNames.COST,
+                                RecommendationConstants.RecommendationEngine.ModelNames.PERFORMANCE),
+                        terms.get(term).getRecommendationForModelHashMap().keySet(), term);
+                terms.get(term).getRecommendationForModelHashMap().values().forEach(model ->
+                        assertNotNull(model.getConfig().get(AnalyzerConstants.ResourceSetting.requests), term));
+            }
+            // the long term does not have enough data
+            TermRecommendations longTerm = terms.get(KruizeConstants.JSONKeys.LONG_TERM);
+            assertTrue(longTerm.getNotifications().containsKey(
+                    RecommendationConstants.RecommendationNotification.INFO_NOT_ENOUGH_DATA.getCode()));
+            assertTrue(null == longTerm.getRecommendationForModelHashMap() || longTerm.getRecommendationForModelHashMap().isEmpty());
+
+            JsonElement expected = gson.toJsonTree(sequential.get(containerName));
+            JsonElement actual = gson.toJsonTree(parallel.get(containerName));
+            assertEquals(expected, actual, containerName);
+        }
+    }
+}
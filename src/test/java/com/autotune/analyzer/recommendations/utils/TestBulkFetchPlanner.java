@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.recommendations.utils;
+
+import com.autotune.analyzer.exceptions.InvalidValueException;
+import com.autotune.analyzer.kruizeObject.SloInfo;
+import com.autotune.analyzer.performanceProfiles.PerformanceProfile;
+import com.autotune.analyzer.utils.AnalyzerConstants;
+import com.autotune.common.auth.AuthenticationConfig;
+import com.autotune.common.data.metrics.AggregationFunctions;
+import com.autotune.common.data.metrics.Metric;
+import com.autotune.common.datasource.DataSourceInfo;
+import com.autotune.operator.KruizeDeploymentInfo;
+import com.autotune.utils.KruizeConstants;
+import com.google.gson.JsonArray;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the rewriting of metric profile queries into grouped queries, and the demultiplexing of their results into
+ * the metrics of each container, against a stub of the Prometheus query API
+ */
+public class TestBulkFetchPlanner {
+    private static final String DATASOURCE_NAME = "bulk-fetch-prometheus";
+    private static final String NAMESPACE = "default";
+    private static final String CPU_QUERY = "sum by(container, namespace) (rate(container_cpu_usage_seconds_total{"
+            + "namespace=\"$NAMESPACE$\", container=\"$CONTAINER_NAME$\"}[$MEASUREMENT_DURATION_IN_MIN$m]))";
+    private static final String MAX_DATE_QUERY = "max by(container, namespace) (last_over_time(timestamp("
+            + "container_cpu_usage_seconds_total{namespace=\"$NAMESPACE$\", container=\"$CONTAINER_NAME$\"})[15d:]))";
+    private static final long STEP_SECS = 15 * 60;
+    private static final long MAX_DATE_EPOCH = 1_700_000_100L;
+
+    private HttpServer server;
+    private DataSourceInfo dataSourceInfo;
+    private final List<String> rangeQueries = new CopyOnWriteArrayList<>();
+    private Boolean savedQueryCache;
+    private Integer savedChunkHours;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        savedQueryCache = KruizeDeploymentInfo.query_cache;
+        savedChunkHours = KruizeDeploymentInfo.range_query_chunk_hours;
+        KruizeDeploymentInfo.query_cache = false;
+        // each window is one request
+        KruizeDeploymentInfo.range_query_chunk_hours = 0;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v1/query_range", this::handleRangeQuery);
+        // the sidecar is seen but has no cpu series, a container outside of the shard is left out
+        server.createContext("/api/v1/query", exchange -> respond(exchange, "vector", "["
+                + "{\"metric\":{\"container\":\"app\",\"namespace\":\"default\"},\"value\":[" + MAX_DATE_EPOCH + ",\"1\"]},"
+                + "{\"metric\":{\"container\":\"sidecar\",\"namespace\":\"default\"},\"value\":[" + (MAX_DATE_EPOCH - STEP_SECS) + ",\"1\"]},"
+                + "{\"metric\":{\"container\":\"other\",\"namespace\":\"default\"},\"value\":[" + MAX_DATE_EPOCH + ",\"1\"]}]"));
+        server.start();
+        dataSourceInfo = new DataSourceInfo(DATASOURCE_NAME, KruizeConstants.SupportedDatasources.PROMETHEUS, null, null,
+                new URL("http://127.0.0.1:" + server.getAddress().getPort()), AuthenticationConfig.noAuth());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+        KruizeDeploymentInfo.query_cache = savedQueryCache;
+        KruizeDeploymentInfo.range_query_chunk_hours = savedChunkHours;
+    }
+
+    private void handleRangeQuery(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        for (String param : exchange.getRequestURI().getRawQuery().split("&")) {
+            String[] pair = param.split("=", 2);
+            params.put(pair[0], URLDecoder.decode(pair[1], StandardCharsets.UTF_8));
+        }
+        rangeQueries.add(params.get("query"));
+        long end = Long.parseLong(params.get("end"));
+        String values = "[" + (end - STEP_SECS) + ",\"0.5\"],[" + end + ",\"0.75\"]";
+        respond(exchange, "matrix", "["
+                + "{\"metric\":{\"container\":\"app\",\"namespace\":\"default\"},\"values\":[" + values + "]},"
+                + "{\"metric\":{\"container\":\"other\",\"namespace\":\"default\"},\"values\":[" + values + "]}]");
+    }
+
+    private static void respond(HttpExchange exchange, String resultType, String result) throws IOException {
+        byte[] response = ("{\"status\":\"success\",\"data\":{\"resultType\":\"" + resultType + "\",\"result\":" + result + "}}")
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    private static Metric metric(String name, String function, String query) {
+        Metric metric = new Metric(name, null, DATASOURCE_NAME, "double", KruizeConstants.JSONKeys.CONTAINER);
+        HashMap<String, AggregationFunctions> aggregationFunctions = new HashMap<>();
+        aggregationFunctions.put(function, new AggregationFunctions(function, query, null));
+        metric.setAggregationFunctionsMap(aggregationFunctions);
+        return metric;
+    }
+
+    private static PerformanceProfile profile(String cpuQuery) throws InvalidValueException {
+        ArrayList<Metric> metrics = new ArrayList<>();
+        metrics.add(metric(AnalyzerConstants.MetricName.maxDate.name(), "max", MAX_DATE_QUERY));
+        metrics.add(metric(AnalyzerConstants.MetricName.cpuUsage.name(), "avg", cpuQuery));
+        return new PerformanceProfile("bulk-fetch-test", 1.0, "openshift", new SloInfo("resource_usage", null, "minimize", metrics));
+    }
+
+    /**
+     * Returns the regex of the grouped query as the datasource sees it, once the PromQL string literal is unescaped
+     */
+    private static Pattern containerRegex(String groupedQuery) {
+        int start = groupedQuery.indexOf("=~\"") + 3;
+        return Pattern.compile(groupedQuery.substring(start, groupedQuery.indexOf('"', start)).replace("\\\\", "\\"));
+    }
+
+    @Test
+    public void groupsTheContainersOfAQuery() {
+        BulkFetchPlanner.GroupedQuery groupedQuery = BulkFetchPlanner.toGroupedQuery(CPU_QUERY, NAMESPACE,
+                List.of("app", "sidecar"), 15);
+        assertNotNull(groupedQuery);
+        assertEquals("container", groupedQuery.containerLabel);
+        assertEquals("sum by(container, namespace) (rate(container_cpu_usage_seconds_total{"
+                + "namespace=\"default\", container=~\"app|sidecar\"}[15m]))", groupedQuery.query);
+    }
+
+    @Test
+    public void escapesTheContainerNames() {
+        BulkFetchPlanner.GroupedQuery groupedQuery = BulkFetchPlanner.toGroupedQuery(CPU_QUERY, NAMESPACE,
+                List.of("web.v1", "a+b", "c|d", "my-app_2"), 15);
+        assertNotNull(groupedQuery);
+        assertTrue(groupedQuery.query.contains("container=~\"web\\\\.v1|a\\\\+b|c\\\\|d|my-app_2\""), groupedQuery.query);
+        Pattern regex = containerRegex(groupedQuery.query);
+        for (String containerName : List.of("web.v1", "a+b", "c|d", "my-app_2")) {
+            assertTrue(regex.matcher(containerName).matches(), containerName);
+        }
+        // the names are matched literally
+        for (String containerName : List.of("webxv1", "aab", "c", "d")) {
+            assertFalse(regex.matcher(containerName).matches(), containerName);
+        }
+    }
+
+    @Test
+    public void groupsOnTheLabelOfTheContainerMatcher() {
+        BulkFetchPlanner.GroupedQuery groupedQuery = BulkFetchPlanner.toGroupedQuery(
+                "max by(pod, name) (memory_usage{namespace=\"$NAMESPACE$\", name = \"$CONTAINER_NAME$\"})", NAMESPACE,
+                List.of("app"), 15);
+        assertNotNull(groupedQuery);
+        assertEquals("name", groupedQuery.containerLabel);
+        assertEquals("max by(pod, name) (memory_usage{namespace=\"default\", name=~\"app\"})", groupedQuery.query);
+    }
+
+    @Test
+    public void leavesUngroupableQueriesToTheEngine() {
+        List<String> containerNames = List.of("app");
+        // no container label
+        assertNull(BulkFetchPlanner.toGroupedQuery("sum by(namespace) (kube_resourcequota{namespace=\"$NAMESPACE$\"})",
+                NAMESPACE, containerNames, 15));
+        // the aggregation drops the container label
+        assertNull(BulkFetchPlanner.toGroupedQuery("sum by(namespace) (cpu_usage{container=\"$CONTAINER_NAME$\"})",
+                NAMESPACE, containerNames, 15));
+        // no aggregation to keep the series apart
+        assertNull(BulkFetchPlanner.toGroupedQuery("cpu_usage{container=\"$CONTAINER_NAME$\"}", NAMESPACE, containerNames, 15));
+        // specialized to a workload
+        assertNull(BulkFetchPlanner.toGroupedQuery("sum by(container) (cpu_usage{container=\"$CONTAINER_NAME$\", "
+                + "workload=\"$WORKLOAD$\"})", NAMESPACE, containerNames, 15));
+        assertNull(BulkFetchPlanner.toGroupedQuery(null, NAMESPACE, containerNames, 15));
+    }
+
+    @Test
+    public void splitsTheContainersIntoShardsPerNamespace() throws InvalidValueException {
+        BulkFetchPlanner<String> planner = new BulkFetchPlanner<>(dataSourceInfo, profile(CPU_QUERY), 15, 1);
+        int containers = KruizeConstants.KRUIZE_BULK_FETCH.MAX_CONTAINERS_PER_QUERY + 1;
+        for (int i = 0; i < containers; i++) {
+            planner.addTarget(NAMESPACE, "workload", "deployment", "container-" + i, "exp-" + i);
+        }
+        // two experiments of the same container share it
+        planner.addTarget(NAMESPACE, "workload", "deployment", "container-0", "exp-0-copy");
+        planner.addTarget("other", "workload", "deployment", "container-0", "exp-other");
+
+        List<BulkFetchPlanner.Shard<String>> shards = planner.getShards();
+        assertEquals(3, shards.size());
+        assertEquals(NAMESPACE, shards.get(0).getNamespace());
+        assertEquals(KruizeConstants.KRUIZE_BULK_FETCH.MAX_CONTAINERS_PER_QUERY + 1, shards.get(0).getItems().size());
+        assertEquals(List.of("exp-" + (containers - 1)), shards.get(1).getItems());
+        assertEquals("other", shards.get(2).getNamespace());
+        assertEquals(List.of("exp-other"), shards.get(2).getItems());
+    }
+
+    @Test
+    public void demultiplexesTheResultsOfEachContainer() throws InvalidValueException {
+        BulkFetchPlanner<String> planner = new BulkFetchPlanner<>(dataSourceInfo, profile(CPU_QUERY), 15, 1);
+        planner.addTarget(NAMESPACE, "app-deployment", "deployment", "app", "exp-app");
+        planner.addTarget(NAMESPACE, "app-deployment", "deployment", "sidecar", "exp-sidecar");
+        planner.addTarget(NAMESPACE, "app-deployment", "deployment", "missing", "exp-missing");
+        List<BulkFetchPlanner.Shard<String>> shards = planner.getShards();
+        assertEquals(1, shards.size());
+        assertTrue(planner.prefetch(shards.get(0)));
+
+        // one grouped query for all the containers seen
+        assertEquals(1, rangeQueries.size());
+        assertTrue(rangeQueries.get(0).contains("container=~\"app|sidecar\""), rangeQueries.get(0));
+
+        PrefetchedMetricsStore store = PrefetchedMetricsStore.getInstance();
+        String key = PrefetchedMetrics.key(AnalyzerConstants.MetricName.cpuUsage.name(), "avg");
+        long windowStart = MAX_DATE_EPOCH - KruizeConstants.TimeConv.NO_OF_SECONDS_PER_MINUTE * 24 * 60L;
+
+        PrefetchedMetrics app = store.take(DATASOURCE_NAME, NAMESPACE, "app-deployment", "deployment", "app");
+        assertNotNull(app);
+        assertEquals(Long.valueOf(MAX_DATE_EPOCH), app.getMaxDateEpoch());
+        JsonArray appResults = app.getResultArray(key, windowStart, MAX_DATE_EPOCH);
+        assertEquals(1, appResults.size());
+        assertEquals("app", appResults.get(0).getAsJsonObject().getAsJsonObject(KruizeConstants.JSONKeys.METRIC)
+                .get("container").getAsString());
+        assertEquals(2, appResults.get(0).getAsJsonObject()
+                .getAsJsonArray(KruizeConstants.DataSourceConstants.DataSourceQueryJSONKeys.VALUES).size());
+
+        // a container missing from the results of the query has the query fetched, with no series
+        PrefetchedMetrics sidecar = store.take(DATASOURCE_NAME, NAMESPACE, "app-deployment", "deployment", "sidecar");
+        assertNotNull(sidecar);
+        assertEquals(Long.valueOf(MAX_DATE_EPOCH - STEP_SECS), sidecar.getMaxDateEpoch());
+        assertTrue(sidecar.hasQuery(key));
+        assertEquals(0, sidecar.getResultArray(key, windowStart, MAX_DATE_EPOCH).size());
+        // a window starting before the prefetched one is left to the engine
+        assertNull(sidecar.getResultArray(key, windowStart - 3 * STEP_SECS, MAX_DATE_EPOCH));
+
+        // a container never seen is not prefetched, the engine fetches it on its own
+        assertNull(store.take(DATASOURCE_NAME, NAMESPACE, "app-deployment", "deployment", "missing"));
+        // the entries are removed once taken
+        assertNull(store.take(DATASOURCE_NAME, NAMESPACE, "app-deployment", "deployment", "app"));
+    }
+
+    @Test
+    public void leavesProfilesWithoutAContainerLabelToTheEngine() throws InvalidValueException {
+        BulkFetchPlanner<String> planner = new BulkFetchPlanner<>(dataSourceInfo,
+                profile("sum by(namespace) (container_cpu_usage_seconds_total{namespace=\"$NAMESPACE$\"})"), 15, 1);
+        planner.addTarget(NAMESPACE, "app-deployment", "deployment", "app", "exp-app");
+        assertTrue(planner.prefetch(planner.getShards().get(0)));
+        assertTrue(rangeQueries.isEmpty());
+
+        PrefetchedMetrics app = PrefetchedMetricsStore.getInstance().take(DATASOURCE_NAME, NAMESPACE, "app-deployment",
+                "deployment", "app");
+        assertNotNull(app);
+        // the query was not prefetched, the engine runs it
+        String key = PrefetchedMetrics.key(AnalyzerConstants.MetricName.cpuUsage.name(), "avg");
+        assertFalse(app.hasQuery(key));
+        assertNull(app.getResultArray(key, MAX_DATE_EPOCH - STEP_SECS, MAX_DATE_EPOCH));
+    }
+}
@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.services;
+
+import com.autotune.analyzer.serviceObjects.BulkJobStatus;
+import com.autotune.analyzer.workerimpl.BulkJobStatusStore;
+import com.autotune.utils.KruizeConstants.KRUIZE_BULK_API.NotificationConstants.Status;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.autotune.utils.KruizeConstants.KRUIZE_BULK_API.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestBulkJobStatusPolling {
+    private static final int EXPERIMENT_COUNT = 50000;
+    private static final int POLLS = 10000;
+    private static final int PAGE_SIZE = 100;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void testConcurrentPollsOfLargeJob() throws Exception {
+        BulkJobStatus job = new BulkJobStatus("large-job", IN_PROGRESS, Instant.now());
+        job.setTotal_experiments(EXPERIMENT_COUNT);
+        for (int i = 0; i < EXPERIMENT_COUNT; i++) {
+            job.addExperiment(String.format("prometheus-1|default|cluster-one|namespace-%d|deployment-%05d(deployment)|container", i % 50, i));
+        }
+        List<BulkJobStatus.Experiment> experiments = new ArrayList<>(job.getExperiments().values());
+
+        // size of the whole job, streamed without keeping it
+        CountingWriter fullJob = new CountingWriter();
+        BulkService.writeJobStatus(job, true, null, 0, Integer.MAX_VALUE, fullJob);
+        assertTrue(fullJob.count > 4_000_000, "full job is only " + fullJob.count + " chars");
+
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        // the job keeps processing experiments while it is polled
+        AtomicBoolean polling = new AtomicBoolean(true);
+        Thread processor = new Thread(() -> {
+            Random random = new Random(1);
+            int processed = 0;
+            while (polling.get() && processed < EXPERIMENT_COUNT) {
+                experiments.get(processed).getRecommendations().setStatus(random.nextInt(10) == 0 ? Status.FAILED : Status.PROCESSED);
+                job.incrementProcessed_experiments();
+                processed++;
+            }
+        });
+        processor.start();
+
+        AtomicLong maxAllocatedPerPoll = new AtomicLong();
+        ExecutorService pollers = Executors.newFixedThreadPool(16);
+        List<Future<?>> polls = new ArrayList<>();
+        for (int i = 0; i < POLLS; i++) {
+            int poll = i;
+            polls.add(pollers.submit(() -> {
+                long before = threadMXBean.getCurrentThreadAllocatedBytes();
+                Status status = poll % 3 == 0 ? null : (poll % 3 == 1 ? Status.PROCESSED : Status.UNPROCESSED);
+                int offset = (poll * 7919) % EXPERIMENT_COUNT / 10;
+                StringWriter writer = new StringWriter();
+                BulkService.writeJobStatus(job, poll % 5 != 0, status, offset, PAGE_SIZE, writer);
+                long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+                maxAllocatedPerPoll.accumulateAndGet(allocated, Math::max);
+
+                JsonNode json = MAPPER.readTree(writer.toString());
+                assertEquals("large-job", json.get(JOB_ID).asText());
+                assertEquals(EXPERIMENT_COUNT, json.get("total_experiments").asInt());
+                if (poll % 5 == 0) {
+                    assertFalse(json.has(EXPERIMENTS));
+                } else {
+                    JsonNode page = json.get(EXPERIMENTS);
+                    assertTrue(page.size() <= PAGE_SIZE);
+                    if (null != status) {
+                        for (JsonNode experiment : page) {
+                            // a status only moves forward, from UNPROCESSED to PROCESSED or FAILED
+                            String seen = experiment.get("recommendations").get("status").asText();
+                            assertTrue(status == Status.UNPROCESSED || seen.equals(status.name()), seen);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> poll : polls) {
+            poll.get(2, TimeUnit.MINUTES);
+        }
+        pollers.shutdown();
+        polling.set(false);
+        processor.join();
+
+        // a poll allocates about a page of experiments, far less than the whole job would take
+        assertTrue(maxAllocatedPerPoll.get() < fullJob.count / 4,
+                "a poll allocated " + maxAllocatedPerPoll.get() + " bytes, the whole job is " + fullJob.count + " chars");
+    }
+
+    @Test
+    public void testPagesAreStableAndFiltered() throws Exception {
+        BulkJobStatus job = new BulkJobStatus("paged-job", IN_PROGRESS, Instant.now());
+        job.setTotal_experiments(10);
+        for (int i = 9; i >= 0; i--) {
+            BulkJobStatus.Experiment experiment = job.addExperiment("experiment-" + i);
+            if (i % 2 == 0) {
+                experiment.getRecommendations().setStatus(Status.PROCESSED);
+            }
+        }
+        assertEquals(List.of("experiment-3", "experiment-4", "experiment-5"), names(job, null, 3, 3));
+        assertEquals(List.of("experiment-4", "experiment-6"), names(job, Status.PROCESSED, 2, 2));
+        assertEquals(List.of("experiment-9"), names(job, Status.UNPROCESSED, 4, 10));
+        assertEquals(List.of(), names(job, null, 20, 10));
+
+        for (int i = 0; i < 9; i++) {
+            assertFalse(job.incrementProcessed_experiments());
+        }
+        assertTrue(job.incrementProcessed_experiments());
+        assertFalse(job.incrementProcessed_experiments());
+    }
+
+    @Test
+    public void testStoreEviction() {
+        Instant now = Instant.parse("2024-10-01T12:00:00Z");
+        BulkJobStatusStore store = new BulkJobStatusStore(Clock.fixed(now, ZoneOffset.UTC), Duration.ofHours(1), Duration.ofDays(1), 3);
+        BulkJobStatus expired = finishedJob("expired", now.minus(Duration.ofHours(2)));
+        store.put(expired);
+        assertNull(store.get("expired"));
+        assertEquals(0, store.size());
+
+        store.put(finishedJob("old", now.minus(Duration.ofMinutes(30))));
+        store.put(finishedJob("recent", now.minus(Duration.ofMinutes(10))));
+        store.put(new BulkJobStatus("running-1", IN_PROGRESS, now));
+        store.put(new BulkJobStatus("running-2", IN_PROGRESS, now));
+        // over the limit the oldest finished job goes first
+        assertNull(store.get("old"));
+        assertNotNull(store.get("recent"));
+        store.put(new BulkJobStatus("running-3", IN_PROGRESS, now));
+        assertNull(store.get("recent"));
+        // running jobs are kept even over the limit
+        store.put(new BulkJobStatus("running-4", IN_PROGRESS, now));
+        assertEquals(4, store.size());
+        assertNotNull(store.get("running-1"));
+        assertNull(store.get("unknown"));
+        assertNull(store.get(null));
+
+        // a job running for longer than the max age is stuck
+        store.put(new BulkJobStatus("stuck", IN_PROGRESS, now.minus(Duration.ofDays(2))));
+        assertNull(store.get("stuck"));
+        assertEquals(4, store.size());
+    }
+
+    @Test
+    public void testJobFinishesOnce() {
+        BulkJobStatus job = new BulkJobStatus("empty-job", IN_PROGRESS, Instant.now());
+        job.setTotal_experiments(0);
+        assertTrue(job.markFinished());
+        assertFalse(job.markFinished());
+        job.setTotal_experiments(1);
+        assertFalse(job.incrementProcessed_experiments());
+    }
+
+    private static BulkJobStatus finishedJob(String jobID, Instant endTime) {
+        BulkJobStatus job = new BulkJobStatus(jobID, IN_PROGRESS, endTime.minus(Duration.ofMinutes(1)));
+        job.setStatus(COMPLETED);
+        job.setEndTime(endTime);
+        return job;
+    }
+
+    private static List<String> names(BulkJobStatus job, Status status, int offset, int limit) throws Exception {
+        StringWriter writer = new StringWriter();
+        BulkService.writeJobStatus(job, true, status, offset, limit, writer);
+        List<String> names = new ArrayList<>();
+        Iterator<String> fieldNames = MAPPER.readTree(writer.toString()).get(EXPERIMENTS).fieldNames();
+        fieldNames.forEachRemaining(names::add);
+        return names;
+    }
+
+    private static final class CountingWriter extends Writer {
+        private long count;
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
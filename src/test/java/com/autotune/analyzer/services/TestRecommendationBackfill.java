@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.services;
+
+import com.autotune.analyzer.serviceObjects.RecommendationBackfillStatus;
+import com.autotune.analyzer.workerimpl.RecommendationBackfillJob;
+import com.autotune.analyzer.workerimpl.RecommendationBackfillStatusStore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.jetty.ee8.servlet.ServletContextHandler;
+import org.eclipse.jetty.ee8.servlet.ServletHolder;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.autotune.utils.KruizeConstants.KRUIZE_RECOMMENDATION_BACKFILL.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestRecommendationBackfill {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+    @Test
+    public void testEndpoint() throws Exception {
+        RecommendationBackfillStatusStore store = new RecommendationBackfillStatusStore(Clock.systemUTC(), Duration.ofHours(1), 10);
+        CountDownLatch release = new CountDownLatch(1);
+        RecommendationBackfillJob.Backfiller backfiller = (jobData, startTime, endTime, stepMinutes) -> {
+            jobData.setTotal_steps((int) ((endTime.getTime() - startTime.getTime()) / TimeUnit.MINUTES.toMillis(stepMinutes)) + 1);
+            assertTrue(release.await(1, TimeUnit.MINUTES));
+            for (int i = 0; i < jobData.getTotal_steps(); i++) {
+                jobData.incrementProcessed_steps();
+            }
+            jobData.addSaved_recommendations(jobData.getTotal_steps());
+        };
+        RecommendationBackfill servlet = new RecommendationBackfill(store, backfiller);
+        Server server = new Server();
+        ServerConnector connector = new ServerConnector(server);
+        connector.setPort(0);
+        server.addConnector(connector);
+        ServletContextHandler context = new ServletContextHandler();
+        context.addServlet(new ServletHolder(servlet), "/backfill");
+        server.setHandler(context);
+        server.start();
+        try {
+            String url = "http://localhost:" + connector.getLocalPort() + "/backfill";
+            String range = "&interval_start_time=2024-01-01T00:00:00.000Z&interval_end_time=2024-01-01T01:00:00.000Z";
+
+            assertEquals(400, post(url + "?step_minutes=15" + range).statusCode());
+            assertEquals(400, post(url + "?experiment_name=exp&step_minutes=0" + range).statusCode());
+            assertEquals(400, post(url + "?experiment_name=exp&step_minutes=15&interval_start_time=2024-01-01"
+                    + "&interval_end_time=2024-01-01T01:00:00.000Z").statusCode());
+            assertEquals(400, post(url + "?experiment_name=exp&step_minutes=15"
+                    + "&interval_start_time=2024-01-02T00:00:00.000Z&interval_end_time=2024-01-01T00:00:00.000Z").statusCode());
+            assertEquals(400, post(url + "?experiment_name=exp&step_minutes=1"
+                    + "&interval_start_time=2024-01-01T00:00:00.000Z&interval_end_time=2024-03-01T00:00:00.000Z").statusCode());
+            assertEquals(0, store.size());
+
+            HttpResponse<String> created = post(url + "?experiment_name=exp&step_minutes=15" + range);
+            assertEquals(202, created.statusCode());
+            String jobID = MAPPER.readTree(created.body()).get(JOB_ID).asText();
+            assertEquals(IN_PROGRESS, MAPPER.readTree(get(url + "?job_id=" + jobID).body()).get("status").asText());
+
+            release.countDown();
+            JsonNode status = null;
+            for (int i = 0; i < 100; i++) {
+                status = MAPPER.readTree(get(url + "?job_id=" + jobID).body());
+                if (!IN_PROGRESS.equals(status.get("status").asText())) {
+                    break;
+                }
+                Thread.sleep(50);
+            }
+            assertEquals(COMPLETED, status.get("status").asText());
+            assertEquals("exp", status.get("experiment_name").asText());
+            assertEquals(5, status.get("total_steps").asInt());
+            assertEquals(5, status.get("processed_steps").asInt());
+            assertEquals(5, status.get("saved_recommendations").asInt());
+            assertTrue(status.hasNonNull("job_end_time"));
+
+            assertEquals(404, get(url + "?job_id=unknown").statusCode());
+            assertEquals(404, get(url).statusCode());
+        } finally {
+            servlet.destroy();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testJobFailure() {
+        RecommendationBackfillStatus jobData = new RecommendationBackfillStatus("job", "exp", IN_PROGRESS, Instant.now());
+        new RecommendationBackfillJob(jobData, Timestamp.from(Instant.now()), Timestamp.from(Instant.now()), 15,
+                (job, startTime, endTime, stepMinutes) -> {
+                    throw new Exception("no results");
+                }).run();
+        assertEquals(FAILED, jobData.getStatus());
+        assertEquals("no results", jobData.getMessage());
+        assertNotNull(jobData.getFinishedAt());
+        assertNotNull(jobData.getEndTime());
+    }
+
+    @Test
+    public void testStoreEviction() {
+        Instant now = Instant.parse("2024-10-01T12:00:00Z");
+        RecommendationBackfillStatusStore store = new RecommendationBackfillStatusStore(Clock.fixed(now, ZoneOffset.UTC), Duration.ofHours(1), 2);
+        store.put(finishedJob("expired", now.minus(Duration.ofHours(2))));
+        assertNull(store.get("expired"));
+        assertEquals(0, store.size());
+
+        store.put(finishedJob("old", now.minus(Duration.ofMinutes(30))));
+        store.put(finishedJob("recent", now.minus(Duration.ofMinutes(10))));
+        store.put(new RecommendationBackfillStatus("running-1", "exp", IN_PROGRESS, now));
+        // over the limit the oldest finished job goes first
+        assertNull(store.get("old"));
+        assertNotNull(store.get("recent"));
+        // running jobs are kept even over the limit
+        store.put(new RecommendationBackfillStatus("running-2", "exp", IN_PROGRESS, now));
+        assertNull(store.get("recent"));
+        store.put(new RecommendationBackfillStatus("running-3", "exp", IN_PROGRESS, now));
+        assertEquals(3, store.size());
+        assertNull(store.get(null));
+    }
+
+    private static RecommendationBackfillStatus finishedJob(String jobID, Instant endTime) {
+        RecommendationBackfillStatus job = new RecommendationBackfillStatus(jobID, "exp", IN_PROGRESS, endTime.minus(Duration.ofMinutes(1)));
+        job.setStatus(COMPLETED);
+        job.setEndTime(endTime);
+        return job;
+    }
+
+    private static HttpResponse<String> post(String url) throws Exception {
+        return CLIENT.send(HttpRequest.newBuilder(URI.create(url)).POST(HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpResponse<String> get(String url) throws Exception {
+        return CLIENT.send(HttpRequest.newBuilder(URI.create(url)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
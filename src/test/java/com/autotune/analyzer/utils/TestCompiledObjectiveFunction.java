@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+
+package com.autotune.analyzer.utils;
+
+import com.autotune.utils.KruizeSupportedTypes;
+import com.udojava.evalex.Expression;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCompiledObjectiveFunction {
+
+    private static final List<String> VARIABLES = List.of("throughput", "transaction_response_time", "max_response_time",
+            "request_sum", "request_count", "request_max");
+    private static final String[] BINARY_OPERATORS = {"+", "-", "*", "/", "%", "^"};
+    private static final String[] FUNCTIONS = {"sin", "cos", "tan", "log"};
+
+    @Test
+    public void testSameAsEvalExOnRandomExpressions() {
+        Random random = new Random(2024);
+        int compared = 0;
+        for (int i = 0; i < 2000; i++) {
+            String expression = randomExpression(random, 4);
+            CompiledObjectiveFunction compiled = new EvalExParser().compile(expression, VARIABLES);
+            double[][] columns = new double[VARIABLES.size()][8];
+            for (double[] column : columns) {
+                for (int row = 0; row < column.length; row++) {
+                    column[row] = 0.5 + random.nextInt(2000) / 20.0;
+                }
+            }
+            double[] results = compiled.evaluate(columns);
+            for (int row = 0; row < results.length; row++) {
+                double[] values = new double[VARIABLES.size()];
+                for (int slot = 0; slot < values.length; slot++) {
+                    values[slot] = columns[slot][row];
+                }
+                BigDecimal expected = evalEx(expression, values);
+                if (null == expected || !Double.isFinite(results[row])) {
+                    continue;
+                }
+                assertEquals(results[row], compiled.evaluate(values));
+                assertClose(expected.doubleValue(), results[row], expression + " with " + Arrays.toString(values));
+                compared++;
+            }
+        }
+        // most of the random cases must be comparable for the test to mean anything
+        assertTrue(compared > 10000, "only " + compared + " comparisons");
+    }
+
+    @Test
+    public void testSupportedObjectiveFunctions() {
+        Random random = new Random(7);
+        for (String objFunction : KruizeSupportedTypes.OBJECTIVE_FUNCTION_LIST) {
+            CompiledObjectiveFunction compiled = new EvalExParser().compile(objFunction, VARIABLES);
+            for (int i = 0; i < 100; i++) {
+                double[] values = new double[VARIABLES.size()];
+                Map<String, Double> valueMap = new HashMap<>();
+                for (int slot = 0; slot < values.length; slot++) {
+                    values[slot] = 1 + random.nextInt(100000) / 100.0;
+                    valueMap.put(VARIABLES.get(slot), values[slot]);
+                }
+                assertClose(evalEx(objFunction, values).doubleValue(), compiled.evaluate(values), objFunction);
+                assertEquals(compiled.evaluate(values), compiled.evaluate(valueMap));
+            }
+        }
+    }
+
+    @Test
+    public void testEvalExSemantics() {
+        List<String> names = List.of("Abc");
+        String[] expressions = {"-2^2", "2^3^2", "-7%3", "7%-3", "sin(90)", "log(e)", "PI", "abc*3", "1.5e3", "2*-3",
+                "--2", "+3", "2^-1", "4^0.5", "10-2-3", "2^2*3", "-2*2^2", ".5+1", "COS(60) + Tan(45)"};
+        for (String expression : expressions) {
+            double expected = evalEx(expression, new double[]{2}).doubleValue();
+            assertClose(expected, CompiledObjectiveFunction.compile(expression, names).evaluate(new double[]{2}), expression);
+        }
+    }
+
+    @Test
+    public void testInvalidExpressions() {
+        String[] expressions = {"", "2 3", "2e", "(1 + 2", "1 + 2)", "unknown * 2", "max(1, 2)", "1 +", "2 $ 3"};
+        for (String expression : expressions) {
+            assertThrows(IllegalArgumentException.class, () -> CompiledObjectiveFunction.compile(expression, VARIABLES), expression);
+        }
+    }
+
+    @Test
+    public void testCompiledOnce() {
+        EvalExParser parser = new EvalExParser();
+        String objFunction = "request_sum/request_count";
+        assertSame(parser.compile(objFunction, VARIABLES), new EvalExParser().compile(objFunction, VARIABLES));
+        assertNotSame(parser.compile(objFunction, VARIABLES), parser.compile(objFunction, List.of("request_sum", "request_count")));
+    }
+
+    private static String randomExpression(Random random, int depth) {
+        int choice = depth == 0 ? random.nextInt(2) : random.nextInt(8);
+        switch (choice) {
+            case 0:
+                return VARIABLES.get(random.nextInt(VARIABLES.size()));
+            case 1:
+                return String.valueOf(random.nextInt(1000) / 10.0);
+            case 2:
+                return "(" + randomExpression(random, depth - 1) + ")";
+            case 3:
+                return "-" + randomExpression(random, depth - 1);
+            case 4:
+                // leaf arguments, the functions of large computed values are too ill conditioned to compare
+                return FUNCTIONS[random.nextInt(FUNCTIONS.length)] + "(" + randomExpression(random, 0) + ")";
+            default:
+                String operator = BINARY_OPERATORS[random.nextInt(BINARY_OPERATORS.length)];
+                if (operator.equals("^")) {
+                    // small integer powers of leaves keep the values in range
+                    return randomExpression(random, 0) + " ^ " + random.nextInt(4);
+                }
+                return randomExpression(random, depth - 1) + " " + operator + " " + randomExpression(random, depth - 1);
+        }
+    }
+
+    /**
+     * Evaluates the expression with EvalEx at decimal128 precision, null if EvalEx rejects it
+     */
+    private static BigDecimal evalEx(String expression, double[] values) {
+        Expression evaluator = new Expression(expression, MathContext.DECIMAL128);
+        List<String> names = values.length == 1 ? List.of("Abc") : VARIABLES;
+        for (int i = 0; i < values.length; i++) {
+            evaluator = evaluator.and(names.get(i), String.valueOf(values[i]));
+        }
+        try {
+            return evaluator.eval();
+        } catch (ArithmeticException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void assertClose(double expected, double actual, String message) {
+        assertEquals(expected, actual, 1e-9 * Math.max(1, Math.abs(expected)), message);
+    }
+}
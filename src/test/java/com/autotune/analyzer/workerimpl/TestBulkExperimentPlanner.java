@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.analyzer.workerimpl;
+
+import com.autotune.analyzer.serviceObjects.BulkInput;
+import com.autotune.analyzer.serviceObjects.BulkJobStatus;
+import com.autotune.analyzer.serviceObjects.CreateExperimentAPIObject;
+import com.autotune.common.data.dataSourceMetadata.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.autotune.utils.KruizeConstants.KRUIZE_BULK_API.IN_PROGRESS;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestBulkExperimentPlanner {
+    private static final String DEFAULT_FORMAT = "%datasource%|%clustername%|%namespace%|%workloadname%(%workloadtype%)|%containername%";
+    private static final int NAMESPACES = 100;
+    private static final int WORKLOADS_PER_NAMESPACE = 200;
+
+    @Test
+    public void testRerunOverExistingWorkloadsIsOneQuery() throws Exception {
+        Map<String, CreateExperimentAPIObject> experiments = experimentMap();
+        assertEquals(NAMESPACES * WORKLOADS_PER_NAMESPACE, experiments.size());
+        assertTrue(experiments.containsKey("prometheus-1|cluster-one|namespace-7|workload-7-42(deployment)|app"));
+
+        // the first run created all of them
+        Set<String> database = new HashSet<>(experiments.keySet());
+        AtomicInteger queries = new AtomicInteger();
+        BulkExperimentPlanner planner = new BulkExperimentPlanner(names -> {
+            queries.incrementAndGet();
+            Set<String> found = new HashSet<>(names);
+            found.retainAll(database);
+            return found;
+        }, 50);
+
+        BulkExperimentPlanner.Plan plan = planner.plan(experiments.keySet());
+        List<CreateExperimentAPIObject> toCreate = missing(plan, experiments);
+        assertEquals(1, queries.get());
+        assertEquals(experiments.size(), plan.getExistingCount());
+        assertTrue(toCreate.isEmpty());
+        assertTrue(planner.batches(toCreate).isEmpty());
+
+        // a rerun after 1000 new workloads showed up still takes one query, and creates them in batches
+        database.removeIf(name -> name.contains("|namespace-3|") || name.contains("|namespace-4|") ||
+                name.contains("|namespace-5|") || name.contains("|namespace-6|") || name.contains("|namespace-8|"));
+        plan = planner.plan(experiments.keySet());
+        toCreate = missing(plan, experiments);
+        assertEquals(2, queries.get());
+        assertEquals(1000, toCreate.size());
+        List<List<CreateExperimentAPIObject>> batches = planner.batches(toCreate);
+        assertEquals(20, batches.size());
+        batches.forEach(batch -> assertEquals(50, batch.size()));
+    }
+
+    @Test
+    public void testFailedLookupCreatesEverything() {
+        BulkExperimentPlanner planner = new BulkExperimentPlanner(names -> {
+            throw new Exception("database is down");
+        }, 3);
+        BulkExperimentPlanner.Plan plan = planner.plan(List.of("a", "b"));
+        assertFalse(plan.exists("a"));
+        assertEquals(0, plan.getExistingCount());
+        assertEquals(List.of(List.of(1, 2, 3), List.of(4)), planner.batches(List.of(1, 2, 3, 4)));
+    }
+
+    @Test
+    public void testNameTemplate() {
+        ExperimentNameTemplate template = ExperimentNameTemplate.compile(DEFAULT_FORMAT);
+        assertSame(template, ExperimentNameTemplate.compile(DEFAULT_FORMAT));
+        assertEquals("prometheus-1|cluster-one|default|tfb(deployment)|server",
+                template.format("prometheus-1", "cluster-one", "default", "tfb", "deployment", "server", null));
+
+        ExperimentNameTemplate labelled = ExperimentNameTemplate.compile("%label:org_id%-%label:app%:%namespace%-%unknown%");
+        assertEquals("acme-unknownapp:default-%unknown%",
+                labelled.format("prometheus-1", "cluster-one", "default", "tfb", "deployment", "server", Map.of("org_id", "acme")));
+        assertEquals("%label:org_id%-%label:app%:default-%unknown%",
+                labelled.format("prometheus-1", "cluster-one", "default", "tfb", "deployment", "server", null));
+    }
+
+    private static List<CreateExperimentAPIObject> missing(BulkExperimentPlanner.Plan plan, Map<String, CreateExperimentAPIObject> experiments) {
+        List<CreateExperimentAPIObject> toCreate = new ArrayList<>();
+        for (CreateExperimentAPIObject apiObject : experiments.values()) {
+            if (!plan.exists(apiObject.getExperimentName())) {
+                toCreate.add(apiObject);
+            }
+        }
+        return toCreate;
+    }
+
+    private static Map<String, CreateExperimentAPIObject> experimentMap() throws Exception {
+        HashMap<String, DataSourceNamespace> namespaces = new HashMap<>();
+        for (int n = 0; n < NAMESPACES; n++) {
+            HashMap<String, DataSourceWorkload> workloads = new HashMap<>();
+            for (int w = 0; w < WORKLOADS_PER_NAMESPACE; w++) {
+                String workloadName = "workload-" + n + "-" + w;
+                HashMap<String, DataSourceContainer> containers = new HashMap<>();
+                containers.put("app", new DataSourceContainer("app", "quay.io/app:latest"));
+                workloads.put(workloadName, new DataSourceWorkload(workloadName, "deployment", containers));
+            }
+            namespaces.put("namespace-" + n, new DataSourceNamespace("namespace-" + n, workloads));
+        }
+        HashMap<String, DataSourceCluster> clusters = new HashMap<>();
+        clusters.put("cluster-one", new DataSourceCluster("cluster-one", namespaces));
+        HashMap<String, DataSource> dataSources = new HashMap<>();
+        dataSources.put("prometheus-1", new DataSource("prometheus-1", clusters));
+
+        BulkInput bulkInput = new BulkInput();
+        bulkInput.setDatasource("prometheus-1");
+        BulkJobStatus jobStatus = new BulkJobStatus("rerun", IN_PROGRESS, Instant.now());
+        BulkJobManager jobManager = new BulkJobManager("rerun", jobStatus, bulkInput);
+        return jobManager.getExperimentMap(null, jobStatus, new DataSourceMetadataInfo(dataSources), null);
+    }
+}
@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.common.datasource;
+
+import com.autotune.analyzer.exceptions.DataSourceOverloadedException;
+import com.autotune.analyzer.exceptions.DataSourceRateLimitedException;
+import com.autotune.common.auth.AuthenticationConfig;
+import com.autotune.operator.KruizeDeploymentInfo;
+import com.autotune.utils.GenericRestApiClient;
+import com.autotune.utils.KruizeConstants;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.HttpHostConnectException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.*;
+import java.util.concurrent.*;
+
+import static com.autotune.utils.KruizeConstants.KRUIZE_DATASOURCE_LIMITER.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the AIMD limit and the circuit breaker of the datasource limiter, on a clock moved by the tests
+ */
+public class TestDataSourceLimiter {
+    private final MutableClock clock = new MutableClock();
+
+    private DataSourceLimiter limiter(String name, int initialLimit, int maxLimit) {
+        return new DataSourceLimiter(name, initialLimit, maxLimit, clock);
+    }
+
+    private static void request(DataSourceLimiter limiter, DataSourceLimiter.Outcome outcome) throws Exception {
+        limiter.acquire();
+        limiter.release(outcome);
+    }
+
+    @Test
+    public void countsOnlyTimeoutsAndOverloadResponsesAsOverload() {
+        assertEquals(DataSourceLimiter.Outcome.OVERLOAD, DataSourceLimiter.outcomeOf(new SocketTimeoutException()));
+        assertEquals(DataSourceLimiter.Outcome.OVERLOAD, DataSourceLimiter.outcomeOf(new ConnectTimeoutException()));
+        assertEquals(DataSourceLimiter.Outcome.OVERLOAD, DataSourceLimiter.outcomeOf(new HttpResponseException(429, "")));
+        assertEquals(DataSourceLimiter.Outcome.OVERLOAD, DataSourceLimiter.outcomeOf(new HttpResponseException(503, "")));
+        assertEquals(DataSourceLimiter.Outcome.OVERLOAD, DataSourceLimiter.outcomeOf(
+                new DataSourceRateLimitedException("Please reduce your request rate")));
+
+        assertEquals(DataSourceLimiter.Outcome.FAILURE, DataSourceLimiter.outcomeOf(new UnknownHostException("prometheus")));
+        assertEquals(DataSourceLimiter.Outcome.FAILURE, DataSourceLimiter.outcomeOf(new ConnectException("Connection refused")));
+        assertEquals(DataSourceLimiter.Outcome.FAILURE, DataSourceLimiter.outcomeOf(new MalformedURLException()));
+        assertEquals(DataSourceLimiter.Outcome.FAILURE, DataSourceLimiter.outcomeOf(new HttpResponseException(500, "")));
+        assertEquals(DataSourceLimiter.Outcome.FAILURE, DataSourceLimiter.outcomeOf(new HttpResponseException(400, "")));
+        assertEquals(DataSourceLimiter.Outcome.FAILURE, DataSourceLimiter.outcomeOf(new IOException()));
+    }
+
+    @Test
+    public void growsTheLimitAdditivelyUpToTheMaximum() throws Exception {
+        DataSourceLimiter limiter = limiter("limiter-grow", 10, 12);
+        // one limit's worth of successes grows the limit by about one
+        for (int i = 0; i < 10; i++) {
+            request(limiter, DataSourceLimiter.Outcome.SUCCESS);
+        }
+        assertEquals(11, limiter.getLimit(), 0.05);
+        for (int i = 0; i < 100; i++) {
+            request(limiter, DataSourceLimiter.Outcome.SUCCESS);
+        }
+        assertEquals(12, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void halvesTheLimitOnOverloadDownToTheMinimum() throws Exception {
+        DataSourceLimiter limiter = limiter("limiter-shrink", 10, 50);
+        request(limiter, DataSourceLimiter.Outcome.OVERLOAD);
+        assertEquals(5, limiter.getLimit());
+        request(limiter, DataSourceLimiter.Outcome.OVERLOAD);
+        request(limiter, DataSourceLimiter.Outcome.OVERLOAD);
+        request(limiter, DataSourceLimiter.Outcome.OVERLOAD);
+        assertEquals(MIN_CONCURRENCY, limiter.getLimit());
+        assertFalse(limiter.isCircuitOpen());
+    }
+
+    @Test
+    public void keepsTheLimitOnOtherFailures() throws Exception {
+        DataSourceLimiter limiter = limiter("limiter-failure", 10, 50);
+        request(limiter, DataSourceLimiter.Outcome.FAILURE);
+        request(limiter, DataSourceLimiter.Outcome.IGNORE);
+        assertEquals(10, limiter.getLimit());
+        assertFalse(limiter.isCircuitOpen());
+    }
+
+    @Test
+    public void clampsTheInitialLimit() {
+        assertEquals(MIN_CONCURRENCY, limiter("limiter-clamp-min", 0, 50).getLimit());
+        assertEquals(5, limiter("limiter-clamp-max", 10, 5).getLimit());
+    }
+
+    @Test
+    public void waitsForASlotUnderTheLimit() throws Exception {
+        DataSourceLimiter limiter = limiter("limiter-slots", 2, 2);
+        limiter.acquire();
+        limiter.acquire();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> third = executor.submit(() -> {
+                limiter.acquire();
+                return null;
+            });
+            assertThrows(TimeoutException.class, () -> third.get(200, TimeUnit.MILLISECONDS));
+            limiter.release(DataSourceLimiter.Outcome.IGNORE);
+            third.get(10, TimeUnit.SECONDS);
+            assertEquals(2, limiter.getInFlight());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void opensTheCircuitAfterConsecutiveFailures() throws Exception {
+        DataSourceLimiter limiter = limiter("limiter-open", 10, 50);
+        for (int i = 0; i < FAILURE_THRESHOLD - 1; i++) {
+            request(limiter, DataSourceLimiter.Outcome.FAILURE);
+        }
+        // a success resets the count
+        request(limiter, DataSourceLimiter.Outcome.SUCCESS);
+        for (int i = 0; i < FAILURE_THRESHOLD - 1; i++) {
+            request(limiter, i % 2 == 0 ? DataSourceLimiter.Outcome.FAILURE : DataSourceLimiter.Outcome.OVERLOAD);
+        }
+        assertFalse(limiter.isCircuitOpen());
+        request(limiter, DataSourceLimiter.Outcome.FAILURE);
+        assertTrue(limiter.isCircuitOpen());
+        assertThrows(DataSourceOverloadedException.class, limiter::acquire);
+
+        clock.advanceMillis(OPEN_MILLIS - 1);
+        assertThrows(DataSourceOverloadedException.class, limiter::acquire);
+        clock.advanceMillis(1);
+        assertFalse(limiter.isCircuitOpen());
+    }
+
+    @Test
+    public void letsASingleProbeThroughOnceHalfOpen() throws Exception {
+        DataSourceLimiter limiter = limiter("limiter-probe", 10, 50);
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            request(limiter, DataSourceLimiter.Outcome.FAILURE);
+        }
+        clock.advanceMillis(OPEN_MILLIS);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // the probe goes through, other requests wait for its outcome
+            limiter.acquire();
+            Future<?> next = executor.submit(() -> {
+                limiter.acquire();
+                return null;
+            });
+            assertThrows(TimeoutException.class, () -> next.get(200, TimeUnit.MILLISECONDS));
+            // a failed probe opens the circuit again at once
+            limiter.release(DataSourceLimiter.Outcome.FAILURE);
+            ExecutionException e = assertThrows(ExecutionException.class, () -> next.get(10, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof DataSourceOverloadedException);
+            assertTrue(limiter.isCircuitOpen());
+
+            // a successful probe closes it
+            clock.advanceMillis(OPEN_MILLIS);
+            limiter.acquire();
+            Future<?> afterSuccess = executor.submit(() -> {
+                limiter.acquire();
+                return null;
+            });
+            assertThrows(TimeoutException.class, () -> afterSuccess.get(200, TimeUnit.MILLISECONDS));
+            limiter.release(DataSourceLimiter.Outcome.SUCCESS);
+            afterSuccess.get(10, TimeUnit.SECONDS);
+            assertFalse(limiter.isCircuitOpen());
+            limiter.acquire();
+            assertEquals(2, limiter.getInFlight());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shrinksTheLimitOfADatasourceOnlyWhenItIsOverloaded() throws Exception {
+        Boolean savedLimiter = KruizeDeploymentInfo.datasource_limiter;
+        KruizeDeploymentInfo.datasource_limiter = true;
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v1/query", exchange -> {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.start();
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        try {
+            DataSourceInfo refused = new DataSourceInfo("limiter-refused-" + closedPort, KruizeConstants.SupportedDatasources.PROMETHEUS,
+                    null, null, new URL("http://127.0.0.1:" + closedPort), AuthenticationConfig.noAuth());
+            assertThrows(HttpHostConnectException.class, () -> query(refused));
+            assertEquals(KruizeDeploymentInfo.datasource_initial_concurrency.doubleValue(), DataSourceLimiter.getInstance(refused).getLimit());
+
+            DataSourceInfo overloaded = new DataSourceInfo("limiter-overloaded-" + server.getAddress().getPort(),
+                    KruizeConstants.SupportedDatasources.PROMETHEUS, null, null,
+                    new URL("http://127.0.0.1:" + server.getAddress().getPort()), AuthenticationConfig.noAuth());
+            assertThrows(HttpResponseException.class, () -> query(overloaded));
+            assertEquals(KruizeDeploymentInfo.datasource_initial_concurrency * DECREASE_FACTOR,
+                    DataSourceLimiter.getInstance(overloaded).getLimit());
+        } finally {
+            server.stop(0);
+            KruizeDeploymentInfo.datasource_limiter = savedLimiter;
+        }
+    }
+
+    private static void query(DataSourceInfo dataSourceInfo) throws Exception {
+        GenericRestApiClient client = new GenericRestApiClient(dataSourceInfo);
+        client.setBaseURL(String.format(KruizeConstants.DataSourceConstants.DATE_ENDPOINT_WITH_QUERY, dataSourceInfo.getUrl(), "up"));
+        client.fetchMetricsJson(KruizeConstants.APIMessages.GET, "");
+    }
+}
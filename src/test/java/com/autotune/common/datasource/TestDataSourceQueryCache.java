@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.common.datasource;
+
+import com.autotune.common.auth.AuthenticationConfig;
+import com.autotune.operator.KruizeDeploymentInfo;
+import com.autotune.utils.KruizeConstants;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the datasource query cache against a stub of the Prometheus query API which counts the requests it serves
+ */
+public class TestDataSourceQueryCache {
+    private static final long STEP_SECS = 15 * 60;
+    private static final String RESULTS = "[{\"metric\":{\"container\":\"app\"},\"values\":[[1700000100,\"1\"]]}]";
+
+    private HttpServer server;
+    private DataSourceInfo dataSourceInfo;
+    private final List<String> rangeRequests = new CopyOnWriteArrayList<>();
+    private final AtomicInteger instantRequests = new AtomicInteger();
+    private final MutableClock clock = new MutableClock();
+    private DataSourceQueryCache cache;
+    private Boolean savedQueryCache;
+    private Integer savedTtlSecs;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        savedQueryCache = KruizeDeploymentInfo.query_cache;
+        savedTtlSecs = KruizeDeploymentInfo.query_cache_ttl_secs;
+        KruizeDeploymentInfo.query_cache = true;
+        KruizeDeploymentInfo.query_cache_ttl_secs = 60;
+        cache = new DataSourceQueryCache(clock);
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v1/query_range", exchange -> {
+            String query = exchange.getRequestURI().getRawQuery();
+            rangeRequests.add(URLDecoder.decode(query.substring(query.indexOf("&start=") + 1), StandardCharsets.UTF_8));
+            respond(exchange, "matrix");
+        });
+        server.createContext("/api/v1/query", exchange -> {
+            instantRequests.incrementAndGet();
+            respond(exchange, "vector");
+        });
+        server.start();
+        dataSourceInfo = new DataSourceInfo("query-cache-prometheus", KruizeConstants.SupportedDatasources.PROMETHEUS, null, null,
+                new URL("http://127.0.0.1:" + server.getAddress().getPort()), AuthenticationConfig.noAuth());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+        KruizeDeploymentInfo.query_cache = savedQueryCache;
+        KruizeDeploymentInfo.query_cache_ttl_secs = savedTtlSecs;
+    }
+
+    private static void respond(HttpExchange exchange, String resultType) throws IOException {
+        byte[] response = ("{\"status\":\"success\",\"data\":{\"resultType\":\"" + resultType + "\",\"result\":" + RESULTS + "}}")
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    private JsonArray fetchRange(String query, long startEpoch, long endEpoch, AtomicInteger loads) throws Exception {
+        return cache.fetchRange(dataSourceInfo, query, startEpoch, endEpoch, STEP_SECS, () -> {
+            loads.incrementAndGet();
+            return JsonParser.parseString(RESULTS).getAsJsonArray();
+        });
+    }
+
+    @Test
+    public void servesRepeatedRangesFromTheCache() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        JsonArray first = fetchRange("cpu_usage", 0, STEP_SECS * 10, loads);
+        // whitespace does not change the query
+        JsonArray second = fetchRange("  cpu_usage ", 0, STEP_SECS * 10, loads);
+        assertEquals(1, loads.get());
+        assertEquals(first, second);
+        // callers get their own copy
+        second.remove(0);
+        assertEquals(first, fetchRange("cpu_usage", 0, STEP_SECS * 10, loads));
+
+        fetchRange("cpu_usage", 0, STEP_SECS * 11, loads);
+        fetchRange("memory_usage", 0, STEP_SECS * 10, loads);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void reloadsExpiredResults() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        fetchRange("cpu_usage", 0, STEP_SECS, loads);
+        clock.advanceSecs(59);
+        fetchRange("cpu_usage", 0, STEP_SECS, loads);
+        assertEquals(1, loads.get());
+        clock.advanceSecs(1);
+        fetchRange("cpu_usage", 0, STEP_SECS, loads);
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void doesNotCacheWhenDisabled() throws Exception {
+        KruizeDeploymentInfo.query_cache = false;
+        AtomicInteger loads = new AtomicInteger();
+        fetchRange("cpu_usage", 0, STEP_SECS, loads);
+        fetchRange("cpu_usage", 0, STEP_SECS, loads);
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void collapsesIdenticalRequestsInFlight() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        Callable<JsonArray> loader = () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return JsonParser.parseString(RESULTS).getAsJsonArray();
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<JsonArray> first = executor.submit(() -> cache.get("key", loader));
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            Future<JsonArray> second = executor.submit(() -> cache.get("key", loader));
+            // the second request waits on the first one, it is released once that one completes
+            assertThrows(TimeoutException.class, () -> second.get(200, TimeUnit.MILLISECONDS));
+            release.countDown();
+            assertEquals(first.get(10, TimeUnit.SECONDS), second.get(10, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void sharesTheFailureOfARequestInFlight() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Callable<JsonArray> failingLoader = () -> {
+            loading.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            throw new IOException("datasource unavailable");
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<JsonArray> first = executor.submit(() -> cache.get("key", failingLoader));
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            Future<JsonArray> second = executor.submit(() -> cache.get("key", failingLoader));
+            assertThrows(TimeoutException.class, () -> second.get(200, TimeUnit.MILLISECONDS));
+            release.countDown();
+            assertTrue(assertThrows(ExecutionException.class, first::get).getCause() instanceof IOException);
+            assertTrue(assertThrows(ExecutionException.class, second::get).getCause() instanceof IOException);
+            // failures are not cached
+            assertEquals(0, cache.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void cachesInstantResultsForTheTtl() throws Exception {
+        String query = "max_date{container=\"app\"}";
+        JsonArray first = cache.fetchInstant(dataSourceInfo, query);
+        assertEquals(first, cache.fetchInstant(dataSourceInfo, query));
+        assertEquals(1, instantRequests.get());
+        clock.advanceSecs(60);
+        cache.fetchInstant(dataSourceInfo, query);
+        assertEquals(2, instantRequests.get());
+    }
+
+    @Test
+    public void sharesWindowsEndingWithinTheSameStep() throws Exception {
+        String query = "cpu_usage{instance=\"" + System.nanoTime() + "\"}";
+        long end = 1_700_000_123L;
+        RangeQuerySplitter splitter = new RangeQuerySplitter(dataSourceInfo);
+        JsonArray first = splitter.fetch(query, end - 2 * 60 * 60, end, STEP_SECS);
+        // evaluated a few minutes later, within the same step
+        JsonArray second = splitter.fetch(query, end + 300 - 2 * 60 * 60, end + 300, STEP_SECS);
+        assertEquals(first, second);
+        assertEquals(1, rangeRequests.size());
+        long alignedEnd = RangeQuerySplitter.alignToStep(end, STEP_SECS, false);
+        long alignedStart = RangeQuerySplitter.alignToStep(end - 2 * 60 * 60, STEP_SECS, true);
+        assertEquals("start=" + alignedStart + "&end=" + alignedEnd + "&step=" + STEP_SECS, rangeRequests.get(0));
+
+        // the next step is a new window
+        splitter.fetch(query, alignedEnd + STEP_SECS - 2 * 60 * 60, alignedEnd + STEP_SECS, STEP_SECS);
+        assertEquals(2, rangeRequests.size());
+    }
+}
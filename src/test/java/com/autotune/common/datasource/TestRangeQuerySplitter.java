@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.common.datasource;
+
+import com.autotune.common.auth.AuthenticationConfig;
+import com.autotune.operator.KruizeDeploymentInfo;
+import com.autotune.utils.KruizeConstants;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.client.HttpResponseException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the splitting of range queries into chunks and the stitching of their results, against a stub of the
+ * Prometheus query API which returns one sample per step
+ */
+public class TestRangeQuerySplitter {
+    private static final long STEP_SECS = 15 * 60;
+    private static final long HOUR_SECS = 60 * 60;
+
+    private HttpServer server;
+    private DataSourceInfo dataSourceInfo;
+    private final Map<Long, AtomicInteger> requestsByStart = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> failuresByStart = new ConcurrentHashMap<>();
+    private Boolean savedQueryCache;
+    private Integer savedChunkHours;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        savedQueryCache = KruizeDeploymentInfo.query_cache;
+        savedChunkHours = KruizeDeploymentInfo.range_query_chunk_hours;
+        KruizeDeploymentInfo.query_cache = false;
+        KruizeDeploymentInfo.range_query_chunk_hours = 1;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v1/query_range", this::handleRangeQuery);
+        server.start();
+        dataSourceInfo = new DataSourceInfo("range-query-prometheus", KruizeConstants.SupportedDatasources.PROMETHEUS, null, null,
+                new URL("http://127.0.0.1:" + server.getAddress().getPort()), AuthenticationConfig.noAuth());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+        KruizeDeploymentInfo.query_cache = savedQueryCache;
+        KruizeDeploymentInfo.range_query_chunk_hours = savedChunkHours;
+    }
+
+    private void handleRangeQuery(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        for (String param : exchange.getRequestURI().getRawQuery().split("&")) {
+            String[] pair = param.split("=", 2);
+            params.put(pair[0], pair[1]);
+        }
+        long start = Long.parseLong(params.get("start"));
+        long end = Long.parseLong(params.get("end"));
+        long step = Long.parseLong(params.get("step"));
+        int attempt = requestsByStart.computeIfAbsent(start, k -> new AtomicInteger()).incrementAndGet();
+        if (attempt <= failuresByStart.getOrDefault(start, 0)) {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+        StringBuilder values = new StringBuilder();
+        for (long time = start; time <= end; time += step) {
+            if (!values.isEmpty()) {
+                values.append(',');
+            }
+            values.append('[').append(time).append(",\"").append(time % 7).append("\"]");
+        }
+        byte[] response = ("{\"status\":\"success\",\"data\":{\"resultType\":\"matrix\",\"result\":"
+                + "[{\"metric\":{\"container\":\"app\"},\"values\":[" + values + "]}]}}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    private static JsonArray series(String container, long... times) {
+        JsonArray values = new JsonArray();
+        for (long time : times) {
+            JsonArray sample = new JsonArray();
+            sample.add(time);
+            sample.add(String.valueOf(time));
+            values.add(sample);
+        }
+        JsonObject result = new JsonObject();
+        result.add(KruizeConstants.JSONKeys.METRIC, JsonParser.parseString("{\"container\":\"" + container + "\"}"));
+        result.add(KruizeConstants.DataSourceConstants.DataSourceQueryJSONKeys.VALUES, values);
+        JsonArray resultArray = new JsonArray();
+        resultArray.add(result);
+        return resultArray;
+    }
+
+    private static List<Long> times(JsonObject series) {
+        List<Long> times = new ArrayList<>();
+        series.getAsJsonArray(KruizeConstants.DataSourceConstants.DataSourceQueryJSONKeys.VALUES)
+                .forEach(value -> times.add(value.getAsJsonArray().get(0).getAsLong()));
+        return times;
+    }
+
+    @Test
+    public void splitsOnTheStepGridWithoutOverlap() {
+        List<long[]> chunks = RangeQuerySplitter.split(0, 10 * STEP_SECS, STEP_SECS, 4);
+        assertEquals(3, chunks.size());
+        assertArrayEquals(new long[]{0, 3 * STEP_SECS}, chunks.get(0));
+        assertArrayEquals(new long[]{4 * STEP_SECS, 7 * STEP_SECS}, chunks.get(1));
+        // the last chunk ends with the window
+        assertArrayEquals(new long[]{8 * STEP_SECS, 10 * STEP_SECS}, chunks.get(2));
+    }
+
+    @Test
+    public void keepsWindowsItCannotSplit() {
+        assertArrayEquals(new long[]{100, 50}, RangeQuerySplitter.split(100, 50, STEP_SECS, 4).get(0));
+        assertArrayEquals(new long[]{0, 100}, RangeQuerySplitter.split(0, 100, 0, 4).get(0));
+        assertEquals(1, RangeQuerySplitter.split(0, 3 * STEP_SECS, STEP_SECS, 4).size());
+    }
+
+    @Test
+    public void capsThePointsOfAChunk() {
+        // an hour of 15 minute steps
+        assertEquals(4, RangeQuerySplitter.getMaxPointsPerChunk(STEP_SECS));
+        // a step longer than the chunk still fetches one point per chunk
+        assertEquals(1, RangeQuerySplitter.getMaxPointsPerChunk(2 * HOUR_SECS));
+        // never beyond the points per series limit of Prometheus
+        KruizeDeploymentInfo.range_query_chunk_hours = 24;
+        assertEquals(KruizeConstants.KRUIZE_RANGE_QUERY.MAX_POINTS_PER_SERIES, RangeQuerySplitter.getMaxPointsPerChunk(1));
+        KruizeDeploymentInfo.range_query_chunk_hours = 0;
+        assertEquals(KruizeConstants.KRUIZE_RANGE_QUERY.MAX_POINTS_PER_SERIES, RangeQuerySplitter.getMaxPointsPerChunk(STEP_SECS));
+    }
+
+    @Test
+    public void stitchesTheChunksOfEachSeries() {
+        JsonArray first = series("app", 0, 900, 1800);
+        first.addAll(series("sidecar", 0));
+        // a sample on the boundary of the chunks is kept once
+        JsonArray second = series("app", 1800, 2700);
+        JsonArray third = series("sidecar", 2700);
+        third.addAll(series("app", 2700, 3600));
+
+        JsonArray stitched = RangeQuerySplitter.stitch(List.of(first, second, third));
+        assertEquals(2, stitched.size());
+        JsonObject app = stitched.get(0).getAsJsonObject();
+        assertEquals("app", app.getAsJsonObject(KruizeConstants.JSONKeys.METRIC).get("container").getAsString());
+        assertEquals(List.of(0L, 900L, 1800L, 2700L, 3600L), times(app));
+        assertEquals(List.of(0L, 2700L), times(stitched.get(1).getAsJsonObject()));
+    }
+
+    @Test
+    public void fetchesTheSamplesOfASingleQuery() throws Exception {
+        long start = 1_700_000_100L;
+        long end = start + 3 * HOUR_SECS;
+        JsonArray results = new RangeQuerySplitter(dataSourceInfo).fetch("cpu_usage", start, end, STEP_SECS);
+        // an hour of points per chunk, the last point of the window is a chunk of its own
+        assertEquals(4, requestsByStart.size());
+        assertEquals(1, results.size());
+        List<Long> expected = new ArrayList<>();
+        for (long time = start; time <= end; time += STEP_SECS) {
+            expected.add(time);
+        }
+        assertEquals(expected, times(results.get(0).getAsJsonObject()));
+    }
+
+    @Test
+    public void retriesAFailedChunkOnItsOwn() throws Exception {
+        long start = 1_700_000_100L;
+        long secondChunk = start + HOUR_SECS;
+        failuresByStart.put(secondChunk, 1);
+        JsonArray results = new RangeQuerySplitter(dataSourceInfo).fetch("cpu_usage", start, start + 3 * HOUR_SECS, STEP_SECS);
+        assertEquals(2, requestsByStart.get(secondChunk).get());
+        assertEquals(1, requestsByStart.get(start).get());
+        assertEquals(13, times(results.get(0).getAsJsonObject()).size());
+    }
+
+    @Test
+    public void failsWhenAChunkStillFailsAfterItsRetries() {
+        long start = 1_700_000_100L;
+        long secondChunk = start + HOUR_SECS;
+        failuresByStart.put(secondChunk, Integer.MAX_VALUE);
+        HttpResponseException e = assertThrows(HttpResponseException.class,
+                () -> new RangeQuerySplitter(dataSourceInfo).fetch("cpu_usage", start, start + 3 * HOUR_SECS, STEP_SECS));
+        assertEquals(503, e.getStatusCode());
+        assertEquals(KruizeConstants.KRUIZE_RANGE_QUERY.CHUNK_ATTEMPTS, requestsByStart.get(secondChunk).get());
+    }
+}
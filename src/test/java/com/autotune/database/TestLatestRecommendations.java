@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.database;
+
+import com.autotune.database.helper.DBConstants;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestLatestRecommendations {
+
+    private static final int HISTORY_ROWS = 5000;
+    private static final String NAMESPACE = "{\"type\": \"namespace\", \"namespace\": \"ns\"}";
+
+    @BeforeAll
+    public static void createTables() throws Exception {
+        TestPostgres.createTable("kruize_experiments_ddl.sql", "kruize_experiments");
+        TestPostgres.createTable("kruize_experiments_ddl.sql", "kruize_recommendations");
+    }
+
+    @Test
+    public void testLatestRowOfEachContainer() throws Exception {
+        try (Connection connection = TestPostgres.connect(); Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists kruize_recommendations_default partition of kruize_recommendations default");
+            statement.execute("delete from kruize_recommendations");
+            statement.execute("delete from kruize_experiments");
+            insertExperiment(connection, "exp-1", container("app"), container("sidecar"));
+            insertExperiment(connection, "exp-2", container("app"));
+            insertExperiment(connection, "exp-ns", NAMESPACE);
+            // the sidecar is missing from the latest row of exp-1
+            insert(connection, "exp-1", "2024-01-01T00:00:00Z", container("app"), container("sidecar"));
+            insert(connection, "exp-1", "2024-01-01T01:00:00Z", container("app"), container("sidecar"));
+            insert(connection, "exp-1", "2024-01-01T02:00:00Z", container("app"));
+            insert(connection, "exp-2", "2024-01-01T00:00:00Z", container("app"));
+            insert(connection, "exp-2", "2024-01-01T03:00:00Z", container("app"));
+            // a namespace experiment has no containers
+            insert(connection, "exp-ns", "2024-01-01T00:00:00Z", NAMESPACE);
+            insert(connection, "exp-ns", "2024-01-01T04:00:00Z", NAMESPACE);
+
+            assertEquals(List.of("exp-1@2024-01-01T01:00:00Z", "exp-1@2024-01-01T02:00:00Z", "exp-2@2024-01-01T03:00:00Z",
+                    "exp-ns@2024-01-01T04:00:00Z"), rows(connection, DBConstants.SQLQUERY.SELECT_LATEST_FROM_RECOMMENDATIONS, null));
+            assertEquals(List.of("exp-1@2024-01-01T01:00:00Z", "exp-1@2024-01-01T02:00:00Z"),
+                    rows(connection, DBConstants.SQLQUERY.SELECT_LATEST_FROM_RECOMMENDATIONS_BY_EXP_NAME, "exp-1"));
+        }
+    }
+
+    @Test
+    public void testLatestRowIsReadThroughTheIndex() throws Exception {
+        try (Connection connection = TestPostgres.connect(); Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists kruize_recommendations_default partition of kruize_recommendations default");
+            statement.execute("delete from kruize_recommendations");
+            statement.execute("delete from kruize_experiments");
+            insertExperiment(connection, "exp-1", container("app"));
+            statement.execute("insert into kruize_recommendations (experiment_name, interval_end_time, extended_data) " +
+                    "select 'exp-1', timestamp '2024-01-01' + n * interval '15 minutes', " +
+                    "cast('{\"kubernetes_objects\": [" + container("app") + "]}' as jsonb) " +
+                    "from generate_series(1, " + HISTORY_ROWS + ") n");
+            statement.execute("analyze kruize_recommendations");
+
+            assertEquals(List.of("exp-1@" + Instant.parse("2024-01-01T00:00:00Z").plusSeconds(HISTORY_ROWS * 15 * 60L)),
+                    rows(connection, DBConstants.SQLQUERY.SELECT_LATEST_FROM_RECOMMENDATIONS_BY_EXP_NAME, "exp-1"));
+            // the history of the experiment is not scanned, only its latest row is read
+            long rowsRead = rowsRead(connection, DBConstants.SQLQUERY.SELECT_LATEST_FROM_RECOMMENDATIONS_BY_EXP_NAME, "exp-1");
+            assertTrue(rowsRead < 10, "read " + rowsRead + " recommendation rows of " + HISTORY_ROWS);
+        }
+    }
+
+    private static String container(String name) {
+        return "{\"type\": \"deployment\", \"name\": \"workload\", \"namespace\": \"ns\", \"containers\": [{\"container_name\": \"" + name + "\"}]}";
+    }
+
+    private static void insert(Connection connection, String experimentName, String intervalEndTime, String... kubernetesObjects) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "insert into kruize_recommendations (experiment_name, interval_end_time, extended_data) values (?, ?, cast(? as jsonb))")) {
+            statement.setString(1, experimentName);
+            statement.setTimestamp(2, Timestamp.from(Instant.parse(intervalEndTime)));
+            statement.setString(3, "{\"kubernetes_objects\": [" + String.join(", ", kubernetesObjects) + "]}");
+            statement.executeUpdate();
+        }
+    }
+
+    private static void insertExperiment(Connection connection, String experimentName, String... kubernetesObjects) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "insert into kruize_experiments (experiment_id, experiment_name, extended_data) values (?, ?, cast(? as jsonb))")) {
+            statement.setString(1, experimentName);
+            statement.setString(2, experimentName);
+            statement.setString(3, "{\"kubernetes_objects\": [" + String.join(", ", kubernetesObjects) + "]}");
+            statement.executeUpdate();
+        }
+    }
+
+    private static long rowsRead(Connection connection, String query, String experimentName) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN (ANALYZE, FORMAT JSON) "
+                + query.replace(":experimentName", "?"))) {
+            statement.setString(1, experimentName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return rowsRead(JsonParser.parseString(resultSet.getString(1)).getAsJsonArray().get(0).getAsJsonObject().getAsJsonObject("Plan"));
+            }
+        }
+    }
+
+    // rows the scans of the recommendation partitions return, over all their loops
+    private static long rowsRead(JsonObject plan) {
+        long rows = 0;
+        if (plan.has("Relation Name") && plan.get("Relation Name").getAsString().startsWith("kruize_recommendations")) {
+            rows += plan.get("Actual Rows").getAsLong() * plan.get("Actual Loops").getAsLong();
+        }
+        if (plan.has("Plans")) {
+            for (JsonElement child : plan.getAsJsonArray("Plans")) {
+                rows += rowsRead(child.getAsJsonObject());
+            }
+        }
+        return rows;
+    }
+
+    private static List<String> rows(Connection connection, String query, String experimentName) throws Exception {
+        List<String> rows = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(query.replace(":experimentName", "?")
+                + " ORDER BY experiment_name, interval_end_time")) {
+            if (null != experimentName) {
+                statement.setString(1, experimentName);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    rows.add(resultSet.getString("experiment_name") + "@" + resultSet.getTimestamp("interval_end_time").toInstant());
+                }
+            }
+        }
+        return rows;
+    }
+}
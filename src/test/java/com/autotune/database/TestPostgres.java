@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.database;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Assumptions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Postgres for the tests of the DB backed code: the one at the JDBC URL of the kruize.test.db.url system property if
+ * set, otherwise an embedded Postgres started once for the whole test run. The tests are skipped if neither is
+ * available, e.g. when the embedded one refuses to start as root.
+ */
+public final class TestPostgres {
+    public static final String DB_URL_PROPERTY = "kruize.test.db.url";
+    private static String jdbcUrl;
+    private static EmbeddedPostgres embeddedPostgres;
+
+    private TestPostgres() {
+    }
+
+    public static synchronized String getJdbcUrl() {
+        if (null == jdbcUrl) {
+            String configured = System.getProperty(DB_URL_PROPERTY);
+            if (null != configured && !configured.isBlank()) {
+                jdbcUrl = configured;
+            } else {
+                try {
+                    embeddedPostgres = EmbeddedPostgres.start();
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                        try {
+                            embeddedPostgres.close();
+                        } catch (IOException e) {
+                            // the process is exiting anyway
+                        }
+                    }));
+                    jdbcUrl = embeddedPostgres.getJdbcUrl("postgres", "postgres");
+                } catch (IOException | RuntimeException e) {
+                    Assumptions.assumeTrue(false, "No Postgres to test against: " + e.getMessage());
+                }
+            }
+        }
+        return jdbcUrl;
+    }
+
+    public static Connection connect() throws SQLException {
+        return DriverManager.getConnection(getJdbcUrl());
+    }
+
+    /**
+     * Runs the statements of the migration file that create the table, so that the tests use the shipped DDL
+     */
+    public static void createTable(String ddlFile, String tableName) throws IOException, SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            for (String line : Files.readAllLines(Path.of("migrations", ddlFile))) {
+                if (line.contains(" " + tableName + " ") || line.contains(" " + tableName + "(")) {
+                    statement.execute(line);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.database.coordination;
+
+import com.autotune.database.TestPostgres;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestKruizeCoordinator {
+    private static final int REPLICA_TIMEOUT_SECS = 1;
+    private static final int EXPERIMENTS = 3000;
+
+    private final List<KruizeCoordinator> coordinators = new ArrayList<>();
+    // the connections opened by each replica, closed by the tests to make a replica fail
+    private final Map<String, List<Connection>> connections = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        TestPostgres.createTable("kruize_experiments_ddl.sql", "kruize_replicas");
+        try (Connection connection = TestPostgres.connect(); Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM kruize_replicas");
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        coordinators.forEach(KruizeCoordinator::close);
+    }
+
+    @Test
+    public void testDutyRunsExactlyOnce() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            replica("replica-" + i);
+        }
+        ExecutorService replicas = Executors.newFixedThreadPool(coordinators.size());
+        Map<String, AtomicInteger> runs = new ConcurrentHashMap<>();
+        for (int round = 0; round < 20; round++) {
+            AtomicInteger ranThisRound = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> attempts = new ArrayList<>();
+            for (KruizeCoordinator coordinator : coordinators) {
+                attempts.add(replicas.submit(() -> {
+                    start.await();
+                    coordinator.runIfLeader("partitionMaintenance", () -> {
+                        ranThisRound.incrementAndGet();
+                        runs.computeIfAbsent(coordinator.getReplicaId(), id -> new AtomicInteger()).incrementAndGet();
+                    });
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> attempt : attempts) {
+                attempt.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(1, ranThisRound.get(), "round " + round);
+        }
+        replicas.shutdown();
+        // the replica that took the duty keeps it
+        assertEquals(1, runs.size());
+        assertEquals(20, runs.values().iterator().next().get());
+
+        // a second duty is independent of the first one
+        int holders = 0;
+        for (KruizeCoordinator coordinator : coordinators) {
+            holders += coordinator.tryAcquireDuty("otherDuty") ? 1 : 0;
+        }
+        assertEquals(1, holders);
+    }
+
+    @Test
+    public void testRebalanceOnFailure() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            replica("replica-" + i);
+        }
+        heartbeatAll();
+        assertEquals(List.of("replica-0", "replica-1", "replica-2"), coordinators.get(0).getLiveReplicas());
+        Map<String, String> owners = assertOwnedExactlyOnce(coordinators);
+        Map<String, Integer> counts = new HashMap<>();
+        owners.values().forEach(owner -> counts.merge(owner, 1, Integer::sum));
+        counts.values().forEach(count -> assertTrue(count > EXPERIMENTS / 6, "unbalanced " + counts));
+
+        // replica-1 holds the duty and dies: its connection goes away and it stops heartbeating
+        KruizeCoordinator failed = coordinators.get(1);
+        assertTrue(failed.tryAcquireDuty("partitionMaintenance"));
+        assertFalse(coordinators.get(0).tryAcquireDuty("partitionMaintenance"));
+        for (Connection connection : connections.get("replica-1")) {
+            connection.close();
+        }
+        List<KruizeCoordinator> survivors = List.of(coordinators.get(0), coordinators.get(2));
+        // the lock died with the session, a survivor takes the duty right away
+        int holders = 0;
+        for (KruizeCoordinator survivor : survivors) {
+            holders += survivor.tryAcquireDuty("partitionMaintenance") ? 1 : 0;
+        }
+        assertEquals(1, holders);
+
+        // once the heartbeat of replica-1 is too old its experiments move to the survivors, and only those
+        Thread.sleep(REPLICA_TIMEOUT_SECS * 1000L + 500);
+        // the survivors slept as well, the second round sees both of them alive again
+        for (int round = 0; round < 2; round++) {
+            for (KruizeCoordinator survivor : survivors) {
+                survivor.heartbeat();
+            }
+        }
+        assertEquals(List.of("replica-0", "replica-2"), survivors.get(0).getLiveReplicas());
+        Map<String, String> newOwners = assertOwnedExactlyOnce(survivors);
+        for (Map.Entry<String, String> entry : owners.entrySet()) {
+            if (!entry.getValue().equals("replica-1")) {
+                assertEquals(entry.getValue(), newOwners.get(entry.getKey()), entry.getKey());
+            }
+        }
+
+        // a replica leaving cleanly is dropped without waiting for the timeout
+        survivors.get(1).close();
+        survivors.get(0).heartbeat();
+        assertEquals(List.of("replica-0"), survivors.get(0).getLiveReplicas());
+        assertEquals(EXPERIMENTS, assertOwnedExactlyOnce(List.of(survivors.get(0))).size());
+    }
+
+    @Test
+    public void testOwnsNothingWithoutDatabase() {
+        KruizeCoordinator coordinator = new KruizeCoordinator("replica-x", () -> {
+            throw new SQLException("database is down");
+        }, REPLICA_TIMEOUT_SECS);
+        assertThrows(SQLException.class, coordinator::heartbeat);
+        assertFalse(coordinator.owns("experiment-1"));
+        assertFalse(coordinator.tryAcquireDuty("partitionMaintenance"));
+        coordinator.close();
+    }
+
+    private KruizeCoordinator replica(String replicaId) {
+        KruizeCoordinator coordinator = new KruizeCoordinator(replicaId, () -> {
+            Connection connection = TestPostgres.connect();
+            connections.computeIfAbsent(replicaId, id -> new CopyOnWriteArrayList<>()).add(connection);
+            return connection;
+        }, REPLICA_TIMEOUT_SECS);
+        coordinators.add(coordinator);
+        return coordinator;
+    }
+
+    private void heartbeatAll() throws SQLException {
+        for (KruizeCoordinator coordinator : coordinators) {
+            coordinator.heartbeat();
+        }
+        // the first ones saw the ring before the last ones joined
+        for (KruizeCoordinator coordinator : coordinators) {
+            coordinator.heartbeat();
+        }
+    }
+
+    private static Map<String, String> assertOwnedExactlyOnce(List<KruizeCoordinator> replicas) {
+        Map<String, String> owners = new HashMap<>();
+        for (int i = 0; i < EXPERIMENTS; i++) {
+            String experimentName = "prometheus-1|default|namespace-" + (i % 30) + "|workload-" + i + "(deployment)|container";
+            for (KruizeCoordinator replica : replicas) {
+                if (replica.owns(experimentName)) {
+                    assertNull(owners.put(experimentName, replica.getReplicaId()), experimentName + " owned twice");
+                }
+            }
+            assertTrue(owners.containsKey(experimentName), experimentName + " not owned");
+        }
+        return owners;
+    }
+}
@@ -0,0 +1,348 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.database.coordination;
+
+import com.autotune.analyzer.workerimpl.KruizeTaskManager;
+import com.autotune.database.TestPostgres;
+import com.autotune.database.init.KruizeHibernateUtil;
+import com.autotune.operator.KruizeDeploymentInfo;
+import com.autotune.utils.KruizeConstants;
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestKruizeTaskQueue {
+    private static final int WORKERS = 32;
+    private static final int TASKS = 20000;
+
+    private ComboPooledDataSource dataSource;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        TestPostgres.createTable("kruize_experiments_ddl.sql", "kruize_tasks");
+        try (Connection connection = TestPostgres.connect(); Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM kruize_tasks");
+        }
+        dataSource = new ComboPooledDataSource();
+        dataSource.setJdbcUrl(TestPostgres.getJdbcUrl());
+        dataSource.setMaxPoolSize(WORKERS + 4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    public void testClaimThroughputWithConcurrentWorkers() throws Exception {
+        KruizeTaskQueue queue = queue(60, 3);
+        try (Connection connection = TestPostgres.connect(); Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO kruize_tasks (task_type, task_key, payload, status, attempts, max_attempts, visible_at) " +
+                    "SELECT 'bench', 'task-' || i, 'payload-' || i, 'queued', 0, 3, now() FROM generate_series(1, " + TASKS + ") i");
+        }
+        Set<Long> processed = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(WORKERS);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < WORKERS; i++) {
+            String workerId = "worker-" + i;
+            futures.add(workers.submit(() -> {
+                while (true) {
+                    List<KruizeTask> tasks = queue.claim("bench", workerId, 1);
+                    if (tasks.isEmpty()) {
+                        return null;
+                    }
+                    for (KruizeTask task : tasks) {
+                        if (!processed.add(task.getId())) {
+                            duplicates.incrementAndGet();
+                        }
+                        assertTrue(queue.complete(task));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        workers.shutdown();
+
+        assertEquals(0, duplicates.get());
+        assertEquals(TASKS, processed.size());
+        assertTrue(queue.countByStatus().isEmpty());
+        System.out.printf("%d workers claimed and completed %d tasks in %d ms, %d tasks/s%n", WORKERS, TASKS,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), Math.round(TASKS / (elapsedNanos / 1e9)));
+    }
+
+    @Test
+    public void testEnqueueSkipsPendingDuplicates() throws Exception {
+        KruizeTaskQueue queue = queue(60, 1);
+        assertTrue(queue.enqueue("update", "experiment-1", "experiment-1"));
+        assertFalse(queue.enqueue("update", "experiment-1", "experiment-1"));
+        assertTrue(queue.enqueue("other", "experiment-1", "experiment-1"));
+        // tasks without a key are never duplicates
+        assertTrue(queue.enqueue("update", null, "a"));
+        assertTrue(queue.enqueue("update", null, "a"));
+
+        KruizeTask task = queue.claim("update", "worker", 10).stream()
+                .filter(claimed -> "experiment-1".equals(claimed.getKey())).findFirst().orElseThrow();
+        assertFalse(queue.enqueue("update", "experiment-1", "experiment-1"));
+        // a dead task does not block new work for the same key
+        assertTrue(queue.fail(task, "boom"));
+        assertTrue(queue.enqueue("update", "experiment-1", "experiment-1"));
+    }
+
+    @Test
+    public void testRetryWithBackoffThenDeadLetter() throws Exception {
+        KruizeTaskQueue queue = queue(60, 2);
+        assertEquals(1, queue.getBackoffSecs(1));
+        assertEquals(2, queue.getBackoffSecs(2));
+        assertEquals(4, queue.getBackoffSecs(3));
+        assertEquals(5, queue.getBackoffSecs(40));
+        queue.enqueue("update", "experiment-1", "payload");
+
+        KruizeTask first = queue.claim("update", "worker", 1).get(0);
+        assertEquals(1, first.getAttempt());
+        assertEquals("payload", first.getPayload());
+        assertFalse(queue.fail(first, "datasource down"));
+        // the task is back in the queue but not visible before its backoff
+        assertTrue(queue.claim("update", "worker", 1).isEmpty());
+        assertEquals("datasource down", lastError(first));
+
+        Thread.sleep(1200);
+        KruizeTask second = queue.claim("update", "worker", 1).get(0);
+        assertEquals(first.getId(), second.getId());
+        assertEquals(2, second.getAttempt());
+        assertTrue(second.isLastAttempt());
+        assertTrue(queue.fail(second, "datasource still down"));
+
+        Thread.sleep(1200);
+        assertTrue(queue.claim("update", "worker", 1).isEmpty());
+        assertEquals(Map.of("dead", 1), queue.countByStatus().get("update"));
+        assertEquals("datasource still down", lastError(second));
+    }
+
+    @Test
+    public void testExpiredClaimIsTakenOverAndFenced() throws Exception {
+        KruizeTaskQueue queue = queue(1, 2);
+        queue.enqueue("bulk", "job-1", "payload");
+        KruizeTask crashed = queue.claim("bulk", "replica-1", 1).get(0);
+        assertTrue(queue.claim("bulk", "replica-2", 1).isEmpty());
+
+        // a running task whose claim is extended stays with its worker
+        Thread.sleep(700);
+        assertEquals(1, queue.extend(List.of(crashed)));
+        Thread.sleep(700);
+        assertTrue(queue.claim("bulk", "replica-2", 1).isEmpty());
+
+        // once the claim expires another worker takes the task over
+        Thread.sleep(700);
+        KruizeTask takenOver = queue.claim("bulk", "replica-2", 1).get(0);
+        assertEquals(2, takenOver.getAttempt());
+        // the first worker cannot complete, fail nor extend the task anymore
+        assertFalse(queue.complete(crashed));
+        assertFalse(queue.fail(crashed, "late"));
+        assertEquals(0, queue.extend(List.of(crashed)));
+
+        // the last attempt expiring as well dead-letters the task
+        Thread.sleep(1200);
+        assertTrue(queue.claim("bulk", "replica-3", 1).isEmpty());
+        assertEquals(1, queue.deadLetterExpired());
+        assertEquals(Map.of("dead", 1), queue.countByStatus().get("bulk"));
+        assertFalse(queue.complete(takenOver));
+    }
+
+    @Test
+    public void testReleaseGivesBackTheAttempt() throws Exception {
+        KruizeTaskQueue queue = queue(60, 1);
+        queue.enqueue("bulk", "job-1", "payload");
+        KruizeTask released = queue.claim("bulk", "replica-1", 1).get(0);
+        assertTrue(queue.release(released));
+        KruizeTask claimed = queue.claim("bulk", "replica-2", 1).get(0);
+        assertEquals(2, claimed.getAttempt());
+        assertEquals(2, claimed.getMaxAttempts());
+        assertFalse(queue.complete(released));
+        assertTrue(queue.complete(claimed));
+    }
+
+    @Test
+    public void testManagerRetriesFailedTasks() throws Exception {
+        KruizeTaskQueue queue = queue(60, 3);
+        KruizeTaskManager manager = new KruizeTaskManager(queue, "replica-1", 50);
+        Map<String, AtomicInteger> runs = new ConcurrentHashMap<>();
+        manager.register("test", task -> {
+            int run = runs.computeIfAbsent(task.getKey(), key -> new AtomicInteger()).incrementAndGet();
+            if (task.getKey().startsWith("flaky") && run == 1) {
+                throw new IllegalStateException("transient failure");
+            }
+            if (task.getKey().startsWith("broken")) {
+                throw new IllegalStateException("permanent failure");
+            }
+        }, 4);
+        for (int i = 0; i < 20; i++) {
+            manager.enqueue("test", "task-" + i, null);
+        }
+        manager.enqueue("test", "flaky-1", null);
+        manager.enqueue("test", "broken-1", null);
+
+        long deadline = System.currentTimeMillis() + 30000;
+        while (!Map.of("dead", 1).equals(queue.countByStatus().get("test")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        manager.shutdown(5);
+        assertEquals(Map.of("dead", 1), queue.countByStatus().get("test"));
+        for (int i = 0; i < 20; i++) {
+            assertEquals(1, runs.get("task-" + i).get());
+        }
+        assertEquals(2, runs.get("flaky-1").get());
+        assertEquals(3, runs.get("broken-1").get());
+    }
+
+    @Test
+    public void testManagerKeepsResultsOfDoneTasks() throws Exception {
+        KruizeTaskQueue queue = queue(60, 3);
+        // a long poll interval, the idle workers are woken up by the enqueue
+        KruizeTaskManager manager = new KruizeTaskManager(queue, "replica-1", 5000);
+        manager.register("test", task -> {
+        }, 2, task -> "result-of-" + task.getKey());
+        Thread.sleep(200);
+        long queuedAt = System.currentTimeMillis();
+        manager.enqueue("test", "task-1", null);
+        long deadline = queuedAt + 30000;
+        KruizeTask task = queue.find("test", "task-1");
+        while (!KruizeConstants.TaskQueueConstants.DONE.equals(task.getStatus()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            task = queue.find("test", "task-1");
+        }
+        long doneAfter = System.currentTimeMillis() - queuedAt;
+        manager.shutdown(5);
+        assertEquals(KruizeConstants.TaskQueueConstants.DONE, task.getStatus());
+        assertEquals("result-of-task-1", task.getResult());
+        assertTrue(doneAfter < 4000, "the task waited for the poll interval: " + doneAfter + " ms");
+        assertNull(queue.find("test", "task-2"));
+
+        // a done task does not block the same work from being queued again
+        assertTrue(queue.enqueue("test", "task-1", null));
+        Thread.sleep(20);
+        assertEquals(1, queue.purgeFinished(0));
+        assertEquals(Map.of("queued", 1), queue.countByStatus().get("test"));
+    }
+
+    @Test
+    public void testQueueOnHibernateConnectionPool() throws Exception {
+        // the pool of the session factory hands out connections with autocommit off, as in production
+        URI uri = URI.create(TestPostgres.getJdbcUrl().substring("jdbc:".length()));
+        Map<String, String> params = new HashMap<>();
+        if (null != uri.getQuery()) {
+            for (String param : uri.getQuery().split("&")) {
+                String[] pair = param.split("=", 2);
+                params.put(pair[0], pair.length > 1 ? pair[1] : "");
+            }
+        }
+        KruizeDeploymentInfo.settings_db_driver = "jdbc:postgresql://";
+        KruizeDeploymentInfo.database_hostname = uri.getHost();
+        KruizeDeploymentInfo.database_port = String.valueOf(uri.getPort());
+        KruizeDeploymentInfo.database_dbname = uri.getPath().substring(1);
+        KruizeDeploymentInfo.database_username = params.getOrDefault("user", "postgres");
+        KruizeDeploymentInfo.database_password = params.getOrDefault("password", "");
+        KruizeDeploymentInfo.settings_hibernate_dialect = "org.hibernate.dialect.PostgreSQLDialect";
+        KruizeDeploymentInfo.settings_hibernate_connection_driver_class = "org.postgresql.Driver";
+        KruizeDeploymentInfo.settings_hibernate_c3p0_min_size = "1";
+        KruizeDeploymentInfo.settings_hibernate_c3p0_max_size = "2";
+        KruizeDeploymentInfo.settings_hibernate_c3p0_timeout = "300";
+        KruizeDeploymentInfo.settings_hibernate_c3p0_max_statements = "0";
+        KruizeDeploymentInfo.settings_hibernate_hbm2ddl_auto = "none";
+        KruizeDeploymentInfo.settings_hibernate_show_sql = "false";
+        KruizeDeploymentInfo.settings_hibernate_time_zone = "UTC";
+        KruizeHibernateUtil.buildSessionFactory();
+        try {
+            try (Connection connection = KruizeHibernateUtil.getPooledConnection()) {
+                assertFalse(connection.getAutoCommit());
+            }
+            KruizeTaskQueue queue = new KruizeTaskQueue(KruizeHibernateUtil::getPooledConnection, 60, 2, 1, 5);
+            assertTrue(queue.enqueue("update", "experiment-1", "payload"));
+            assertEquals(Map.of("queued", 1), countByStatus("update"));
+
+            KruizeTask task = queue.claim("update", "worker", 1).get(0);
+            assertEquals(Map.of("running", 1), countByStatus("update"));
+            assertFalse(queue.fail(task, "datasource down"));
+            assertEquals("datasource down", lastError(task));
+
+            Thread.sleep(1200);
+            KruizeTask retried = queue.claim("update", "worker", 1).get(0);
+            assertEquals(1, queue.extend(List.of(retried)));
+            assertTrue(queue.complete(retried));
+            assertNull(countByStatus("update"));
+        } finally {
+            KruizeHibernateUtil.closeSessionFactory();
+        }
+    }
+
+    /**
+     * Counts the tasks of the type by status on a connection of its own, so that only committed changes are seen
+     */
+    private Map<String, Integer> countByStatus(String type) throws SQLException {
+        Map<String, Integer> counts = new HashMap<>();
+        try (Connection connection = TestPostgres.connect();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT status, count(*) FROM kruize_tasks WHERE task_type = ? GROUP BY status")) {
+            statement.setString(1, type);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    counts.put(resultSet.getString(1), resultSet.getInt(2));
+                }
+            }
+        }
+        return counts.isEmpty() ? null : counts;
+    }
+
+    private KruizeTaskQueue queue(int visibilityTimeoutSecs, int maxAttempts) {
+        return new KruizeTaskQueue(dataSource::getConnection, visibilityTimeoutSecs, maxAttempts, 1, 5);
+    }
+
+    private String lastError(KruizeTask task) throws SQLException {
+        try (Connection connection = TestPostgres.connect();
+             PreparedStatement statement = connection.prepareStatement("SELECT last_error FROM kruize_tasks WHERE id = ?")) {
+            statement.setLong(1, task.getId());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                assertTrue(resultSet.next());
+                return resultSet.getString(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,367 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.database.rollup;
+
+import com.autotune.analyzer.recommendations.RecommendationConfigItem;
+import com.autotune.analyzer.recommendations.model.CostBasedRecommendationModel;
+import com.autotune.analyzer.recommendations.model.PerformanceBasedRecommendationModel;
+import com.autotune.analyzer.recommendations.model.RecommendationModel;
+import com.autotune.analyzer.serviceObjects.ContainerAPIObject;
+import com.autotune.analyzer.serviceObjects.UpdateResultsAPIObject;
+import com.autotune.analyzer.utils.AnalyzerConstants;
+import com.autotune.common.data.metrics.Metric;
+import com.autotune.common.data.result.IntervalResults;
+import com.autotune.database.TestPostgres;
+import com.autotune.database.helper.DBHelpers;
+import com.autotune.database.table.KruizeResultsEntry;
+import com.autotune.utils.KruizeConstants;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestResultsRollup {
+    // relative difference allowed between the recommendations of the raw results and of the rollups. The values of
+    // each field are kept to the 1% accuracy of the sketch, the rest comes from the rollups pairing the values of the
+    // fields of an interval by rank instead of by time, which moves the percentiles of the derived per interval values,
+    // the most those using the pod count given by the sum over the avg when the pod count changes over the bucket
+    private static final double RECOMMENDATION_TOLERANCE = 0.05;
+    private static final int DAYS = 15;
+    private static final long INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(15);
+    private static final String EXPERIMENT = "rollup-experiment";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void testSketchAccuracy() {
+        Random random = new Random(7);
+        QuantileSketch sketch = new QuantileSketch();
+        List<Double> values = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            double value = Math.exp(random.nextGaussian() * 3);
+            values.add(value);
+            sketch.add(value);
+        }
+        values.add(0.0);
+        sketch.add(0.0);
+        Collections.sort(values);
+        QuantileSketch roundTrip = QuantileSketch.fromJson(sketch.toJson());
+        assertEquals(values.size(), roundTrip.getCount());
+        for (int rank = 0; rank < values.size(); rank++) {
+            assertEquals(values.get(rank), roundTrip.getValueAtRank(rank), values.get(rank) * 0.01 + 1e-12);
+        }
+    }
+
+    @Test
+    public void testHourlyRollupsMergeIntoDaily() {
+        List<KruizeResultsEntry> results = generateResults();
+        Map<Long, ResultsRollup> daily = rollup(results, RollupTier.DAILY);
+        Map<Long, ResultsRollup> mergedHourly = new TreeMap<>();
+        for (ResultsRollup hourly : rollup(results, RollupTier.HOURLY).values()) {
+            Timestamp day = RollupTier.DAILY.getBucketStart(hourly.getBucketStart());
+            mergedHourly.computeIfAbsent(day.getTime(), time -> new ResultsRollup(EXPERIMENT, RollupTier.DAILY, day)).merge(hourly);
+        }
+        assertEquals(daily.keySet(), mergedHourly.keySet());
+        int intervals = 0;
+        for (Long day : daily.keySet()) {
+            assertSameRollup(daily.get(day), mergedHourly.get(day));
+            intervals += daily.get(day).getIntervalCount();
+            assertEquals(daily.get(day).getIntervalCount() * 15, daily.get(day).getDurationMinutes(), 1e-9);
+        }
+        assertEquals(results.size(), intervals);
+    }
+
+    @Test
+    public void testReadPlan() {
+        Timestamp end = Timestamp.from(Instant.parse("2024-01-16T10:37:00Z"));
+        Timestamp start = new Timestamp(end.getTime() - TimeUnit.DAYS.toMillis(15));
+        // no rollups, all raw
+        RollupReadPlan plan = new RollupReadPlan(start, end, null, 1, 7);
+        assertTrue(plan.isRawOnly());
+        // short term only
+        plan = new RollupReadPlan(new Timestamp(end.getTime() - TimeUnit.HOURS.toMillis(20)), end,
+                Timestamp.from(Instant.parse("2023-12-01T00:00:00Z")), 1, 7);
+        assertTrue(plan.isRawOnly());
+        // rollups from before the start
+        plan = new RollupReadPlan(start, end, Timestamp.from(Instant.parse("2023-12-01T00:00:00Z")), 1, 7);
+        assertEquals(List.of("2024-01-15T10:00:00Z..2024-01-16T10:37:00Z"), ranges(plan.getRawRanges()));
+        assertEquals(List.of("2024-01-01T00:00:00Z..2024-01-09T00:00:00Z"), ranges(plan.getRollupRanges(RollupTier.DAILY)));
+        assertEquals(List.of("2024-01-09T00:00:00Z..2024-01-15T10:00:00Z"), ranges(plan.getRollupRanges(RollupTier.HOURLY)));
+        // rollups turned on during the range, the first day is partly served hourly
+        plan = new RollupReadPlan(start, end, Timestamp.from(Instant.parse("2024-01-04T16:00:00Z")), 1, 7);
+        assertEquals(List.of("2024-01-01T10:37:00Z..2024-01-04T17:00:00Z", "2024-01-15T10:00:00Z..2024-01-16T10:37:00Z"),
+                ranges(plan.getRawRanges()));
+        assertEquals(List.of("2024-01-05T00:00:00Z..2024-01-09T00:00:00Z"), ranges(plan.getRollupRanges(RollupTier.DAILY)));
+        assertEquals(List.of("2024-01-04T17:00:00Z..2024-01-05T00:00:00Z", "2024-01-09T00:00:00Z..2024-01-15T10:00:00Z"),
+                ranges(plan.getRollupRanges(RollupTier.HOURLY)));
+    }
+
+    /**
+     * Compares the recommendations of the models over 15 days of results with a daily pattern, computed from the raw
+     * results and from the results served as the read path does, the last day raw, the days up to a week hourly and
+     * the older ones daily.
+     */
+    @Test
+    public void testRecommendationsFromRollupsMatchRaw() throws Exception {
+        List<KruizeResultsEntry> results = generateResults();
+        Timestamp end = results.get(results.size() - 1).getInterval_end_time();
+        Timestamp start = new Timestamp(end.getTime() - TimeUnit.DAYS.toMillis(DAYS));
+        RollupReadPlan plan = new RollupReadPlan(start, end, RollupTier.HOURLY.getBucketStart(results.get(0).getInterval_end_time()), 1, 7);
+        assertFalse(plan.getRollupRanges(RollupTier.HOURLY).isEmpty());
+        assertFalse(plan.getRollupRanges(RollupTier.DAILY).isEmpty());
+
+        List<KruizeResultsEntry> served = new ArrayList<>();
+        List<Timestamp[]> rawRanges = plan.getRawRanges();
+        for (KruizeResultsEntry entry : results) {
+            long endTime = entry.getInterval_end_time().getTime();
+            for (int i = 0; i < rawRanges.size(); i++) {
+                boolean last = i == rawRanges.size() - 1;
+                if (endTime >= rawRanges.get(i)[0].getTime() && (last ? endTime <= rawRanges.get(i)[1].getTime() : endTime < rawRanges.get(i)[1].getTime())) {
+                    served.add(entry);
+                }
+            }
+        }
+        int rawServed = served.size();
+        for (RollupTier tier : RollupTier.values()) {
+            Map<Long, ResultsRollup> rollups = rollup(results, tier);
+            for (Timestamp[] range : plan.getRollupRanges(tier)) {
+                for (ResultsRollup rollup : rollups.values()) {
+                    if (!rollup.getBucketStart().before(range[0]) && rollup.getBucketStart().before(range[1])) {
+                        // through the JSON of the aggregates column
+                        ResultsRollup stored = ResultsRollup.fromJson(EXPERIMENT, tier, rollup.getBucketStart(),
+                                MAPPER.readTree(rollup.toJson().toString()));
+                        stored.setClusterName(rollup.getClusterName());
+                        stored.setVersion(rollup.getVersion());
+                        for (KruizeResultsEntry entry : stored.toResultsEntries()) {
+                            if (!entry.getInterval_end_time().before(start)) {
+                                served.add(entry);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        assertTrue(rawServed < results.size() / 10);
+
+        Map<Timestamp, IntervalResults> rawIntervals = toIntervalResults(results);
+        Map<Timestamp, IntervalResults> servedIntervals = toIntervalResults(served);
+        // same intervals, with the same times, so the terms find the same data
+        assertEquals(rawIntervals.keySet(), servedIntervals.keySet());
+
+        List<RecommendationModel> models = List.of(new CostBasedRecommendationModel(), new PerformanceBasedRecommendationModel());
+        for (int days : new int[]{1, 7, 15}) {
+            Map<Timestamp, IntervalResults> rawTerm = term(rawIntervals, end, days);
+            Map<Timestamp, IntervalResults> servedTerm = term(servedIntervals, end, days);
+            assertEquals(rawTerm.size(), servedTerm.size());
+            for (RecommendationModel model : models) {
+                assertClose(model.getModelName() + " cpu " + days + "d",
+                        model.getCPURequestRecommendation(rawTerm, new ArrayList<>()),
+                        model.getCPURequestRecommendation(servedTerm, new ArrayList<>()), days);
+                assertClose(model.getModelName() + " memory " + days + "d",
+                        model.getMemoryRequestRecommendation(rawTerm, new ArrayList<>()),
+                        model.getMemoryRequestRecommendation(servedTerm, new ArrayList<>()), days);
+            }
+        }
+    }
+
+    /**
+     * Writes the results in batches that split the buckets, as the updateResults calls do, and reads the rollups back
+     */
+    @Test
+    public void testStoreMergesBatchesIntoBuckets() throws Exception {
+        for (RollupTier tier : RollupTier.values()) {
+            TestPostgres.createTable("kruize_experiments_ddl.sql", tier.getTableName());
+        }
+        List<KruizeResultsEntry> results = generateResults().subList(0, 3 * 96);
+        try (Connection connection = TestPostgres.connect()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("TRUNCATE kruize_rollups_hourly, kruize_rollups_daily");
+            }
+            connection.setAutoCommit(false);
+            for (int from = 0; from < results.size(); from += 7) {
+                ResultsRollupStore.addResults(connection, results.subList(from, Math.min(results.size(), from + 7)));
+                connection.commit();
+            }
+            connection.setAutoCommit(true);
+            Timestamp firstBucket = ResultsRollupStore.getFirstBucketStart(connection, EXPERIMENT, "cluster-one");
+            assertEquals(RollupTier.HOURLY.getBucketStart(results.get(0).getInterval_end_time()), firstBucket);
+            assertNull(ResultsRollupStore.getFirstBucketStart(connection, EXPERIMENT, "cluster-two"));
+            for (RollupTier tier : RollupTier.values()) {
+                Map<Long, ResultsRollup> expected = rollup(results, tier);
+                List<ResultsRollup> loaded = ResultsRollupStore.loadRollups(connection, tier, EXPERIMENT, "cluster-one",
+                        new Timestamp(0), Timestamp.from(Instant.parse("2100-01-01T00:00:00Z")));
+                assertEquals(expected.size(), loaded.size());
+                for (ResultsRollup rollup : loaded) {
+                    assertSameRollup(expected.get(rollup.getBucketStart().getTime()), rollup);
+                    assertEquals("cluster-one", rollup.getClusterName());
+                }
+            }
+            ResultsRollupStore.deleteRollups(connection, EXPERIMENT);
+            assertNull(ResultsRollupStore.getFirstBucketStart(connection, EXPERIMENT, "cluster-one"));
+        }
+    }
+
+    /**
+     * The sums only match to the rounding of the order they were added in, the rest of the rollups merge exactly
+     */
+    private static void assertSameRollup(ResultsRollup expected, ResultsRollup actual) {
+        List<KruizeResultsEntry> expectedEntries = expected.toResultsEntries();
+        List<KruizeResultsEntry> actualEntries = actual.toResultsEntries();
+        assertEquals(expectedEntries.size(), actualEntries.size());
+        for (int i = 0; i < expectedEntries.size(); i++) {
+            assertEquals(expectedEntries.get(i).getInterval_start_time(), actualEntries.get(i).getInterval_start_time());
+            assertEquals(expectedEntries.get(i).getInterval_end_time(), actualEntries.get(i).getInterval_end_time());
+            assertEquals(expectedEntries.get(i).getExtended_data(), actualEntries.get(i).getExtended_data());
+        }
+        Iterator<JsonNode> expectedSums = expected.toJson().findValues(KruizeConstants.JSONKeys.SUM).iterator();
+        for (JsonNode sum : actual.toJson().findValues(KruizeConstants.JSONKeys.SUM)) {
+            double expectedSum = expectedSums.next().asDouble();
+            assertEquals(expectedSum, sum.asDouble(), Math.max(1e-12, Math.abs(expectedSum) * 1e-9));
+        }
+        assertFalse(expectedSums.hasNext());
+    }
+
+    private static void assertClose(String name, RecommendationConfigItem raw, RecommendationConfigItem served, int days) {
+        assertNotNull(raw, name);
+        assertNotNull(served, name);
+        if (1 == days) {
+            // the short term is read raw
+            assertEquals(raw.getAmount(), served.getAmount(), name);
+        } else {
+            double error = Math.abs(served.getAmount() - raw.getAmount()) / raw.getAmount();
+            System.out.printf("%s: raw %.4f rollups %.4f error %.2f%%%n", name, raw.getAmount(), served.getAmount(), error * 100);
+            assertTrue(error <= RECOMMENDATION_TOLERANCE, name + " raw " + raw.getAmount() + " rollups " + served.getAmount());
+        }
+        assertEquals(raw.getFormat(), served.getFormat(), name);
+    }
+
+    private static Map<Timestamp, IntervalResults> term(Map<Timestamp, IntervalResults> intervals, Timestamp end, int days) {
+        Timestamp from = new Timestamp(end.getTime() - TimeUnit.DAYS.toMillis(days));
+        Map<Timestamp, IntervalResults> term = new HashMap<>();
+        intervals.forEach((endTime, intervalResults) -> {
+            if (endTime.after(from)) {
+                term.put(endTime, intervalResults);
+            }
+        });
+        return term;
+    }
+
+    private static Map<Timestamp, IntervalResults> toIntervalResults(List<KruizeResultsEntry> entries) {
+        Map<Timestamp, IntervalResults> intervals = new HashMap<>();
+        for (UpdateResultsAPIObject result : DBHelpers.Converters.KruizeObjectConverters.convertResultEntryToUpdateResultsAPIObject(entries)) {
+            IntervalResults intervalResults = new IntervalResults(result.getStartTimestamp(), result.getEndTimestamp());
+            ContainerAPIObject container = result.getKubernetesObjects().get(0).getContainerAPIObjects().get(0);
+            HashMap<AnalyzerConstants.MetricName, com.autotune.common.data.metrics.MetricResults> metricResults = new HashMap<>();
+            for (Metric metric : container.getMetrics()) {
+                metricResults.put(AnalyzerConstants.MetricName.valueOf(metric.getName()), metric.getMetricResult());
+            }
+            intervalResults.setMetricResultsMap(metricResults);
+            assertNull(intervals.put(result.getEndTimestamp(), intervalResults));
+        }
+        return intervals;
+    }
+
+    private static Map<Long, ResultsRollup> rollup(List<KruizeResultsEntry> results, RollupTier tier) {
+        Map<Long, ResultsRollup> rollups = new TreeMap<>();
+        for (KruizeResultsEntry entry : results) {
+            Timestamp bucketStart = tier.getBucketStart(entry.getInterval_end_time());
+            rollups.computeIfAbsent(bucketStart.getTime(), time -> new ResultsRollup(EXPERIMENT, tier, bucketStart)).add(entry);
+        }
+        return rollups;
+    }
+
+    private static List<String> ranges(List<Timestamp[]> ranges) {
+        List<String> strings = new ArrayList<>();
+        for (Timestamp[] range : ranges) {
+            strings.add(range[0].toInstant() + ".." + range[1].toInstant());
+        }
+        return strings;
+    }
+
+    /**
+     * 15 days of 15 minute results of a container with a daily usage pattern and noise, the intervals not aligned to
+     * the hours as is usual for the results sent to Kruize
+     */
+    private static List<KruizeResultsEntry> generateResults() {
+        Random random = new Random(42);
+        long startTime = Instant.parse("2024-01-01T00:07:13.511Z").toEpochMilli();
+        List<KruizeResultsEntry> results = new ArrayList<>();
+        for (int i = 0; i < DAYS * 96; i++) {
+            long intervalStart = startTime + i * INTERVAL_MILLIS;
+            double hour = (i % 96) / 4.0;
+            double load = 0.55 + 0.4 * Math.sin(2 * Math.PI * hour / 24) + 0.08 * random.nextGaussian();
+            load = Math.max(0.05, load);
+            int pods = random.nextInt(10) == 0 ? 3 : 2;
+            ObjectNode metrics = MAPPER.createObjectNode();
+            double cpuAvg = 1.6 * load;
+            addMetric(metrics, "cpuUsage", "cores", cpuAvg, cpuAvg * (1.1 + 0.3 * random.nextDouble()),
+                    cpuAvg * (0.5 + 0.3 * random.nextDouble()), pods);
+            double throttleAvg = 0.05 * load * random.nextDouble();
+            addMetric(metrics, "cpuThrottle", "cores", throttleAvg, throttleAvg * 1.5, throttleAvg * 0.5, pods);
+            addMetric(metrics, "cpuRequest", "cores", 1.0, 1.0, 1.0, pods);
+            addMetric(metrics, "cpuLimit", "cores", 2.0, 2.0, 2.0, pods);
+            double memoryAvg = 600e6 + 300e6 * load + 20e6 * random.nextGaussian();
+            addMetric(metrics, "memoryUsage", "bytes", memoryAvg, memoryAvg * (1.05 + 0.1 * random.nextDouble()),
+                    memoryAvg * (0.85 + 0.1 * random.nextDouble()), pods);
+            double rssAvg = memoryAvg * 0.8;
+            addMetric(metrics, "memoryRSS", "bytes", rssAvg, rssAvg * (1.05 + 0.1 * random.nextDouble()),
+                    rssAvg * (0.85 + 0.1 * random.nextDouble()), pods);
+            addMetric(metrics, "memoryRequest", "bytes", 1e9, 1e9, 1e9, pods);
+            addMetric(metrics, "memoryLimit", "bytes", 2e9, 2e9, 2e9, pods);
+
+            ObjectNode extendedData = MAPPER.createObjectNode();
+            ObjectNode object = extendedData.putArray("kubernetes_objects").addObject();
+            object.put("type", "deployment");
+            object.put("name", "tfb-qrh-sample");
+            object.put("namespace", "default");
+            ObjectNode container = object.putObject("containers").putObject("tfb-server");
+            container.put("container_image_name", "kruize/tfb-qrh:1.13.2.F_et17");
+            container.put("container_name", "tfb-server");
+            container.set("metrics", metrics);
+
+            KruizeResultsEntry entry = new KruizeResultsEntry();
+            entry.setVersion("v2.0");
+            entry.setExperiment_name(EXPERIMENT);
+            entry.setCluster_name("cluster-one");
+            entry.setInterval_start_time(new Timestamp(intervalStart));
+            entry.setInterval_end_time(new Timestamp(intervalStart + INTERVAL_MILLIS));
+            entry.setDuration_minutes(15.0);
+            entry.setExtended_data(extendedData);
+            results.add(entry);
+        }
+        return results;
+    }
+
+    private static void addMetric(ObjectNode metrics, String name, String format, double avg, double max, double min, int pods) {
+        ObjectNode metric = metrics.putObject(name);
+        metric.put("name", name);
+        ObjectNode aggregationInfo = metric.putObject("results").putObject("aggregation_info");
+        aggregationInfo.put("avg", avg);
+        aggregationInfo.put("max", max);
+        aggregationInfo.put("min", min);
+        aggregationInfo.put("sum", avg * pods);
+        aggregationInfo.put("count", pods);
+        aggregationInfo.put("format", format);
+    }
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.utils;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsAsyncClient;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the CloudWatch appender against a local stub of the PutLogEvents API
+ */
+public class TestCloudWatchAppender {
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger receivedEvents = new AtomicInteger();
+
+    @BeforeEach
+    public void startStub() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                JSONObject request = new JSONObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                requests.incrementAndGet();
+                receivedEvents.addAndGet(request.getJSONArray("logEvents").length());
+            }
+            byte[] response = "{\"nextSequenceToken\":\"1\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/x-amz-json-1.1");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopStub() {
+        server.stop(0);
+    }
+
+    private CloudWatchAppender createAppender(int bufferSize, long flushIntervalMillis) {
+        CloudWatchLogsAsyncClient client = CloudWatchLogsAsyncClient.builder()
+                .endpointOverride(URI.create("http://127.0.0.1:" + server.getAddress().getPort()))
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+                .region(Region.US_EAST_1)
+                .build();
+        return new CloudWatchAppender("testCloudWatchAppender", null, PatternLayout.createDefaultLayout(),
+                "testGroup", "testStream", client, bufferSize, flushIntervalMillis, false);
+    }
+
+    private static Log4jLogEvent logEvent(int i) {
+        return Log4jLogEvent.newBuilder()
+                .setLevel(Level.INFO)
+                .setLoggerName(TestCloudWatchAppender.class.getName())
+                .setMessage(new SimpleMessage("log line " + i))
+                .setTimeMillis(System.currentTimeMillis())
+                .build();
+    }
+
+    @Test
+    public void testEventsAreSentInBatches() {
+        int events = 25000;
+        CloudWatchAppender appender = createAppender(32768, 200);
+        appender.start();
+        for (int i = 0; i < events; i++) {
+            appender.append(logEvent(i));
+        }
+        appender.stop(10, TimeUnit.SECONDS);
+
+        assertEquals(events, receivedEvents.get());
+        // at most 10000 events fit in one request
+        assertTrue(requests.get() >= 3, "requests: " + requests.get());
+        assertTrue(requests.get() < 100, "requests: " + requests.get());
+    }
+
+    @Test
+    public void testEventsAreDroppedWhenBufferIsFull() {
+        // never started, so nothing is sent until the explicit flush
+        CloudWatchAppender appender = createAppender(4, TimeUnit.HOURS.toMillis(1));
+        for (int i = 0; i < 10; i++) {
+            appender.append(logEvent(i));
+        }
+        appender.flush();
+
+        assertEquals(4, receivedEvents.get());
+        assertEquals(1, requests.get());
+        appender.stop(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2024 Red Hat, IBM Corporation and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.autotune.utils;
+
+import com.autotune.common.target.kubernetes.service.impl.KubernetesServicesImpl;
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.ObjectReference;
+import io.fabric8.kubernetes.api.model.ObjectReferenceBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesCrudDispatcher;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.mockwebserver.Context;
+import io.fabric8.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestKubeEventLogger {
+    private static final String NAMESPACE = "monitoring";
+
+    private KubernetesMockServer server;
+    private KubernetesClient client;
+
+    @BeforeEach
+    public void setUp() {
+        server = new KubernetesMockServer(new Context(), new MockWebServer(), new HashMap<>(), new KubernetesCrudDispatcher(), false);
+        server.init();
+        client = server.createClient();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        client.close();
+        server.destroy();
+    }
+
+    @Test
+    public void testIdenticalEventsAreCoalesced() throws Exception {
+        try (KubeEventLogger logger = new KubeEventLogger(Clock.systemUTC(), new KubernetesServicesImpl(client), 100, 50, 300)) {
+            for (int i = 0; i < 20; i++) {
+                logger.log("Failed", "Invalid experiment", EventLogger.Type.Warning, null, NAMESPACE, reference("exp-1"), null);
+            }
+            for (int i = 0; i < 5; i++) {
+                logger.log("Failed", "Invalid experiment", EventLogger.Type.Warning, null, NAMESPACE, reference("exp-2"), null);
+            }
+            waitFor(() -> logger.getWrittenCount() == 2);
+            assertEquals(23, logger.getCoalescedCount());
+            assertEquals(0, logger.getDroppedCount());
+            // one lookup and one create per distinct event
+            assertEquals(4, server.getRequestCount());
+            assertEquals(Integer.valueOf(20), findEvent("exp-1").getCount());
+            assertEquals(Integer.valueOf(5), findEvent("exp-2").getCount());
+
+            // once written, the next occurrences add to the same event
+            for (int i = 0; i < 3; i++) {
+                logger.log("Failed", "Invalid experiment", EventLogger.Type.Warning, null, NAMESPACE, reference("exp-1"), null);
+            }
+            waitFor(() -> logger.getWrittenCount() == 3);
+            assertEquals(Integer.valueOf(23), findEvent("exp-1").getCount());
+            assertEquals(2, client.v1().events().inNamespace(NAMESPACE).list().getItems().size());
+        }
+    }
+
+    @Test
+    public void testEventsAreDroppedUnderOverload() throws Exception {
+        int events = 20000;
+        int queueSize = 10;
+        try (KubeEventLogger logger = new KubeEventLogger(Clock.systemUTC(), new KubernetesServicesImpl(client), queueSize, 2, 0)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < events; i++) {
+                logger.log("Failed", "Failure " + i, EventLogger.Type.Warning, null, NAMESPACE, reference("exp-" + i), null);
+            }
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            // the writer can not get past the rate limit, so all but a queue full, the burst of 2 and the event
+            // waiting for a token have to be dropped
+            assertTrue(elapsedMillis < 5000, "logging took " + elapsedMillis + " ms");
+            assertTrue(logger.getDroppedCount() >= events - queueSize - 5, "dropped " + logger.getDroppedCount());
+            TimeUnit.MILLISECONDS.sleep(1000);
+            assertTrue(logger.getWrittenCount() <= 2 + 2 + 1, "written " + logger.getWrittenCount());
+        }
+    }
+
+    private Event findEvent(String objectName) {
+        List<Event> events = client.v1().events().inNamespace(NAMESPACE).list().getItems();
+        return events.stream()
+                .filter(event -> objectName.equals(event.getInvolvedObject().getName()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no event for " + objectName + " in " + events));
+    }
+
+    private static ObjectReference reference(String name) {
+        return new ObjectReferenceBuilder()
+                .withKind("Autotune")
+                .withName(name)
+                .withNamespace(NAMESPACE)
+                .build();
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+    }
+}